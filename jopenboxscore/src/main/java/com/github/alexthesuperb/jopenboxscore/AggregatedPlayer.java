@@ -51,6 +51,17 @@ public class AggregatedPlayer extends BaseballPlayer {
         }
     }
 
+    /**
+     * Add another player's totals to this instance without keeping them as
+     * a performance, as when merging partial summaries.
+     * @param totals The totals, which must belong to the same player.
+     */
+    void addTotals(BaseballPlayer totals) {
+        if (totals.playerId.equals(this.playerId)) {
+            addToTotals(totals);
+        }
+    }
+
     /**
      * Add statistics stored in <code>performance</code> to
      * <code>AggregatedPlayer</code>'s statistics.
@@ -89,6 +89,46 @@ public class AggregatedTeam<T extends SingleGameTeam> extends
         }
     }
 
+    /** Add to this team's record against <code>opponentId</code>; see <code>RecordMatrix</code>. */
+    void addRecord(String opponentId, int[] record) {
+        winLossRecord.addRecord(opponentId, record);
+    }
+
+    /** Add a player restored by <code>SummaryCodec</code>, who must not already be listed. */
+    void addPlayer(AggregatedPlayer player, boolean isPitcher) {
+        if (isPitcher) {
+            aggregatedPitchers.add(player);
+        } else {
+            aggregatedPositionPlayers.add(player);
+        }
+    }
+
+    /**
+     * Add the totals of another instance of the same team, such as one read
+     * from a partial summary. Players this team does not list are taken over
+     * from <code>other</code>, which must not be used afterwards.
+     * @param other A team with the same ID.
+     */
+    void merge(AggregatedTeam<?> other) {
+        for (String opponentId : other.getOpponentIds()) {
+            winLossRecord.addRecord(opponentId, other.getRecordVersusTeam(opponentId));
+        }
+        for (AggregatedPlayer p : other.getAllPitchers()) {
+            if (containsPitcher(p.getPlayerId())) {
+                getPitcher(p.getPlayerId()).addTotals(p);
+            } else {
+                aggregatedPitchers.add(p);
+            }
+        }
+        for (AggregatedPlayer b : other.getAllPositionPlayers()) {
+            if (containsPositionPlayer(b.getPlayerId())) {
+                getPositionPlayer(b.getPlayerId()).addTotals(b);
+            } else {
+                aggregatedPositionPlayers.add(b);
+            }
+        }
+    }
+
     public int[] getRecordVersusTeam(String opponentId) {
         return winLossRecord.getRecord(opponentId);
     }
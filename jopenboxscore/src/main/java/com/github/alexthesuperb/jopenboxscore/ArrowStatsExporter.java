@@ -0,0 +1,274 @@
+package com.github.alexthesuperb.jopenboxscore;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * <p>
+ * Export finalized game accounts as three Apache Arrow IPC streams, so that
+ * parsed seasons can be loaded by columnar analytics tools without any text
+ * parsing:
+ * </p>
+ * <ul>
+ * <li><b>teams</b> - one row per team per game, with the game's outcome and
+ * the team's totals.</li>
+ * <li><b>batting</b> - one row per position player per game.</li>
+ * <li><b>pitching</b> - one row per pitcher per game.</li>
+ * </ul>
+ * <p>
+ * Team and player ID columns are dictionary-encoded. Games are streamed into
+ * record batches as they are added; <code>write()</code> flushes the final,
+ * partially filled batches and closes the three streams.
+ * </p>
+ */
+public class ArrowStatsExporter implements BaseballBoxscore, GameSink {
+
+    /** File name suffixes used by <code>ArrowStatsExporter(String, int)</code>. */
+    public static final String TEAMS_SUFFIX = "-teams.arrows";
+    public static final String BATTING_SUFFIX = "-batting.arrows";
+    public static final String PITCHING_SUFFIX = "-pitching.arrows";
+
+    private static final String[] teamStatKeys = {BaseballPlayer.KEY_AB,
+                                                  BaseballPlayer.KEY_H,
+                                                  BaseballPlayer.KEY_2B,
+                                                  BaseballPlayer.KEY_3B,
+                                                  BaseballPlayer.KEY_HR,
+                                                  BaseballPlayer.KEY_RBI,
+                                                  BaseballPlayer.KEY_BB,
+                                                  BaseballPlayer.KEY_SO,
+                                                  BaseballPlayer.KEY_SB,
+                                                  BaseballPlayer.KEY_CS,
+                                                  BaseballPlayer.KEY_E};
+
+    private static final String[] battingKeys =   {BaseballPlayer.KEY_AB,
+                                                  BaseballPlayer.KEY_R,
+                                                  BaseballPlayer.KEY_H,
+                                                  BaseballPlayer.KEY_2B,
+                                                  BaseballPlayer.KEY_3B,
+                                                  BaseballPlayer.KEY_HR,
+                                                  BaseballPlayer.KEY_RBI,
+                                                  BaseballPlayer.KEY_BB,
+                                                  BaseballPlayer.KEY_SO,
+                                                  BaseballPlayer.KEY_SB,
+                                                  BaseballPlayer.KEY_CS,
+                                                  BaseballPlayer.KEY_HBP,
+                                                  BaseballPlayer.KEY_SF,
+                                                  BaseballPlayer.KEY_SH,
+                                                  BaseballPlayer.KEY_E,
+                                                  BaseballPlayer.KEY_PB};
+
+    private static final String[] pitchingKeys =  {BaseballPlayer.KEY_PITCHER_GS,
+                                                  BaseballPlayer.KEY_BATTERS_RETIRED,
+                                                  BaseballPlayer.KEY_PITCHER_H,
+                                                  BaseballPlayer.KEY_PITCHER_R,
+                                                  BaseballPlayer.KEY_PITCHER_ER,
+                                                  BaseballPlayer.KEY_PITCHER_BB,
+                                                  BaseballPlayer.KEY_PITCHER_SO,
+                                                  BaseballPlayer.KEY_PITCHER_WP,
+                                                  BaseballPlayer.KEY_PITCHER_BK,
+                                                  BaseballPlayer.KEY_E};
+
+    private final ArrowStreamWriter teams;
+    private final ArrowStreamWriter batting;
+    private final ArrowStreamWriter pitching;
+
+    /* Column indexes of each table: its game key columns, then its own columns. */
+    private final int[] teamKeyColumns;
+    private final int[] battingKeyColumns;
+    private final int[] pitchingKeyColumns;
+
+    private final int[] teamStatColumns;
+    private final int[] battingStatColumns;
+    private final int[] pitchingStatColumns;
+
+    /**
+     * Open <code>prefix + TEAMS_SUFFIX</code>, <code>prefix + BATTING_SUFFIX</code>
+     * and <code>prefix + PITCHING_SUFFIX</code> for writing.
+     *
+     * @param prefix The path and file name prefix shared by the three files.
+     * @param batchSize The number of rows per record batch.
+     * @throws IOException if one of the files cannot be opened.
+     */
+    public ArrowStatsExporter(String prefix, int batchSize) throws IOException {
+        this(new BufferedOutputStream(new FileOutputStream(prefix + TEAMS_SUFFIX)),
+             new BufferedOutputStream(new FileOutputStream(prefix + BATTING_SUFFIX)),
+             new BufferedOutputStream(new FileOutputStream(prefix + PITCHING_SUFFIX)),
+             batchSize);
+    }
+
+    /**
+     * @param teamsOut Destination of the team-game table.
+     * @param battingOut Destination of the batter game line table.
+     * @param pitchingOut Destination of the pitcher game line table.
+     * @param batchSize The number of rows per record batch.
+     */
+    public ArrowStatsExporter(OutputStream teamsOut, OutputStream battingOut,
+            OutputStream pitchingOut, int batchSize) {
+        teams = new ArrowStreamWriter(teamsOut, batchSize);
+        batting = new ArrowStreamWriter(battingOut, batchSize);
+        pitching = new ArrowStreamWriter(pitchingOut, batchSize);
+
+        teamKeyColumns = addKeyColumns(teams);
+        teamStatColumns = new int[teamStatKeys.length + 11];
+        int i = 0;
+        teamStatColumns[i++] = teams.addDictionaryColumn("day_night");
+        teamStatColumns[i++] = teams.addIntColumn("game_number");
+        teamStatColumns[i++] = teams.addBooleanColumn("home");
+        teamStatColumns[i++] = teams.addDictionaryColumn("outcome");
+        teamStatColumns[i++] = teams.addIntColumn("runs");
+        teamStatColumns[i++] = teams.addIntColumn("runs_allowed");
+        teamStatColumns[i++] = teams.addStringColumn("linescore");
+        for (String k : teamStatKeys) {
+            teamStatColumns[i++] = teams.addIntColumn(k);
+        }
+        teamStatColumns[i++] = teams.addIntColumn("lob");
+        teamStatColumns[i++] = teams.addIntColumn("dp");
+        teamStatColumns[i++] = teams.addIntColumn("attendance");
+        teamStatColumns[i++] = teams.addIntColumn("time_of_game");
+
+        battingKeyColumns = addKeyColumns(batting);
+        battingStatColumns = new int[battingKeys.length + 4];
+        i = 0;
+        battingStatColumns[i++] = batting.addDictionaryColumn("player_id");
+        battingStatColumns[i++] = batting.addIntColumn("lineup_spot");
+        battingStatColumns[i++] = batting.addIntColumn("lineup_sequence");
+        battingStatColumns[i++] = batting.addStringColumn("positions");
+        for (String k : battingKeys) {
+            battingStatColumns[i++] = batting.addIntColumn(k);
+        }
+
+        pitchingKeyColumns = addKeyColumns(pitching);
+        pitchingStatColumns = new int[pitchingKeys.length + 4];
+        i = 0;
+        pitchingStatColumns[i++] = pitching.addDictionaryColumn("player_id");
+        pitchingStatColumns[i++] = pitching.addIntColumn("sequence");
+        pitchingStatColumns[i++] = pitching.addDictionaryColumn("decision");
+        for (String k : pitchingKeys) {
+            pitchingStatColumns[i++] = pitching.addIntColumn(
+                k.equals(BaseballPlayer.KEY_BATTERS_RETIRED) ? "outs" : k);
+        }
+        pitchingStatColumns[i++] = pitching.addIntColumn("hbp");
+    }
+
+    /** Columns identifying a team's game, shared by all three tables. */
+    private static int[] addKeyColumns(ArrowStreamWriter table) {
+        return new int[] {table.addStringColumn("game_id"),
+                          table.addStringColumn("date"),
+                          table.addDictionaryColumn("team_id"),
+                          table.addDictionaryColumn("opponent_id")};
+    }
+
+    private static void setKeyColumns(ArrowStreamWriter table, int[] columns,
+            BoxscoreGameAccount game, SingleGameTeam team) {
+        table.setString(columns[0], game.getGameID());
+        table.setString(columns[1], game.getStdDateString());
+        table.setString(columns[2], team.getTeamId());
+        table.setString(columns[3], team.getOpponentId());
+    }
+
+    /**
+     * Append a finalized game's rows to the three tables.
+     *
+     * @param game A game account on which <code>finalize()</code> has been called.
+     * @throws IOException if a full record batch cannot be written.
+     */
+    public <T extends BoxscoreGameAccount> void addGame(T game) throws IOException {
+        addTeam(game, game.getTeam(false, this));
+        addTeam(game, game.getTeam(true, this));
+    }
+
+    public void addGames(List<? extends BoxscoreGameAccount> games) throws IOException {
+        for (BoxscoreGameAccount game : games) {
+            addGame(game);
+        }
+    }
+
+    @Override
+    public void accept(BoxscoreGameAccount game) throws IOException {
+        addGame(game);
+    }
+
+    /** Equivalent to <code>write()</code>. */
+    @Override
+    public void close() throws IOException {
+        write();
+    }
+
+    private void addTeam(BoxscoreGameAccount game, SingleGameTeam team) throws IOException {
+        int i = 0;
+
+        /* Team-game row */
+        setKeyColumns(teams, teamKeyColumns, game, team);
+        teams.setString(teamStatColumns[i++], String.valueOf(game.getDayNight()));
+        teams.setInt(teamStatColumns[i++], game.getGameNumber());
+        teams.setBoolean(teamStatColumns[i++], team.getHomeTF());
+        teams.setString(teamStatColumns[i++], team.getGameOutcome());
+        teams.setInt(teamStatColumns[i++], team.getTotalRunsScored());
+        teams.setInt(teamStatColumns[i++], team.getTotalRunsAllowed());
+        teams.setString(teamStatColumns[i++], team.linescoreToString(3, 1));
+        for (int stat : team.getStats(teamStatKeys)) {
+            teams.setInt(teamStatColumns[i++], stat);
+        }
+        teams.setInt(teamStatColumns[i++], team.get_lob());
+        teams.setInt(teamStatColumns[i++], team.get_double_triple_plays(true));
+        teams.setInt(teamStatColumns[i++], game.getAttendance());
+        teams.setInt(teamStatColumns[i++], game.getTimeOfGame());
+        teams.endRow();
+
+        /* Batter rows, in lineup order */
+        for (LinkedList<SingleGamePositionPlayer> spot : team.getLineup()) {
+            int sequence = 0;
+            for (SingleGamePositionPlayer p : spot) {
+                i = 0;
+                setKeyColumns(batting, battingKeyColumns, game, team);
+                batting.setString(battingStatColumns[i++], p.getPlayerId());
+                batting.setInt(battingStatColumns[i++], p.getLineupSpot());
+                batting.setInt(battingStatColumns[i++], sequence++);
+                batting.setString(battingStatColumns[i++], p.getPositionString());
+                for (int stat : p.getStats(battingKeys)) {
+                    batting.setInt(battingStatColumns[i++], stat);
+                }
+                batting.endRow();
+            }
+        }
+
+        /* Pitcher rows, in order of appearance */
+        int sequence = 0;
+        for (SingleGamePitcher p : team.getAllPitchers()) {
+            i = 0;
+            setKeyColumns(pitching, pitchingKeyColumns, game, team);
+            pitching.setString(pitchingStatColumns[i++], p.getPlayerId());
+            pitching.setInt(pitchingStatColumns[i++], sequence++);
+            pitching.setString(pitchingStatColumns[i++],
+                (p.getDecision() == BaseballPlayer.DECISION_NONE) ? "" :
+                String.valueOf(p.getDecision()));
+            for (int stat : p.getStats(pitchingKeys)) {
+                pitching.setInt(pitchingStatColumns[i++], stat);
+            }
+            pitching.setInt(pitchingStatColumns[i++], p.getBattersHBP().size());
+            pitching.endRow();
+        }
+    }
+
+    /**
+     * Write the remaining rows and close all three streams.
+     *
+     * @throws IOException if an I/O error occurs.
+     */
+    @Override
+    public void write() throws IOException {
+        try {
+            teams.close();
+        } finally {
+            try {
+                batting.close();
+            } finally {
+                pitching.close();
+            }
+        }
+    }
+}
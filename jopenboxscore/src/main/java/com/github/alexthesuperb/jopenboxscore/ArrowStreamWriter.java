@@ -0,0 +1,494 @@
+package com.github.alexthesuperb.jopenboxscore;
+
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * <p>
+ * Write a single table in the Apache Arrow IPC <i>streaming</i> format without
+ * depending on the Arrow libraries. The table's columns are declared up front
+ * with the <code>addXColumn</code> methods; rows are then filled in with the
+ * typed <code>set</code> methods and committed with <code>endRow()</code>.
+ * </p><p>
+ * Rows are buffered column by column and written as a record batch every
+ * <code>batchSize</code> rows. Dictionary-encoded string columns share a
+ * growing dictionary: the first batch is preceded by a full dictionary batch,
+ * and later batches by delta dictionary batches holding only the new entries.
+ * Supported column types are 32-bit signed integers, booleans, UTF-8 strings
+ * and dictionary-encoded UTF-8 strings. No column is nullable.
+ * </p>
+ */
+public class ArrowStreamWriter implements Closeable {
+
+    /** Arrow metadata version V5. */
+    private static final short METADATA_VERSION = 4;
+
+    private static final byte HEADER_SCHEMA = 1;
+    private static final byte HEADER_DICTIONARY_BATCH = 2;
+    private static final byte HEADER_RECORD_BATCH = 3;
+
+    private static final byte TYPE_INT = 2;
+    private static final byte TYPE_UTF8 = 5;
+    private static final byte TYPE_BOOL = 6;
+
+    private static final int COLUMN_INT = 0;
+    private static final int COLUMN_BOOL = 1;
+    private static final int COLUMN_UTF8 = 2;
+    private static final int COLUMN_DICTIONARY = 3;
+
+    private static final int DEFAULT_BATCH_SIZE = 4096;
+
+    /** A growable buffer of UTF-8 strings, stored as Arrow offsets and data. */
+    private static class StringData {
+        private int[] offsets = new int[65];
+        private byte[] data = new byte[1024];
+        private int count;
+
+        void add(String s) {
+            byte[] utf8 = s.getBytes(StandardCharsets.UTF_8);
+            int end = offsets[count];
+            if (end + utf8.length > data.length) {
+                data = Arrays.copyOf(data, Math.max(data.length * 2, end + utf8.length));
+            }
+            System.arraycopy(utf8, 0, data, end, utf8.length);
+            if (count + 2 > offsets.length) {
+                offsets = Arrays.copyOf(offsets, offsets.length * 2);
+            }
+            offsets[++count] = end + utf8.length;
+        }
+
+        int size() {
+            return count;
+        }
+
+        void clear() {
+            count = 0;
+        }
+    }
+
+    /** A declared column and the values buffered for the current batch. */
+    private static class Column {
+        private final String name;
+        private final int type;
+        private int[] ints;
+        private StringData strings;
+
+        /* Dictionary state, used only by COLUMN_DICTIONARY. */
+        private long dictionaryId;
+        private HashMap<String, Integer> dictionary;
+        private StringData pendingEntries;
+        private boolean dictionaryWritten;
+
+        Column(String name, int type, int batchSize) {
+            this.name = name;
+            this.type = type;
+            if (type == COLUMN_UTF8) {
+                strings = new StringData();
+            } else {
+                ints = new int[batchSize];
+            }
+            if (type == COLUMN_DICTIONARY) {
+                dictionary = new HashMap<>();
+                pendingEntries = new StringData();
+            }
+        }
+    }
+
+    private final DataOutputStream out;
+    private final int batchSize;
+    private final List<Column> columns;
+
+    /** Columns that already received a value for the current row. */
+    private boolean[] filled;
+    private int rowCount;
+    private boolean schemaWritten;
+    private boolean closed;
+
+    /**
+     * Construct a writer that emits a record batch every
+     * <code>DEFAULT_BATCH_SIZE</code> rows.
+     *
+     * @param out The destination stream. It is closed by <code>close()</code>.
+     */
+    public ArrowStreamWriter(OutputStream out) {
+        this(out, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * @param out The destination stream. It is closed by <code>close()</code>.
+     * @param batchSize The number of rows per record batch.
+     * @throws IllegalArgumentException if <code>batchSize</code> is not positive.
+     */
+    public ArrowStreamWriter(OutputStream out, int batchSize) throws IllegalArgumentException {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Record batch size must be a positive " +
+                "integer, was " + batchSize + ".");
+        }
+        this.out = new DataOutputStream(out);
+        this.batchSize = batchSize;
+        this.columns = new ArrayList<>();
+    }
+
+    /** @return the index of a new 32-bit signed integer column. */
+    public int addIntColumn(String name) {
+        return addColumn(name, COLUMN_INT);
+    }
+
+    /** @return the index of a new boolean column. */
+    public int addBooleanColumn(String name) {
+        return addColumn(name, COLUMN_BOOL);
+    }
+
+    /** @return the index of a new UTF-8 string column. */
+    public int addStringColumn(String name) {
+        return addColumn(name, COLUMN_UTF8);
+    }
+
+    /**
+     * Add a dictionary-encoded string column. This should be preferred for
+     * columns with many repeated values, such as team and player IDs.
+     *
+     * @return the column's index.
+     */
+    public int addDictionaryColumn(String name) {
+        int index = addColumn(name, COLUMN_DICTIONARY);
+        columns.get(index).dictionaryId = index;
+        return index;
+    }
+
+    private int addColumn(String name, int type) {
+        if (schemaWritten) {
+            throw new IllegalStateException("Columns cannot be added after the " +
+                "first row has been written.");
+        }
+        columns.add(new Column(name, type, batchSize));
+        filled = new boolean[columns.size()];
+        return columns.size() - 1;
+    }
+
+    public void setInt(int column, int value) {
+        Column c = column(column, COLUMN_INT);
+        c.ints[rowCount] = value;
+        filled[column] = true;
+    }
+
+    public void setBoolean(int column, boolean value) {
+        Column c = column(column, COLUMN_BOOL);
+        c.ints[rowCount] = value ? 1 : 0;
+        filled[column] = true;
+    }
+
+    /**
+     * Set the value of a string column, dictionary-encoded or not.
+     *
+     * @param column The column's index.
+     * @param value The value. <code>null</code> is written as an empty string.
+     */
+    public void setString(int column, String value) {
+        Column c = columns.get(column);
+        if (value == null) {
+            value = "";
+        }
+        if (c.type == COLUMN_UTF8) {
+            c.strings.add(value);
+        } else if (c.type == COLUMN_DICTIONARY) {
+            Integer code = c.dictionary.get(value);
+            if (code == null) {
+                code = c.dictionary.size();
+                c.dictionary.put(value, code);
+                c.pendingEntries.add(value);
+            }
+            c.ints[rowCount] = code;
+        } else {
+            throw new IllegalArgumentException("Column " + c.name + " is not a " +
+                "string column.");
+        }
+        filled[column] = true;
+    }
+
+    private Column column(int column, int type) {
+        Column c = columns.get(column);
+        if (c.type != type) {
+            throw new IllegalArgumentException("Column " + c.name + " does not " +
+                "accept values of this type.");
+        }
+        return c;
+    }
+
+    /**
+     * Commit the current row. If the batch is full, it is written out.
+     *
+     * @throws IllegalStateException if a column was not given a value.
+     * @throws IOException if the batch cannot be written.
+     */
+    public void endRow() throws IOException {
+        for (int i = 0; i < filled.length; i++) {
+            if (!filled[i]) {
+                throw new IllegalStateException("No value was set for column " +
+                    columns.get(i).name + ".");
+            }
+            filled[i] = false;
+        }
+        rowCount++;
+        if (rowCount == batchSize) {
+            flushBatch();
+        }
+    }
+
+    /** Write any buffered rows, followed by the end-of-stream marker. */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            if (!schemaWritten) {
+                writeSchema();
+            }
+            if (rowCount > 0) {
+                flushBatch();
+            }
+            out.writeInt(0xFFFFFFFF);
+            out.writeInt(0);
+            out.flush();
+        } finally {
+            out.close();
+        }
+    }
+
+    private void flushBatch() throws IOException {
+        if (!schemaWritten) {
+            writeSchema();
+        }
+        for (Column c : columns) {
+            if (c.type == COLUMN_DICTIONARY &&
+                    (!c.dictionaryWritten || c.pendingEntries.size() > 0)) {
+                writeDictionaryBatch(c);
+            }
+        }
+
+        BodyBuilder body = new BodyBuilder();
+        long[] nodes = new long[2 * columns.size()];
+        for (int i = 0; i < columns.size(); i++) {
+            Column c = columns.get(i);
+            nodes[2 * i] = rowCount;
+            body.addBuffer(null, 0);
+            switch (c.type) {
+            case COLUMN_INT:
+            case COLUMN_DICTIONARY:
+                body.addInts(c.ints, rowCount);
+                break;
+            case COLUMN_BOOL:
+                body.addBits(c.ints, rowCount);
+                break;
+            default:
+                body.addStrings(c.strings);
+                c.strings.clear();
+            }
+        }
+
+        FlatBufferEncoder fb = new FlatBufferEncoder(256 + 32 * columns.size());
+        int batch = recordBatch(fb, rowCount, nodes, body);
+        writeMessage(fb, HEADER_RECORD_BATCH, batch, body);
+        rowCount = 0;
+    }
+
+    private void writeDictionaryBatch(Column c) throws IOException {
+        BodyBuilder body = new BodyBuilder();
+        body.addBuffer(null, 0);
+        body.addStrings(c.pendingEntries);
+
+        FlatBufferEncoder fb = new FlatBufferEncoder(256);
+        int data = recordBatch(fb, c.pendingEntries.size(),
+            new long[] {c.pendingEntries.size(), 0}, body);
+        fb.startTable(3);
+        fb.addLongField(0, c.dictionaryId);
+        fb.addOffsetField(1, data);
+        fb.addBooleanField(2, c.dictionaryWritten);
+        int dictionaryBatch = fb.endTable();
+        writeMessage(fb, HEADER_DICTIONARY_BATCH, dictionaryBatch, body);
+
+        c.pendingEntries.clear();
+        c.dictionaryWritten = true;
+    }
+
+    private static int recordBatch(FlatBufferEncoder fb, long length, long[] nodes,
+            BodyBuilder body) {
+        int nodesVector = fb.createLongPairVector(nodes);
+        int buffersVector = fb.createLongPairVector(body.getBufferLayout());
+        fb.startTable(3);
+        fb.addLongField(0, length);
+        fb.addOffsetField(1, nodesVector);
+        fb.addOffsetField(2, buffersVector);
+        return fb.endTable();
+    }
+
+    private void writeSchema() throws IOException {
+        FlatBufferEncoder fb = new FlatBufferEncoder(256 + 64 * columns.size());
+        int[] fields = new int[columns.size()];
+
+        for (int i = 0; i < fields.length; i++) {
+            Column c = columns.get(i);
+            int name = fb.createString(c.name);
+            int children = fb.createOffsetVector(new int[0]);
+            int type;
+            byte typeId;
+            int dictionary = 0;
+
+            if (c.type == COLUMN_INT) {
+                type = intType(fb);
+                typeId = TYPE_INT;
+            } else if (c.type == COLUMN_BOOL) {
+                fb.startTable(0);
+                type = fb.endTable();
+                typeId = TYPE_BOOL;
+            } else {
+                fb.startTable(0);
+                type = fb.endTable();
+                typeId = TYPE_UTF8;
+            }
+
+            if (c.type == COLUMN_DICTIONARY) {
+                int indexType = intType(fb);
+                fb.startTable(3);
+                fb.addLongField(0, c.dictionaryId);
+                fb.addOffsetField(1, indexType);
+                fb.addBooleanField(2, false);
+                dictionary = fb.endTable();
+            }
+
+            fb.startTable(6);
+            fb.addOffsetField(0, name);
+            fb.addBooleanField(1, false);
+            fb.addByteField(2, typeId);
+            fb.addOffsetField(3, type);
+            if (dictionary != 0) {
+                fb.addOffsetField(4, dictionary);
+            }
+            fb.addOffsetField(5, children);
+            fields[i] = fb.endTable();
+        }
+
+        int fieldsVector = fb.createOffsetVector(fields);
+        fb.startTable(2);
+        fb.addShortField(0, (short) 0);
+        fb.addOffsetField(1, fieldsVector);
+        int schema = fb.endTable();
+
+        writeMessage(fb, HEADER_SCHEMA, schema, null);
+        schemaWritten = true;
+    }
+
+    /** Create an <code>Int</code> type table for 32-bit signed integers. */
+    private static int intType(FlatBufferEncoder fb) {
+        fb.startTable(2);
+        fb.addIntField(0, 32);
+        fb.addBooleanField(1, true);
+        return fb.endTable();
+    }
+
+    /**
+     * Wrap a header in a <code>Message</code> table and write it, along with
+     * its body, as an encapsulated IPC message.
+     */
+    private void writeMessage(FlatBufferEncoder fb, byte headerType, int header,
+            BodyBuilder body) throws IOException {
+        long bodyLength = (body == null) ? 0 : body.size();
+        fb.startTable(4);
+        fb.addShortField(0, METADATA_VERSION);
+        fb.addByteField(1, headerType);
+        fb.addOffsetField(2, header);
+        fb.addLongField(3, bodyLength);
+        byte[] metadata = fb.finish(fb.endTable());
+
+        /* The continuation marker and length prefix occupy 8 bytes. */
+        int padding = (8 - (metadata.length % 8)) % 8;
+        out.writeInt(0xFFFFFFFF);
+        out.writeInt(Integer.reverseBytes(metadata.length + padding));
+        out.write(metadata);
+        out.write(new byte[padding]);
+        if (body != null) {
+            body.writeTo(out);
+        }
+    }
+
+    /** Lays out a message body: 8-byte aligned buffers, back to back. */
+    private static class BodyBuilder {
+        private ByteBuffer data = ByteBuffer.allocate(4096).order(ByteOrder.LITTLE_ENDIAN);
+        private long[] layout = new long[16];
+        private int buffers;
+
+        void addBuffer(byte[] bytes, int length) {
+            ensure(length + 8);
+            if (2 * buffers + 2 > layout.length) {
+                layout = Arrays.copyOf(layout, layout.length * 2);
+            }
+            layout[2 * buffers] = data.position();
+            layout[2 * buffers + 1] = length;
+            buffers++;
+            if (bytes != null) {
+                data.put(bytes, 0, length);
+            }
+            while (data.position() % 8 != 0) {
+                data.put((byte) 0);
+            }
+        }
+
+        void addInts(int[] values, int count) {
+            ensure(4 * count + 8);
+            ByteBuffer b = ByteBuffer.allocate(4 * count).order(ByteOrder.LITTLE_ENDIAN);
+            for (int i = 0; i < count; i++) {
+                b.putInt(values[i]);
+            }
+            addBuffer(b.array(), 4 * count);
+        }
+
+        void addBits(int[] values, int count) {
+            byte[] bits = new byte[(count + 7) / 8];
+            for (int i = 0; i < count; i++) {
+                if (values[i] != 0) {
+                    bits[i / 8] |= (byte) (1 << (i % 8));
+                }
+            }
+            addBuffer(bits, bits.length);
+        }
+
+        void addStrings(StringData strings) {
+            addInts(strings.offsets, strings.size() + 1);
+            addBuffer(strings.data, strings.offsets[strings.size()]);
+        }
+
+        private void ensure(int bytes) {
+            if (data.remaining() < bytes) {
+                ByteBuffer bigger = ByteBuffer.allocate(
+                    Math.max(data.capacity() * 2, data.position() + bytes))
+                    .order(ByteOrder.LITTLE_ENDIAN);
+                data.flip();
+                bigger.put(data);
+                data = bigger;
+            }
+        }
+
+        long[] getBufferLayout() {
+            return Arrays.copyOf(layout, 2 * buffers);
+        }
+
+        int size() {
+            return data.position();
+        }
+
+        void writeTo(OutputStream out) throws IOException {
+            out.write(data.array(), 0, data.position());
+        }
+    }
+}
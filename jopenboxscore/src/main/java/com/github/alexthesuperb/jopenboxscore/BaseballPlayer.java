@@ -270,6 +270,20 @@ public abstract class BaseballPlayer implements SportsStatContainer,
         return copy;
     }
 
+    /**
+     * Replace every stat with <code>values[i]</code> at <code>keys[i]</code>.
+     * This is used to rebuild a player decoded by <code>GameCodec</code>.
+     *
+     * @param keys The keys of the stats to restore.
+     * @param values The stats, in the same order.
+     */
+    void restoreStats(String[] keys, int[] values) {
+        stats.clear();
+        for (int i = 0; i < keys.length; i++) {
+            stats.put(keys[i], values[i]);
+        }
+    }
+
     /** 
      * Set <code>firstName</code> and <code>lastName</code>. 
      * 
@@ -0,0 +1,379 @@
+package com.github.alexthesuperb.jopenboxscore;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>
+ * A long-running server that keeps TEAM and roster files, and every event
+ * file it has parsed, in memory, and renders boxscores and summaries on
+ * request. Only the loopback interface is bound, so requests can only come
+ * from the local machine.
+ * </p><p>
+ * Clients send one command per line and receive a status line,
+ * <code>OK</code> or <code>ERR &lt;message&gt;</code>, followed by the body
+ * and a line containing a single <code>.</code>. Body lines that begin with
+ * <code>.</code> are sent with an extra leading <code>.</code>. Commands,
+ * whose names are not case-sensitive, are:
+ * </p>
+ * <ul>
+ * <li><code>BOX &lt;file&gt; [game IDs...]</code> - boxscores of the given
+ * games, or of every game in the file.</li>
+ * <li><code>RANGE &lt;file&gt; &lt;MMDD&gt; &lt;MMDD&gt;</code> - boxscores of
+ * the games played within a range of dates.</li>
+ * <li><code>SUMMARY &lt;files...&gt;</code> - a <code>NewspaperSummary</code>
+ * of every game in the files.</li>
+ * <li><code>LOAD &lt;files...&gt;</code> - parse files ahead of time.</li>
+ * <li><code>STATS</code>, <code>EVICT</code>, <code>PING</code>,
+ * <code>QUIT</code> and <code>SHUTDOWN</code>.</li>
+ * </ul>
+ * <p>
+ * Event file names are resolved against the daemon's working directory. A
+ * parsed file is kept until it is evicted or its length or modification time
+ * changes.
+ * </p>
+ */
+public class BoxscoreDaemon {
+
+    private final int port;
+    private final String year;
+    private final File rosDir;
+    private final ExecutorService handlers;
+
+    /** Parsed event files by absolute path. */
+    private final ConcurrentHashMap<String, EventFile> eventFiles;
+
+    /** Serializes parsing so that a file is never parsed twice at once. */
+    private final Object loadLock = new Object();
+
+    private final AtomicLong requests = new AtomicLong();
+
+    private volatile ServerSocket serverSocket;
+
+    /** If non-null, event files are loaded through this cache. */
+    private volatile GameCache gameCache;
+
+    /**
+     * @param port The port to listen on, or <code>0</code> for any free port.
+     * @param year The year of the TEAM and roster files to use.
+     * @param rosDir The directory containing TEAM and roster files.
+     * @param threads The number of connections served concurrently.
+     * @throws IllegalArgumentException if <code>threads</code> is not positive.
+     */
+    public BoxscoreDaemon(int port, String year, File rosDir, int threads)
+            throws IllegalArgumentException {
+        if (threads < 1) {
+            throw new IllegalArgumentException("The number of daemon threads must " +
+                "be a positive integer.");
+        }
+        this.port = port;
+        this.year = year;
+        this.rosDir = rosDir;
+        this.eventFiles = new ConcurrentHashMap<>();
+        this.handlers = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "boxscore-daemon");
+                t.setDaemon(true);
+                return t;
+            }
+        });
+    }
+
+    /**
+     * Load the games of event files from <code>cache</code> when they have
+     * not changed, so that a restarted daemon need not parse them again.
+     *
+     * @param cache A game cache, or <code>null</code> to parse every game.
+     */
+    public void setGameCache(GameCache cache) {
+        this.gameCache = cache;
+    }
+
+    /**
+     * Bind the daemon's socket to the loopback interface.
+     *
+     * @return The port on which the daemon is listening.
+     * @throws IOException if the socket cannot be bound.
+     */
+    public int bind() throws IOException {
+        ServerSocket socket = new ServerSocket();
+        socket.setReuseAddress(true);
+        socket.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+        serverSocket = socket;
+        return socket.getLocalPort();
+    }
+
+    /**
+     * Accept connections until <code>shutdown()</code> is called or a client
+     * sends <code>SHUTDOWN</code>. <code>bind()</code> is called first if it
+     * has not been already.
+     *
+     * @throws IOException if the socket cannot be bound.
+     */
+    public void serve() throws IOException {
+        if (serverSocket == null) {
+            bind();
+        }
+        try {
+            while (!serverSocket.isClosed()) {
+                final Socket client;
+                try {
+                    client = serverSocket.accept();
+                } catch (SocketException e) {
+                    /* The socket was closed by shutdown(). */
+                    break;
+                }
+                handlers.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        handle(client);
+                    }
+                });
+            }
+        } finally {
+            handlers.shutdownNow();
+        }
+    }
+
+    /** Stop accepting connections. */
+    public void shutdown() {
+        try {
+            if (serverSocket != null) {
+                serverSocket.close();
+            }
+        } catch (IOException e) {
+            /* Nothing more can be done with a socket that will not close. */
+        }
+    }
+
+    private void handle(Socket client) {
+        try (Socket socket = client;
+             BufferedReader in = new BufferedReader(new InputStreamReader(
+                socket.getInputStream(), StandardCharsets.UTF_8));
+             BufferedWriter out = new BufferedWriter(new OutputStreamWriter(
+                socket.getOutputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                String[] args = line.trim().split("\\s+");
+                if (args[0].isEmpty()) {
+                    continue;
+                }
+                String command = args[0].toUpperCase();
+                if (command.equals("QUIT")) {
+                    respond(out, null, "");
+                    break;
+                }
+                requests.incrementAndGet();
+                try {
+                    respond(out, null, execute(command, args));
+                } catch (IOException | RuntimeException e) {
+                    respond(out, (e.getMessage() != null) ? e.getMessage() :
+                        e.getClass().getSimpleName(), null);
+                }
+                if (command.equals("SHUTDOWN")) {
+                    shutdown();
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            /* The client went away; there is no one left to report to. */
+        }
+    }
+
+    /**
+     * Write a response.
+     *
+     * @param error The error message, or <code>null</code> if the request succeeded.
+     * @param body The response body, ignored for errors.
+     */
+    private static void respond(BufferedWriter out, String error, String body)
+            throws IOException {
+        if (error != null) {
+            out.write("ERR " + error.replace('\r', ' ').replace('\n', ' '));
+            out.write("\n");
+        } else {
+            out.write("OK\n");
+            int start = 0;
+            while (start < body.length()) {
+                int end = body.indexOf('\n', start);
+                if (end < 0) {
+                    end = body.length();
+                }
+                if (body.charAt(start) == '.') {
+                    out.write('.');
+                }
+                out.write(body, start, end - start);
+                out.write("\n");
+                start = end + 1;
+            }
+        }
+        out.write(".\n");
+        out.flush();
+    }
+
+    /**
+     * Carry out a command.
+     *
+     * @return The response body.
+     */
+    String execute(String command, String[] args) throws IOException,
+            IllegalArgumentException {
+        if (command.equals("PING") || command.equals("SHUTDOWN")) {
+            return "";
+        } else if (command.equals("BOX")) {
+            CommandSupport.requireArgs(args, 2, "BOX <file> [game IDs...]");
+            EventFile file = getEventFile(args[1]);
+            List<BoxscoreGameAccount> games = new ArrayList<>();
+            if (args.length == 2) {
+                games.addAll(file.games.values());
+            } else {
+                for (int i = 2; i < args.length; i++) {
+                    BoxscoreGameAccount game = file.games.get(args[i]);
+                    if (game == null) {
+                        throw new IllegalArgumentException("Game " + args[i] +
+                            " was not found in " + args[1] + ".");
+                    }
+                    games.add(game);
+                }
+            }
+            return CommandSupport.renderBoxscores(games);
+        } else if (command.equals("RANGE")) {
+            CommandSupport.requireArgs(args, 4, "RANGE <file> <MMDD> <MMDD>");
+            EventFile file = getEventFile(args[1]);
+            int start;
+            int end;
+            try {
+                start = Integer.parseInt(args[2]);
+                end = Integer.parseInt(args[3]);
+            } catch (NumberFormatException nfe) {
+                throw new IllegalArgumentException("Dates must conform to the " +
+                    "4-digit integer code MMDD.");
+            }
+            List<BoxscoreGameAccount> games = new ArrayList<>();
+            for (BoxscoreGameAccount game : file.games.values()) {
+                int date = Integer.parseInt(game.getGameID().substring(7, 11));
+                if (date >= start && date <= end) {
+                    games.add(game);
+                }
+            }
+            return CommandSupport.renderBoxscores(games);
+        } else if (command.equals("SUMMARY")) {
+            CommandSupport.requireArgs(args, 2, "SUMMARY <files...>");
+            StringWriter text = new StringWriter();
+            NewspaperSummary summary = new NewspaperSummary(new BufferedWriter(text));
+            for (int i = 1; i < args.length; i++) {
+                for (BoxscoreGameAccount game : getEventFile(args[i]).games.values()) {
+                    summary.accept(game);
+                }
+            }
+            summary.close();
+            return text.toString();
+        } else if (command.equals("LOAD")) {
+            CommandSupport.requireArgs(args, 2, "LOAD <files...>");
+            StringBuilder sb = new StringBuilder();
+            for (int i = 1; i < args.length; i++) {
+                EventFile file = getEventFile(args[i]);
+                sb.append(args[i]).append(' ').append(file.games.size()).append(" games, ")
+                    .append(file.errors.size()).append(" excluded\n");
+                for (String error : file.errors) {
+                    sb.append("  ").append(error).append('\n');
+                }
+            }
+            return sb.toString();
+        } else if (command.equals("STATS")) {
+            int games = 0;
+            for (EventFile file : eventFiles.values()) {
+                games += file.games.size();
+            }
+            return "event files " + eventFiles.size() + "\n" +
+                   "games " + games + "\n" +
+                   "roster files " + RosterCache.getInstance().size() + "\n" +
+                   "requests " + requests.get() + "\n";
+        } else if (command.equals("EVICT")) {
+            eventFiles.clear();
+            RosterCache.getInstance().clear();
+            return "";
+        }
+        throw new IllegalArgumentException("Unknown command " + command + ".");
+    }
+
+    /** Return a parsed event file, parsing it if it is not cached or has changed. */
+    private EventFile getEventFile(String fileName) throws IOException {
+        File file = new File(fileName).getAbsoluteFile();
+        if (!file.isFile()) {
+            throw new FileNotFoundException("Event file " + fileName + " not found.");
+        }
+        String key = file.getPath();
+        EventFile cached = eventFiles.get(key);
+        if (cached != null && cached.isCurrent(file)) {
+            return cached;
+        }
+
+        synchronized (loadLock) {
+            cached = eventFiles.get(key);
+            if (cached != null && cached.isCurrent(file)) {
+                return cached;
+            }
+            long lastModified = file.lastModified();
+            long length = file.length();
+            RetrosheetEveReader reader = new RetrosheetEveReader(key, year, rosDir);
+            reader.setGameCache(gameCache);
+            try {
+                reader.readAll();
+            } finally {
+                reader.close();
+            }
+            EventFile loaded = new EventFile(reader.getGameAccounts(),
+                reader.getErrorMessages(), lastModified, length);
+            eventFiles.put(key, loaded);
+            return loaded;
+        }
+    }
+
+    /** The games parsed from one event file, which are never modified. */
+    private static final class EventFile {
+        final Map<String, BoxscoreGameAccount> games;
+        final List<String> errors;
+        final long lastModified;
+        final long length;
+
+        EventFile(List<BoxscoreGameAccount> games, List<String> errors,
+                long lastModified, long length) {
+            Map<String, BoxscoreGameAccount> byId = new LinkedHashMap<>();
+            for (BoxscoreGameAccount game : games) {
+                byId.put(game.getGameID(), game);
+            }
+            this.games = Collections.unmodifiableMap(byId);
+            this.errors = Collections.unmodifiableList(new ArrayList<>(errors));
+            this.lastModified = lastModified;
+            this.length = length;
+        }
+
+        boolean isCurrent(File file) {
+            return file.lastModified() == lastModified && file.length() == length;
+        }
+    }
+}
@@ -1,32 +1,120 @@
 package com.github.alexthesuperb.jopenboxscore;
 
 import java.io.BufferedWriter;
+import java.util.Locale;
+import java.util.ServiceLoader;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * <p>
+ * A thread-safe registry of boxscore formats. Formats are discovered through
+ * <code>ServiceLoader</code> (see <code>BoxscoreProvider</code>) when the
+ * factory is first used, and may also be registered programmatically.
+ * </p><p>
+ * Each format keeps one <code>ReusableBoxscore</code> per thread. Requesting a
+ * boxscore resets that thread's renderer instead of allocating a new one, so
+ * rendering many games in parallel creates no per-game renderer objects.
+ * </p>
+ */
 public class BoxscoreFactory {
 
-    public static String NEWSPAPER_BOXSCORE_KEY = "NewspaperBoxscore";
+    public static final String NEWSPAPER_BOXSCORE_KEY = "NewspaperBoxscore";
 
-    private static BoxscoreFactory boxscoreFactory;
+    /** A registered format and its per-thread renderers. */
+    private static class Format {
+        private final BoxscoreProvider provider;
+        private final ThreadLocal<ReusableBoxscore> renderers;
+
+        Format(final BoxscoreProvider provider) {
+            this.provider = provider;
+            this.renderers = new ThreadLocal<ReusableBoxscore>() {
+                @Override
+                protected ReusableBoxscore initialValue() {
+                    return provider.newBoxscore();
+                }
+            };
+        }
+    }
+
+    /** Initialized on first use of <code>getInstance()</code>. */
+    private static class InstanceHolder {
+        private static final BoxscoreFactory INSTANCE = new BoxscoreFactory();
+    }
+
+    /** Registered formats, by lower-case key. */
+    private final ConcurrentHashMap<String, Format> formats;
 
     private BoxscoreFactory() {
-        super();
+        formats = new ConcurrentHashMap<>();
+
+        for (BoxscoreProvider provider : ServiceLoader.load(BoxscoreProvider.class)) {
+            register(provider);
+        }
+
+        /* The default format must be available even if service files were lost. */
+        if (!formats.containsKey(normalize(NEWSPAPER_BOXSCORE_KEY))) {
+            register(new NewspaperBoxscoreProvider());
+        }
     }
 
     public static BoxscoreFactory getInstance() {
-        
-        if (boxscoreFactory == null) {
-            boxscoreFactory = new BoxscoreFactory();
+        return InstanceHolder.INSTANCE;
+    }
+
+    private static String normalize(String key) {
+        return key.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Register a format, replacing any format previously registered under
+     * the same key.
+     *
+     * @param provider The format's provider.
+     */
+    public void register(BoxscoreProvider provider) {
+        formats.put(normalize(provider.getKey()), new Format(provider));
+    }
+
+    /** @return the keys of all registered formats. */
+    public Set<String> getKeys() {
+        Set<String> keys = new TreeSet<>();
+        for (Format f : formats.values()) {
+            keys.add(f.provider.getKey());
         }
+        return keys;
+    }
 
-        return boxscoreFactory;
+    /**
+     * @param type A format key, ignoring case.
+     * @return <code>true</code> if a format is registered under <code>type</code>.
+     */
+    public boolean isRegistered(String type) {
+        return formats.containsKey(normalize(type));
     }
 
+    /**
+     * Return this thread's renderer for format <code>type</code>, reset to
+     * write <code>game</code> to <code>writer</code>. The returned object is
+     * reused by the next call on the same thread, so it should be written
+     * before another boxscore is requested.
+     *
+     * @param game A finalized game account.
+     * @param writer The boxscore's destination.
+     * @param type The key of a registered format, ignoring case.
+     * @return a boxscore ready to be written.
+     * @throws IllegalArgumentException if no format is registered under <code>type</code>.
+     */
     public BaseballBoxscore getBoxscore(BoxscoreGameAccount game, BufferedWriter writer, 
-            String type) {
-        if (type.equalsIgnoreCase(NEWSPAPER_BOXSCORE_KEY)) {
-            return new NewspaperBoxscore(game, writer);
-        } else {
-            return null;
+            String type) throws IllegalArgumentException {
+        Format format = formats.get(normalize(type));
+        if (format == null) {
+            throw new IllegalArgumentException("Unknown boxscore type " + type + 
+                ". Registered types: " + getKeys());
         }
+        ReusableBoxscore boxscore = format.renderers.get();
+        boxscore.reset(game, writer);
+        return boxscore;
     }
-}
\ No newline at end of file
+}
@@ -4,7 +4,7 @@ import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.RandomAccessFile;
+import java.util.Arrays;
 import java.util.regex.Pattern;
 
 /**
@@ -35,17 +35,22 @@ public class BoxscoreGameAccount implements GameAccount, Comparable<BoxscoreGame
     private SingleGameTeam visitor;
     private SingleGameTeam home;
     
-    private RandomAccessFile teamReader;
-    private RandomAccessFile visRosReader;
-    private RandomAccessFile homeRosReader;
+    private RosterCache.RosterFile teamFile;
+    private RosterCache.RosterFile visRosFile;
+    private RosterCache.RosterFile homeRosFile;
 
     File rosDir;
     private String visRosFileName;
     private String homeRosFileName;
     
     private String currentLine;
+    private String[] currentFields;
     private int lineNum;
     private String eveFileName;
+
+    /** The lines of the event file holding this game, or 0 if unknown. */
+    private int firstLineNum;
+    private int lastLineNum;
     
     private boolean homeBatting;
     private int inng;
@@ -74,7 +79,13 @@ public class BoxscoreGameAccount implements GameAccount, Comparable<BoxscoreGame
         BoxscoreFactory boxscoreFactory = BoxscoreFactory.getInstance();
         BaseballBoxscore boxscore = boxscoreFactory.getBoxscore(this, 
                 outWriter, type);
+        Object event = FlightEvents.beginRenderBoxscore();
+        long start = System.nanoTime();
         boxscore.write();
+        long nanos = System.nanoTime() - start;
+        FlightEvents.endRenderBoxscore(event, eveFileName, gameID, type);
+        ProcessingMetrics.getInstance().addGameRendered(nanos);
+        GameLatencies.getInstance().recordRender(this, nanos);
     }
 
     @Override
@@ -113,17 +124,24 @@ public class BoxscoreGameAccount implements GameAccount, Comparable<BoxscoreGame
         }
     }
 
+    /**
+     * Package-private access to a team, for classes such as
+     * <code>GameCodec</code> that are not boxscores.
+     */
+    SingleGameTeam getTeam(boolean isHome) {
+        return (isHome) ? home : visitor;
+    }
+
     /**
      * <p>Construct a new <code>BxScrGameAccount</code> object for game of ID
      * <code>gameID</code> in file <code>fileName</code>, occurring in year
      * <code>year</code>. Team information should be derived from file 
-     * <code>teamReader</code>.</p>
+     * the TEAM file in <code>rosDir</code>.</p>
      * 
-     * <p>While technically slower to reopen a new instance of
-     * <code>RandomAccessFile</code> for each instance of <code>BxScGameAccount</code>,
-     * this choice was made to improve the class' modularity. Its typical caller,
-     * <code>BxScrFileReader</code>, need only pass in the directory containing 
-     * the required roster and TEAM file.</p>
+     * <p>Its typical caller, <code>BxScrFileReader</code>, need only pass in the
+     * directory containing the required roster and TEAM file. Those files are
+     * shared by all game accounts through <code>RosterCache</code>, so they are
+     * only read once.</p>
      * 
      * @param gameID This game's ID.
      * @param year The year the game occured.
@@ -157,31 +175,49 @@ public class BoxscoreGameAccount implements GameAccount, Comparable<BoxscoreGame
             baserunnerSpots[i] = -1;
         }
 
-        /* Try to open TEAM file */
-        boolean openedTeamFile = false;
+        /* 
+         * Load TEAM file. If it is not found in the provided directory, 
+         * a FileNotFoundException is thrown.
+         */
         String teamFileName = "TEAM" + year;
         try {
-             /* Find filereader */
-            for (String s : rosDir.list()) {
-                if (s.contains(teamFileName)) {
-                    teamReader = new RandomAccessFile(
-                        new File(rosDir.getPath(), teamFileName),
-                        "r"
-                    );
-                    openedTeamFile = true;
-                    break;
-                }
-            }
+            teamFile = RosterCache.getInstance().getFile(rosDir, teamFileName);
+        } catch (FileNotFoundException fnfe) {
+            throw fnfe;
         } catch (IOException ioe) {
             throw new IOException("File " + teamFileName + " in directory " + 
                 rosDir.getPath() + " could not be opened.");
         }
+    }
 
-        /* If team file is not found in the provided directory, throw exception. */
-        if (!openedTeamFile) {
-            throw new FileNotFoundException("Could not find file " + teamFileName + 
-                " in directory " + rosDir.getPath());
-        }
+    /**
+     * Restore a finalized game account decoded by <code>GameCodec</code>,
+     * without reading any TEAM or roster file.
+     */
+    BoxscoreGameAccount(String gameID, String year, String fileName, File rosDir,
+            String stdDateString, String usaDateString, char daynight, int gmNumber,
+            int attendance, int timeOfGame, String wpID, String lpID, String saveID,
+            SingleGameTeam visitor, SingleGameTeam home, int outs, int totalOuts,
+            String lastLine) {
+        this.gameID = gameID;
+        this.year = year;
+        this.eveFileName = fileName;
+        this.rosDir = rosDir;
+        this.stdDateString = stdDateString;
+        this.usaDateString = usaDateString;
+        this.daynight = daynight;
+        this.gmNumber = gmNumber;
+        this.attendance = attendance;
+        this.timeOfGame = timeOfGame;
+        this.wpID = wpID;
+        this.lpID = lpID;
+        this.saveID = saveID;
+        this.visitor = visitor;
+        this.home = home;
+        this.outs = outs;
+        this.totalOuts = totalOuts;
+        this.currentLine = lastLine;
+        this.baserunnerSpots = new int[] {-1, -1, -1};
     }
 
     /** 
@@ -256,73 +292,23 @@ public class BoxscoreGameAccount implements GameAccount, Comparable<BoxscoreGame
          * exception is thrown.
          */
         currentLine = pbpLine;
+        currentFields = null;
         this.lineNum = lineNum;
 
         if (pbpLine.startsWith("info,")) {
             /* 
              * Information on game environment 
              */
-            String infoLineArr[] = pbpLine.split(",");
-
-            /* 
-             * Special case: for pitching decisions, info line
-             * may contain a key but not a value.
-             */
-            if (infoLineArr.length == 2 && 
-                    (infoLineArr[1].equals("wp") || 
-                    infoLineArr[1].equals("lp") ||
-                    infoLineArr[1].equals("save"))) {
-                
-                /* Do nothing */
-                return;
-            }
-
-            /* Check that line is valid input */
-            if (infoLineArr.length != 3) {
-                throw new IllegalArgumentException("Info lines must contain " +
-                    "2 fields. File  " + eveFileName + ", id " + gameID + ", line " + 
-                    lineNum + ": " + currentLine);
-            }
-            // setInfo(pbpLine.split(",")[1], pbpLine.split(",")[2]);
-            setInfo(infoLineArr[1], infoLineArr[2]);
-
+            addInfo(pbpLine.split(","));
         } else if (pbpLine.startsWith("start,") || pbpLine.startsWith("sub,")) {
-            /* 
-            * For lineup assignment, check that line 
-            * contains five fields (excluding start/sub flag)
-            */
-            String idLineArr[] = pbpLine.split(",");
-
-            /* Check that line is valid input */
-            if (idLineArr.length != 6) {
-                throw new IllegalArgumentException("Start/sub lines must " +
-                    "contain 5 fields. File " + eveFileName +
-                    ", id " + gameID + ", line " + lineNum + ": " + currentLine);
-            }
-
-            /* Make roster move. */
-            if (pbpLine.startsWith("start,")) {
-                makeRosterMove(true, idLineArr[1], idLineArr[2], 
-                    idLineArr[3], idLineArr[4], idLineArr[5]);
-            } else {
-                makeRosterMove(false, idLineArr[1], idLineArr[2], 
-                    idLineArr[3], idLineArr[4], idLineArr[5]);
-            }
+            addRosterMove(pbpLine.startsWith("start,"), pbpLine.split(","));
         } else if (pbpLine.startsWith("play,")) {
             /* 
              * Action on the field. Lines ending with NP
              * precede lineup moves and should be ignored. 
              */
             if (!pbpLine.endsWith(",NP")) {
-                String[] playLineArr = pbpLine.split(",");
-
-                /* Check that line is valid input */
-                if (playLineArr.length != 7) {
-                    throw new IllegalArgumentException("Play lines must " +
-                    "consist of 6 fields. File " + eveFileName + 
-                    ", id " + gameID + ", line " + lineNum + ": " + currentLine);
-                }
-                readPlay(playLineArr[3], playLineArr[6]);
+                addPlay(pbpLine.split(","));
             }
         } else if (pbpLine.startsWith("ladj,")) {
             /*
@@ -331,16 +317,130 @@ public class BoxscoreGameAccount implements GameAccount, Comparable<BoxscoreGame
              */
 
         } else if (pbpLine.startsWith("data,")) {
-            String dataLineArr[] = pbpLine.split(",");
-            
-            /* Check that data is the appropriate length */
-            if (dataLineArr.length != 4) {
-                throw new IllegalArgumentException("Data lines must " +
-                    "contain 3 fields (type, player ID, and value). File " + eveFileName + 
-                    ", id " + gameID + ", line " + lineNum + ": " + pbpLine);
+            addData(pbpLine.split(","));
+        }
+    }
+
+    /**
+     * Add a play-by-play line whose fields have already been split, exactly
+     * as <code>addLine()</code> would have read the line they came from. The
+     * line's text is only built if an error message or
+     * <code>getLastLine()</code> needs it.
+     *
+     * @param fields The line's fields, as <code>pbpLine.split(",", -1)</code>
+     *        splits them.
+     */
+    @Override
+    public void addFields(String[] fields, int lineNum) throws FileNotFoundException,
+            IOException, IllegalArgumentException, IndexOutOfBoundsException {
+        currentLine = null;
+        currentFields = fields;
+        this.lineNum = lineNum;
+
+        /* Without a comma, a line is of none of the types read. */
+        if (fields.length < 2) {
+            return;
+        }
+        String type = fields[0];
+        if (type.equals("info")) {
+            addInfo(dropTrailingEmpty(fields));
+        } else if (type.equals("start") || type.equals("sub")) {
+            addRosterMove(type.equals("start"), dropTrailingEmpty(fields));
+        } else if (type.equals("play")) {
+            if (!fields[fields.length - 1].equals("NP")) {
+                addPlay(dropTrailingEmpty(fields));
+            }
+        } else if (type.equals("data")) {
+            addData(dropTrailingEmpty(fields));
+        }
+    }
+
+    /* Drop trailing empty fields, as pbpLine.split(",") does. */
+    private static String[] dropTrailingEmpty(String[] fields) {
+        int length = fields.length;
+        while (length > 0 && fields[length - 1].isEmpty()) {
+            length--;
+        }
+        return (length == fields.length) ? fields : Arrays.copyOf(fields, length);
+    }
+
+    /* The text of the current line, joined from its fields if it was added by them. */
+    private String currentLine() {
+        if (currentLine == null && currentFields != null) {
+            StringBuilder sb = new StringBuilder(64);
+            for (int i = 0; i < currentFields.length; i++) {
+                if (i > 0) {
+                    sb.append(',');
+                }
+                sb.append(currentFields[i]);
             }
-            setData(dataLineArr[1], dataLineArr[2], dataLineArr[3]);
+            currentLine = sb.toString();
+        }
+        return currentLine;
+    }
+
+    private void addInfo(String[] infoLineArr) throws FileNotFoundException, IOException,
+            IllegalArgumentException {
+        /* 
+         * Special case: for pitching decisions, info line
+         * may contain a key but not a value.
+         */
+        if (infoLineArr.length == 2 && 
+                (infoLineArr[1].equals("wp") || 
+                infoLineArr[1].equals("lp") ||
+                infoLineArr[1].equals("save"))) {
+            
+            /* Do nothing */
+            return;
+        }
+
+        /* Check that line is valid input */
+        if (infoLineArr.length != 3) {
+            throw new IllegalArgumentException("Info lines must contain " +
+                "2 fields. File  " + eveFileName + ", id " + gameID + ", line " + 
+                lineNum + ": " + currentLine());
         }
+        // setInfo(pbpLine.split(",")[1], pbpLine.split(",")[2]);
+        setInfo(infoLineArr[1], infoLineArr[2]);
+    }
+
+    private void addRosterMove(boolean isStart, String[] idLineArr)
+            throws FileNotFoundException, IOException, IllegalArgumentException {
+        /* 
+        * For lineup assignment, check that line 
+        * contains five fields (excluding start/sub flag)
+        */
+
+        /* Check that line is valid input */
+        if (idLineArr.length != 6) {
+            throw new IllegalArgumentException("Start/sub lines must " +
+                "contain 5 fields. File " + eveFileName +
+                ", id " + gameID + ", line " + lineNum + ": " + currentLine());
+        }
+
+        /* Make roster move. */
+        makeRosterMove(isStart, idLineArr[1], idLineArr[2], 
+            idLineArr[3], idLineArr[4], idLineArr[5]);
+    }
+
+    private void addPlay(String[] playLineArr) throws IllegalArgumentException {
+        /* Check that line is valid input */
+        if (playLineArr.length != 7) {
+            throw new IllegalArgumentException("Play lines must " +
+            "consist of 6 fields. File " + eveFileName + 
+            ", id " + gameID + ", line " + lineNum + ": " + currentLine());
+        }
+        readPlay(playLineArr[3], playLineArr[6]);
+    }
+
+    private void addData(String[] dataLineArr) throws IllegalArgumentException {
+        /* Check that data is the appropriate length */
+        if (dataLineArr.length != 4) {
+            throw new IllegalArgumentException("Data lines must " +
+                "contain 3 fields (type, player ID, and value). File " + eveFileName + 
+                ", id " + gameID + ", line " + lineNum + ": " + currentLine());
+        }
+        setData(dataLineArr[1], dataLineArr[2], dataLineArr[3]);
     }
 
     /**
@@ -418,7 +518,7 @@ public class BoxscoreGameAccount implements GameAccount, Comparable<BoxscoreGame
         } catch (IndexOutOfBoundsException bo) {
             throw new IndexOutOfBoundsException(bo.getMessage() + ". " + 
                     "File " + eveFileName + ", id " + gameID + 
-                    ", line " + lineNum + ": " + currentLine);
+                    ", line " + lineNum + ": " + currentLine());
         }
     }
 
@@ -914,7 +1014,7 @@ public class BoxscoreGameAccount implements GameAccount, Comparable<BoxscoreGame
         } catch (NumberFormatException nfe) {
             throw new IllegalArgumentException("Data lines must end with an integer " +
                 "value. File " + eveFileName + ", id " + gameID +
-                 ", line " + lineNum + ": " + currentLine);
+                 ", line " + lineNum + ": " + currentLine());
         }
         
         if (key.equals("er")) {
@@ -950,31 +1050,12 @@ public class BoxscoreGameAccount implements GameAccount, Comparable<BoxscoreGame
 
         if (key.equals("visteam")) {
             /* 
-            * Initialize visiting team's roster reader, 
-            * check TEAM file for team's name. Initialize
-            * visitor object. 
+            * Load visiting team's roster, check TEAM file 
+            * for team's name. Initialize visitor object. 
+            * If roster file is not found, an exception is thrown.
             */
-            String[] rosDirList = rosDir.list();
             visRosFileName = value + year + ".ROS";
-            boolean openedRosFile = false;
-            
-            /* Try to open visitor's roster file */
-            for (String s : rosDirList) {
-                if (s.contains(visRosFileName)) {       
-                    visRosReader = new RandomAccessFile(
-                        new File(rosDir.getPath(), visRosFileName),
-                        "r"
-                    );
-                    openedRosFile = true;
-                    break;
-                }
-            }
-
-            /* If roster file is not found, throw exception. */
-            if (!openedRosFile) {
-                throw new FileNotFoundException("Could not find file " + visRosFileName + 
-                " in directory " + rosDir.getPath());
-            }
+            visRosFile = RosterCache.getInstance().getFile(rosDir, visRosFileName);
 
             /* Initialize visitor object. */
             cityAndName = findTeamCityAndName(value);
@@ -982,31 +1063,12 @@ public class BoxscoreGameAccount implements GameAccount, Comparable<BoxscoreGame
 
         } else if (key.equals("hometeam")) {
             /* 
-             * Initialize visiting team's roster reader,
-             * check TEAM file for team's city/name.
-             * Initialize visitor object.
+             * Load home team's roster, check TEAM file for 
+             * team's city/name. Initialize home object.
+             * If roster file is not found, an exception is thrown.
              */
-            String[] rosDirList = rosDir.list();
             homeRosFileName = value + year + ".ROS";
-            boolean openedRosFile = false;
-
-            /* Try to open visitor's roster file */
-            for (String s : rosDirList) {
-                if (s.contains(homeRosFileName)) {
-                    homeRosReader = new RandomAccessFile(
-                        new File(rosDir.getPath(), homeRosFileName),
-                        "r"
-                    );
-                    openedRosFile = true;
-                    break;
-                }
-            }
-
-            /* If roster file is not found, throw exception. */
-            if (!openedRosFile) {
-                throw new FileNotFoundException("Could not find file " + visRosFileName + 
-                " in directory " + rosDir.getPath());
-            }
+            homeRosFile = RosterCache.getInstance().getFile(rosDir, homeRosFileName);
 
             /* Initialize visitor object. */
             cityAndName = findTeamCityAndName(value);
@@ -1087,7 +1149,7 @@ public class BoxscoreGameAccount implements GameAccount, Comparable<BoxscoreGame
         if (!playerTeam.equals("0") && !playerTeam.equals("1")) {
             throw new IllegalArgumentException("Illegal argument in start/sub line. " +
                 "Team field must be either 0 (visitor) or 1 (home). File " + eveFileName + 
-                ", id " + gameID + ", line " + lineNum + ": " + currentLine);
+                ", id " + gameID + ", line " + lineNum + ": " + currentLine());
         }
 
         /* Check if batSpot is a valid number between 0 and 9. */
@@ -1101,7 +1163,7 @@ public class BoxscoreGameAccount implements GameAccount, Comparable<BoxscoreGame
                 "Player's batting order spot must be an integer between 1-9 for " + 
                 "position players, or 0 for pitchers in games using the DH rule. " + 
                 "File " + eveFileName + ", id" + gameID + 
-                ", line " + lineNum + ": " + currentLine);
+                ", line " + lineNum + ": " + currentLine());
         }
 
         /* Check if position is a valid number between 1 and 12. */
@@ -1114,7 +1176,7 @@ public class BoxscoreGameAccount implements GameAccount, Comparable<BoxscoreGame
             throw new IllegalArgumentException("Illegal argument in start/sub line. " +
                 "Player's position must be an integer between 1 and 12. " + 
                 "File " + eveFileName + ", id " + gameID + 
-                ", line " + lineNum + ": " + currentLine);
+                ", line " + lineNum + ": " + currentLine());
         }
 
         /* Check roster file for player's name, then add to team. */
@@ -1138,41 +1200,31 @@ public class BoxscoreGameAccount implements GameAccount, Comparable<BoxscoreGame
      */
     private String[] getPlayerName(boolean isHome, String playerID)
             throws IOException {
-        String line;
-        RandomAccessFile rosReader;
-
-        /* Get correct reader and reset to top of file. */
-        if (!isHome) {
-            rosReader = visRosReader;
-        } else {
-            rosReader = homeRosReader;
-        }
-        rosReader.seek(0);
+        /* Get correct roster. */
+        RosterCache.RosterFile rosFile = isHome ? homeRosFile : visRosFile;
         
         /*
          * Check roster file for line matching playerID.
          * If none found, throws IOException.
          */
-        while ((line = rosReader.readLine()) != null) {
-            if (line.startsWith(playerID)) {
-                String[] lineArr = line.split(",");
-                String[] first_last = {lineArr[2],lineArr[1]};
-                return first_last;
-            }
+        String[] lineArr = rosFile.find(playerID);
+        if (lineArr != null) {
+            String[] first_last = {lineArr[2],lineArr[1]};
+            return first_last;
         }
 
         /* If player could not be found, throw an exception. */
         if (!isHome) { 
             throw new IOException("Player " + playerID + " could not be found in " + 
-                "file " + visRosFileName + ". Line: " + currentLine);
+                "file " + visRosFileName + ". Line: " + currentLine());
         } else {
             throw new IOException("Player " + playerID + " could not be found in " +
-                "file " + homeRosFileName + ". Line: " + currentLine);
+                "file " + homeRosFileName + ". Line: " + currentLine());
         }
     }
 
     /**
-     * Search <code>teamReader</code> and find the city and name belonging
+     * Search the TEAM file and find the city and name belonging
      * correponding to the input <code>teamID</code>
      * 
      * @param  teamID The 3-letter team ID.
@@ -1182,19 +1234,14 @@ public class BoxscoreGameAccount implements GameAccount, Comparable<BoxscoreGame
      * @throws IOException If TEAM file cannot be read or if team cannot be found in file.
      */
     private String[] findTeamCityAndName(String teamID) throws IOException {
-        teamReader.seek(0);
-        String line;
-
-        while ((line = teamReader.readLine()) != null) {
-            if (line.startsWith(teamID)) {
-                String[] lineArr = line.split(",");
-                String[] cityAndName = {lineArr[2], lineArr[3]};
-                return cityAndName;
-            }
+        String[] lineArr = teamFile.find(teamID);
+        if (lineArr != null) {
+            String[] cityAndName = {lineArr[2], lineArr[3]};
+            return cityAndName;
         }
         throw new IOException("Team " + teamID + " could not be found in file " +
         "TEAM" + year + "File " + eveFileName + ", id " + gameID + 
-        ", line " + lineNum + ": " + currentLine);
+        ", line " + lineNum + ": " + currentLine());
     }
 
     public String getHomeTeamId() {
@@ -1270,9 +1317,45 @@ public class BoxscoreGameAccount implements GameAccount, Comparable<BoxscoreGame
         return gameID;
     }
 
+    /** @return the name of the event file containing this game. */
+    public String getEveFileName() {
+        return eveFileName;
+    }
+
+    /** @return the line of the event file on which this game begins, or 0 if unknown. */
+    public int getFirstLineNum() {
+        return firstLineNum;
+    }
+
+    /** @return the line of the event file on which this game ends, or 0 if unknown. */
+    public int getLastLineNum() {
+        return lastLineNum;
+    }
+
+    /** Record the lines of the event file this game was read from. */
+    void setLineRange(int first, int last) {
+        firstLineNum = first;
+        lastLineNum = last;
+    }
+
+    /** @return the ID of the winning pitcher, as read from the game's info lines. */
+    String getWinningPitcherId() {
+        return wpID;
+    }
+
+    /** @return the ID of the losing pitcher, as read from the game's info lines. */
+    String getLosingPitcherId() {
+        return lpID;
+    }
+
+    /** @return the ID of the pitcher credited with a save, if any. */
+    String getSavePitcherId() {
+        return saveID;
+    }
+
     /** @return the last line read into this object. */
     public String getLastLine() {
-        return currentLine;
+        return currentLine();
     }
 
     /**
@@ -0,0 +1,53 @@
+package com.github.alexthesuperb.jopenboxscore;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+
+/**
+ * Print each game's boxscore, in any format registered with
+ * <code>BoxscoreFactory</code>, as soon as the game is accepted.
+ */
+public class BoxscoreGameSink implements GameSink {
+
+    private final BufferedWriter writer;
+    private final String boxscoreType;
+    private final boolean closeWriter;
+
+    /**
+     * @param writer The destination of the boxscores.
+     * @param boxscoreType The <code>BoxscoreFactory</code> key of the format to write.
+     * @param closeWriter If <code>false</code>, <code>close()</code> only flushes
+     *        <code>writer</code>, as is needed when it wraps the console.
+     * @throws IllegalArgumentException if no format is registered under
+     *         <code>boxscoreType</code>.
+     */
+    public BoxscoreGameSink(BufferedWriter writer, String boxscoreType,
+            boolean closeWriter) throws IllegalArgumentException {
+        if (!BoxscoreFactory.getInstance().isRegistered(boxscoreType)) {
+            throw new IllegalArgumentException("Unknown boxscore type '" +
+                boxscoreType + "'.");
+        }
+        this.writer = writer;
+        this.boxscoreType = boxscoreType;
+        this.closeWriter = closeWriter;
+    }
+
+    @Override
+    public void accept(BoxscoreGameAccount game) throws IOException {
+        game.printBoxscore(writer, boxscoreType);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closeWriter) {
+            writer.close();
+        } else {
+            writer.flush();
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.github.alexthesuperb.jopenboxscore;
+
+/**
+ * <p>
+ * Service provider interface for boxscore formats. <code>BoxscoreFactory</code>
+ * discovers implementations through <code>java.util.ServiceLoader</code>, so a
+ * new format can be added by listing its provider in a
+ * <code>META-INF/services/com.github.alexthesuperb.jopenboxscore.BoxscoreProvider</code>
+ * file on the classpath.
+ * </p><p>
+ * Implementations must have a public no-argument constructor.
+ * </p>
+ */
+public interface BoxscoreProvider {
+
+    /** 
+     * @return the key under which this format is requested from
+     * <code>BoxscoreFactory</code>. Keys are compared ignoring case.
+     */
+    public String getKey();
+
+    /**
+     * @return a new renderer. The factory calls this at most once per thread
+     * and reuses the result for every game rendered on that thread.
+     */
+    public ReusableBoxscore newBoxscore();
+
+}
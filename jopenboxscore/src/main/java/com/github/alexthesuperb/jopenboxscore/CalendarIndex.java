@@ -0,0 +1,279 @@
+package com.github.alexthesuperb.jopenboxscore;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * <p>
+ * A calendar of the games of any number of seasons: for each date, where
+ * each game played on it is found. A date window, which may span seasons, is
+ * answered by reading only the window's part of the calendar and then only
+ * its games, so that its cost grows with the number of games in the window
+ * rather than with the number of games indexed.
+ * </p><p>
+ * Dates are taken from game IDs, as <code>readGamesWithinRange()</code> takes
+ * them. The index file starts with a header listing the event files, as a
+ * <code>PlayerIndex</code> does; then a table of fixed-size records, one per
+ * date in ascending order, holding the date and the offset and length of its
+ * games; then the games of each date. Finding the window's first date is a
+ * binary search of the table on disk.
+ * </p>
+ */
+public final class CalendarIndex {
+
+    /** "JOBC", followed by the format version. */
+    private static final int MAGIC = 0x4A4F4243;
+
+    /** Incremented whenever the format changes. */
+    static final int VERSION = 1;
+
+    /* A date record: the date as YYYYMMDD, and the offset and length of its games. */
+    private static final int RECORD_SIZE = 4 + 8 + 4;
+
+    private final File indexFile;
+    private final IndexedFiles files;
+    private final long tableStart;
+    private final int dateCount;
+
+    private CalendarIndex(File indexFile, IndexedFiles files, long tableStart,
+            int dateCount) {
+        this.indexFile = indexFile;
+        this.files = files;
+        this.tableStart = tableStart;
+        this.dateCount = dateCount;
+    }
+
+    /**
+     * Index every game of a set of event files by date, and write the index.
+     *
+     * @param indexFile The index file to write.
+     * @param eventFiles The event files.
+     * @return The number of games indexed.
+     * @throws IOException if an event file cannot be read, or the index
+     *         cannot be written.
+     */
+    public static int build(File indexFile, List<File> eventFiles) throws IOException {
+        GameCodec.Encoder header = new GameCodec.Encoder();
+        IndexedFiles.of(eventFiles).write(header, indexFile.getAbsoluteFile().getParentFile());
+
+        /* By date, the location of each game, in file order. */
+        TreeMap<Integer, List<Entry>> dates = new TreeMap<>();
+        int games = 0;
+        for (int i = 0; i < eventFiles.size(); i++) {
+            for (GameBlock block : GameBlock.readBlocksWithOffsets(eventFiles.get(i))) {
+                int date = parseDate(block.getGameId());
+                if (date < 0) {
+                    continue;
+                }
+                List<Entry> day = dates.get(date);
+                if (day == null) {
+                    day = new ArrayList<>();
+                    dates.put(date, day);
+                }
+                day.add(new Entry(i, block.getOffset(), block.getFirstLine(),
+                    block.getGameId()));
+                games++;
+            }
+        }
+
+        List<byte[]> days = new ArrayList<>(dates.size());
+        for (List<Entry> day : dates.values()) {
+            GameCodec.Encoder out = new GameCodec.Encoder();
+            out.writeInt(day.size());
+            for (Entry game : day) {
+                out.writeInt(game.file);
+                out.writeLong(game.offset);
+                out.writeInt(game.firstLine);
+                out.writeString(game.gameId);
+            }
+            days.add(out.toByteArray());
+        }
+
+        byte[] headerBytes = header.toByteArray();
+        long offset = 16 + headerBytes.length + (long) RECORD_SIZE * dates.size();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new FileOutputStream(indexFile)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(headerBytes.length);
+            out.write(headerBytes);
+            out.writeInt(dates.size());
+            int i = 0;
+            for (Map.Entry<Integer, List<Entry>> day : dates.entrySet()) {
+                out.writeInt(day.getKey());
+                out.writeLong(offset);
+                out.writeInt(days.get(i).length);
+                offset += days.get(i++).length;
+            }
+            for (byte[] day : days) {
+                out.write(day);
+            }
+        }
+        return games;
+    }
+
+    /* A game's location, kept while building instead of its lines. */
+    private static final class Entry {
+
+        final int file;
+        final long offset;
+        final int firstLine;
+        final String gameId;
+
+        Entry(int file, long offset, int firstLine, String gameId) {
+            this.file = file;
+            this.offset = offset;
+            this.firstLine = firstLine;
+            this.gameId = gameId;
+        }
+    }
+
+    /* YYYYMMDD from a game ID such as NYA201805040, or -1 if it has none. */
+    private static int parseDate(String gameId) {
+        if (gameId == null || gameId.length() < 11) {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(gameId.substring(3, 11));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Open an index written by <code>build()</code>, reading its header.
+     *
+     * @param indexFile The index file.
+     * @return The index.
+     * @throws IOException if the file cannot be read, or is not a calendar
+     *         index of this version.
+     */
+    public static CalendarIndex open(File indexFile) throws IOException {
+        try (DataInputStream in = new DataInputStream(new FileInputStream(indexFile))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("File " + indexFile.getPath() + " is not a calendar " +
+                    "index of version " + VERSION + ".");
+            }
+            int length = in.readInt();
+            if (length < 0 || length > indexFile.length()) {
+                throw new IOException("Calendar index " + indexFile.getPath() +
+                    " is corrupt.");
+            }
+            byte[] headerBytes = new byte[length];
+            in.readFully(headerBytes);
+            int dateCount = in.readInt();
+            IndexedFiles files;
+            try {
+                files = IndexedFiles.read(new GameCodec.Decoder(headerBytes),
+                    indexFile.getAbsoluteFile().getParentFile());
+            } catch (IndexOutOfBoundsException | IllegalArgumentException exc) {
+                throw new IOException("Calendar index " + indexFile.getPath() +
+                    " is corrupt.", exc);
+            }
+            return new CalendarIndex(indexFile, files, 16 + length, dateCount);
+        }
+    }
+
+    /**
+     * Check that no indexed event file has changed since the index was built.
+     *
+     * @throws IOException naming the first file that has changed.
+     */
+    public void checkCurrent() throws IOException {
+        files.checkCurrent();
+    }
+
+    /** @return the indexed event files, in order. */
+    public List<File> getFiles() {
+        return files.getFiles();
+    }
+
+    /** @return the number of dates on which games were indexed. */
+    public int getDateCount() {
+        return dateCount;
+    }
+
+    /**
+     * Find the games played from one date through another.
+     *
+     * @param first The first date, <code>YYYYMMDD</code>.
+     * @param last The last date, <code>YYYYMMDD</code>.
+     * @return The games, by date, and on each date in the order of the
+     *         indexed files and of the games within them.
+     * @throws IOException if the index cannot be read.
+     */
+    public List<GameLocation> find(int first, int last) throws IOException {
+        if (first > last || dateCount == 0) {
+            return Collections.emptyList();
+        }
+        try (RandomAccessFile in = new RandomAccessFile(indexFile, "r")) {
+
+            /* The first date on or after the window's first. */
+            int low = 0;
+            int high = dateCount;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                in.seek(tableStart + (long) RECORD_SIZE * middle);
+                if (in.readInt() < first) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+
+            /* The window's records, then all of its games in one read. */
+            List<Integer> lengths = new ArrayList<>();
+            long start = -1;
+            in.seek(tableStart + (long) RECORD_SIZE * low);
+            for (int i = low; i < dateCount; i++) {
+                if (in.readInt() > last) {
+                    break;
+                }
+                long offset = in.readLong();
+                if (start < 0) {
+                    start = offset;
+                }
+                lengths.add(in.readInt());
+            }
+            if (start < 0) {
+                return Collections.emptyList();
+            }
+            int total = 0;
+            for (int length : lengths) {
+                total += length;
+            }
+            byte[] bytes = new byte[total];
+            in.seek(start);
+            in.readFully(bytes);
+
+            List<GameLocation> found = new ArrayList<>();
+            int position = 0;
+            for (int length : lengths) {
+                GameCodec.Decoder day = new GameCodec.Decoder(Arrays.copyOfRange(bytes,
+                    position, position + length));
+                position += length;
+                int count = day.readInt();
+                for (int i = 0; i < count; i++) {
+                    found.add(new GameLocation(files.get(day.readInt()), day.readLong(),
+                        day.readInt(), day.readString()));
+                }
+            }
+            return found;
+        } catch (IndexOutOfBoundsException | IllegalArgumentException exc) {
+            throw new IOException("Calendar index " + indexFile.getPath() + " is corrupt.",
+                exc);
+        }
+    }
+}
@@ -0,0 +1,295 @@
+package com.github.alexthesuperb.jopenboxscore;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>
+ * The progress of a batch run at the end of an event file, saved so that an
+ * interrupted run can resume from it instead of starting over.
+ * </p><p>
+ * A checkpoint records the event files completed so far, with the length and
+ * modification time each had and the number of games read from it; the
+ * lengths of the boxscore files written for those games; the totals of the
+ * summary, encoded by <code>SummaryCodec</code>; the game IDs not yet found
+ * and the messages of games excluded so far. A resumed run cuts each
+ * boxscore file back to its recorded length, restores the summary and skips
+ * the completed files, so that its output is the same as that of an
+ * uninterrupted run.
+ * </p><p>
+ * Every checkpoint carries a description of the run it belongs to, and is
+ * refused by any other run, or if a completed event file has changed since.
+ * </p>
+ */
+public final class Checkpoint {
+
+    /** "JOBK", followed by the format version. */
+    private static final int MAGIC = 0x4A4F424B;
+
+    /** Incremented whenever the format changes. */
+    static final int VERSION = 1;
+
+    private final String run;
+    private final List<String> files;
+    private final List<Long> fileLengths;
+    private final List<Long> fileModifiedTimes;
+    private final List<Integer> fileGames;
+    private final List<String> remainingGameIDs;
+    private final List<String> errorMessages;
+    private final long boxscoreLength;
+    private final Map<String, Long> shardLengths;
+    private final HashMap<String, AggregatedTeam<SingleGameTeam>> summaryTeams;
+
+    private Checkpoint(String run, long boxscoreLength) {
+        this.run = run;
+        this.files = new ArrayList<>();
+        this.fileLengths = new ArrayList<>();
+        this.fileModifiedTimes = new ArrayList<>();
+        this.fileGames = new ArrayList<>();
+        this.remainingGameIDs = new ArrayList<>();
+        this.errorMessages = new ArrayList<>();
+        this.shardLengths = new HashMap<>();
+        this.summaryTeams = new HashMap<>();
+        this.boxscoreLength = boxscoreLength;
+    }
+
+    /**
+     * Describe the state of a run whose outputs have just been flushed.
+     *
+     * @param run A description of the run, such as its arguments, which a
+     *        resuming run must match.
+     * @param files The event files completed so far, in order.
+     * @param fileGames The number of games read from each of those files.
+     * @param remainingGameIDs The game IDs still being looked for, or
+     *        <code>null</code> if games are not selected by ID.
+     * @param errorMessages The messages of the games excluded so far.
+     * @param boxscoreFile The file to which boxscores are written, or
+     *        <code>null</code> if they are written to shards or not at all.
+     * @param shardLengths The length of each shard written so far, as
+     *        returned by <code>ShardedBoxscoreWriter.getShardLengths()</code>,
+     *        or <code>null</code>.
+     * @param summary The summary being aggregated, or <code>null</code>.
+     */
+    public Checkpoint(String run, List<File> files, List<Integer> fileGames,
+            List<String> remainingGameIDs, List<String> errorMessages, File boxscoreFile,
+            Map<String, Long> shardLengths, NewspaperSummary summary) {
+        this(run, (boxscoreFile == null) ? -1 : boxscoreFile.length());
+        for (File file : files) {
+            this.files.add(file.getPath());
+            this.fileLengths.add(file.length());
+            this.fileModifiedTimes.add(file.lastModified());
+        }
+        this.fileGames.addAll(fileGames);
+        if (remainingGameIDs != null) {
+            this.remainingGameIDs.addAll(remainingGameIDs);
+        }
+        this.errorMessages.addAll(errorMessages);
+        if (shardLengths != null) {
+            this.shardLengths.putAll(shardLengths);
+        }
+        if (summary != null) {
+            this.summaryTeams.putAll(summary.teams);
+        }
+    }
+
+    /**
+     * Read a checkpoint written by <code>write()</code>.
+     *
+     * @param file The checkpoint file.
+     * @return The checkpoint.
+     * @throws IOException if the file cannot be read or is not a checkpoint
+     *         of this version.
+     */
+    public static Checkpoint read(File file) throws IOException {
+        GameCodec.Decoder in = new GameCodec.Decoder(Files.readAllBytes(file.toPath()));
+        if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+            throw new IOException("File " + file.getPath() + " is not a checkpoint of " +
+                "version " + VERSION + ".");
+        }
+
+        try {
+            Checkpoint checkpoint = new Checkpoint(in.readString(), in.readLong());
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                checkpoint.files.add(in.readString());
+                checkpoint.fileLengths.add(in.readLong());
+                checkpoint.fileModifiedTimes.add(in.readLong());
+                checkpoint.fileGames.add(in.readInt());
+            }
+            readStrings(in, checkpoint.remainingGameIDs);
+            readStrings(in, checkpoint.errorMessages);
+            count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                checkpoint.shardLengths.put(in.readString(), in.readLong());
+            }
+            checkpoint.summaryTeams.putAll(SummaryCodec.decodeTeams(in));
+            if (!in.atEnd()) {
+                throw new IOException("Unexpected data after checkpoint.");
+            }
+            return checkpoint;
+        } catch (IndexOutOfBoundsException | IllegalArgumentException exc) {
+            throw new IOException("Checkpoint " + file.getPath() + " is corrupt.", exc);
+        }
+    }
+
+    private static void readStrings(GameCodec.Decoder in, List<String> strings)
+            throws IOException {
+        int count = in.readInt();
+        if (count < 0 || count > in.remaining()) {
+            throw new IOException("Truncated encoding.");
+        }
+        for (int i = 0; i < count; i++) {
+            strings.add(in.readString());
+        }
+    }
+
+    private static void writeStrings(GameCodec.Encoder out, List<String> strings) {
+        out.writeInt(strings.size());
+        for (String s : strings) {
+            out.writeString(s);
+        }
+    }
+
+    /**
+     * Write this checkpoint, replacing <code>file</code> only once it has
+     * been written completely.
+     *
+     * @param file The checkpoint file.
+     * @throws IOException if the file cannot be written.
+     */
+    public void write(File file) throws IOException {
+        GameCodec.Encoder out = new GameCodec.Encoder();
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeString(run);
+        out.writeLong(boxscoreLength);
+        out.writeInt(files.size());
+        for (int i = 0; i < files.size(); i++) {
+            out.writeString(files.get(i));
+            out.writeLong(fileLengths.get(i));
+            out.writeLong(fileModifiedTimes.get(i));
+            out.writeInt(fileGames.get(i));
+        }
+        writeStrings(out, remainingGameIDs);
+        writeStrings(out, errorMessages);
+        List<String> shards = new ArrayList<>(shardLengths.keySet());
+        Collections.sort(shards);
+        out.writeInt(shards.size());
+        for (String shard : shards) {
+            out.writeString(shard);
+            out.writeLong(shardLengths.get(shard));
+        }
+        SummaryCodec.encodeTeams(out, summaryTeams);
+
+        File parent = file.getAbsoluteFile().getParentFile();
+        File temp = File.createTempFile(file.getName() + ".", ".tmp", parent);
+        try {
+            Files.write(temp.toPath(), out.toByteArray());
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp.toPath());
+        }
+    }
+
+    /**
+     * Check that this checkpoint can be resumed by a run.
+     *
+     * @param run The description of the resuming run.
+     * @throws IOException if this checkpoint belongs to a different run, or a
+     *         completed event file has changed since it was written.
+     */
+    public void checkResumable(String run) throws IOException {
+        if (!this.run.equals(run)) {
+            throw new IOException("The checkpoint was written by a run with different " +
+                "files, options or outputs.");
+        }
+        for (int i = 0; i < files.size(); i++) {
+            File file = new File(files.get(i));
+            if (file.length() != fileLengths.get(i) ||
+                    file.lastModified() != fileModifiedTimes.get(i)) {
+                throw new IOException("Event file " + files.get(i) + " has changed " +
+                    "since the checkpoint was written.");
+            }
+        }
+    }
+
+    /** @return the number of event files completed. */
+    public int getCompletedFileCount() {
+        return files.size();
+    }
+
+    /** @return the number of games read from the completed files. */
+    public int getGameCount() {
+        int games = 0;
+        for (int count : fileGames) {
+            games += count;
+        }
+        return games;
+    }
+
+    /** @return the number of games read from each completed file. */
+    public List<Integer> getFileGameCounts() {
+        return Collections.unmodifiableList(fileGames);
+    }
+
+    /** @return the game IDs still being looked for, if games are selected by ID. */
+    public List<String> getRemainingGameIDs() {
+        return Collections.unmodifiableList(remainingGameIDs);
+    }
+
+    /** @return the messages of the games excluded so far. */
+    public List<String> getErrorMessages() {
+        return Collections.unmodifiableList(errorMessages);
+    }
+
+    /** @return the length of the boxscore file, or -1 if there is none. */
+    public long getBoxscoreLength() {
+        return boxscoreLength;
+    }
+
+    /** @return the length of each boxscore shard, by shard key. */
+    public Map<String, Long> getShardLengths() {
+        return Collections.unmodifiableMap(shardLengths);
+    }
+
+    /**
+     * Add the summary totals saved in this checkpoint to an empty summary.
+     * Each summary restored gets its own copy of the totals.
+     *
+     * @param summary A summary to which no game has been added.
+     * @throws IOException if the totals cannot be copied.
+     */
+    public void restoreSummary(NewspaperSummary summary) throws IOException {
+        GameCodec.Encoder out = new GameCodec.Encoder();
+        SummaryCodec.encodeTeams(out, summaryTeams);
+        summary.teams.putAll(SummaryCodec.decodeTeams(new GameCodec.Decoder(out.toByteArray())));
+    }
+
+    /**
+     * Cut a file back to a length it is known to have had, dropping anything
+     * written to it since.
+     *
+     * @param file The file.
+     * @param length Its earlier length.
+     * @throws IOException if the file is shorter than <code>length</code>, or
+     *         cannot be truncated.
+     */
+    public static void truncate(File file, long length) throws IOException {
+        if (file.length() < length) {
+            throw new IOException("File " + file.getPath() + " is shorter than the " +
+                length + " bytes previously written to it.");
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(length);
+        }
+    }
+}
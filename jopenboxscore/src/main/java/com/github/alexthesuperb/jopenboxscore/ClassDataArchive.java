@@ -0,0 +1,82 @@
+package com.github.alexthesuperb.jopenboxscore;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>
+ * Writes an application class-data sharing (AppCDS) archive of the classes a
+ * representative run loads, so that later runs can map them from the archive
+ * instead of loading and verifying them again. For the short runs of
+ * single-game lookups, this is a good part of their time.
+ * </p><p>
+ * The archive is written by a second JVM, started with
+ * <code>-XX:ArchiveClassesAtExit</code>, which requires Java 13 or later. It is
+ * named <code>jopenboxscore.jsa</code> and placed next to the jar, where the
+ * <code>jopenboxscore</code> launcher script looks for it. The JVM ignores an
+ * archive written for a different jar or JDK, so a stale archive only costs
+ * the time it would have saved.
+ * </p>
+ */
+final class ClassDataArchive {
+
+    /** The name of the archive, in the jar's directory. */
+    static final String FILE_NAME = "jopenboxscore.jsa";
+
+    private ClassDataArchive() {
+    }
+
+    /** @return <code>true</code> if this JVM can write dynamic archives. */
+    static boolean isSupported() {
+        String version = System.getProperty("java.specification.version", "1.8");
+        if (version.startsWith("1.")) {
+            return false;
+        }
+        try {
+            return Integer.parseInt(version) >= 13;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /** @return the archive file next to the jar, or next to the classes. */
+    static File getDefaultFile() {
+        File location;
+        try {
+            location = new File(ClassDataArchive.class.getProtectionDomain()
+                .getCodeSource().getLocation().toURI());
+        } catch (URISyntaxException | SecurityException | NullPointerException e) {
+            location = new File(".");
+        }
+        File directory = location.isDirectory() ? location : location.getAbsoluteFile()
+            .getParentFile();
+        return new File(directory, FILE_NAME);
+    }
+
+    /**
+     * Run jopenboxscore with <code>args</code> in a new JVM that writes the
+     * classes it loads to <code>archive</code> when it exits. Its output is
+     * that of the run.
+     *
+     * @param archive The archive to write.
+     * @param args The arguments of the representative run.
+     * @return The exit status of the run.
+     * @throws IOException if the JVM cannot be started.
+     * @throws InterruptedException if interrupted while waiting for the run.
+     */
+    static int train(File archive, List<String> args) throws IOException,
+            InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(System.getProperty("java.home") + File.separator + "bin" +
+            File.separator + "java");
+        command.add("-XX:ArchiveClassesAtExit=" + archive.getAbsolutePath());
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(TerminalDriver.class.getName());
+        command.addAll(args);
+        return new ProcessBuilder(command).inheritIO().start().waitFor();
+    }
+}
@@ -0,0 +1,47 @@
+package com.github.alexthesuperb.jopenboxscore;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.List;
+
+/**
+ * Helpers shared by the line-oriented command interpreters,
+ * <code>BoxscoreDaemon</code> and <code>QueryConsole</code>.
+ */
+final class CommandSupport {
+
+    private CommandSupport() {
+    }
+
+    /**
+     * Check that a command was given enough arguments.
+     *
+     * @param args The command and its arguments.
+     * @param count The least number of elements <code>args</code> may have.
+     * @param usage The command's syntax, reported if it has too few.
+     * @throws IllegalArgumentException if <code>args</code> is too short.
+     */
+    static void requireArgs(String[] args, int count, String usage)
+            throws IllegalArgumentException {
+        if (args.length < count) {
+            throw new IllegalArgumentException("Usage: " + usage);
+        }
+    }
+
+    /** @return the newspaper boxscores of games, one after another. */
+    static String renderBoxscores(List<BoxscoreGameAccount> games) {
+        StringWriter text = new StringWriter();
+        BufferedWriter writer = new BufferedWriter(text);
+        try {
+            for (BoxscoreGameAccount game : games) {
+                game.printBoxscore(writer, BoxscoreFactory.NEWSPAPER_BOXSCORE_KEY);
+            }
+            writer.flush();
+        } catch (IOException e) {
+            /* A StringWriter does not throw. */
+            throw new IllegalStateException(e);
+        }
+        return text.toString();
+    }
+}
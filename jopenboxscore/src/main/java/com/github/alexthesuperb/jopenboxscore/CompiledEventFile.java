@@ -0,0 +1,215 @@
+package com.github.alexthesuperb.jopenboxscore;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>
+ * An event file compiled to a compact binary form, so that files read again
+ * and again need not be scanned as text each time.
+ * </p><p>
+ * Each line is written as the opcode of its type, such as <code>play</code>
+ * or <code>start</code>, followed by the rest of its fields. Fields are
+ * written by <code>GameCodec.Encoder</code>, so each distinct player ID,
+ * play and other value is written in full once, and then as the index of
+ * that first occurrence. Reading a compiled file gives back every game
+ * block, with each line already split into its fields, and
+ * <code>RetrosheetEveReader</code> passes those fields to
+ * <code>BoxscoreGameAccount.addFields()</code>. Games read from a compiled
+ * file are the same, to the last error message, as those read from the
+ * event file it was compiled from.
+ * </p><p>
+ * A compiled file is not updated when its event file changes; compile the
+ * file again.
+ * </p>
+ */
+public final class CompiledEventFile {
+
+    /** "JOBE", followed by the format version. */
+    private static final int MAGIC = 0x4A4F4245;
+
+    /** Incremented whenever the format changes. */
+    static final int VERSION = 1;
+
+    /** The extension given to compiled files by <code>TerminalDriver</code>. */
+    public static final String EXTENSION = ".evb";
+
+    /* The opcode of each line type is its index. Lines of any other type are OTHER. */
+    private static final String[] TYPES = {"id", "version", "info", "start", "sub",
+        "play", "com", "data", "ladj", "badj", "padj", "radj", "presadj"};
+    private static final int OTHER = TYPES.length;
+    private static final Map<String, Integer> OPCODES = new HashMap<>();
+
+    /* MAGIC as the Encoder writes it: the first bytes of every compiled file. */
+    private static final byte[] HEADER;
+
+    static {
+        for (int i = 0; i < TYPES.length; i++) {
+            OPCODES.put(TYPES[i], i);
+        }
+        GameCodec.Encoder out = new GameCodec.Encoder();
+        out.writeInt(MAGIC);
+        HEADER = out.toByteArray();
+    }
+
+    private final String sourceName;
+    private final List<GameBlock> blocks;
+
+    private CompiledEventFile(String sourceName, List<GameBlock> blocks) {
+        this.sourceName = sourceName;
+        this.blocks = Collections.unmodifiableList(blocks);
+    }
+
+    /** @return the name of the event file this file was compiled from. */
+    public String getSourceName() {
+        return sourceName;
+    }
+
+    /** @return the game blocks of the event file, in order. */
+    public List<GameBlock> getBlocks() {
+        return blocks;
+    }
+
+    /**
+     * Compile an event file. Lines before its first <code>id</code> line,
+     * which belong to no game, are left out.
+     *
+     * @param eveFile An event file.
+     * @param out The compiled file, which is replaced if it exists.
+     * @return The number of games compiled.
+     * @throws FileNotFoundException if the event file does not exist.
+     * @throws IOException if the event file cannot be read, or the compiled
+     *         file cannot be written.
+     */
+    public static int compile(File eveFile, File out) throws FileNotFoundException,
+            IOException {
+        List<GameBlock> blocks = GameBlock.readBlocks(eveFile);
+        GameCodec.Encoder encoder = new GameCodec.Encoder();
+        encoder.writeInt(MAGIC);
+        encoder.writeInt(VERSION);
+        encoder.writeString(eveFile.getName());
+        encoder.writeInt(blocks.size());
+        for (GameBlock block : blocks) {
+            encoder.writeString(block.getGameId());
+            encoder.writeInt(block.getFirstLine());
+            encoder.writeInt(block.getLines().size());
+            for (String line : block.getLines()) {
+                String[] fields = line.split(",", -1);
+                Integer opcode = OPCODES.get(fields[0]);
+                if (opcode != null) {
+                    encoder.writeInt(opcode);
+                } else {
+                    encoder.writeInt(OTHER);
+                    encoder.writeString(fields[0]);
+                }
+                encoder.writeInt(fields.length - 1);
+                for (int i = 1; i < fields.length; i++) {
+                    encoder.writeString(fields[i]);
+                }
+            }
+        }
+
+        /* Written beside the destination and moved over it, so it is never seen half written. */
+        File directory = out.getAbsoluteFile().getParentFile();
+        File temp = File.createTempFile(out.getName() + ".", ".tmp", directory);
+        try {
+            Files.write(temp.toPath(), encoder.toByteArray());
+            Files.move(temp.toPath(), out.toPath(), StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp.toPath());
+        }
+        return blocks.size();
+    }
+
+    /**
+     * Check whether a stream holds a compiled file, leaving it where it was.
+     *
+     * @param in A stream that supports <code>mark()</code>, at its start.
+     */
+    static boolean isCompiled(InputStream in) throws IOException {
+        byte[] head = new byte[HEADER.length];
+        in.mark(head.length);
+        int read = 0;
+        int n;
+        while (read < head.length && (n = in.read(head, read, head.length - read)) > 0) {
+            read += n;
+        }
+        in.reset();
+        return read == head.length && Arrays.equals(head, HEADER);
+    }
+
+    /**
+     * Read a compiled file from a stream, to its end.
+     *
+     * @param name The name of the compiled file, for error messages.
+     * @throws IOException if the stream cannot be read, or does not hold a
+     *         compiled file of this version.
+     */
+    static CompiledEventFile read(InputStream in, String name) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(1 << 16);
+        byte[] buffer = new byte[8192];
+        int n;
+        while ((n = in.read(buffer)) > 0) {
+            bytes.write(buffer, 0, n);
+        }
+        GameCodec.Decoder decoder = new GameCodec.Decoder(bytes.toByteArray());
+        if (decoder.readInt() != MAGIC) {
+            throw new IOException(name + " is not a compiled event file.");
+        }
+        if (decoder.readInt() != VERSION) {
+            throw new IOException(name + " was compiled by another version of " +
+                "jopenboxscore. Compile its event file again.");
+        }
+        String sourceName = decoder.readString();
+        int count = readCount(decoder, name);
+        List<GameBlock> blocks = new ArrayList<>(count);
+        for (int b = 0; b < count; b++) {
+            String gameId = decoder.readString();
+            int firstLine = decoder.readInt();
+            String[][] lines = new String[readCount(decoder, name)][];
+            for (int l = 0; l < lines.length; l++) {
+                int opcode = decoder.readInt();
+                String type;
+                if (opcode >= 0 && opcode < OTHER) {
+                    type = TYPES[opcode];
+                } else if (opcode == OTHER) {
+                    type = decoder.readString();
+                } else {
+                    throw new IOException("Unknown line type " + opcode + " in " + name + ".");
+                }
+                String[] fields = new String[readCount(decoder, name) + 1];
+                fields[0] = type;
+                for (int f = 1; f < fields.length; f++) {
+                    fields[f] = decoder.readString();
+                }
+                lines[l] = fields;
+            }
+            blocks.add(new GameBlock(gameId, firstLine, lines));
+        }
+        if (!decoder.atEnd()) {
+            throw new IOException("Unexpected data at the end of " + name + ".");
+        }
+        return new CompiledEventFile(sourceName, blocks);
+    }
+
+    /* Every count is at least one byte, so none can be larger than what remains. */
+    private static int readCount(GameCodec.Decoder decoder, String name) throws IOException {
+        int count = decoder.readInt();
+        if (count < 0 || count > decoder.remaining()) {
+            throw new IOException("Malformed compiled event file " + name + ".");
+        }
+        return count;
+    }
+}
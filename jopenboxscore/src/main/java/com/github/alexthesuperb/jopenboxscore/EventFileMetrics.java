@@ -0,0 +1,134 @@
+package com.github.alexthesuperb.jopenboxscore;
+
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+
+/**
+ * The progress of a <code>RetrosheetEveReader</code> through one event file.
+ * Only the reader updates these counters; any thread may read them. Every
+ * update is also added to the process-wide <code>ProcessingMetrics</code>.
+ */
+public final class EventFileMetrics implements EventFileMetricsMBean {
+
+    private final ProcessingMetrics totals;
+    private final String fileName;
+    private final long fileLength;
+
+    private volatile long linesRead;
+    private volatile long bytesRead;
+    private volatile long gamesParsed;
+    private volatile long gamesFailed;
+    private volatile long outputNanos;
+
+    /** When reading started, or 0 before it has. */
+    private volatile long startNanos;
+    private volatile long parseNanos;
+    private volatile boolean complete;
+
+    EventFileMetrics(ProcessingMetrics totals, String fileName, long fileLength) {
+        this.totals = totals;
+        this.fileName = fileName;
+        this.fileLength = fileLength;
+    }
+
+    ObjectName getObjectName() throws MalformedObjectNameException {
+        return new ObjectName(ProcessingMetrics.DOMAIN + ":type=EventFile,name=" +
+            ObjectName.quote(fileName));
+    }
+
+    /** Mark the start of reading. */
+    void start() {
+        startNanos = System.nanoTime();
+    }
+
+    /**
+     * Record how far reading has come.
+     *
+     * @param lines The number of lines read so far.
+     * @param bytes The number of bytes read so far.
+     * @param failed The number of games excluded so far.
+     */
+    void progress(long lines, long bytes, long failed) {
+        totals.addProgress(lines - linesRead, bytes - bytesRead, failed - gamesFailed);
+        linesRead = lines;
+        bytesRead = bytes;
+        gamesFailed = failed;
+    }
+
+    void gameParsed() {
+        gamesParsed++;
+        totals.addGameParsed();
+    }
+
+    /** Record time spent in the reader's outputs, which is not parse time. */
+    void addOutputNanos(long nanos) {
+        outputNanos += nanos;
+        totals.addOutputNanos(nanos);
+    }
+
+    /** Mark the end of reading. */
+    void finish() {
+        parseNanos = getParseNanos();
+        complete = true;
+        totals.addParseNanos(parseNanos);
+        totals.fileCompleted(this);
+    }
+
+    long getParseNanos() {
+        if (complete) {
+            return parseNanos;
+        }
+        long start = startNanos;
+        return (start == 0) ? 0 : System.nanoTime() - start - outputNanos;
+    }
+
+    @Override
+    public String getFileName() {
+        return fileName;
+    }
+
+    @Override
+    public boolean isComplete() {
+        return complete;
+    }
+
+    @Override
+    public long getGamesParsed() {
+        return gamesParsed;
+    }
+
+    @Override
+    public long getGamesFailed() {
+        return gamesFailed;
+    }
+
+    @Override
+    public long getLinesRead() {
+        return linesRead;
+    }
+
+    @Override
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    @Override
+    public long getFileLength() {
+        return fileLength;
+    }
+
+    @Override
+    public double getLinesPerSecond() {
+        return ProcessingMetrics.perSecond(linesRead, getParseNanos());
+    }
+
+    @Override
+    public long getParseMillis() {
+        return getParseNanos() / 1000000;
+    }
+
+    @Override
+    public long getOutputMillis() {
+        return outputNanos / 1000000;
+    }
+}
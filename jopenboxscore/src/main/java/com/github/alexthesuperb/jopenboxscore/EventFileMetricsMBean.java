@@ -0,0 +1,37 @@
+package com.github.alexthesuperb.jopenboxscore;
+
+/**
+ * The attributes of <code>EventFileMetrics</code>, as seen by JMX clients.
+ */
+public interface EventFileMetricsMBean {
+
+    /** @return the name of the event file. */
+    String getFileName();
+
+    /** @return <code>true</code> once the file has been read to its end. */
+    boolean isComplete();
+
+    /** @return the number of games read successfully. */
+    long getGamesParsed();
+
+    /** @return the number of games excluded because of errors. */
+    long getGamesFailed();
+
+    /** @return the number of lines read. */
+    long getLinesRead();
+
+    /** @return the number of bytes read. */
+    long getBytesRead();
+
+    /** @return the file's length in bytes. */
+    long getFileLength();
+
+    /** @return lines read per second spent reading and parsing. */
+    double getLinesPerSecond();
+
+    /** @return time spent reading and parsing the file, outputs excluded. */
+    long getParseMillis();
+
+    /** @return time spent handing the file's games to their outputs. */
+    long getOutputMillis();
+}
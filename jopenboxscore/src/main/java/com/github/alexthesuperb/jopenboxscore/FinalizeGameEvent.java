@@ -0,0 +1,20 @@
+package com.github.alexthesuperb.jopenboxscore;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** A flight recorder event spanning <code>BoxscoreGameAccount.finalize()</code>. */
+@Name(FlightEvents.PREFIX + "FinalizeGame")
+@Label("Finalize Game")
+@Category(FlightEvents.CATEGORY)
+@StackTrace(false)
+final class FinalizeGameEvent extends jdk.jfr.Event {
+
+    @Label("File")
+    String file;
+
+    @Label("Game ID")
+    String gameId;
+}
@@ -0,0 +1,128 @@
+package com.github.alexthesuperb.jopenboxscore;
+
+import java.text.DecimalFormatSymbols;
+import java.util.Locale;
+
+/**
+ * <p>
+ * Fixed-width text helpers producing exactly the same text as the
+ * <code>String.format</code> patterns they replace (<code>%5d</code>,
+ * <code>%7s</code>, <code>%-15s</code>, <code>%.3f</code>), without creating a
+ * <code>Formatter</code> for every cell.
+ * </p><p>
+ * Rate statistics are rounded in fixed point. <code>String.format</code> rounds
+ * half up from the shortest decimal representation of a value, which can only
+ * differ from the fixed-point result when the value lies on a rounding
+ * boundary; those rare values, and locales that do not write numbers with
+ * ASCII digits and a '.' separator, fall back to <code>String.format</code>.
+ * </p>
+ */
+final class FixedWidthFormat {
+
+    private static final long[] powersOfTen = {1L, 10L, 100L, 1000L, 10000L, 100000L, 1000000L};
+
+    /** Distance from a rounding boundary below which fixed point is not trusted. */
+    private static final double BOUNDARY_TOLERANCE = 1e-6;
+
+    /** Values this large are formatted by <code>String.format</code>. */
+    private static final double MAX_FIXED_POINT = 1e12;
+
+    private static final String SPACES = "                                        ";
+
+    private FixedWidthFormat() {
+        super();
+    }
+
+    /** Append <code>n</code> spaces. */
+    static StringBuilder appendSpaces(StringBuilder sb, int n) {
+        while (n > SPACES.length()) {
+            sb.append(SPACES);
+            n -= SPACES.length();
+        }
+        if (n > 0) {
+            sb.append(SPACES, 0, n);
+        }
+        return sb;
+    }
+
+    /** Equivalent to appending <code>String.format("%" + width + "s", s)</code>. */
+    static StringBuilder appendRight(StringBuilder sb, String s, int width) {
+        appendSpaces(sb, width - s.length());
+        return sb.append(s);
+    }
+
+    /** Equivalent to appending <code>String.format("%" + width + "d", value)</code>. */
+    static StringBuilder appendRight(StringBuilder sb, int value, int width) {
+        return appendRight(sb, Integer.toString(value), width);
+    }
+
+    /** Equivalent to appending <code>String.format("%-" + width + "s", s)</code>. */
+    static StringBuilder appendLeft(StringBuilder sb, String s, int width) {
+        sb.append(s);
+        return appendSpaces(sb, width - s.length());
+    }
+
+    /**
+     * Format a rate statistic such as a batting average or ERA.
+     *
+     * @param stat The statistic.
+     * @param decimals The number of digits after the decimal point.
+     * @param leadingZero If <code>false</code>, a leading <code>0</code> is
+     *        dropped, as in <code>.300</code>.
+     * @return The formatted statistic, <code>""</code> for <code>NaN</code>, or
+     *         <code>"inf"</code> for infinite values.
+     */
+    static String formatRateStat(float stat, int decimals, boolean leadingZero) {
+        if (Float.isNaN(stat)) {
+            return "";
+        }
+        if (Float.isInfinite(stat)) {
+            return "inf";
+        }
+
+        String statStr = formatFixed(stat, decimals);
+        if (!leadingZero && statStr.charAt(0) == '0') {
+            statStr = statStr.substring(1);
+        }
+        return statStr;
+    }
+
+    /** Equivalent to <code>String.format("%." + decimals + "f", value)</code>. */
+    static String formatFixed(float value, int decimals) {
+        /* Negative values, including -0.0, keep their sign in String.format. */
+        if (!LocaleCheck.ASCII_DECIMALS || Math.copySign(1f, value) < 0 || decimals < 1 ||
+                decimals >= powersOfTen.length) {
+            return String.format("%." + decimals + "f", value);
+        }
+
+        double scaled = (double) value * powersOfTen[decimals];
+        double floor = Math.floor(scaled);
+        double fraction = scaled - floor;
+        if (scaled >= MAX_FIXED_POINT || Math.abs(fraction - 0.5) < BOUNDARY_TOLERANCE) {
+            return String.format("%." + decimals + "f", value);
+        }
+
+        long units = (long) floor + ((fraction > 0.5) ? 1 : 0);
+        long whole = units / powersOfTen[decimals];
+        String fractionDigits = Long.toString(units % powersOfTen[decimals]);
+
+        StringBuilder sb = new StringBuilder(decimals + 8);
+        sb.append(whole).append('.');
+        for (int i = fractionDigits.length(); i < decimals; i++) {
+            sb.append('0');
+        }
+        return sb.append(fractionDigits).toString();
+    }
+
+    /** Checked once, on the first rate statistic formatted. */
+    private static class LocaleCheck {
+        private static final boolean ASCII_DECIMALS;
+
+        static {
+            DecimalFormatSymbols symbols = DecimalFormatSymbols.getInstance(
+                Locale.getDefault(Locale.Category.FORMAT));
+            ASCII_DECIMALS = symbols.getDecimalSeparator() == '.' &&
+                symbols.getZeroDigit() == '0';
+        }
+    }
+}
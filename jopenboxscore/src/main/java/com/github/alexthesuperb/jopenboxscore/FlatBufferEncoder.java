@@ -0,0 +1,238 @@
+package com.github.alexthesuperb.jopenboxscore;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * <p>
+ * A minimal FlatBuffers encoder, written so that <code>ArrowStreamWriter</code>
+ * can produce Arrow IPC metadata without depending on the FlatBuffers runtime.
+ * </p><p>
+ * Like the reference implementation, the buffer is filled from back to front:
+ * child objects (strings, vectors and nested tables) must be created before the
+ * table that refers to them, and every <code>create</code>/<code>end</code> method
+ * returns an offset that may later be passed to <code>addOffset</code>.
+ * Only the handful of operations needed by the Arrow schema are supported.
+ * </p>
+ */
+final class FlatBufferEncoder {
+
+    private byte[] buf;
+
+    /** Index of the first written byte; everything before it is free space. */
+    private int space;
+
+    /** Largest alignment requested so far. */
+    private int minAlign;
+
+    /** Offsets of the fields added to the table currently being built. */
+    private int[] vtable;
+
+    /** Offset at which the current table was started. */
+    private int objectStart;
+
+    FlatBufferEncoder(int initialSize) {
+        buf = new byte[Math.max(initialSize, 64)];
+        space = buf.length;
+        minAlign = 1;
+    }
+
+    /** @return the number of bytes written so far. */
+    int offset() {
+        return buf.length - space;
+    }
+
+    /** Double the size of the buffer, keeping its contents at the back. */
+    private void grow(int needed) {
+        int oldSize = buf.length;
+        int newSize = oldSize;
+        while (newSize - offset() < needed) {
+            newSize *= 2;
+        }
+        byte[] newBuf = new byte[newSize];
+        System.arraycopy(buf, space, newBuf, newSize - offset(), offset());
+        space += newSize - oldSize;
+        buf = newBuf;
+    }
+
+    /**
+     * Prepare to write an element of <code>size</code> bytes after
+     * <code>additionalBytes</code> have been written, padding so that the
+     * element ends up aligned.
+     */
+    private void prep(int size, int additionalBytes) {
+        if (size > minAlign) {
+            minAlign = size;
+        }
+        int alignSize = (~(offset() + additionalBytes) + 1) & (size - 1);
+        if (space < alignSize + size + additionalBytes) {
+            grow(alignSize + size + additionalBytes);
+        }
+        for (int i = 0; i < alignSize; i++) {
+            buf[--space] = 0;
+        }
+    }
+
+    private void putByte(byte b) {
+        buf[--space] = b;
+    }
+
+    private void putShort(short s) {
+        space -= 2;
+        buf[space] = (byte) s;
+        buf[space + 1] = (byte) (s >> 8);
+    }
+
+    private void putInt(int v) {
+        space -= 4;
+        for (int i = 0; i < 4; i++) {
+            buf[space + i] = (byte) (v >> (8 * i));
+        }
+    }
+
+    private void putLong(long v) {
+        space -= 8;
+        for (int i = 0; i < 8; i++) {
+            buf[space + i] = (byte) (v >> (8 * i));
+        }
+    }
+
+    void addByte(byte b) {
+        prep(1, 0);
+        putByte(b);
+    }
+
+    void addShort(short s) {
+        prep(2, 0);
+        putShort(s);
+    }
+
+    void addInt(int v) {
+        prep(4, 0);
+        putInt(v);
+    }
+
+    void addLong(long v) {
+        prep(8, 0);
+        putLong(v);
+    }
+
+    /** Write a relative reference to an object created earlier. */
+    void addOffset(int off) {
+        prep(4, 0);
+        putInt(offset() - off + 4);
+    }
+
+    int createString(String s) {
+        byte[] utf8 = s.getBytes(StandardCharsets.UTF_8);
+        prep(4, utf8.length + 1);
+        putByte((byte) 0);
+        space -= utf8.length;
+        System.arraycopy(utf8, 0, buf, space, utf8.length);
+        putInt(utf8.length);
+        return offset();
+    }
+
+    /** Create a vector of references to previously created objects. */
+    int createOffsetVector(int[] offsets) {
+        prep(4, 4 * offsets.length);
+        for (int i = offsets.length - 1; i >= 0; i--) {
+            addOffset(offsets[i]);
+        }
+        putInt(offsets.length);
+        return offset();
+    }
+
+    /**
+     * Create a vector of structs made of two <code>long</code> fields, such as
+     * Arrow's <code>FieldNode</code> and <code>Buffer</code>.
+     *
+     * @param pairs <code>{first0, second0, first1, second1, ...}</code>
+     */
+    int createLongPairVector(long[] pairs) {
+        int count = pairs.length / 2;
+        prep(4, 16 * count);
+        prep(8, 16 * count);
+        for (int i = count - 1; i >= 0; i--) {
+            putLong(pairs[2 * i + 1]);
+            putLong(pairs[2 * i]);
+        }
+        putInt(count);
+        return offset();
+    }
+
+    void startTable(int numFields) {
+        vtable = new int[numFields];
+        objectStart = offset();
+    }
+
+    private void slot(int field) {
+        vtable[field] = offset();
+    }
+
+    void addByteField(int field, byte value) {
+        addByte(value);
+        slot(field);
+    }
+
+    void addShortField(int field, short value) {
+        addShort(value);
+        slot(field);
+    }
+
+    void addIntField(int field, int value) {
+        addInt(value);
+        slot(field);
+    }
+
+    void addLongField(int field, long value) {
+        addLong(value);
+        slot(field);
+    }
+
+    void addBooleanField(int field, boolean value) {
+        addByteField(field, (byte) (value ? 1 : 0));
+    }
+
+    void addOffsetField(int field, int off) {
+        addOffset(off);
+        slot(field);
+    }
+
+    /** Write the current table's vtable and return the table's offset. */
+    int endTable() {
+        addInt(0);
+        int tableOffset = offset();
+
+        int numFields = vtable.length;
+        while (numFields > 0 && vtable[numFields - 1] == 0) {
+            numFields--;
+        }
+        for (int i = numFields - 1; i >= 0; i--) {
+            addShort((short) (vtable[i] != 0 ? tableOffset - vtable[i] : 0));
+        }
+        addShort((short) (tableOffset - objectStart));
+        addShort((short) ((numFields + 2) * 2));
+
+        /* Point the table at its vtable, which sits directly in front of it. */
+        int tablePos = buf.length - tableOffset;
+        int distance = offset() - tableOffset;
+        for (int i = 0; i < 4; i++) {
+            buf[tablePos + i] = (byte) (distance >> (8 * i));
+        }
+        vtable = null;
+        return tableOffset;
+    }
+
+    /**
+     * Write the root reference and return the finished buffer.
+     *
+     * @param root Offset of the root table.
+     * @return The encoded bytes.
+     */
+    byte[] finish(int root) {
+        prep(minAlign, 4);
+        addOffset(root);
+        return Arrays.copyOfRange(buf, space, buf.length);
+    }
+}
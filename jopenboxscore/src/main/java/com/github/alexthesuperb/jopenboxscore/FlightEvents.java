@@ -0,0 +1,184 @@
+package com.github.alexthesuperb.jopenboxscore;
+
+import jdk.jfr.FlightRecorder;
+
+/**
+ * <p>
+ * Emits jopenboxscore's Java Flight Recorder events: <code>ReadFile</code>,
+ * <code>ParseGame</code>, <code>RosterLookup</code>, <code>FinalizeGame</code>
+ * and <code>RenderBoxscore</code>, all under the <i>jopenboxscore</i>
+ * category.
+ * </p><p>
+ * Each <code>begin</code> method returns an event to be passed to the matching
+ * <code>end</code> method, or <code>null</code> when no recording has the
+ * event enabled. Nothing is allocated or timed in that case, so the events are
+ * cheap enough to leave in place. They are also <code>null</code> on JVMs
+ * without the <code>jdk.jfr</code> API (JDK 8 releases before 8u262), where
+ * the event classes are never loaded. The event is typed <code>Object</code>
+ * for the same reason.
+ * </p>
+ */
+final class FlightEvents {
+
+    static final String PREFIX = "com.github.alexthesuperb.jopenboxscore.";
+    static final String CATEGORY = "jopenboxscore";
+
+    private static final boolean AVAILABLE = isAvailable();
+
+    private FlightEvents() {
+    }
+
+    private static boolean isAvailable() {
+        try {
+            Class.forName("jdk.jfr.Event");
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    /*
+     * Until a recording is first started, no event can be enabled. Checking
+     * that first keeps a short run from initializing Flight Recorder, which
+     * creating an event otherwise does, and which costs more than a
+     * one-game query takes.
+     */
+    private static boolean isRecording() {
+        return AVAILABLE && FlightRecorder.isInitialized();
+    }
+
+    /*
+     * Never committed. isEnabled() tells whether a recording wants events
+     * of each type. Initialized on first use, and only if AVAILABLE.
+     */
+    private static class Probes {
+        private static final ReadFileEvent READ_FILE = new ReadFileEvent();
+        private static final ParseGameEvent PARSE_GAME = new ParseGameEvent();
+        private static final RosterLookupEvent ROSTER_LOOKUP = new RosterLookupEvent();
+        private static final FinalizeGameEvent FINALIZE_GAME = new FinalizeGameEvent();
+        private static final RenderBoxscoreEvent RENDER_BOXSCORE = new RenderBoxscoreEvent();
+    }
+
+    static Object beginReadFile() {
+        if (!isRecording() || !Probes.READ_FILE.isEnabled()) {
+            return null;
+        }
+        ReadFileEvent event = new ReadFileEvent();
+        event.begin();
+        return event;
+    }
+
+    static void endReadFile(Object started, String file, long gamesParsed,
+            long gamesFailed, long linesRead, long bytesRead) {
+        if (started == null) {
+            return;
+        }
+        ReadFileEvent event = (ReadFileEvent) started;
+        event.end();
+        if (event.shouldCommit()) {
+            event.file = file;
+            event.gamesParsed = gamesParsed;
+            event.gamesFailed = gamesFailed;
+            event.linesRead = linesRead;
+            event.bytesRead = bytesRead;
+            event.commit();
+        }
+    }
+
+    static Object beginParseGame() {
+        if (!isRecording() || !Probes.PARSE_GAME.isEnabled()) {
+            return null;
+        }
+        ParseGameEvent event = new ParseGameEvent();
+        event.begin();
+        return event;
+    }
+
+    static void endParseGame(Object started, String file, String gameId, int firstLine,
+            int lastLine, boolean failed) {
+        if (started == null) {
+            return;
+        }
+        ParseGameEvent event = (ParseGameEvent) started;
+        event.end();
+        if (event.shouldCommit()) {
+            event.file = file;
+            event.gameId = gameId;
+            event.firstLine = firstLine;
+            event.lastLine = lastLine;
+            event.failed = failed;
+            event.commit();
+        }
+    }
+
+    static Object beginRosterLookup() {
+        if (!isRecording() || !Probes.ROSTER_LOOKUP.isEnabled()) {
+            return null;
+        }
+        RosterLookupEvent event = new RosterLookupEvent();
+        event.begin();
+        return event;
+    }
+
+    static void endRosterLookup(Object started, String file, String id,
+            int linesScanned, boolean found) {
+        if (started == null) {
+            return;
+        }
+        RosterLookupEvent event = (RosterLookupEvent) started;
+        event.end();
+        if (event.shouldCommit()) {
+            event.file = file;
+            event.id = id;
+            event.linesScanned = linesScanned;
+            event.found = found;
+            event.commit();
+        }
+    }
+
+    static Object beginFinalizeGame() {
+        if (!isRecording() || !Probes.FINALIZE_GAME.isEnabled()) {
+            return null;
+        }
+        FinalizeGameEvent event = new FinalizeGameEvent();
+        event.begin();
+        return event;
+    }
+
+    static void endFinalizeGame(Object started, String file, String gameId) {
+        if (started == null) {
+            return;
+        }
+        FinalizeGameEvent event = (FinalizeGameEvent) started;
+        event.end();
+        if (event.shouldCommit()) {
+            event.file = file;
+            event.gameId = gameId;
+            event.commit();
+        }
+    }
+
+    static Object beginRenderBoxscore() {
+        if (!isRecording() || !Probes.RENDER_BOXSCORE.isEnabled()) {
+            return null;
+        }
+        RenderBoxscoreEvent event = new RenderBoxscoreEvent();
+        event.begin();
+        return event;
+    }
+
+    static void endRenderBoxscore(Object started, String file, String gameId,
+            String type) {
+        if (started == null) {
+            return;
+        }
+        RenderBoxscoreEvent event = (RenderBoxscoreEvent) started;
+        event.end();
+        if (event.shouldCommit()) {
+            event.file = file;
+            event.gameId = gameId;
+            event.type = type;
+            event.commit();
+        }
+    }
+}
@@ -31,5 +31,25 @@ public interface GameAccount {
      */
     public void addLine(String pbpLine, int lineNum) throws FileNotFoundException,
             IOException, IllegalArgumentException;
+
+    /**
+     * Add a line whose comma-separated fields have already been split, as by
+     * <code>pbpLine.split(",", -1)</code>. By default, the fields are joined
+     * and passed to <code>addLine()</code>; implementations that can read the
+     * fields directly should do so.
+     * @param fields the fields of a line describing an event in a game.
+     * @param lineNum the number of the line within the file from which it originates.
+     */
+    public default void addFields(String[] fields, int lineNum) throws FileNotFoundException,
+            IOException, IllegalArgumentException {
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                line.append(',');
+            }
+            line.append(fields[i]);
+        }
+        addLine(line.toString(), lineNum);
+    }
     
 }
\ No newline at end of file
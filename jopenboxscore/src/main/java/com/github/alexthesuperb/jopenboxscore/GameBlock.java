@@ -0,0 +1,309 @@
+package com.github.alexthesuperb.jopenboxscore;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * <p>
+ * The lines of a single game account within an event file: its
+ * <code>id</code> line and every line up to, but not including, the next
+ * <code>id</code> line. Lines preceding a file's first <code>id</code> line do
+ * not belong to any block, just as they are ignored by
+ * <code>RetrosheetEveReader</code>.
+ * </p><p>
+ * Each block carries a checksum of its contents, so that callers can tell
+ * which games of a file were added or changed since it was last read without
+ * parsing them.
+ * </p>
+ */
+public class GameBlock {
+
+    private final String gameId;
+    private final int firstLine;
+
+    /* A compiled block has its lines' fields, and builds their text only if asked. */
+    private volatile List<String> lines;
+    private final String[][] fields;
+
+    /** The byte offset of the <code>id</code> line, or <code>-1</code> if unknown. */
+    private final long offset;
+
+    /** Computed on first use; <code>-1</code> until then. */
+    private volatile long checksum = -1;
+
+    GameBlock(String gameId, int firstLine, List<String> lines) {
+        this(gameId, firstLine, lines, -1);
+    }
+
+    GameBlock(String gameId, int firstLine, List<String> lines, long offset) {
+        this.gameId = gameId;
+        this.firstLine = firstLine;
+        this.lines = Collections.unmodifiableList(lines);
+        this.fields = null;
+        this.offset = offset;
+    }
+
+    /**
+     * @param fields Each line's comma-separated fields, as split by
+     *        <code>line.split(",", -1)</code>, so that joining them gives the
+     *        line back.
+     */
+    GameBlock(String gameId, int firstLine, String[][] fields) {
+        this.gameId = gameId;
+        this.firstLine = firstLine;
+        this.fields = fields;
+        this.offset = -1;
+    }
+
+    /**
+     * Split an event file into game blocks.
+     *
+     * @param eveFile An event file.
+     * @return The file's blocks, in order.
+     * @throws FileNotFoundException if the file does not exist.
+     * @throws IOException if the file cannot be read.
+     */
+    public static List<GameBlock> readBlocks(File eveFile) throws FileNotFoundException,
+            IOException {
+        List<GameBlock> blocks = new ArrayList<>();
+        String line;
+        int lineNum = 0;
+        String gameId = null;
+        int firstLine = 0;
+        List<String> lines = null;
+
+        /* Read the file the same way, and with the same charset, as RetrosheetEveReader. */
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                SeasonArchive.open(eveFile.getPath())))) {
+            while ((line = reader.readLine()) != null) {
+                lineNum++;
+                if (line.startsWith("id,")) {
+                    if (lines != null) {
+                        blocks.add(new GameBlock(gameId, firstLine, lines));
+                    }
+                    gameId = line.substring(3);
+                    firstLine = lineNum;
+                    lines = new ArrayList<>();
+                }
+                if (lines != null) {
+                    lines.add(line);
+                }
+            }
+        }
+        if (lines != null) {
+            blocks.add(new GameBlock(gameId, firstLine, lines));
+        }
+        return blocks;
+    }
+
+    /**
+     * Split an event file into game blocks, recording the byte offset at
+     * which each starts, as indexes need.
+     *
+     * @param eveFile An event file.
+     * @return The file's blocks, in order.
+     * @throws FileNotFoundException if the file does not exist.
+     * @throws IOException if the file cannot be read.
+     */
+    public static List<GameBlock> readBlocksWithOffsets(File eveFile)
+            throws FileNotFoundException, IOException {
+        List<GameBlock> blocks = new ArrayList<>();
+        String line;
+        int lineNum = 0;
+        String gameId = null;
+        int firstLine = 0;
+        long offset = 0;
+        List<String> lines = null;
+
+        try (OffsetLineReader reader = new OffsetLineReader(new FileInputStream(eveFile), 0)) {
+            while ((line = reader.readLine()) != null) {
+                lineNum++;
+                if (line.startsWith("id,")) {
+                    if (lines != null) {
+                        blocks.add(new GameBlock(gameId, firstLine, lines, offset));
+                    }
+                    gameId = line.substring(3);
+                    firstLine = lineNum;
+                    offset = reader.getLineOffset();
+                    lines = new ArrayList<>();
+                }
+                if (lines != null) {
+                    lines.add(line);
+                }
+            }
+        }
+        if (lines != null) {
+            blocks.add(new GameBlock(gameId, firstLine, lines, offset));
+        }
+        return blocks;
+    }
+
+    /**
+     * Read the one game block starting at a known offset, without reading
+     * the rest of the file.
+     *
+     * @param eveFile An event file.
+     * @param offset The byte offset of the block's <code>id</code> line, as
+     *        returned by <code>getOffset()</code>.
+     * @param firstLine The line number of the block's <code>id</code> line.
+     * @return The block.
+     * @throws FileNotFoundException if the file does not exist.
+     * @throws IOException if the file cannot be read, or no game starts at
+     *         <code>offset</code>.
+     */
+    public static GameBlock readBlockAt(File eveFile, long offset, int firstLine)
+            throws FileNotFoundException, IOException {
+        List<String> lines = new ArrayList<>();
+        try (FileInputStream in = new FileInputStream(eveFile)) {
+            in.getChannel().position(offset);
+            OffsetLineReader reader = new OffsetLineReader(in, offset);
+            String line = reader.readLine();
+            if (line == null || !line.startsWith("id,")) {
+                throw new IOException("No game starts at byte " + offset + " of " +
+                    eveFile.getPath() + ".");
+            }
+            do {
+                lines.add(line);
+            } while ((line = reader.readLine()) != null && !line.startsWith("id,"));
+        }
+        return new GameBlock(lines.get(0).substring(3), firstLine, lines, offset);
+    }
+
+    /** @return the ID following <code>id,</code> in the block's first line. */
+    public String getGameId() {
+        return gameId;
+    }
+
+    /** @return the line number, within its file, of the block's first line. */
+    public int getFirstLine() {
+        return firstLine;
+    }
+
+    /**
+     * @return the byte offset of the block's <code>id</code> line within its
+     *         file, or <code>-1</code> if it was not recorded.
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+    /** @return the block's lines, starting with its <code>id</code> line. */
+    public List<String> getLines() {
+        List<String> text = lines;
+        if (text == null) {
+            List<String> joined = new ArrayList<>(fields.length);
+            StringBuilder sb = new StringBuilder(64);
+            for (String[] line : fields) {
+                sb.setLength(0);
+                for (int i = 0; i < line.length; i++) {
+                    if (i > 0) {
+                        sb.append(',');
+                    }
+                    sb.append(line[i]);
+                }
+                joined.add(sb.toString());
+            }
+            text = Collections.unmodifiableList(joined);
+            lines = text;
+        }
+        return text;
+    }
+
+    /**
+     * @return the fields of each of the block's lines if it was read from a
+     *         compiled event file, or <code>null</code> if it was read as text.
+     */
+    String[][] getFields() {
+        return fields;
+    }
+
+    /** @return the number of lines in the block. */
+    int getLineCount() {
+        return (fields != null) ? fields.length : lines.size();
+    }
+
+    /**
+     * @return the IDs of the visiting and home teams, from the block's info
+     *         header, or empty strings where the header does not name them.
+     */
+    public String[] getTeams() {
+        Map<String, String> info = getInfo();
+        String[] teams = {info.get("visteam"), info.get("hometeam")};
+        for (int i = 0; i < teams.length; i++) {
+            teams[i] = (teams[i] == null) ? "" : teams[i];
+        }
+        return teams;
+    }
+
+    /**
+     * @return the fields of the block's info header, the info lines before
+     *         its first start or play line, by name, such as
+     *         <code>visteam</code> or <code>daynight</code>.
+     */
+    public Map<String, String> getInfo() {
+        Map<String, String> info = new HashMap<>();
+        if (fields != null) {
+            for (String[] line : fields) {
+                if (line.length > 2 && line[0].equals("info")) {
+                    StringBuilder value = new StringBuilder(line[2]);
+                    for (int i = 3; i < line.length; i++) {
+                        value.append(',').append(line[i]);
+                    }
+                    info.put(line[1], value.toString().trim());
+                } else if (line.length > 1 && (line[0].equals("start") ||
+                        line[0].equals("play"))) {
+                    break;
+                }
+            }
+            return info;
+        }
+        for (String line : lines) {
+            if (line.startsWith("info,")) {
+                int comma = line.indexOf(',', 5);
+                if (comma > 0) {
+                    info.put(line.substring(5, comma), line.substring(comma + 1).trim());
+                }
+            } else if (line.startsWith("start,") || line.startsWith("play,")) {
+                break;
+            }
+        }
+        return info;
+    }
+
+    /** @return a CRC-32 checksum of the block's lines. */
+    public long getChecksum() {
+        long value = checksum;
+        if (value < 0) {
+            CRC32 crc = new CRC32();
+            for (String line : getLines()) {
+                crc.update(line.getBytes(StandardCharsets.UTF_8));
+                crc.update('\n');
+            }
+            value = crc.getValue();
+            checksum = value;
+        }
+        return value;
+    }
+
+    /**
+     * @param other Another block.
+     * @return <code>true</code> if both blocks start on the same line and have
+     *         the same contents, as far as their checksums can tell.
+     */
+    public boolean sameAs(GameBlock other) {
+        return other != null && getChecksum() == other.getChecksum() &&
+            firstLine == other.firstLine && getLineCount() == other.getLineCount() &&
+            gameId.equals(other.gameId);
+    }
+}
@@ -0,0 +1,394 @@
+package com.github.alexthesuperb.jopenboxscore;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * <p>
+ * An on-disk cache of finalized games, so that games which have not changed
+ * since a previous run are decoded instead of parsed again.
+ * </p><p>
+ * Each game is stored in its own file, encoded by <code>GameCodec</code> and
+ * named after what determines its contents: two independent hashes of the
+ * game's lines, a 32-bit CRC and a 64-bit FNV-1a hash, and the year,
+ * modification time and length of its TEAM file and of both teams' roster
+ * files. Editing a game changes its key unless both hashes collide. A roster
+ * is judged by its modification time and length alone, as
+ * <code>RosterCache</code> judges it: an edit that keeps both is not seen,
+ * and the games read with the old rows are still loaded. Rewriting a file
+ * updates its modification time, so only an edit that restores it, or one
+ * made within the file system's timestamp resolution that keeps the length,
+ * goes unnoticed. A stale entry is eventually evicted. Computing a key reads
+ * nothing the game's block and <code>RosterCache</code> do not already hold.
+ * </p><p>
+ * The cache is bounded by the total size of its files. When an entry would
+ * exceed the bound, the least recently used entries are deleted. The order of
+ * use is kept in memory and written to an index by <code>close()</code>, so
+ * that it survives from one run to the next; a cache that was not closed is
+ * indexed again from its files, oldest first. An entry that cannot be
+ * decoded is treated as a miss and deleted.
+ * </p><p>
+ * Games are decoded and encoded outside the cache's lock, so that several
+ * readers may use one cache at once.
+ * </p>
+ */
+public class GameCache implements Closeable {
+
+    /** The default bound on the total size of a cache's files: 256 MB. */
+    public static final long DEFAULT_MAX_BYTES = 256L * 1024 * 1024;
+
+    private static final String SUFFIX = ".game";
+
+    /** Each entry's key and size, least recently used first, written by <code>close()</code>. */
+    private static final String INDEX = "index";
+
+    private final File directory;
+    private final long maxBytes;
+
+    /** Entry sizes by key, least recently used first. */
+    private final LinkedHashMap<String, Long> entries;
+    private long totalBytes;
+
+    private int hits;
+    private int misses;
+
+    /**
+     * Open a cache in <code>directory</code>, creating it if necessary, and
+     * index any entries already stored there.
+     *
+     * @param directory The directory holding the cache's files.
+     * @param maxBytes The bound on the total size of those files.
+     * @throws IllegalArgumentException if <code>maxBytes</code> is not positive.
+     * @throws IOException if the directory cannot be created.
+     */
+    public GameCache(File directory, long maxBytes) throws IllegalArgumentException,
+            IOException {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("The game cache's size must be positive.");
+        }
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Could not create cache directory " +
+                directory.getPath());
+        }
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        this.entries = new LinkedHashMap<>(1024, 0.75f, true);
+        if (!loadIndex()) {
+            scanEntries();
+        }
+        evict();
+    }
+
+    /*
+     * Read the index written by close(), and delete it: until the cache is
+     * closed again, the entries on disk may differ from it.
+     */
+    private boolean loadIndex() {
+        File index = new File(directory, INDEX);
+        if (!index.isFile()) {
+            return false;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(index.toPath(),
+                StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int space = line.indexOf(' ');
+                long size = Long.parseLong(line.substring(space + 1));
+                entries.put(line.substring(0, space), size);
+                totalBytes += size;
+            }
+        } catch (IOException | RuntimeException e) {
+            /* A damaged index is ignored, and the entries indexed from their files. */
+            entries.clear();
+            totalBytes = 0;
+            index.delete();
+            return false;
+        }
+        return index.delete();
+    }
+
+    /* Index existing entries, oldest first, by the time each was last written. */
+    private void scanEntries() {
+        List<File> files = new ArrayList<>();
+        File[] subdirs = directory.listFiles();
+        if (subdirs == null) {
+            return;
+        }
+        for (File subdir : subdirs) {
+            File[] stored = subdir.isDirectory() ? subdir.listFiles() : null;
+            if (stored == null) {
+                continue;
+            }
+            for (File file : stored) {
+                if (file.isFile() && file.getName().endsWith(SUFFIX)) {
+                    files.add(file);
+                }
+            }
+        }
+
+        final Map<File, Long> lastUsed = new HashMap<>();
+        for (File file : files) {
+            lastUsed.put(file, file.lastModified());
+        }
+        Collections.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(File a, File b) {
+                return Long.compare(lastUsed.get(a), lastUsed.get(b));
+            }
+        });
+        for (File file : files) {
+            String name = file.getName();
+            long size = file.length();
+            entries.put(name.substring(0, name.length() - SUFFIX.length()), size);
+            totalBytes += size;
+        }
+    }
+
+    /**
+     * Compute the key of a game block.
+     *
+     * @param block The game's lines.
+     * @param year The year used to find the game's TEAM and roster files.
+     * @param rosDir The directory containing those files.
+     * @return The block's key, or <code>null</code> if one of the files it
+     *         refers to cannot be read. Such a game cannot be parsed either.
+     */
+    public String key(GameBlock block, String year, File rosDir) {
+        return key(block, year, rosDir, new HashMap<String, RosterCache.RosterFile>());
+    }
+
+    /**
+     * Compute the key of a game block, looking each TEAM and roster file up
+     * only once for all the blocks read with <code>files</code>. Looking a
+     * file up checks whether it has changed, which costs more than the rest
+     * of the key.
+     *
+     * @param files The files already looked up, by name, which is added to.
+     */
+    String key(GameBlock block, String year, File rosDir,
+            Map<String, RosterCache.RosterFile> files) {
+        long hash = mix(GameCodec.VERSION, Objects.hashCode(year));
+        hash = mix(hash, block.getGameId().hashCode());
+        hash = mix(hash, block.getLineCount());
+
+        /* A game whose files are missing fails to parse, and so is never stored. */
+        try {
+            hash = mix(hash, getFile(files, rosDir, "TEAM" + year));
+            for (String teamId : block.getTeams()) {
+                hash = mix(hash, getFile(files, rosDir, teamId + year + ".ROS"));
+            }
+        } catch (IOException ioe) {
+            return null;
+        }
+        return String.format("%08x%016x%016x", block.getChecksum(), hashLines(block), hash);
+    }
+
+    /*
+     * FNV-1a over the characters of the block's lines. With the block's CRC,
+     * a changed game keeps its key only if two unrelated hashes collide.
+     */
+    private static long hashLines(GameBlock block) {
+        long hash = 0xcbf29ce484222325L;
+        for (String line : block.getLines()) {
+            for (int i = 0; i < line.length(); i++) {
+                hash = (hash ^ line.charAt(i)) * 0x100000001b3L;
+            }
+            hash = (hash ^ '\n') * 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private static RosterCache.RosterFile getFile(Map<String, RosterCache.RosterFile> files,
+            File rosDir, String name) throws IOException {
+        RosterCache.RosterFile file = files.get(name);
+        if (file == null) {
+            file = RosterCache.getInstance().getFile(rosDir, name);
+            files.put(name, file);
+        }
+        return file;
+    }
+
+    private static long mix(long hash, RosterCache.RosterFile file) {
+        return mix(mix(hash, file.getLastModified()), file.getLength());
+    }
+
+    /* One step of FNV-1a over a whole value, with its high bits folded back in. */
+    private static long mix(long hash, long value) {
+        hash = (hash ^ value) * 0x100000001b3L;
+        return hash ^ (hash >>> 29);
+    }
+
+    /**
+     * Look up a game.
+     *
+     * @param key The game's key, as computed by <code>key()</code>.
+     * @param year The year the game occurred.
+     * @param eveFileName The name of the file containing the game.
+     * @param rosDir The directory containing the game's TEAM and ROS files.
+     * @return The cached game, or <code>null</code> if it is not cached.
+     */
+    public BoxscoreGameAccount get(String key, String year,
+            String eveFileName, File rosDir) {
+        synchronized (this) {
+            if (key == null || entries.get(key) == null) {
+                misses++;
+                return null;
+            }
+        }
+
+        try {
+            BoxscoreGameAccount game = GameCodec.decode(
+                Files.readAllBytes(entryFile(key).toPath()), year, eveFileName, rosDir);
+            synchronized (this) {
+                hits++;
+            }
+            return game;
+        } catch (IOException ioe) {
+            /* Missing, evicted meanwhile, or corrupt: parse the game again. */
+            synchronized (this) {
+                remove(key);
+                misses++;
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Store a finalized game, evicting the least recently used entries if
+     * the cache would otherwise exceed its bound. Games that cannot be
+     * encoded, and failures to write, are ignored; they only cost the game
+     * being parsed again next time.
+     *
+     * @param key The game's key, as computed by <code>key()</code>.
+     * @param game The finalized game.
+     */
+    public void put(String key, BoxscoreGameAccount game) {
+        synchronized (this) {
+            if (key == null || entries.containsKey(key)) {
+                return;
+            }
+        }
+
+        byte[] data;
+        try {
+            data = GameCodec.encode(game);
+        } catch (IllegalArgumentException iae) {
+            return;
+        }
+        if (data.length > maxBytes) {
+            return;
+        }
+
+        File file = entryFile(key);
+        try {
+            File parent = file.getParentFile();
+            if (!parent.isDirectory() && !parent.mkdirs()) {
+                return;
+            }
+            File temp = File.createTempFile(key, ".tmp", parent);
+            try {
+                Files.write(temp.toPath(), data);
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(temp.toPath());
+            }
+        } catch (IOException ioe) {
+            return;
+        }
+
+        synchronized (this) {
+            if (entries.put(key, (long) data.length) == null) {
+                totalBytes += data.length;
+            }
+            evict();
+        }
+    }
+
+    /* Delete least recently used entries until the cache is within its bound. */
+    private void evict() {
+        Iterator<Map.Entry<String, Long>> it = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && it.hasNext()) {
+            Map.Entry<String, Long> eldest = it.next();
+            it.remove();
+            totalBytes -= eldest.getValue();
+            entryFile(eldest.getKey()).delete();
+        }
+    }
+
+    private void remove(String key) {
+        Long size = entries.remove(key);
+        if (size != null) {
+            totalBytes -= size;
+        }
+        entryFile(key).delete();
+    }
+
+    /* Entries are spread over subdirectories named after a key's first two digits. */
+    private File entryFile(String key) {
+        return new File(new File(directory, key.substring(0, 2)), key + SUFFIX);
+    }
+
+    /**
+     * Write the order in which the entries were used to the cache's index,
+     * for the next cache opened on this directory. A failure to write it
+     * only costs that cache indexing the entries from their files.
+     */
+    @Override
+    public synchronized void close() {
+        File index = new File(directory, INDEX);
+        try {
+            File temp = File.createTempFile(INDEX, ".tmp", directory);
+            try {
+                try (BufferedWriter writer = Files.newBufferedWriter(temp.toPath(),
+                        StandardCharsets.UTF_8)) {
+                    for (Map.Entry<String, Long> entry : entries.entrySet()) {
+                        writer.write(entry.getKey() + " " + entry.getValue());
+                        writer.newLine();
+                    }
+                }
+                Files.move(temp.toPath(), index.toPath(), StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(temp.toPath());
+            }
+        } catch (IOException ioe) {
+            index.delete();
+        }
+    }
+
+    /** @return the number of games currently cached. */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /** @return the total size, in bytes, of the cached games. */
+    public synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+
+    /** @return the number of lookups that found a game. */
+    public synchronized int getHits() {
+        return hits;
+    }
+
+    /** @return the number of lookups that did not. */
+    public synchronized int getMisses() {
+        return misses;
+    }
+}
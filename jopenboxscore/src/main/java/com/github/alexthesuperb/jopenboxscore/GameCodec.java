@@ -0,0 +1,451 @@
+package com.github.alexthesuperb.jopenboxscore;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>
+ * A compact binary encoding of a finalized <code>BoxscoreGameAccount</code>,
+ * used by <code>GameCache</code> to store games without parsing them again.
+ * </p><p>
+ * Integers are written as variable-length quantities (zig-zag encoded, so
+ * that the occasional negative value stays short) and every distinct string
+ * is written once per game, then referred to by its index. Hit-by-pitch
+ * victims, which pitchers hold by reference, are written as indexes into the
+ * opposing lineup. Only the state read by boxscores and summaries after a
+ * game has been finalized is kept.
+ * </p>
+ */
+final class GameCodec {
+
+    /** "JOBG", followed by the format version. */
+    private static final int MAGIC = 0x4A4F4247;
+
+    /** Incremented whenever the encoding, or the state it preserves, changes. */
+    static final int VERSION = 1;
+
+    /*
+     * Strings that appear in nearly every game start out in both ends'
+     * string tables, so that they are neither written nor decoded per game.
+     */
+    private static final List<String> SHARED_STRINGS = new ArrayList<>(new LinkedHashSet<>(
+        Arrays.asList(BaseballPlayer.KEY_G, BaseballPlayer.KEY_GS, BaseballPlayer.KEY_AB,
+            BaseballPlayer.KEY_R, BaseballPlayer.KEY_H, BaseballPlayer.KEY_RBI,
+            BaseballPlayer.KEY_1B, BaseballPlayer.KEY_2B, BaseballPlayer.KEY_3B,
+            BaseballPlayer.KEY_HR, BaseballPlayer.KEY_HBP, BaseballPlayer.KEY_SB,
+            BaseballPlayer.KEY_CS, BaseballPlayer.KEY_PO, BaseballPlayer.KEY_SO,
+            BaseballPlayer.KEY_BB, BaseballPlayer.KEY_SF, BaseballPlayer.KEY_SH,
+            BaseballPlayer.KEY_E, BaseballPlayer.KEY_PITCHER_GS,
+            BaseballPlayer.KEY_BATTERS_RETIRED, BaseballPlayer.KEY_PITCHER_H,
+            BaseballPlayer.KEY_PITCHER_SO, BaseballPlayer.KEY_PITCHER_R,
+            BaseballPlayer.KEY_PITCHER_ER, BaseballPlayer.KEY_PITCHER_BB,
+            BaseballPlayer.KEY_PITCHER_WP, BaseballPlayer.KEY_PITCHER_BK,
+            BaseballPlayer.KEY_PITCHER_WINS, BaseballPlayer.KEY_PITCHER_LOSSES,
+            BaseballPlayer.KEY_PITCHER_SAVES, BaseballPlayer.KEY_PB,
+            BaseballPlayer.KEY_PICKOFF, BaseballPlayer.KEY_POCS, BaseballPlayer.KEY_OA,
+            BaseballTeam.KEY_TEAM_WIN, BaseballTeam.KEY_TEAM_LOSS,
+            BaseballTeam.KEY_TEAM_TIE)));
+
+    private GameCodec() {
+    }
+
+    /**
+     * @param game A finalized game.
+     * @return The game's encoding.
+     * @throws IllegalArgumentException if the game refers to a player that is
+     *         not part of either lineup, and so cannot be encoded.
+     */
+    static byte[] encode(BoxscoreGameAccount game) throws IllegalArgumentException {
+        Encoder out = new Encoder();
+        SingleGameTeam visitor = game.getTeam(false);
+        SingleGameTeam home = game.getTeam(true);
+
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeString(game.getGameID());
+        out.writeString(game.getStdDateString());
+        out.writeString(game.getUsaDateString());
+        out.writeInt(game.getDayNight());
+        out.writeInt(game.getGameNumber());
+        out.writeInt(game.getAttendance());
+        out.writeInt(game.getTimeOfGame());
+        out.writeString(game.getWinningPitcherId());
+        out.writeString(game.getLosingPitcherId());
+        out.writeString(game.getSavePitcherId());
+        out.writeInt(game.getCurrentOuts());
+        out.writeInt(game.getTotalOuts());
+        out.writeString(game.getLastLine());
+
+        encodeTeam(out, visitor);
+        encodeTeam(out, home);
+
+        /* Each pitcher's hit batsmen belong to the opposing lineup. */
+        encodeBattersHBP(out, visitor, home);
+        encodeBattersHBP(out, home, visitor);
+        return out.toByteArray();
+    }
+
+    /**
+     * @param data A game encoded by <code>encode</code>.
+     * @param year The year the game occurred.
+     * @param eveFileName The name of the file containing the game.
+     * @param rosDir The directory containing the game's TEAM and ROS files.
+     * @return The decoded game.
+     * @throws IOException if <code>data</code> is not a valid encoding of
+     *         this version.
+     */
+    static BoxscoreGameAccount decode(byte[] data, String year, String eveFileName,
+            File rosDir) throws IOException {
+        Decoder in = new Decoder(data);
+        if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+            throw new IOException("Not an encoded game of version " + VERSION + ".");
+        }
+
+        try {
+            String gameID = in.readString();
+            String stdDate = in.readString();
+            String usaDate = in.readString();
+            char daynight = (char) in.readInt();
+            int gmNumber = in.readInt();
+            int attendance = in.readInt();
+            int timeOfGame = in.readInt();
+            String wpID = in.readString();
+            String lpID = in.readString();
+            String saveID = in.readString();
+            int outs = in.readInt();
+            int totalOuts = in.readInt();
+            String lastLine = in.readString();
+
+            SingleGameTeam visitor = decodeTeam(in, false);
+            SingleGameTeam home = decodeTeam(in, true);
+            decodeBattersHBP(in, visitor, home);
+            decodeBattersHBP(in, home, visitor);
+            if (!in.atEnd()) {
+                throw new IOException("Unexpected data after encoded game " + gameID + ".");
+            }
+
+            return new BoxscoreGameAccount(gameID, year, eveFileName, rosDir, stdDate,
+                usaDate, daynight, gmNumber, attendance, timeOfGame, wpID, lpID, saveID,
+                visitor, home, outs, totalOuts, lastLine);
+        } catch (IndexOutOfBoundsException | IllegalArgumentException exc) {
+            throw new IOException("Truncated or corrupt encoded game.", exc);
+        }
+    }
+
+    private static void encodeTeam(Encoder out, SingleGameTeam team) {
+        out.writeString(team.getTeamId());
+        out.writeString(team.getCity());
+        out.writeString(team.getName());
+
+        int[] linescore = team.getLinescore();
+        out.writeInt(linescore.length);
+        for (int runs : linescore) {
+            out.writeInt(runs);
+        }
+        out.writeInt(team.get_lob());
+        out.writeInt(team.get_double_triple_plays(true));
+        out.writeInt(team.get_double_triple_plays(false));
+        out.writeString(team.getGameOutcome());
+        out.writeInt(team.getTotalRunsAllowed());
+        out.writeString(team.getOpponentId());
+
+        List<LinkedList<SingleGamePositionPlayer>> lineup = team.getLineup();
+        out.writeInt(lineup.size());
+        for (List<SingleGamePositionPlayer> spot : lineup) {
+            out.writeInt(spot.size());
+            for (SingleGamePositionPlayer player : spot) {
+                encodePlayer(out, player);
+                out.writeInt(player.getLineupSpot());
+                int[] positions = player.getPositionsList();
+                out.writeInt(positions.length);
+                for (int position : positions) {
+                    out.writeInt(position);
+                }
+            }
+        }
+
+        List<SingleGamePitcher> pitchers = team.getAllPitchers();
+        out.writeInt(pitchers.size());
+        for (SingleGamePitcher pitcher : pitchers) {
+            encodePlayer(out, pitcher);
+            out.writeInt(pitcher.getDecision());
+            out.writeInt(pitcher.getInningOutsRecorded());
+            out.writeInt(pitcher.getInningBF());
+            out.writeInt(pitcher.getInningRemoved());
+        }
+    }
+
+    private static SingleGameTeam decodeTeam(Decoder in, boolean isHome) throws IOException {
+        SingleGameTeam team = new SingleGameTeam(in.readString(), in.readString(),
+            in.readString(), isHome);
+
+        int innings = in.readInt();
+        for (int i = 0; i < innings; i++) {
+            team.linescoreAdd(in.readInt());
+        }
+        team.addLOB(in.readInt());
+        team.add_double_triple_plays(true, in.readInt());
+        team.add_double_triple_plays(false, in.readInt());
+        String outcome = in.readString();
+        if (outcome != null) {
+            team.setGameOutcome(outcome);
+        }
+        team.setTotalRunsAllowed(in.readInt());
+        team.setOpponentId(in.readString());
+
+        List<LinkedList<SingleGamePositionPlayer>> lineup = team.getLineup();
+        int spots = in.readInt();
+        if (spots != lineup.size()) {
+            throw new IOException("Encoded lineup has " + spots + " spots.");
+        }
+        for (List<SingleGamePositionPlayer> spot : lineup) {
+            int players = in.readInt();
+            for (int i = 0; i < players; i++) {
+                String id = in.readString();
+                String first = in.readString();
+                String last = in.readString();
+                String[] keys = decodeStatKeys(in);
+                int[] values = decodeStatValues(in, keys);
+                int lineupSpot = in.readInt();
+                int positions = in.readInt();
+                SingleGamePositionPlayer player = new SingleGamePositionPlayer(id,
+                    first, last, lineupSpot, in.readInt());
+                for (int p = 1; p < positions; p++) {
+                    player.changePosition(in.readInt());
+                }
+                player.restoreStats(keys, values);
+                spot.add(player);
+            }
+        }
+
+        List<SingleGamePitcher> pitchers = team.getAllPitchers();
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            SingleGamePitcher pitcher = new SingleGamePitcher(in.readString(),
+                in.readString(), in.readString());
+            String[] keys = decodeStatKeys(in);
+            pitcher.restoreStats(keys, decodeStatValues(in, keys));
+            pitcher.setDecision((char) in.readInt());
+            int outsRecorded = in.readInt();
+            pitcher.restoreInning(outsRecorded, in.readInt());
+            pitcher.setInningRemoved(in.readInt());
+            pitchers.add(pitcher);
+        }
+        return team;
+    }
+
+    static void encodePlayer(Encoder out, BaseballPlayer player) {
+        out.writeString(player.getPlayerId());
+        out.writeString(player.getFirstName());
+        out.writeString(player.getLastName());
+
+        /* All keys, then all values, so that decoding needs no intermediate map. */
+        Map<String, Integer> stats = player.getStatsHashMap();
+        out.writeInt(stats.size());
+        for (String key : stats.keySet()) {
+            out.writeString(key);
+        }
+        for (int value : stats.values()) {
+            out.writeInt(value);
+        }
+    }
+
+    static String[] decodeStatKeys(Decoder in) throws IOException {
+        int count = in.readInt();
+        if (count < 0 || count > in.remaining()) {
+            throw new IOException("Truncated encoding.");
+        }
+        String[] keys = new String[count];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = in.readString();
+        }
+        return keys;
+    }
+
+    static int[] decodeStatValues(Decoder in, String[] keys) throws IOException {
+        int[] values = new int[keys.length];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = in.readInt();
+        }
+        return values;
+    }
+
+    private static void encodeBattersHBP(Encoder out, SingleGameTeam pitching,
+            SingleGameTeam batting) {
+        List<SingleGamePositionPlayer> batters = lineupOrder(batting);
+        Map<SingleGamePositionPlayer, Integer> index = new IdentityHashMap<>();
+        for (int i = 0; i < batters.size(); i++) {
+            index.put(batters.get(i), i);
+        }
+
+        for (SingleGamePitcher pitcher : pitching.getAllPitchers()) {
+            List<SingleGamePositionPlayer> hbp = pitcher.getBattersHBP();
+            out.writeInt(hbp.size());
+            for (SingleGamePositionPlayer batter : hbp) {
+                Integer i = index.get(batter);
+                if (i == null) {
+                    throw new IllegalArgumentException("Batter " + batter.getPlayerId() +
+                        " hit by " + pitcher.getPlayerId() + " is not in the " +
+                        batting.getTeamId() + " lineup.");
+                }
+                out.writeInt(i);
+            }
+        }
+    }
+
+    private static void decodeBattersHBP(Decoder in, SingleGameTeam pitching,
+            SingleGameTeam batting) throws IOException {
+        List<SingleGamePositionPlayer> batters = lineupOrder(batting);
+        for (SingleGamePitcher pitcher : pitching.getAllPitchers()) {
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                pitcher.addBattersHBP(batters.get(in.readInt()));
+            }
+        }
+    }
+
+    /** @return every position player of <code>team</code>, spot by spot. */
+    private static List<SingleGamePositionPlayer> lineupOrder(SingleGameTeam team) {
+        List<SingleGamePositionPlayer> players = new ArrayList<>();
+        for (List<SingleGamePositionPlayer> spot : team.getLineup()) {
+            players.addAll(spot);
+        }
+        return players;
+    }
+
+    /**
+     * Writes variable-length integers and strings, each written in full only
+     * the first time. Also used by <code>SummaryCodec</code>.
+     */
+    static final class Encoder {
+
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream(2048);
+        private final Map<String, Integer> strings = new HashMap<>();
+
+        Encoder() {
+            for (String s : SHARED_STRINGS) {
+                strings.put(s, strings.size());
+            }
+        }
+
+        void writeInt(int value) {
+            int v = (value << 1) ^ (value >> 31);
+            while ((v & ~0x7F) != 0) {
+                bytes.write((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            bytes.write(v);
+        }
+
+        void writeLong(long value) {
+            long v = (value << 1) ^ (value >> 63);
+            while ((v & ~0x7FL) != 0) {
+                bytes.write((int) (v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            bytes.write((int) v);
+        }
+
+        /*
+         * 0 stands for null, 1 for a new string whose UTF-8 bytes follow,
+         * and n > 1 for the (n - 2)th string of the table.
+         */
+        void writeString(String s) {
+            if (s == null) {
+                writeInt(0);
+                return;
+            }
+            Integer index = strings.get(s);
+            if (index != null) {
+                writeInt(index + 2);
+                return;
+            }
+            strings.put(s, strings.size());
+            byte[] utf8 = s.getBytes(StandardCharsets.UTF_8);
+            writeInt(1);
+            writeInt(utf8.length);
+            bytes.write(utf8, 0, utf8.length);
+        }
+
+        byte[] toByteArray() {
+            return bytes.toByteArray();
+        }
+    }
+
+    /** Reads what <code>Encoder</code> wrote. */
+    static final class Decoder {
+
+        private final byte[] data;
+        private final List<String> strings = new ArrayList<>(SHARED_STRINGS);
+        private int pos;
+
+        Decoder(byte[] data) {
+            this.data = data;
+        }
+
+        int readInt() throws IOException {
+            int v = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                if (pos >= data.length) {
+                    throw new IOException("Truncated encoding.");
+                }
+                int b = data[pos++];
+                v |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return (v >>> 1) ^ -(v & 1);
+                }
+            }
+            throw new IOException("Malformed integer in encoding.");
+        }
+
+        long readLong() throws IOException {
+            long v = 0;
+            for (int shift = 0; shift < 70; shift += 7) {
+                if (pos >= data.length) {
+                    throw new IOException("Truncated encoding.");
+                }
+                int b = data[pos++];
+                v |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return (v >>> 1) ^ -(v & 1);
+                }
+            }
+            throw new IOException("Malformed integer in encoding.");
+        }
+
+        String readString() throws IOException {
+            int tag = readInt();
+            if (tag == 0) {
+                return null;
+            } else if (tag > 1) {
+                return strings.get(tag - 2);
+            }
+            int length = readInt();
+            if (length < 0 || length > data.length - pos) {
+                throw new IOException("Truncated encoding.");
+            }
+            String s = new String(data, pos, length, StandardCharsets.UTF_8);
+            pos += length;
+            strings.add(s);
+            return s;
+        }
+
+        int remaining() {
+            return data.length - pos;
+        }
+
+        boolean atEnd() {
+            return pos == data.length;
+        }
+    }
+}
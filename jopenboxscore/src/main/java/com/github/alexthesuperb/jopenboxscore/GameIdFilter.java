@@ -0,0 +1,97 @@
+package com.github.alexthesuperb.jopenboxscore;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+
+/**
+ * <p>
+ * A Bloom filter of the game IDs of one event file. It answers whether a file
+ * might hold a game without reading the file: <code>false</code> is certain,
+ * while <code>true</code> is wrong for about one ID in a hundred that the
+ * file does not hold.
+ * </p><p>
+ * Each ID sets <code>HASHES</code> of the filter's bits, ten bits being
+ * allotted per ID. The bits are derived from two hashes of the ID, the second
+ * a 32-bit FNV-1a hash of its bytes, as <code>h1 + i * h2</code>.
+ * </p>
+ */
+public final class GameIdFilter {
+
+    /** The number of bits set per ID, best for ten bits per ID. */
+    static final int HASHES = 7;
+
+    private static final int BITS_PER_ID = 10;
+
+    private final long[] bits;
+
+    GameIdFilter(long[] bits) {
+        this.bits = bits;
+    }
+
+    /**
+     * @param gameIds The IDs of the games of an event file.
+     * @return A filter of those IDs.
+     */
+    public static GameIdFilter of(Collection<String> gameIds) {
+        int words = Math.max(1, (gameIds.size() * BITS_PER_ID + 63) / 64);
+        GameIdFilter filter = new GameIdFilter(new long[words]);
+        for (String gameId : gameIds) {
+            filter.add(gameId);
+        }
+        return filter;
+    }
+
+    private void add(String gameId) {
+        long size = bits.length * 64L;
+        int h1 = gameId.hashCode();
+        int h2 = fnv1a(gameId);
+        for (int i = 0; i < HASHES; i++) {
+            long bit = ((h1 + i * h2) & 0xFFFFFFFFL) % size;
+            bits[(int) (bit >>> 6)] |= 1L << bit;
+        }
+    }
+
+    /**
+     * @param gameId A game ID.
+     * @return <code>false</code> if the file certainly does not hold the game.
+     */
+    public boolean mightContain(String gameId) {
+        long size = bits.length * 64L;
+        int h1 = gameId.hashCode();
+        int h2 = fnv1a(gameId);
+        for (int i = 0; i < HASHES; i++) {
+            long bit = ((h1 + i * h2) & 0xFFFFFFFFL) % size;
+            if ((bits[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param gameIds Game IDs.
+     * @return <code>false</code> if the file certainly holds none of the games.
+     */
+    public boolean mightContainAny(Collection<String> gameIds) {
+        for (String gameId : gameIds) {
+            if (mightContain(gameId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /* Kept odd, and so never zero, so that an ID's bits are spread apart. */
+    private static int fnv1a(String s) {
+        int hash = 0x811C9DC5;
+        for (byte b : s.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xFF;
+            hash *= 0x01000193;
+        }
+        return hash | 1;
+    }
+
+    long[] getBits() {
+        return bits;
+    }
+}
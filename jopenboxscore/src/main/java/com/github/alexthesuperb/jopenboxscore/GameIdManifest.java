@@ -0,0 +1,181 @@
+package com.github.alexthesuperb.jopenboxscore;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>
+ * A manifest of <code>GameIdFilter</code>s, one per event file, so that a
+ * lookup of games by ID can skip the files that cannot hold any of them.
+ * </p><p>
+ * Each filter is stored with the length and modification time its file had
+ * when the filter was built. A filter asked for a file that has since changed,
+ * or that is not in the manifest, is built again by scanning the file's
+ * <code>id</code> lines, and the manifest is saved with it by
+ * <code>save()</code>. A manifest that cannot be read is rebuilt from
+ * scratch.
+ * </p>
+ */
+public class GameIdManifest {
+
+    /** "JOBM", followed by the format version. */
+    private static final int MAGIC = 0x4A4F424D;
+
+    /** Incremented whenever the format changes. */
+    static final int VERSION = 1;
+
+    /* A file's length and modification time when its filter was built. */
+    private static final class Entry {
+
+        final long length;
+        final long modified;
+        final GameIdFilter filter;
+
+        Entry(long length, long modified, GameIdFilter filter) {
+            this.length = length;
+            this.modified = modified;
+            this.filter = filter;
+        }
+    }
+
+    private final File file;
+    private final Map<String, Entry> entries = new HashMap<>();
+    private int rebuiltCount;
+
+    /**
+     * Load a manifest, if it exists.
+     *
+     * @param file The manifest file, which need not exist.
+     */
+    public GameIdManifest(File file) {
+        this.file = file;
+        if (file.isFile()) {
+            try {
+                load();
+            } catch (IOException | IllegalArgumentException e) {
+                entries.clear();
+            }
+        }
+    }
+
+    private void load() throws IOException {
+        GameCodec.Decoder in = new GameCodec.Decoder(Files.readAllBytes(file.toPath()));
+        if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+            throw new IOException("File " + file.getPath() + " is not a game ID " +
+                "manifest of version " + VERSION + ".");
+        }
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            String path = in.readString();
+            long length = in.readLong();
+            long modified = in.readLong();
+            int words = in.readInt();
+            if (words < 1 || words > in.remaining()) {
+                throw new IOException("Game ID manifest " + file.getPath() + " is corrupt.");
+            }
+            long[] bits = new long[words];
+            for (int w = 0; w < words; w++) {
+                bits[w] = in.readLong();
+            }
+            entries.put(path, new Entry(length, modified, new GameIdFilter(bits)));
+        }
+    }
+
+    /**
+     * Get the filter of an event file, building it if the file has changed
+     * since the filter was built.
+     *
+     * @param eventFile An event file.
+     * @return The filter of the file's game IDs.
+     * @throws IOException if the file must be scanned, and cannot be read.
+     */
+    public synchronized GameIdFilter getFilter(File eventFile) throws IOException {
+        String path = eventFile.getAbsolutePath();
+        File onDisk = SeasonArchive.getFileOnDisk(eventFile.getPath());
+        long length = onDisk.length();
+        long modified = onDisk.lastModified();
+        Entry entry = entries.get(path);
+        if (entry == null || entry.length != length || entry.modified != modified) {
+            entry = new Entry(length, modified, GameIdFilter.of(readGameIds(eventFile)));
+            entries.put(path, entry);
+            rebuiltCount++;
+        }
+        return entry.filter;
+    }
+
+    /* Only id lines need be looked at, or only the IDs of a compiled file's blocks. */
+    private static List<String> readGameIds(File eventFile) throws IOException {
+        List<String> gameIds = new ArrayList<>();
+        try (InputStream in = new BufferedInputStream(
+                SeasonArchive.open(eventFile.getPath()))) {
+            if (CompiledEventFile.isCompiled(in)) {
+                for (GameBlock block : CompiledEventFile.read(in,
+                        eventFile.getPath()).getBlocks()) {
+                    gameIds.add(block.getGameId());
+                }
+                return gameIds;
+            }
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith("id,")) {
+                    gameIds.add(line.substring(3));
+                }
+            }
+        }
+        return gameIds;
+    }
+
+    /** @return the number of filters built since the manifest was loaded. */
+    public synchronized int getRebuiltCount() {
+        return rebuiltCount;
+    }
+
+    /**
+     * Write the manifest, if any filter has been built since it was loaded.
+     * It is replaced atomically, so that an interrupted save leaves the old
+     * manifest in place.
+     *
+     * @throws IOException if the manifest cannot be written.
+     */
+    public synchronized void save() throws IOException {
+        if (rebuiltCount == 0) {
+            return;
+        }
+        GameCodec.Encoder out = new GameCodec.Encoder();
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(entries.size());
+        for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+            out.writeString(entry.getKey());
+            out.writeLong(entry.getValue().length);
+            out.writeLong(entry.getValue().modified);
+            long[] bits = entry.getValue().filter.getBits();
+            out.writeInt(bits.length);
+            for (long word : bits) {
+                out.writeLong(word);
+            }
+        }
+
+        File parent = file.getAbsoluteFile().getParentFile();
+        File temp = File.createTempFile(file.getName() + ".", ".tmp", parent);
+        try {
+            Files.write(temp.toPath(), out.toByteArray());
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp.toPath());
+        }
+        rebuiltCount = 0;
+    }
+}
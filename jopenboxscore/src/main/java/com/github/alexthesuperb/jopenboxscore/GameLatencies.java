@@ -0,0 +1,190 @@
+package com.github.alexthesuperb.jopenboxscore;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * <p>
+ * How long each game took to parse and to render, kept as one
+ * <code>LatencyHistogram</code> per phase together with the slowest games of
+ * each, so that pathological game accounts can be found after a run.
+ * </p><p>
+ * A game's parse time runs from its <code>id</code> line to the end of
+ * <code>finalize()</code>, and its render time is that of
+ * <code>printBoxscore()</code>. Games loaded from a <code>GameCache</code> are
+ * not parsed and so have no parse time. Recording costs two counter updates
+ * per game; only games slower than every game currently kept among the
+ * slowest take a lock.
+ * </p>
+ */
+public final class GameLatencies {
+
+    /** The number of slowest games kept for each phase. */
+    public static final int MAX_SLOWEST = 100;
+
+    private final Phase parse;
+    private final Phase render;
+
+    private GameLatencies() {
+        parse = new Phase("Parse");
+        render = new Phase("Render");
+    }
+
+    /* Initialized on first use. */
+    private static class InstanceHolder {
+        private static final GameLatencies INSTANCE = new GameLatencies();
+    }
+
+    public static GameLatencies getInstance() {
+        return InstanceHolder.INSTANCE;
+    }
+
+    void recordParse(BoxscoreGameAccount game, long nanos) {
+        parse.record(game, nanos);
+    }
+
+    void recordRender(BoxscoreGameAccount game, long nanos) {
+        render.record(game, nanos);
+    }
+
+    /** @return the distribution of per-game parse times. */
+    public LatencyHistogram getParseHistogram() {
+        return parse.histogram;
+    }
+
+    /** @return the distribution of per-game render times. */
+    public LatencyHistogram getRenderHistogram() {
+        return render.histogram;
+    }
+
+    /** Forget every game recorded. */
+    public void reset() {
+        parse.reset();
+        render.reset();
+    }
+
+    /**
+     * Print the 50th, 99th and 99.9th percentile and maximum of each phase,
+     * followed by its slowest games, slowest first, with the file and lines
+     * each was read from.
+     *
+     * @param out The stream to print to.
+     * @param slowest The number of games to list for each phase, at most
+     *        <code>MAX_SLOWEST</code>.
+     */
+    public void printReport(PrintStream out, int slowest) {
+        out.println(String.format("%-8s%8s%11s%11s%11s%11s", "", "games", "p50", "p99",
+            "p99.9", "max"));
+        for (Phase phase : new Phase[] {parse, render}) {
+            LatencyHistogram h = phase.histogram;
+            out.println(String.format("%-8s%8d%11s%11s%11s%11s", phase.name, h.getCount(),
+                millis(h.getValueAtPercentile(50)), millis(h.getValueAtPercentile(99)),
+                millis(h.getValueAtPercentile(99.9)), millis(h.getMax())));
+        }
+        for (Phase phase : new Phase[] {parse, render}) {
+            List<SlowGame> games = phase.getSlowest();
+            if (games.isEmpty()) {
+                continue;
+            }
+            out.println("\nSlowest games to " + phase.name.toLowerCase() + ":");
+            for (int i = 0; i < Math.min(slowest, games.size()); i++) {
+                SlowGame game = games.get(i);
+                String lines = (game.firstLine > 0) ?
+                    ", lines " + game.firstLine + "-" + game.lastLine : "";
+                out.println(String.format("%4d. %11s  %-13s %s%s", i + 1,
+                    millis(game.nanos), game.gameId, game.file, lines));
+            }
+        }
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.3f ms", nanos / 1e6);
+    }
+
+    /** One game among the slowest of a phase. */
+    private static final class SlowGame {
+        final String gameId;
+        final String file;
+        final int firstLine;
+        final int lastLine;
+        final long nanos;
+
+        SlowGame(BoxscoreGameAccount game, long nanos) {
+            this.gameId = game.getGameID();
+            this.file = game.getEveFileName();
+            this.firstLine = game.getFirstLineNum();
+            this.lastLine = game.getLastLineNum();
+            this.nanos = nanos;
+        }
+    }
+
+    private static final Comparator<SlowGame> SLOWEST_FIRST = new Comparator<SlowGame>() {
+        @Override
+        public int compare(SlowGame a, SlowGame b) {
+            return Long.compare(b.nanos, a.nanos);
+        }
+    };
+
+    /** The durations of one phase, and its slowest games. */
+    private static final class Phase {
+        final String name;
+        final LatencyHistogram histogram = new LatencyHistogram();
+
+        /* Unordered; the fastest is evicted when a slower game arrives. */
+        private final List<SlowGame> slowest = new ArrayList<>();
+
+        /* The fastest duration kept once MAX_SLOWEST games are kept, or -1 before. */
+        private volatile long threshold = -1;
+
+        Phase(String name) {
+            this.name = name;
+        }
+
+        void record(BoxscoreGameAccount game, long nanos) {
+            histogram.record(nanos);
+            if (nanos > threshold) {
+                keep(game, nanos);
+            }
+        }
+
+        private synchronized void keep(BoxscoreGameAccount game, long nanos) {
+            if (nanos <= threshold) {
+                return;
+            }
+            if (slowest.size() < MAX_SLOWEST) {
+                slowest.add(new SlowGame(game, nanos));
+                if (slowest.size() < MAX_SLOWEST) {
+                    return;
+                }
+            } else {
+                slowest.set(fastest(), new SlowGame(game, nanos));
+            }
+            threshold = slowest.get(fastest()).nanos;
+        }
+
+        private int fastest() {
+            int fastest = 0;
+            for (int i = 1; i < slowest.size(); i++) {
+                if (slowest.get(i).nanos < slowest.get(fastest).nanos) {
+                    fastest = i;
+                }
+            }
+            return fastest;
+        }
+
+        synchronized List<SlowGame> getSlowest() {
+            List<SlowGame> sorted = new ArrayList<>(slowest);
+            Collections.sort(sorted, SLOWEST_FIRST);
+            return sorted;
+        }
+
+        synchronized void reset() {
+            histogram.reset();
+            slowest.clear();
+            threshold = -1;
+        }
+    }
+}
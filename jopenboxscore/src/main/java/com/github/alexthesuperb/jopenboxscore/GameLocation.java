@@ -0,0 +1,70 @@
+package com.github.alexthesuperb.jopenboxscore;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Where an indexed game is found: its event file, and the byte offset and
+ * line number of its <code>id</code> line, so that it can be read without
+ * reading the rest of the file.
+ */
+public class GameLocation {
+
+    private final File file;
+    private final long offset;
+    private final int firstLine;
+    private final String gameId;
+
+    GameLocation(File file, long offset, int firstLine, String gameId) {
+        this.file = file;
+        this.offset = offset;
+        this.firstLine = firstLine;
+        this.gameId = gameId;
+    }
+
+    /** @return the event file holding the game. */
+    public File getFile() {
+        return file;
+    }
+
+    /** @return the byte offset of the game's <code>id</code> line. */
+    public long getOffset() {
+        return offset;
+    }
+
+    /** @return the line number of the game's <code>id</code> line. */
+    public int getFirstLine() {
+        return firstLine;
+    }
+
+    /** @return the game's ID. */
+    public String getGameId() {
+        return gameId;
+    }
+
+    /** @return the season, <code>YYYY</code>, taken from the game ID. */
+    public String getSeason() {
+        return gameId.substring(3, 7);
+    }
+
+    /** @return the date, <code>YYYYMMDD</code>, taken from the game ID. */
+    public String getDate() {
+        return gameId.substring(3, 11);
+    }
+
+    /**
+     * Read the game's lines from its event file.
+     *
+     * @return The game's block.
+     * @throws IOException if the file cannot be read, or the game is no
+     *         longer where it was indexed.
+     */
+    public GameBlock readBlock() throws IOException {
+        GameBlock block = GameBlock.readBlockAt(file, offset, firstLine);
+        if (!block.getGameId().equals(gameId)) {
+            throw new IOException("Game " + gameId + " is no longer at byte " +
+                offset + " of " + file.getPath() + ". Rebuild the index.");
+        }
+        return block;
+    }
+}
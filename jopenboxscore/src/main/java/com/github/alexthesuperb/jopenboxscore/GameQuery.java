@@ -0,0 +1,572 @@
+package com.github.alexthesuperb.jopenboxscore;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * <p>
+ * A query for games, built by chaining predicates, and run as a single plan
+ * that applies each predicate at the earliest stage that can decide it:
+ * </p>
+ * <ol>
+ * <li>an index, which names the only games that need be read: the games of a
+ *     player from a <code>PlayerIndex</code>, those of a date window from a
+ *     <code>CalendarIndex</code>, or, for game IDs, the files a
+ *     <code>GameIdManifest</code> cannot rule out. A <code>GameStore</code>
+ *     replaces the files altogether: its games, by ID or by date, are
+ *     decoded, and judged by every later stage but the lines;</li>
+ * <li>the <code>id</code> line, for seasons, dates, game IDs and the
+ *     doubleheader number;</li>
+ * <li>the info header, for teams and day or night;</li>
+ * <li>the game's lines before they are parsed, for players;</li>
+ * <li>the full parse, for every game still selected.</li>
+ * </ol>
+ * <p>
+ * A game rejected at one stage costs nothing at the later ones. For example:
+ * </p>
+ * <pre>
+ * List&lt;BoxscoreGameAccount&gt; games = GameQuery.over(files)
+ *     .seasons(2011, 2019)
+ *     .teams("LAA")
+ *     .dayNight("night")
+ *     .player("troum001")
+ *     .usingPlayerIndex(PlayerIndex.open(indexFile))
+ *     .list(errorMessages);
+ * </pre>
+ * <p>
+ * Unless <code>rosters()</code> names a directory, each game is read with
+ * the TEAM and roster files beside its event file, for its own season.
+ * </p>
+ */
+public final class GameQuery {
+
+    private final List<File> eventFiles;
+    private int firstSeason = 0;
+    private int lastSeason = 9999;
+    private int firstDate = 0;
+    private int lastDate = 99999999;
+    private String firstMonthDay;
+    private String lastMonthDay;
+    private Set<String> teamIds;
+    private Set<String> gameIds;
+    private String playerId;
+    private String dayNight;
+    private int doubleheader = -1;
+    private PlayerIndex playerIndex;
+    private CalendarIndex calendar;
+    private GameIdManifest idManifest;
+    private GameStore store;
+    private GameCache cache;
+    private File rosterDirectory;
+
+    private GameQuery(List<File> eventFiles) {
+        this.eventFiles = new ArrayList<>(eventFiles);
+    }
+
+    /**
+     * @param eventFiles The event files to query, in order. If an index is
+     *        used, these limit its games to those of these files; if there
+     *        are none, every file indexed is queried.
+     * @return A query of every game of the files.
+     */
+    public static GameQuery over(List<File> eventFiles) {
+        return new GameQuery(eventFiles);
+    }
+
+    /** @see #over(List) */
+    public static GameQuery over(File... eventFiles) {
+        return new GameQuery(Arrays.asList(eventFiles));
+    }
+
+    /**
+     * @param first The first season, such as 2011.
+     * @param last The last season.
+     * @return This query, limited to the games of these seasons.
+     */
+    public GameQuery seasons(int first, int last) {
+        firstSeason = first;
+        lastSeason = last;
+        return this;
+    }
+
+    /** @return This query, limited to the games of one season. */
+    public GameQuery season(int season) {
+        return seasons(season, season);
+    }
+
+    /**
+     * @param first The first date, <code>YYYYMMDD</code> or
+     *        <code>YYYY-MM-DD</code>.
+     * @param last The last date, which may be seasons after the first.
+     * @return This query, limited to the games of these dates.
+     * @throws IllegalArgumentException if a date is in neither form.
+     */
+    public GameQuery dates(String first, String last) throws IllegalArgumentException {
+        firstDate = parseDate(first);
+        lastDate = parseDate(last);
+        return this;
+    }
+
+    /**
+     * @param first The first date of each season, <code>MMDD</code>.
+     * @param last The last date of each season, <code>MMDD</code>.
+     * @return This query, limited to the games between these dates of every
+     *         season, as with <code>readGamesWithinRange()</code>.
+     * @throws IllegalArgumentException if a date is not of four digits.
+     */
+    public GameQuery monthDays(String first, String last) throws IllegalArgumentException {
+        if (!first.matches("\\d{4}") || !last.matches("\\d{4}")) {
+            throw new IllegalArgumentException("Dates must be of the form MMDD.");
+        }
+        firstMonthDay = first;
+        lastMonthDay = last;
+        return this;
+    }
+
+    /**
+     * @param teamIds Team IDs, such as <code>NYA</code>.
+     * @return This query, limited to the games in which one of these teams
+     *         plays.
+     */
+    public GameQuery teams(String... teamIds) {
+        this.teamIds = new HashSet<>();
+        for (String teamId : teamIds) {
+            this.teamIds.add(teamId.toUpperCase());
+        }
+        return this;
+    }
+
+    /**
+     * @param gameIds Game IDs, such as <code>NYA201805040</code>.
+     * @return This query, limited to these games. Once all have been found,
+     *         no more of any file is read.
+     */
+    public GameQuery gameIds(Collection<String> gameIds) {
+        this.gameIds = new LinkedHashSet<>(gameIds);
+        return this;
+    }
+
+    /** @see #gameIds(Collection) */
+    public GameQuery gameIds(String... gameIds) {
+        return gameIds(Arrays.asList(gameIds));
+    }
+
+    /**
+     * @param playerId A Retrosheet player ID, such as <code>troum001</code>.
+     * @return This query, limited to the games in which the player started
+     *         or came on as a substitute.
+     */
+    public GameQuery player(String playerId) {
+        this.playerId = playerId;
+        return this;
+    }
+
+    /**
+     * @param dayNight <code>day</code> or <code>night</code>.
+     * @return This query, limited to day games or to night games.
+     * @throws IllegalArgumentException if <code>dayNight</code> is neither.
+     */
+    public GameQuery dayNight(String dayNight) throws IllegalArgumentException {
+        if (!dayNight.equalsIgnoreCase("day") && !dayNight.equalsIgnoreCase("night")) {
+            throw new IllegalArgumentException("Games are played by day or by night.");
+        }
+        this.dayNight = dayNight.toLowerCase();
+        return this;
+    }
+
+    /**
+     * @param number 0 for a single game, or 1 or 2 for the first or second
+     *        game of a doubleheader, as in the last digit of a game ID.
+     * @return This query, limited to games of this number.
+     * @throws IllegalArgumentException if <code>number</code> is not 0, 1 or 2.
+     */
+    public GameQuery doubleheader(int number) throws IllegalArgumentException {
+        if (number < 0 || number > 2) {
+            throw new IllegalArgumentException("A game's number must be 0, 1 or 2.");
+        }
+        doubleheader = number;
+        return this;
+    }
+
+    /** @return This query, finding a player's games with <code>index</code>. */
+    public GameQuery usingPlayerIndex(PlayerIndex index) {
+        playerIndex = index;
+        return this;
+    }
+
+    /** @return This query, finding a date window's games with <code>index</code>. */
+    public GameQuery usingCalendar(CalendarIndex index) {
+        calendar = index;
+        return this;
+    }
+
+    /** @return This query, skipping files that cannot hold its game IDs. */
+    public GameQuery usingIdManifest(GameIdManifest manifest) {
+        idManifest = manifest;
+        return this;
+    }
+
+    /**
+     * @return This query, reading the games saved in <code>store</code>
+     *         instead of any event file. A stored game has no lines left to
+     *         look for a player in, so it cannot also be limited by
+     *         <code>player()</code>.
+     */
+    public GameQuery usingStore(GameStore store) {
+        this.store = store;
+        return this;
+    }
+
+    /** @return This query, loading unchanged games from <code>cache</code>. */
+    public GameQuery usingCache(GameCache cache) {
+        this.cache = cache;
+        return this;
+    }
+
+    /** @return This query, reading every game with the TEAM and roster files of
+     *          <code>directory</code>. */
+    public GameQuery rosters(File directory) {
+        rosterDirectory = directory;
+        return this;
+    }
+
+    /* The first and last dates of the dates and seasons asked for, YYYYMMDD. */
+    private int getFirstDate() {
+        return Math.max(firstDate, firstSeason * 10000);
+    }
+
+    private int getLastDate() {
+        return Math.min(lastDate, lastSeason * 10000 + 9999);
+    }
+
+    /*
+     * The index stage, if any: 1 for the player index, 2 for the calendar,
+     * 3 for the store. Without files to scan, the calendar is used for any
+     * window, even one of every date.
+     */
+    private int chooseIndex() {
+        if (store != null) {
+            return 3;
+        }
+        if (playerId != null && playerIndex != null) {
+            return 1;
+        }
+        if (calendar != null && (getFirstDate() > 0 || getLastDate() < 99999999 ||
+                eventFiles.isEmpty())) {
+            return 2;
+        }
+        return 0;
+    }
+
+    /**
+     * Describe the plan this query runs, stage by stage.
+     *
+     * @return One line per stage that selects games.
+     */
+    public String explain() {
+        StringBuilder plan = new StringBuilder();
+        int index = chooseIndex();
+        if (index == 1) {
+            plan.append("index: player index, games of ").append(playerId).append('\n');
+        } else if (index == 2) {
+            plan.append("index: calendar, ").append(getFirstDate()).append(" to ")
+                .append(getLastDate()).append('\n');
+        } else if (index == 3) {
+            plan.append("index: game store, ").append((gameIds != null) ?
+                gameIds.size() + " game IDs" : getFirstDate() + " to " + getLastDate())
+                .append('\n');
+        } else if (gameIds != null && idManifest != null) {
+            plan.append("index: game ID manifest, skipping files\n");
+        }
+        if (index == 0) {
+            plan.append("scan: ").append(eventFiles.size()).append(" files\n");
+        }
+
+        List<String> id = new ArrayList<>();
+        if (firstSeason > 0 || lastSeason < 9999) {
+            id.add("seasons " + firstSeason + "-" + lastSeason);
+        }
+        if (firstDate > 0 || lastDate < 99999999) {
+            id.add("dates " + firstDate + "-" + lastDate);
+        }
+        if (firstMonthDay != null) {
+            id.add("month and day " + firstMonthDay + "-" + lastMonthDay);
+        }
+        if (gameIds != null) {
+            id.add(gameIds.size() + " game IDs");
+        }
+        if (doubleheader >= 0) {
+            id.add("game number " + doubleheader);
+        }
+        if (!id.isEmpty()) {
+            plan.append("id line: ").append(join(id)).append('\n');
+        }
+
+        List<String> header = new ArrayList<>();
+        if (teamIds != null) {
+            header.add("teams " + new TreeSet<>(teamIds));
+        }
+        if (dayNight != null) {
+            header.add(dayNight);
+        }
+        if (!header.isEmpty()) {
+            plan.append("info header: ").append(join(header)).append('\n');
+        }
+        if (playerId != null && index != 1) {
+            plan.append("lines: player ").append(playerId).append('\n');
+        }
+        plan.append((index == 3) ? "decode" : "parse");
+        return plan.toString();
+    }
+
+    private static String join(List<String> parts) {
+        StringBuilder joined = new StringBuilder();
+        for (String part : parts) {
+            if (joined.length() > 0) {
+                joined.append(", ");
+            }
+            joined.append(part);
+        }
+        return joined.toString();
+    }
+
+    /**
+     * Run the query, passing each game selected to <code>sink</code>, in the
+     * order of the files and of the games within them, or, when a calendar
+     * finds the games, in order of date. The sink is not closed.
+     *
+     * @param sink The destination of the games selected.
+     * @param errorMessages The reasons games that could not be read were
+     *        excluded are added here.
+     * @return The number of games passed to the sink.
+     * @throws IOException if a file cannot be read, an index is stale, or
+     *         the sink fails.
+     * @throws IllegalArgumentException if a store is queried for a player.
+     */
+    public int run(GameSink sink, List<String> errorMessages) throws IOException,
+            IllegalArgumentException {
+        int index = chooseIndex();
+        if (index == 3) {
+            return readStore(sink);
+        } else if (index == 1) {
+            playerIndex.checkCurrent();
+            return readLocations(playerIndex.find(playerId), sink, errorMessages);
+        } else if (index == 2) {
+            calendar.checkCurrent();
+            return readLocations(calendar.find(getFirstDate(), getLastDate()), sink,
+                errorMessages);
+        }
+        return scan(sink, errorMessages);
+    }
+
+    /**
+     * Run the query, keeping the games selected.
+     *
+     * @see #run(GameSink, List)
+     */
+    public List<BoxscoreGameAccount> list(List<String> errorMessages) throws IOException {
+        final List<BoxscoreGameAccount> games = new ArrayList<>();
+        run(new GameSink() {
+            @Override
+            public void accept(BoxscoreGameAccount game) {
+                games.add(game);
+            }
+
+            @Override
+            public void close() {
+            }
+        }, errorMessages);
+        return games;
+    }
+
+    /* Read the located games that pass every later stage. */
+    private int readLocations(List<? extends GameLocation> locations, GameSink sink,
+            List<String> errorMessages) throws IOException {
+        Set<String> files = new HashSet<>();
+        for (File file : eventFiles) {
+            files.add(normalize(file));
+        }
+        int count = 0;
+        for (GameLocation location : locations) {
+            File file = location.getFile();
+            if ((!files.isEmpty() && !files.contains(normalize(file))) ||
+                    (gameIds != null && !gameIds.contains(location.getGameId())) ||
+                    !acceptsId(location.getGameId())) {
+                continue;
+            }
+            GameBlock block = location.readBlock();
+            if (!acceptsHeader(block.getInfo()) || !acceptsLines(block)) {
+                continue;
+            }
+            BoxscoreGameAccount game = RetrosheetEveReader.readGame(block,
+                location.getSeason(), file.getPath(), getRosterDirectory(file),
+                errorMessages);
+            if (game != null) {
+                sink.accept(game);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /* Decode the stored games by ID or by date, and pass those every other stage accepts. */
+    private int readStore(GameSink sink) throws IOException, IllegalArgumentException {
+        if (playerId != null) {
+            throw new IllegalArgumentException("A game store cannot be queried for a " +
+                "player's games.");
+        }
+        List<BoxscoreGameAccount> games;
+        if (gameIds != null) {
+            games = new ArrayList<>();
+            for (String gameId : gameIds) {
+                BoxscoreGameAccount game = store.get(gameId);
+                if (game != null) {
+                    games.add(game);
+                }
+            }
+        } else {
+            games = store.getGames(getFirstDate(), getLastDate());
+        }
+        int count = 0;
+        for (BoxscoreGameAccount game : games) {
+            if (acceptsId(game.getGameID()) && acceptsGame(game)) {
+                sink.accept(game);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /* Read every file, or those the manifest cannot rule out, stage by stage. */
+    private int scan(GameSink sink, List<String> errorMessages) throws IOException {
+        final Set<String> pending = (gameIds == null) ? null : new HashSet<>(gameIds);
+        RetrosheetEveReader.GameFilter filter = new RetrosheetEveReader.GameFilter() {
+            @Override
+            public boolean accept(String gameID, String line) {
+                /* A game ID is in one file only; once seen, it is no longer pending. */
+                boolean wanted = (pending == null) || pending.remove(gameID);
+                return wanted && acceptsId(gameID);
+            }
+
+            @Override
+            public boolean acceptHeader(Map<String, String> info) {
+                return acceptsHeader(info);
+            }
+
+            @Override
+            public boolean acceptLines(GameBlock block) {
+                return acceptsLines(block);
+            }
+
+            @Override
+            public boolean isDone() {
+                return pending != null && pending.isEmpty();
+            }
+        };
+
+        int count = 0;
+        for (File file : eventFiles) {
+            if (pending != null && (pending.isEmpty() || (idManifest != null &&
+                    !idManifest.getFilter(file).mightContainAny(pending)))) {
+                continue;
+            }
+            RetrosheetEveReader reader = new RetrosheetEveReader(file.getPath(), null,
+                getRosterDirectory(file));
+            reader.setGameSink(sink);
+            reader.setGameCache(cache);
+            try {
+                reader.readGames(filter);
+            } finally {
+                reader.close();
+            }
+            errorMessages.addAll(reader.getErrorMessages());
+            count += reader.getGameCount();
+        }
+        return count;
+    }
+
+    /* Index paths are relative to the index, as in /tmp/../data/2018NYA.EVA. */
+    private static String normalize(File file) {
+        return file.toPath().toAbsolutePath().normalize().toString();
+    }
+
+    /* Without rosters given, a file in an archive uses those of the archive. */
+    private File getRosterDirectory(File eventFile) {
+        if (rosterDirectory != null) {
+            return rosterDirectory;
+        }
+        File archive = SeasonArchive.getArchive(eventFile.getPath());
+        return (archive != null) ? archive : eventFile.getAbsoluteFile().getParentFile();
+    }
+
+    /* The id line stage. */
+    private boolean acceptsId(String gameId) {
+        if (gameId.length() < 12) {
+            return false;
+        }
+        int date;
+        try {
+            date = Integer.parseInt(gameId.substring(3, 11));
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        String monthDay = gameId.substring(7, 11);
+        return date / 10000 >= firstSeason && date / 10000 <= lastSeason &&
+            date >= firstDate && date <= lastDate &&
+            (firstMonthDay == null || (monthDay.compareTo(firstMonthDay) >= 0 &&
+                monthDay.compareTo(lastMonthDay) <= 0)) &&
+            (doubleheader < 0 || gameId.charAt(11) == (char) ('0' + doubleheader));
+    }
+
+    /* The info header stage. */
+    private boolean acceptsHeader(Map<String, String> info) {
+        return (teamIds == null || teamIds.contains(info.get("visteam")) ||
+                teamIds.contains(info.get("hometeam"))) &&
+            (dayNight == null || dayNight.equalsIgnoreCase(info.get("daynight")));
+    }
+
+    /* The info header stage, for a game decoded without its lines. */
+    private boolean acceptsGame(BoxscoreGameAccount game) {
+        return (teamIds == null || teamIds.contains(game.getVisitingTeamId()) ||
+                teamIds.contains(game.getHomeTeamId())) &&
+            (dayNight == null || Character.toLowerCase(game.getDayNight()) == dayNight.charAt(0));
+    }
+
+    /* The stage before parsing, when every start and sub line is known. */
+    private boolean acceptsLines(GameBlock block) {
+        if (playerId == null) {
+            return true;
+        }
+        String start = "start," + playerId + ",";
+        String sub = "sub," + playerId + ",";
+        for (String line : block.getLines()) {
+            if (line.startsWith(start) || line.startsWith(sub)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param date A date, <code>YYYYMMDD</code> or <code>YYYY-MM-DD</code>.
+     * @return The date as the number <code>YYYYMMDD</code>.
+     * @throws IllegalArgumentException if the date is in neither form.
+     */
+    static int parseDate(String date) throws IllegalArgumentException {
+        String digits = date.matches("\\d{4}-\\d{2}-\\d{2}") ? date.replace("-", "") : date;
+        if (!digits.matches("\\d{8}")) {
+            throw new IllegalArgumentException("Dates must be of the form YYYYMMDD or " +
+                "YYYY-MM-DD.");
+        }
+        return Integer.parseInt(digits);
+    }
+}
@@ -0,0 +1,43 @@
+package com.github.alexthesuperb.jopenboxscore;
+
+import java.io.IOException;
+
+/**
+ * <p>
+ * A consumer of finalized game accounts. Boxscore printers, summaries and
+ * exporters implement this interface so that a single pass over a set of
+ * event files can feed all of them; see <code>TeeGameSink</code>.
+ * </p><p>
+ * A sink receives each game exactly once through <code>accept()</code>,
+ * followed by a single call to <code>close()</code>, after which it writes
+ * anything it has been holding back.
+ * </p>
+ */
+public interface GameSink {
+
+    /**
+     * Consume a game account on which <code>finalize()</code> has been called.
+     *
+     * @param game The game.
+     * @throws IOException if the game cannot be written.
+     */
+    public void accept(BoxscoreGameAccount game) throws IOException;
+
+    /**
+     * Wait until the output of every game accepted so far has been written
+     * to its destination. Sinks that only write when closed, such as
+     * summaries, need not do anything.
+     *
+     * @throws IOException if an I/O error occurs.
+     */
+    public default void flush() throws IOException {
+    }
+
+    /**
+     * Write any remaining output and release the sink's resources.
+     *
+     * @throws IOException if an I/O error occurs.
+     */
+    public void close() throws IOException;
+
+}
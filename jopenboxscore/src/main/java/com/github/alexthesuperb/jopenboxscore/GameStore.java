@@ -0,0 +1,438 @@
+package com.github.alexthesuperb.jopenboxscore;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+/**
+ * <p>
+ * A local store of finalized games, so that games parsed once can be loaded
+ * by later runs without reading their event files again.
+ * </p><p>
+ * Games are appended to a segment file, <code>games.seg</code>, each encoded
+ * by <code>GameCodec</code> in a record with its length and checksum. Storing
+ * a game whose ID is already stored appends it again; the older record is
+ * left in place as garbage. An index, <code>games.idx</code>, lists the
+ * latest record of each game, sorted by game ID, and is rewritten by
+ * <code>flush()</code> and <code>close()</code>. Games are looked up by ID or
+ * by date in sorted maps built from it.
+ * </p><p>
+ * <code>compact()</code> rewrites the segment with only the latest record of
+ * each game, in order of date, so that games read by date are read in order
+ * from the file. <code>close()</code> compacts the store whenever garbage
+ * makes up more than half of the segment.
+ * </p><p>
+ * If the index does not match the segment, because a run was interrupted
+ * before the index was written, it is rebuilt by reading every record, and
+ * everything from the first record that cannot be read, such as one cut
+ * short at the end of the segment, is discarded.
+ * </p>
+ */
+public class GameStore implements GameSink {
+
+    /** "JOBS", followed by the format version and the segment's generation. */
+    private static final int SEGMENT_MAGIC = 0x4A4F4253;
+
+    /** "JOBX", followed by the format version. */
+    private static final int INDEX_MAGIC = 0x4A4F4258;
+
+    /** Incremented whenever either format changes. */
+    static final int VERSION = 1;
+
+    private static final int HEADER_BYTES = 16;
+
+    /* Each record is its length and checksum, then the game ID, file name and game. */
+    private static final int RECORD_OVERHEAD = 8;
+
+    static final String SEGMENT_NAME = "games.seg";
+    static final String INDEX_NAME = "games.idx";
+
+    /* The latest record of a game. */
+    private static final class Entry {
+
+        final String gameId;
+        final long offset;
+        final int length;
+
+        Entry(String gameId, long offset, int length) {
+            this.gameId = gameId;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        /* Game IDs are the home team, date and game number: date first sorts by date. */
+        String dateKey() {
+            return gameId.substring(3) + gameId.substring(0, 3);
+        }
+    }
+
+    private final File directory;
+    private RandomAccessFile segment;
+    private long generation;
+
+    private final TreeMap<String, Entry> byId = new TreeMap<>();
+    private final TreeMap<String, Entry> byDate = new TreeMap<>();
+    private long liveBytes;
+    private boolean indexChanged;
+
+    /**
+     * Open the store in <code>directory</code>, creating it if necessary.
+     *
+     * @param directory The directory holding the store's files.
+     * @throws IOException if the directory cannot be created, or the segment
+     *         is not a store of this version.
+     */
+    public GameStore(File directory) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Could not create store directory " +
+                directory.getPath());
+        }
+        this.directory = directory;
+        File segmentFile = new File(directory, SEGMENT_NAME);
+        segment = new RandomAccessFile(segmentFile, "rw");
+        try {
+            if (segment.length() == 0) {
+                generation = System.currentTimeMillis();
+                writeHeader(segment, generation);
+            } else {
+                segment.seek(0);
+                if (segment.length() < HEADER_BYTES || segment.readInt() != SEGMENT_MAGIC ||
+                        segment.readInt() != VERSION) {
+                    throw new IOException("File " + segmentFile.getPath() + " is not a " +
+                        "game store of version " + VERSION + ".");
+                }
+                generation = segment.readLong();
+            }
+            if (!loadIndex()) {
+                rebuildIndex();
+            }
+        } catch (IOException e) {
+            segment.close();
+            throw e;
+        }
+    }
+
+    private static void writeHeader(RandomAccessFile file, long generation)
+            throws IOException {
+        file.seek(0);
+        file.writeInt(SEGMENT_MAGIC);
+        file.writeInt(VERSION);
+        file.writeLong(generation);
+    }
+
+    /* Load the index, if it was written for the segment as it now is. */
+    private boolean loadIndex() throws IOException {
+        File indexFile = new File(directory, INDEX_NAME);
+        if (!indexFile.isFile()) {
+            return false;
+        }
+        try {
+            GameCodec.Decoder in = new GameCodec.Decoder(
+                Files.readAllBytes(indexFile.toPath()));
+            if (in.readInt() != INDEX_MAGIC || in.readInt() != VERSION ||
+                    in.readLong() != generation || in.readLong() != segment.length()) {
+                return false;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                put(new Entry(in.readString(), in.readLong(), in.readInt()));
+            }
+            return in.atEnd();
+        } catch (IOException | RuntimeException e) {
+            byId.clear();
+            byDate.clear();
+            liveBytes = 0;
+            return false;
+        }
+    }
+
+    /* Read every record, keeping the last of each game and cutting off a torn tail. */
+    private void rebuildIndex() throws IOException {
+        byId.clear();
+        byDate.clear();
+        liveBytes = 0;
+        long offset = HEADER_BYTES;
+        long end = segment.length();
+        while (offset < end) {
+            byte[] record;
+            try {
+                record = readRecord(offset, -1);
+            } catch (IOException e) {
+                break;
+            }
+            put(new Entry(readGameId(record), offset, record.length));
+            offset += record.length;
+        }
+        if (offset < end) {
+            segment.setLength(offset);
+        }
+        indexChanged = true;
+    }
+
+    private void put(Entry entry) {
+        Entry replaced = byId.put(entry.gameId, entry);
+        if (replaced != null) {
+            byDate.remove(replaced.dateKey());
+            liveBytes -= replaced.length;
+        }
+        byDate.put(entry.dateKey(), entry);
+        liveBytes += entry.length;
+    }
+
+    /*
+     * Read the record at offset, checking its checksum.
+     *
+     * @param length The record's length, or -1 to read it from the record.
+     */
+    private byte[] readRecord(long offset, int length) throws IOException {
+        if (offset + RECORD_OVERHEAD > segment.length()) {
+            throw new EOFException("Record at " + offset + " is cut short.");
+        }
+        segment.seek(offset);
+        int payloadLength = segment.readInt();
+        int checksum = segment.readInt();
+        if (payloadLength < 0 || offset + RECORD_OVERHEAD + payloadLength > segment.length() ||
+                (length >= 0 && payloadLength + RECORD_OVERHEAD != length)) {
+            throw new IOException("Record at " + offset + " of the game store is corrupt.");
+        }
+        byte[] record = new byte[RECORD_OVERHEAD + payloadLength];
+        segment.seek(offset);
+        segment.readFully(record);
+        CRC32 crc = new CRC32();
+        crc.update(record, RECORD_OVERHEAD, payloadLength);
+        if ((int) crc.getValue() != checksum) {
+            throw new IOException("Record at " + offset + " of the game store is corrupt.");
+        }
+        return record;
+    }
+
+    private static String readGameId(byte[] record) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(record,
+            RECORD_OVERHEAD, record.length - RECORD_OVERHEAD));
+        return in.readUTF();
+    }
+
+    private static BoxscoreGameAccount decodeRecord(byte[] record) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(record,
+            RECORD_OVERHEAD, record.length - RECORD_OVERHEAD));
+        String gameId = in.readUTF();
+        String eveFileName = in.readUTF();
+        byte[] encoded = new byte[in.available()];
+        in.readFully(encoded);
+        return GameCodec.decode(encoded, gameId.substring(3, 7), eveFileName, null);
+    }
+
+    private static byte[] encodeRecord(BoxscoreGameAccount game) throws IOException {
+        byte[] encoded = GameCodec.encode(game);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(encoded.length + 64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeLong(0);
+        out.writeUTF(game.getGameID());
+        out.writeUTF((game.getEveFileName() != null) ? game.getEveFileName() : "");
+        out.write(encoded);
+        out.flush();
+
+        byte[] record = bytes.toByteArray();
+        int payloadLength = record.length - RECORD_OVERHEAD;
+        CRC32 crc = new CRC32();
+        crc.update(record, RECORD_OVERHEAD, payloadLength);
+        writeInt(record, 0, payloadLength);
+        writeInt(record, 4, (int) crc.getValue());
+        return record;
+    }
+
+    private static void writeInt(byte[] b, int pos, int value) {
+        b[pos] = (byte) (value >>> 24);
+        b[pos + 1] = (byte) (value >>> 16);
+        b[pos + 2] = (byte) (value >>> 8);
+        b[pos + 3] = (byte) value;
+    }
+
+    /**
+     * Append a game to the store, replacing any game of the same ID.
+     *
+     * @param game A finalized game.
+     * @throws IOException if the game cannot be encoded or written.
+     */
+    public synchronized void put(BoxscoreGameAccount game) throws IOException {
+        byte[] record;
+        try {
+            record = encodeRecord(game);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Game " + game.getGameID() + " could not be stored: " +
+                e.getMessage(), e);
+        }
+        long offset = segment.length();
+        segment.seek(offset);
+        segment.write(record);
+        put(new Entry(game.getGameID(), offset, record.length));
+        indexChanged = true;
+    }
+
+    /** Store each game passed to this sink. */
+    @Override
+    public void accept(BoxscoreGameAccount game) throws IOException {
+        put(game);
+    }
+
+    /**
+     * @param gameId A game ID, such as <code>NYA201805040</code>.
+     * @return The game, or <code>null</code> if it is not stored.
+     * @throws IOException if the game's record cannot be read.
+     */
+    public synchronized BoxscoreGameAccount get(String gameId) throws IOException {
+        Entry entry = byId.get(gameId);
+        return (entry == null) ? null : decodeRecord(readRecord(entry.offset, entry.length));
+    }
+
+    /**
+     * @param first The first date, <code>YYYYMMDD</code>.
+     * @param last The last date, <code>YYYYMMDD</code>.
+     * @return The games played from <code>first</code> through
+     *         <code>last</code>, in order of date, and within a date by game
+     *         number and home team.
+     * @throws IOException if a game's record cannot be read.
+     */
+    public synchronized List<BoxscoreGameAccount> getGames(int first, int last)
+            throws IOException {
+        List<BoxscoreGameAccount> games = new ArrayList<>();
+        if (first > last) {
+            return games;
+        }
+        for (Entry entry : byDate.subMap(String.format("%08d", first), true,
+                String.format("%08d", last) + "\uFFFF", true).values()) {
+            games.add(decodeRecord(readRecord(entry.offset, entry.length)));
+        }
+        return games;
+    }
+
+    /** @return The IDs of every game stored, in order. */
+    public synchronized List<String> getGameIds() {
+        return new ArrayList<>(byId.keySet());
+    }
+
+    /** @return The number of games stored. */
+    public synchronized int getGameCount() {
+        return byId.size();
+    }
+
+    /** @return The bytes of the segment taken by records that have been replaced. */
+    public synchronized long getGarbageBytes() throws IOException {
+        return segment.length() - HEADER_BYTES - liveBytes;
+    }
+
+    /**
+     * Write the index, if it has changed, so that the next run need not read
+     * the segment to rebuild it. It is replaced atomically.
+     *
+     * @throws IOException if the index cannot be written.
+     */
+    @Override
+    public synchronized void flush() throws IOException {
+        if (!indexChanged) {
+            return;
+        }
+        segment.getFD().sync();
+        GameCodec.Encoder out = new GameCodec.Encoder();
+        out.writeInt(INDEX_MAGIC);
+        out.writeInt(VERSION);
+        out.writeLong(generation);
+        out.writeLong(segment.length());
+        out.writeInt(byId.size());
+        for (Entry entry : byId.values()) {
+            out.writeString(entry.gameId);
+            out.writeLong(entry.offset);
+            out.writeInt(entry.length);
+        }
+        replace(new File(directory, INDEX_NAME), out.toByteArray());
+        indexChanged = false;
+    }
+
+    private void replace(File file, byte[] data) throws IOException {
+        File temp = File.createTempFile(file.getName() + ".", ".tmp", directory);
+        try {
+            Files.write(temp.toPath(), data);
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp.toPath());
+        }
+    }
+
+    /**
+     * Rewrite the segment with only the latest record of each game, in order
+     * of date, and write the index. The new segment has a new generation, so
+     * an index written for the old one is never used with it.
+     *
+     * @throws IOException if the store cannot be rewritten. The old segment
+     *         is then left in place.
+     */
+    public synchronized void compact() throws IOException {
+        File segmentFile = new File(directory, SEGMENT_NAME);
+        File temp = File.createTempFile(SEGMENT_NAME + ".", ".tmp", directory);
+        List<Entry> compacted = new ArrayList<>(byDate.size());
+        long newGeneration = Math.max(generation + 1, System.currentTimeMillis());
+        try {
+            try (RandomAccessFile out = new RandomAccessFile(temp, "rw")) {
+                writeHeader(out, newGeneration);
+                long offset = HEADER_BYTES;
+                for (Entry entry : byDate.values()) {
+                    out.write(readRecord(entry.offset, entry.length));
+                    compacted.add(new Entry(entry.gameId, offset, entry.length));
+                    offset += entry.length;
+                }
+                out.getFD().sync();
+            }
+            segment.close();
+            Files.move(temp.toPath(), segmentFile.toPath(), StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp.toPath());
+            /* If the move failed, this reopens the old segment, which is unchanged. */
+            if (!segment.getChannel().isOpen()) {
+                segment = new RandomAccessFile(segmentFile, "rw");
+            }
+        }
+
+        generation = newGeneration;
+        byId.clear();
+        byDate.clear();
+        liveBytes = 0;
+        for (Entry entry : compacted) {
+            put(entry);
+        }
+        indexChanged = true;
+        flush();
+    }
+
+    /**
+     * Write the index, compacting the store first if garbage makes up more
+     * than half of its segment, and close the segment.
+     *
+     * @throws IOException if the store cannot be written.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            if (getGarbageBytes() > liveBytes) {
+                compact();
+            } else {
+                flush();
+            }
+        } finally {
+            segment.close();
+        }
+    }
+
+}
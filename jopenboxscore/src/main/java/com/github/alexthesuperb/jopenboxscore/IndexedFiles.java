@@ -0,0 +1,97 @@
+package com.github.alexthesuperb.jopenboxscore;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The event files covered by an index, with the length and modification time
+ * each had when it was indexed, so that an index can tell when it is stale.
+ * Paths are stored relative to the index's directory where possible, so that
+ * an index kept alongside its event files can be moved with them.
+ */
+final class IndexedFiles {
+
+    private final List<File> files = new ArrayList<>();
+    private final List<Long> lengths = new ArrayList<>();
+    private final List<Long> modifiedTimes = new ArrayList<>();
+
+    private IndexedFiles() {
+    }
+
+    /**
+     * Record the current length and modification time of each file. This
+     * is done before the files are read, so that a file changed while being
+     * indexed makes the index stale.
+     */
+    static IndexedFiles of(List<File> eventFiles) {
+        IndexedFiles indexed = new IndexedFiles();
+        for (File file : eventFiles) {
+            indexed.files.add(file);
+            indexed.lengths.add(file.length());
+            indexed.modifiedTimes.add(file.lastModified());
+        }
+        return indexed;
+    }
+
+    /** Write the table, with paths relative to <code>directory</code>. */
+    void write(GameCodec.Encoder out, File directory) {
+        out.writeInt(files.size());
+        for (int i = 0; i < files.size(); i++) {
+            Path path = files.get(i).getAbsoluteFile().toPath();
+            String name;
+            try {
+                name = directory.toPath().relativize(path).toString();
+            } catch (IllegalArgumentException e) {
+                name = path.toString();
+            }
+            out.writeString(name);
+            out.writeLong(lengths.get(i));
+            out.writeLong(modifiedTimes.get(i));
+        }
+    }
+
+    /** Read a table written by <code>write()</code>. */
+    static IndexedFiles read(GameCodec.Decoder in, File directory) throws IOException {
+        IndexedFiles indexed = new IndexedFiles();
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            File file = new File(in.readString());
+            indexed.files.add(file.isAbsolute() ? file : new File(directory, file.getPath()));
+            indexed.lengths.add(in.readLong());
+            indexed.modifiedTimes.add(in.readLong());
+        }
+        return indexed;
+    }
+
+    /**
+     * Check that no file has changed since it was indexed.
+     *
+     * @throws IOException naming the first file that has changed.
+     */
+    void checkCurrent() throws IOException {
+        for (int i = 0; i < files.size(); i++) {
+            File file = files.get(i);
+            if (file.length() != lengths.get(i) ||
+                    file.lastModified() != modifiedTimes.get(i)) {
+                throw new IOException("Event file " + file.getPath() + " has changed " +
+                    "since the index was built. Rebuild the index.");
+            }
+        }
+    }
+
+    File get(int i) {
+        return files.get(i);
+    }
+
+    int size() {
+        return files.size();
+    }
+
+    List<File> getFiles() {
+        return Collections.unmodifiableList(files);
+    }
+}
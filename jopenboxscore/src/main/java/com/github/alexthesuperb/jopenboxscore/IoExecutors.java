@@ -0,0 +1,82 @@
+package com.github.alexthesuperb.jopenboxscore;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * <p>
+ * Executors for tasks that spend most of their time blocked on file I/O, such
+ * as reading event files and writing shards.
+ * </p><p>
+ * On Java 21 or later, each task runs on its own virtual thread, so that any
+ * number of files can be waited on without tying up a platform thread each.
+ * On earlier versions, tasks share a bounded pool of platform threads. The
+ * virtual-thread factory is looked up reflectively, so that this class still
+ * compiles and runs on Java 8.
+ * </p>
+ */
+final class IoExecutors {
+
+    /* Executors.newVirtualThreadPerTaskExecutor(), or null if it cannot be used. */
+    private static final Method NEW_VIRTUAL_EXECUTOR = findVirtualExecutorFactory(
+        Executors.class, "newVirtualThreadPerTaskExecutor");
+
+    private IoExecutors() {
+    }
+
+    /**
+     * Before Java 21, the method is missing, or fails unless previews are
+     * enabled.
+     *
+     * @return The static, no-argument executor factory <code>name</code> of
+     *         <code>type</code>, or <code>null</code> if it is missing or
+     *         fails when tried.
+     */
+    static Method findVirtualExecutorFactory(Class<?> type, String name) {
+        try {
+            Method factory = type.getMethod(name);
+            ((ExecutorService) factory.invoke(null)).shutdown();
+            return factory;
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /** @return <code>true</code> if tasks run on virtual threads. */
+    static boolean usesVirtualThreads() {
+        return NEW_VIRTUAL_EXECUTOR != null;
+    }
+
+    /**
+     * Create an executor that runs each task on a new virtual thread if this
+     * JVM supports them, or on one of <code>platformThreads</code> platform
+     * threads otherwise.
+     *
+     * @param platformThreads The size of the pool used without virtual threads.
+     * @return The executor, which the caller must shut down.
+     * @throws IllegalArgumentException if <code>platformThreads</code> is not
+     *         positive.
+     */
+    static ExecutorService newPerTaskExecutor(int platformThreads)
+            throws IllegalArgumentException {
+        return newPerTaskExecutor(platformThreads, NEW_VIRTUAL_EXECUTOR);
+    }
+
+    /** As <code>newPerTaskExecutor(int)</code>, with the virtual-thread factory given. */
+    static ExecutorService newPerTaskExecutor(int platformThreads, Method virtualFactory)
+            throws IllegalArgumentException {
+        if (platformThreads < 1) {
+            throw new IllegalArgumentException("The number of threads must be a " +
+                "positive integer.");
+        }
+        if (virtualFactory != null) {
+            try {
+                return (ExecutorService) virtualFactory.invoke(null);
+            } catch (ReflectiveOperationException e) {
+                /* It worked when looked up; fall back all the same. */
+            }
+        }
+        return Executors.newFixedThreadPool(platformThreads);
+    }
+}
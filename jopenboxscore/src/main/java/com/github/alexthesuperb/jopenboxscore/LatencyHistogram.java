@@ -0,0 +1,135 @@
+package com.github.alexthesuperb.jopenboxscore;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongBinaryOperator;
+
+/**
+ * <p>
+ * A histogram of durations, in nanoseconds, that any number of threads may
+ * record into without locking.
+ * </p><p>
+ * Buckets are laid out as in HdrHistogram: durations below 128ns each have a
+ * bucket, and every higher power of two is split into 64 buckets of equal
+ * width. A bucket is therefore never wider than 1/64 of the durations it
+ * holds, so percentiles are accurate to within about 1.6%, with a fixed
+ * 30 KB of counters covering every possible duration. The maximum is kept
+ * exactly.
+ * </p>
+ */
+public final class LatencyHistogram {
+
+    /* The upper half of every 2^SUB_BITS buckets covers one more power of two. */
+    private static final int SUB_BITS = 7;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private static final int HALF_COUNT = SUB_COUNT / 2;
+    private static final int BUCKETS = bucketOf(Long.MAX_VALUE) + 1;
+
+    /* Not a method reference, whose bootstrap would slow down startup. */
+    private static final LongBinaryOperator MAX = new LongBinaryOperator() {
+        @Override
+        public long applyAsLong(long left, long right) {
+            return Math.max(left, right);
+        }
+    };
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder total = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(MAX, 0);
+
+    /* Durations are never negative, but System.nanoTime() differences can be. */
+    private static int bucketOf(long nanos) {
+        if (nanos < SUB_COUNT) {
+            return (int) Math.max(nanos, 0);
+        }
+        int shift = (63 - Long.numberOfLeadingZeros(nanos)) - (SUB_BITS - 1);
+        return shift * HALF_COUNT + (int) (nanos >>> shift);
+    }
+
+    /* The highest duration counted in bucket. */
+    private static long highestIn(int bucket) {
+        if (bucket < SUB_COUNT) {
+            return bucket;
+        }
+        int shift = bucket / HALF_COUNT - 1;
+        long sub = bucket - (long) shift * HALF_COUNT;
+        return ((sub + 1) << shift) - 1;
+    }
+
+    /**
+     * Count one duration.
+     *
+     * @param nanos The duration, in nanoseconds.
+     */
+    public void record(long nanos) {
+        counts.incrementAndGet(bucketOf(nanos));
+        count.increment();
+        total.add(nanos);
+        max.accumulate(nanos);
+    }
+
+    /** @return the number of durations recorded. */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /** @return the mean duration, in nanoseconds, or 0 if none were recorded. */
+    public long getMean() {
+        long n = count.sum();
+        return (n == 0) ? 0 : total.sum() / n;
+    }
+
+    /** @return the longest duration recorded, in nanoseconds. */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Estimate a percentile. Durations recorded while this runs may or may
+     * not be included.
+     *
+     * @param percentile A percentile between 0 and 100, such as 99.9.
+     * @return A duration, in nanoseconds, that at least
+     *         <code>percentile</code> percent of the recorded durations do not
+     *         exceed, accurate to within the width of its bucket; or 0 if none
+     *         were recorded.
+     * @throws IllegalArgumentException if <code>percentile</code> is not
+     *         between 0 and 100.
+     */
+    public long getValueAtPercentile(double percentile) throws IllegalArgumentException {
+        if (!(percentile >= 0 && percentile <= 100)) {
+            throw new IllegalArgumentException("Percentiles must be between 0 and 100.");
+        }
+        long[] snapshot = new long[BUCKETS];
+        long n = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            n += snapshot[i];
+        }
+        if (n == 0) {
+            return 0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * n));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return Math.min(highestIn(i), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    /** Forget every duration recorded. */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        count.reset();
+        total.reset();
+        max.reset();
+    }
+}
@@ -7,9 +7,10 @@ import java.io.IOException;
 /**
  * <code>NewspaperBoxscore</code> is an implementation of <code>Boxscore</code>
  * used to write a classic, human-readable newspaper-style boxscore to a <code>
- * BufferedWriter</code>.
+ * BufferedWriter</code>. A single instance may be reused for many games
+ * through <code>reset(BoxscoreGameAccount, BufferedWriter)</code>.
  */
-public class NewspaperBoxscore implements BaseballBoxscore {
+public class NewspaperBoxscore implements ReusableBoxscore {
 
     private BufferedWriter writer;
     private SingleGameTeam visitor;
@@ -20,7 +21,16 @@ public class NewspaperBoxscore implements BaseballBoxscore {
     private int timeOfGame;
     private int attendance;
     private int outs;
-    private LinkedList<Character> symbols;
+
+    /** Index of the next unused footnote symbol. */
+    private int nextSymbol;
+
+    /** 
+     * Symbols marking pitchers removed from an inning, in order of use. Once
+     * all have been used, they are used again doubled, then tripled, and so
+     * on, so that no two pitchers of a game share a symbol.
+     */
+    private static final char[] footnoteSymbols = {'*', '#', '+', '%', '^', '~'};
 
     /** 
      * If a pitcher is removed from an inning before recording an out,
@@ -36,6 +46,21 @@ public class NewspaperBoxscore implements BaseballBoxscore {
             String.format("%3s%3s%3s%4s", "AB", "R", "H", "RBI");
 
     public NewspaperBoxscore(BoxscoreGameAccount game, BufferedWriter writer) {
+        this();
+        reset(game, writer);
+    }
+
+    /** 
+     * Construct a <code>NewspaperBoxscore</code> with no game. 
+     * <code>reset(BoxscoreGameAccount, BufferedWriter)</code> must be called 
+     * before <code>write()</code>.
+     */
+    public NewspaperBoxscore() {
+        pitcherRemovedStrings = new LinkedList<String>();
+    }
+
+    @Override
+    public void reset(BoxscoreGameAccount game, BufferedWriter writer) {
         this.writer = writer;
         visitor = game.getTeam(false, this);
         home = game.getTeam(true, this);
@@ -45,15 +70,8 @@ public class NewspaperBoxscore implements BaseballBoxscore {
         timeOfGame = game.getTimeOfGame();
         attendance = game.getAttendance();
         outs = game.getCurrentOuts();
-        symbols = new LinkedList<Character>();
-        pitcherRemovedStrings = new LinkedList<String>();
-
-        symbols.push('~');
-        symbols.push('^');
-        symbols.push('%');
-        symbols.push('+');
-        symbols.push('#');
-        symbols.push('*');
+        nextSymbol = 0;
+        pitcherRemovedStrings.clear();
     }
 
     /**
@@ -106,6 +124,16 @@ public class NewspaperBoxscore implements BaseballBoxscore {
         return String.format("%-20s", s1) + s2;
     }
 
+    /** @return The symbol of a game's <code>n</code>th footnote, from 0. */
+    static String getFootnoteSymbol(int n) {
+        char symbol = footnoteSymbols[n % footnoteSymbols.length];
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i <= n / footnoteSymbols.length; i++) {
+            sb.append(symbol);
+        }
+        return sb.toString();
+    }
+
     private  String getBoxscoreLine(SingleGamePitcher p) {
         
         String s1 = p.getName();
@@ -116,7 +144,7 @@ public class NewspaperBoxscore implements BaseballBoxscore {
         }
 
         if (p.removedFromInningWithoutRecordingOut()) {
-            String c = String.valueOf(symbols.pop());
+            String c = getFootnoteSymbol(nextSymbol++);
             s1 += c;
             String tmp = c + " Pitched to " + p.getInningBF() + " ";
             tmp += (p.getInningBF() == 1) ? "batter" : "batters";
@@ -245,14 +273,8 @@ public class NewspaperBoxscore implements BaseballBoxscore {
     }
 
     private void printPitching() throws IOException {
-        symbols.clear();
+        nextSymbol = 0;
         pitcherRemovedStrings.clear();
-        symbols.push('~');
-        symbols.push('^');
-        symbols.push('%');
-        symbols.push('+');
-        symbols.push('#');
-        symbols.push('*');
 
         writer.write(String.format("%2s%-20s", 
             "", visitor.getCity()) + pitchingStatColumns + "\n");
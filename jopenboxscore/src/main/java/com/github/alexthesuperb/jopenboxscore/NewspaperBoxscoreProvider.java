@@ -0,0 +1,18 @@
+package com.github.alexthesuperb.jopenboxscore;
+
+/**
+ * Registers <code>NewspaperBoxscore</code> with <code>BoxscoreFactory</code>
+ * under <code>BoxscoreFactory.NEWSPAPER_BOXSCORE_KEY</code>.
+ */
+public class NewspaperBoxscoreProvider implements BoxscoreProvider {
+
+    @Override
+    public String getKey() {
+        return BoxscoreFactory.NEWSPAPER_BOXSCORE_KEY;
+    }
+
+    @Override
+    public ReusableBoxscore newBoxscore() {
+        return new NewspaperBoxscore();
+    }
+}
@@ -1,17 +1,25 @@
 package com.github.alexthesuperb.jopenboxscore;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 import java.io.BufferedWriter;
 
 /**
  * Write a detailed statistical summary of each player, by team, in a human-readable
  * format.
  */
-public class NewspaperSummary implements BaseballBoxscore {
+public class NewspaperSummary implements BaseballBoxscore, GameSink {
 
     private BufferedWriter writer;
     HashMap<String, AggregatedTeam<SingleGameTeam>> teams;
@@ -63,6 +71,88 @@ public class NewspaperSummary implements BaseballBoxscore {
         }
     }
 
+    /** Add a game to the summary; nothing is written until <code>close()</code>. */
+    @Override
+    public void accept(BoxscoreGameAccount game) {
+        addGame(game);
+    }
+
+    /** 
+     * Write the summary. The writer is flushed but left open, since it may 
+     * wrap the console.
+     */
+    @Override
+    public void close() throws IOException {
+        write();
+    }
+
+    /**
+     * Discard the totals of the given teams and aggregate them again from 
+     * <code>games</code>, leaving every other team untouched. This keeps a
+     * summary up to date when games are changed or removed, without
+     * re-adding every game.
+     *
+     * @param teamIds The IDs of the teams to rebuild.
+     * @param games All games to be summarized, in order.
+     */
+    public void rebuildTeams(Set<String> teamIds, 
+            Iterable<? extends BoxscoreGameAccount> games) {
+        for (String teamId : teamIds) {
+            teams.remove(teamId);
+        }
+        for (BoxscoreGameAccount game : games) {
+            SingleGameTeam visitor = game.getTeam(false, this);
+            SingleGameTeam home = game.getTeam(true, this);
+
+            if (teamIds.contains(visitor.getTeamId())) {
+                addTeam(visitor.getTeamId(), visitor);
+            }
+            if (teamIds.contains(home.getTeamId())) {
+                addTeam(home.getTeamId(), home);
+            }
+        }
+    }
+
+    /**
+     * Save this summary's totals to a partial summary file, which
+     * <code>mergePartial()</code> can add to another summary. A summary can
+     * thus be aggregated by several processes, each reading some of the
+     * event files, and written by one.
+     *
+     * @param file The file to write.
+     * @throws IOException if the file cannot be written.
+     */
+    public void writePartial(File file) throws IOException {
+        SummaryCodec.writePartial(file, teams);
+    }
+
+    /**
+     * Add the totals saved in a partial summary file to this summary.
+     *
+     * @param file A file written by <code>writePartial()</code>.
+     * @throws IOException if the file cannot be read or is not a partial
+     *         summary.
+     */
+    public void mergePartial(File file) throws IOException {
+        for (AggregatedTeam<SingleGameTeam> team : SummaryCodec.readPartial(file).values()) {
+            AggregatedTeam<SingleGameTeam> own = teams.get(team.getTeamId());
+            if (own == null) {
+                teams.put(team.getTeamId(), team);
+            } else {
+                own.merge(team);
+            }
+        }
+    }
+
+    /**
+     * Change the destination of subsequent calls to <code>write()</code>.
+     *
+     * @param writer The new destination.
+     */
+    public void setWriter(BufferedWriter writer) {
+        this.writer = writer;
+    }
+
     private void addTeam(String teamId, SingleGameTeam team) {
         if (teams.containsKey(teamId)) {
             teams.get(teamId).addGame(team);
@@ -77,123 +167,186 @@ public class NewspaperSummary implements BaseballBoxscore {
     }
 
 
+    /* Fewer sections than this are rendered on the calling thread. */
+    private static final int MIN_PARALLEL_SECTIONS = 4;
+
+    /*
+     * Renders sections for every summary, created on first use. Its threads
+     * are daemons, so it never has to be shut down.
+     */
+    private static class RendererHolder {
+        private static final ExecutorService RENDERERS = Executors.newFixedThreadPool(
+                Runtime.getRuntime().availableProcessors(), new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "summary-renderer");
+                t.setDaemon(true);
+                return t;
+            }
+        });
+    }
+
+    /**
+     * Write every team's section in ascending order by team ID. Sections are
+     * rendered concurrently into separate buffers, then written in order, so
+     * the output is the same as if they had been written one at a time.
+     *
+     * @throws IOException if an I/O exception occurs.
+     */
     @Override
     public void write() throws IOException {
+        long start = System.nanoTime();
         List<String> sortedKeys = new LinkedList<String>(teams.keySet());
         Collections.sort(sortedKeys);
 
-        for (String k : sortedKeys) {
-            AggregatedTeam<SingleGameTeam> team = teams.get(k);
-            writeHomeAwayRecord(team);
-            writeRows(team, false);
-            writeRows(team, true);
-            writer.write("\n");
+        if (sortedKeys.size() < MIN_PARALLEL_SECTIONS ||
+                Runtime.getRuntime().availableProcessors() == 1) {
+            for (String k : sortedKeys) {
+                writer.write(renderSection(teams.get(k)).toString());
+            }
+        } else {
+            ExecutorService executor = RendererHolder.RENDERERS;
+            try {
+                List<Future<StringBuilder>> sections = new LinkedList<>();
+                for (String k : sortedKeys) {
+                    final AggregatedTeam<SingleGameTeam> team = teams.get(k);
+                    sections.add(executor.submit(new Callable<StringBuilder>() {
+                        @Override
+                        public StringBuilder call() {
+                            return renderSection(team);
+                        }
+                    }));
+                }
+                for (Future<StringBuilder> section : sections) {
+                    writer.write(section.get().toString());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while rendering summary.", e);
+            } catch (ExecutionException e) {
+                throw new IOException("Summary section could not be rendered.", 
+                    e.getCause());
+            }
         }
         writer.flush();
+        ProcessingMetrics.getInstance().addSummaryNanos(System.nanoTime() - start);
     }
 
-    private String formatRateStat(float stat, int decimals, boolean leadingZero) {
-        String statStr = String.format("%." + decimals + "f", stat);
-       
-        if (Float.isNaN(stat)) {
-            return "";
-        }
+    /** Render a team's win/loss record, batting and pitching sections. */
+    private StringBuilder renderSection(AggregatedTeam<SingleGameTeam> team) {
+        StringBuilder sb = new StringBuilder(8192);
+        writeHomeAwayRecord(sb, team);
+        writeRows(sb, team, false);
+        writeRows(sb, team, true);
+        sb.append('\n');
+        return sb;
+    }
 
-        if (Float.isInfinite(stat)) {
-            return "inf";
-        }
+    private static String formatRateStat(float stat, int decimals, boolean leadingZero) {
+        return FixedWidthFormat.formatRateStat(stat, decimals, leadingZero);
+    }
+
+    private static final String recordColumnTitles = buildRecordColumnTitles();
+
+    private static final String recordColumns = buildRecordColumns();
 
-        if (!leadingZero) {
-            if (statStr.charAt(0) == '0') {
-                statStr = statStr.substring(1);
+    private static String buildRecordColumnTitles() {
+        StringBuilder sb = new StringBuilder();
+        FixedWidthFormat.appendSpaces(sb, 7);
+        String[] titles = {"Total", "Home", "Road"};
+        for (int i = 0; i < titles.length; i++) {
+            if (i > 0) {
+                FixedWidthFormat.appendSpaces(sb, 2);
             }
+            FixedWidthFormat.appendRight(sb, titles[i], 15);
+            FixedWidthFormat.appendSpaces(sb, 15);
         }
-        return statStr;
+        return sb.toString();
     }
 
-    private void writeHomeAwayRecord(AggregatedTeam<SingleGameTeam> team) throws IOException {
-        int record[];
-        String totalStr = String.format("%15s", "Total") + String.format("%15s","");
-        String homeStr = String.format("%15s", "Home") + String.format("%15s","");
-        String roadStr = String.format("%15s", "Road") + String.format("%15s","");
-        String columns = String.format("%5s%5s%5s%5s%5s%5s","G", "W", "L", "T", "RS", "RA");
+    private static String buildRecordColumns() {
+        StringBuilder sb = new StringBuilder();
+        FixedWidthFormat.appendLeft(sb, "Team", 7);
+        for (int i = 0; i < 3; i++) {
+            if (i > 0) {
+                FixedWidthFormat.appendSpaces(sb, 2);
+            }
+            for (String column : new String[] {"G", "W", "L", "T", "RS", "RA"}) {
+                FixedWidthFormat.appendRight(sb, column, 5);
+            }
+        }
+        return sb.toString();
+    }
 
+    private static void writeHomeAwayRecord(StringBuilder sb, 
+            AggregatedTeam<SingleGameTeam> team) {
         /* Print section header */
-        writer.write(team.getCity() + " " + team.getName() + " Win/Loss Record");
-        writer.write("\n\n");
+        sb.append(team.getCity()).append(' ').append(team.getName())
+            .append(" Win/Loss Record");
+        sb.append("\n\n");
 
         /* Write columns titles */
-        writer.write(String.format("%7s", "") + totalStr + 
-                String.format("%2s", "") + homeStr + 
-                String.format("%2s", "") + roadStr);
-        writer.write("\n");
-        writer.write(String.format("%-7s", "Team") + columns + 
-                String.format("%2s", "") + columns +
-                String.format("%2s", "") + columns);
-        writer.write("\n");
-
-        record = team.getTotalRecord();
-        writer.write(String.format("%-7s", "Total") + 
-                String.format("%5d%5d%5d%5d%5d%5d",
-                        record[RecordMatrix.INDEX_TOTAL_GAMES],
-                        record[RecordMatrix.INDEX_TOTAL_WINS],
-                        record[RecordMatrix.INDEX_TOTAL_LOSSES],
-                        record[RecordMatrix.INDEX_TOTAL_TIES],
-                        record[RecordMatrix.INDEX_TOTAL_RS],
-                        record[RecordMatrix.INDEX_TOTAL_RA]) +
-                String.format("%2s", "") +
-                String.format("%5d%5d%5d%5d%5d%5d",
-                        record[RecordMatrix.INDEX_HOME_GAMES],
-                        record[RecordMatrix.INDEX_HOME_WINS],
-                        record[RecordMatrix.INDEX_HOME_LOSSES],
-                        record[RecordMatrix.INDEX_HOME_TIES],
-                        record[RecordMatrix.INDEX_HOME_RS],
-                        record[RecordMatrix.INDEX_HOME_RA]) + 
-                String.format("%2s", "") +
-                String.format("%5d%5d%5d%5d%5d%5d",
-                        record[RecordMatrix.INDEX_ROAD_GAMES],
-                        record[RecordMatrix.INDEX_ROAD_WINS],
-                        record[RecordMatrix.INDEX_ROAD_LOSSES],
-                        record[RecordMatrix.INDEX_ROAD_TIES],
-                        record[RecordMatrix.INDEX_ROAD_RS],
-                        record[RecordMatrix.INDEX_ROAD_RA]));
-        writer.write("\n");
+        sb.append(recordColumnTitles).append('\n');
+        sb.append(recordColumns).append('\n');
 
+        writeRecordRow(sb, "Total", team.getTotalRecord());
         for (String id : team.getOpponentIds()) {
-            record = team.getRecordVersusTeam(id);
-            writer.write(String.format("%-7s", id) + 
-                String.format("%5d%5d%5d%5d%5d%5d",
-                        record[RecordMatrix.INDEX_TOTAL_GAMES],
-                        record[RecordMatrix.INDEX_TOTAL_WINS],
-                        record[RecordMatrix.INDEX_TOTAL_LOSSES],
-                        record[RecordMatrix.INDEX_TOTAL_TIES],
-                        record[RecordMatrix.INDEX_TOTAL_RS],
-                        record[RecordMatrix.INDEX_TOTAL_RA]) +
-                String.format("%2s", "") +
-                String.format("%5d%5d%5d%5d%5d%5d",
-                        record[RecordMatrix.INDEX_HOME_GAMES],
-                        record[RecordMatrix.INDEX_HOME_WINS],
-                        record[RecordMatrix.INDEX_HOME_LOSSES],
-                        record[RecordMatrix.INDEX_HOME_TIES],
-                        record[RecordMatrix.INDEX_HOME_RS],
-                        record[RecordMatrix.INDEX_HOME_RA]) + 
-                String.format("%2s", "") +
-                String.format("%5d%5d%5d%5d%5d%5d",
-                        record[RecordMatrix.INDEX_ROAD_GAMES],
-                        record[RecordMatrix.INDEX_ROAD_WINS],
-                        record[RecordMatrix.INDEX_ROAD_LOSSES],
-                        record[RecordMatrix.INDEX_ROAD_TIES],
-                        record[RecordMatrix.INDEX_ROAD_RS],
-                        record[RecordMatrix.INDEX_ROAD_RA]));
-            writer.write("\n");
+            writeRecordRow(sb, id, team.getRecordVersusTeam(id));
         }
+        sb.append('\n');
+    }
 
-        writer.write("\n");
-        writer.flush();
+    /** Write a row of total, home and road games, wins, losses, ties, RS and RA. */
+    private static void writeRecordRow(StringBuilder sb, String title, int[] record) {
+        FixedWidthFormat.appendLeft(sb, title, 7);
+        int[] firstIndexes = {RecordMatrix.INDEX_TOTAL_GAMES, 
+                              RecordMatrix.INDEX_HOME_GAMES, 
+                              RecordMatrix.INDEX_ROAD_GAMES};
+        for (int i = 0; i < firstIndexes.length; i++) {
+            if (i > 0) {
+                FixedWidthFormat.appendSpaces(sb, 2);
+            }
+            /* Games, wins, losses, ties, RS and RA are stored consecutively. */
+            for (int j = firstIndexes[i]; j < firstIndexes[i] + 6; j++) {
+                FixedWidthFormat.appendRight(sb, record[j], 5);
+            }
+        }
+        sb.append('\n');
+    }
+
+    /** Widths of each pitching and batting column. */
+    private static final int[] pitchingWidths = {5, 5, 7, 5, 5, 5, 7, 5, 5, 5, 5, 5};
+    private static final int[] battingWidths = {5, 5, 5, 5, 5, 5, 5, 5, 5, 5, 7, 7, 7, 5, 5, 5};
+
+    private static final String pitchingHeader = 
+            buildRow(new String[] {"g", "gs", "era", "w", "l", "sv", 
+                                   "ip", "h", "r", "er", "bb", "so"}, true);
+
+    private static final String pitchingRule = 
+            buildRow(new String[] {"---", "---", "---", "---", "---", "---", 
+                                   "-----", "---", "---", "---", "---", "---"}, true);
+
+    private static final String battingHeader =
+            buildRow(new String[] {"g", "ab", "r", "h", "2b", "3b", "hr", "rbi", "bb", "so",
+                                   "avg", "obp", "slg", "sb", "cs", "e"}, false);
+
+    private static final String battingRule =
+            buildRow(new String[] {"---", "---", "---", "---", "---", 
+                                   "---", "---", "---", "---", "---",
+                                   "----", "----", "----", "---", "---", "---"}, false);
+
+    private static String buildRow(String[] cells, boolean isPitching) {
+        int[] widths = isPitching ? pitchingWidths : battingWidths;
+        StringBuilder sb = new StringBuilder();
+        FixedWidthFormat.appendSpaces(sb, 15);
+        for (int i = 0; i < cells.length; i++) {
+            FixedWidthFormat.appendRight(sb, cells[i], widths[i]);
+        }
+        return sb.toString();
     }
 
-    private void writeRows(AggregatedTeam<SingleGameTeam> team, boolean isPitching) 
-            throws IOException {
+    private static void writeRows(StringBuilder sb, AggregatedTeam<SingleGameTeam> team, 
+            boolean isPitching) {
         List<? extends BaseballPlayer> players;
         String type;
 
@@ -206,59 +359,32 @@ public class NewspaperSummary implements BaseballBoxscore {
         }
         Collections.sort(players);
 
-        writer.write(team.getCity() + " " + team.getName() + " " + type);
-        writer.write("\n");
-
-        if (isPitching) {
-            writer.write(String.format("%-15s","") +
-                        String.format("%5s%5s%7s%5s%5s%5s",
-                                        "g", "gs", "era", "w", "l", "sv") +
-                        String.format("%7s%5s%5s%5s%5s%5s",
-                                        "ip", "h", "r", "er", "bb", "so"));
-        } else {
-            writer.write(String.format("%-15s","") +
-                     String.format("%5s%5s%5s%5s%5s%5s%5s%5s%5s%5s",
-                                   "g","ab","r","h","2b","3b","hr","rbi","bb","so") +
-                     String.format("%7s%7s%7s", "avg","obp","slg") +
-                     String.format("%5s%5s%5s", "sb", "cs", "e"));
-        }
-        writer.write("\n");
+        sb.append(team.getCity()).append(' ').append(team.getName()).append(' ')
+            .append(type).append('\n');
+        sb.append(isPitching ? pitchingHeader : battingHeader).append('\n');
 
         for (BaseballPlayer player : players) {
-            writer.write(String.format("%-15s", player.getName()));
-            writer.write(getStatLineString(player, isPitching));
-            writer.write("\n");
+            FixedWidthFormat.appendLeft(sb, player.getName(), 15);
+            appendStatLine(sb, player, isPitching);
+            sb.append('\n');
         }
 
-        if (isPitching) {
-            writer.write(String.format("%-15s","") +
-                     String.format("%5s%5s%7s%5s%5s%5s",
-                                    "---", "---", "---", "---", "---", "---") +
-                     String.format("%7s%5s%5s%5s%5s%5s",
-                                    "-----", "---", "---", "---", "---", "---"));
-        } else {
-            writer.write(String.format("%-15s","") +
-                    String.format("%5s%5s%5s%5s%5s%5s%5s%5s%5s%5s",
-                                   "---", "---", "---", "---", "---",
-                                   "---", "---", "---", "---", "---") + 
-                    String.format("%7s%7s%7s", "----", "----", "----") + 
-                    String.format("%5s%5s%5s", "---", "---", "---"));
-        }
-        writer.write("\n");
-        writer.write(String.format("%-15s", "") + getStatLineString(team, isPitching));
-        
-        writer.write("\n\n");
-        writer.flush();
+        sb.append(isPitching ? pitchingRule : battingRule).append('\n');
+        FixedWidthFormat.appendSpaces(sb, 15);
+        appendStatLine(sb, team, isPitching);
+        sb.append("\n\n");
     }
 
     /**
+     * Append a player's or team's pitching or batting line.
      * 
-     * @param obj
-     * @param isPitching
-     * @return
+     * @param sb The destination.
+     * @param obj The player or team.
+     * @param isPitching <code>true</code> for a pitching line, <code>false</code>
+     *        for a batting line.
      */
-    private String getStatLineString(SportsStatContainer obj, boolean isPitching) {
-        String line;
+    private static void appendStatLine(StringBuilder sb, SportsStatContainer obj, 
+            boolean isPitching) {
         int[] stats;
 
         if (isPitching) {
@@ -266,12 +392,18 @@ public class NewspaperSummary implements BaseballBoxscore {
             String ip = BaseballPlayer.convertToIP(stats[4]);
             float era = BaseballPlayer.getEarnedRunAverage(stats[7], stats[4]);
             String eraString = formatRateStat(era, 2, true);
-            line = String.format("%5d%5d%7s%5d%5d%5d",
-                                        stats[0], stats[10], eraString, stats[1], 
-                                        stats[2], stats[3]) +
-                          String.format("%7s%5s%5s%5s%5s%5s",
-                                        ip, stats[5], stats[6], stats[7], 
-                                        stats[8], stats[9]);
+            int[] w = pitchingWidths;
+
+            FixedWidthFormat.appendRight(sb, stats[0], w[0]);
+            FixedWidthFormat.appendRight(sb, stats[10], w[1]);
+            FixedWidthFormat.appendRight(sb, eraString, w[2]);
+            FixedWidthFormat.appendRight(sb, stats[1], w[3]);
+            FixedWidthFormat.appendRight(sb, stats[2], w[4]);
+            FixedWidthFormat.appendRight(sb, stats[3], w[5]);
+            FixedWidthFormat.appendRight(sb, ip, w[6]);
+            for (int i = 5; i <= 9; i++) {
+                FixedWidthFormat.appendRight(sb, stats[i], w[i + 2]);
+            }
         } else {
             stats = obj.getStats(battingKeys);
             float avg = BaseballPlayer.getBattingAverage(stats[1], stats[3]);
@@ -279,20 +411,18 @@ public class NewspaperSummary implements BaseballBoxscore {
                                                         stats[12], stats[13]);
             float slg = BaseballPlayer.getSluggingPercentage(stats[1], stats[3], stats[4], 
                                                         stats[5], stats[6]);
-            
-            String avgStr = formatRateStat(avg, 3, false);
-            String slgStr = formatRateStat(slg, 3, false);
-            String obpStr = formatRateStat(obp, 3, false);
-
-            line = String.format("%5d%5d%5d%5d%5d%5d%5d%5d%5d%5d",
-                                            stats[0], stats[1], stats[2], stats[3],
-                                            stats[4], stats[5], stats[6], stats[7],
-                                            stats[8], stats[9]);
-            line += String.format("%7s%7s%7s", avgStr, obpStr, slgStr);
-            line += String.format("%5d%5d%5d", stats[10], stats[11], stats[14]);
-        }
+            int[] w = battingWidths;
 
-        return line;
+            for (int i = 0; i <= 9; i++) {
+                FixedWidthFormat.appendRight(sb, stats[i], w[i]);
+            }
+            FixedWidthFormat.appendRight(sb, formatRateStat(avg, 3, false), w[10]);
+            FixedWidthFormat.appendRight(sb, formatRateStat(obp, 3, false), w[11]);
+            FixedWidthFormat.appendRight(sb, formatRateStat(slg, 3, false), w[12]);
+            FixedWidthFormat.appendRight(sb, stats[10], w[13]);
+            FixedWidthFormat.appendRight(sb, stats[11], w[14]);
+            FixedWidthFormat.appendRight(sb, stats[14], w[15]);
+        }
     }
 
-}
\ No newline at end of file
+}
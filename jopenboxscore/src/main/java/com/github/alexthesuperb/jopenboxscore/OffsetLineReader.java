@@ -0,0 +1,70 @@
+package com.github.alexthesuperb.jopenboxscore;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * Reads lines as <code>BufferedReader</code> does, ending them at
+ * <code>\n</code>, <code>\r</code> or <code>\r\n</code> and decoding them with
+ * the default charset, while keeping track of the byte offset at which each
+ * line starts. Indexes record these offsets, so that a game can later be read
+ * without reading the lines before it.
+ */
+final class OffsetLineReader implements Closeable {
+
+    private final InputStream in;
+    private final Charset charset = Charset.defaultCharset();
+    private byte[] line = new byte[128];
+    private long position;
+    private long lineOffset;
+
+    /**
+     * @param in The stream, positioned at <code>position</code>.
+     * @param position The byte offset, within its file, of the stream's next byte.
+     */
+    OffsetLineReader(InputStream in, long position) {
+        this.in = new BufferedInputStream(in, 65536);
+        this.position = position;
+    }
+
+    /** @return the next line, without its terminator, or <code>null</code> at the end. */
+    String readLine() throws IOException {
+        lineOffset = position;
+        int length = 0;
+        int b;
+        while ((b = in.read()) != -1) {
+            position++;
+            if (b == '\n') {
+                return new String(line, 0, length, charset);
+            }
+            if (b == '\r') {
+                in.mark(1);
+                if (in.read() == '\n') {
+                    position++;
+                } else {
+                    in.reset();
+                }
+                return new String(line, 0, length, charset);
+            }
+            if (length == line.length) {
+                line = Arrays.copyOf(line, length * 2);
+            }
+            line[length++] = (byte) b;
+        }
+        return (position == lineOffset) ? null : new String(line, 0, length, charset);
+    }
+
+    /** @return the byte offset of the line last returned by <code>readLine()</code>. */
+    long getLineOffset() {
+        return lineOffset;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
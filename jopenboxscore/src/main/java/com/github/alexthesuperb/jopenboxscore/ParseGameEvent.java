@@ -0,0 +1,32 @@
+package com.github.alexthesuperb.jopenboxscore;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** A flight recorder event spanning the lines of one game added to its account. */
+@Name(FlightEvents.PREFIX + "ParseGame")
+@Label("Parse Game")
+@Category(FlightEvents.CATEGORY)
+@Description("The addLine() calls reading one game account, excluding finalize()")
+@StackTrace(false)
+final class ParseGameEvent extends jdk.jfr.Event {
+
+    @Label("File")
+    String file;
+
+    @Label("Game ID")
+    String gameId;
+
+    @Label("First Line")
+    int firstLine;
+
+    @Label("Last Line")
+    int lastLine;
+
+    @Label("Failed")
+    @Description("Whether the game was excluded because a line could not be read")
+    boolean failed;
+}
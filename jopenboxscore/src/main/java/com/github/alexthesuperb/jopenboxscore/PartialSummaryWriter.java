@@ -0,0 +1,39 @@
+package com.github.alexthesuperb.jopenboxscore;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Aggregate games as a <code>NewspaperSummary</code> would, but save the
+ * totals to a partial summary file instead of writing the summary. Partial
+ * summaries of different event files can then be merged and written with
+ * <code>NewspaperSummary.mergePartial()</code>.
+ */
+public class PartialSummaryWriter implements GameSink {
+
+    private final File file;
+    private final NewspaperSummary summary;
+
+    /**
+     * @param file The partial summary file, written by <code>close()</code>.
+     */
+    public PartialSummaryWriter(File file) {
+        this.file = file;
+        this.summary = new NewspaperSummary(null);
+    }
+
+    @Override
+    public void accept(BoxscoreGameAccount game) {
+        summary.addGame(game);
+    }
+
+    @Override
+    public void close() throws IOException {
+        summary.writePartial(file);
+    }
+
+    /** @return the summary holding the totals of the games accepted so far. */
+    public NewspaperSummary getSummary() {
+        return summary;
+    }
+}
@@ -0,0 +1,334 @@
+package com.github.alexthesuperb.jopenboxscore;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * <p>
+ * An inverted index from player IDs to the games in which each player
+ * appeared, so that a player's games can be read from a set of event files
+ * without parsing any other game.
+ * </p><p>
+ * For every game, the index records where its block starts (file, byte
+ * offset and line number), its ID, and the team and roles (batting,
+ * pitching or both) of each player named by its <code>start</code> and
+ * <code>sub</code> lines. A player bats if given a place in the batting
+ * order, and pitches if ever given position 1.
+ * </p><p>
+ * The index file starts with a header listing the event files, with the
+ * length and modification time each had, followed by every player ID and
+ * the size of its entries; the entries of each player follow, in player
+ * order. Looking up a player reads the header, then only that player's
+ * entries.
+ * </p>
+ */
+public final class PlayerIndex {
+
+    /** "JOBI", followed by the format version. */
+    private static final int MAGIC = 0x4A4F4249;
+
+    /** Incremented whenever the format changes. */
+    static final int VERSION = 1;
+
+    /** The player had a place in the batting order. */
+    public static final int ROLE_BATTING = 1;
+
+    /** The player pitched. */
+    public static final int ROLE_PITCHING = 2;
+
+    /** One game in which a player appeared. */
+    public static final class Appearance extends GameLocation {
+
+        private final String teamId;
+        private final int roles;
+
+        Appearance(File file, long offset, int firstLine, String gameId, String teamId,
+                int roles) {
+            super(file, offset, firstLine, gameId);
+            this.teamId = teamId;
+            this.roles = roles;
+        }
+
+        /** @return the ID of the team the player appeared for. */
+        public String getTeamId() {
+            return teamId;
+        }
+
+        /** @return <code>true</code> if the player had a place in the batting order. */
+        public boolean isBatting() {
+            return (roles & ROLE_BATTING) != 0;
+        }
+
+        /** @return <code>true</code> if the player pitched. */
+        public boolean isPitching() {
+            return (roles & ROLE_PITCHING) != 0;
+        }
+    }
+
+    private final File indexFile;
+    private IndexedFiles files;
+
+    /** By player ID: the offset of the player's entries, and their length. */
+    private final HashMap<String, long[]> players;
+
+    private PlayerIndex(File indexFile) {
+        this.indexFile = indexFile;
+        this.players = new HashMap<>();
+    }
+
+    /**
+     * Index every game of a set of event files, and write the index.
+     *
+     * @param indexFile The index file to write.
+     * @param eventFiles The event files.
+     * @return The number of games indexed.
+     * @throws IOException if an event file cannot be read, or the index
+     *         cannot be written.
+     */
+    public static int build(File indexFile, List<File> eventFiles) throws IOException {
+        File directory = indexFile.getAbsoluteFile().getParentFile();
+        TreeMap<String, GameCodec.Encoder> entries = new TreeMap<>();
+        Map<String, Integer> entryCounts = new HashMap<>();
+        Map<String, long[]> lastEntry = new HashMap<>();
+        GameCodec.Encoder header = new GameCodec.Encoder();
+        int games = 0;
+
+        IndexedFiles.of(eventFiles).write(header, directory);
+        for (int i = 0; i < eventFiles.size(); i++) {
+            for (GameBlock block : GameBlock.readBlocksWithOffsets(eventFiles.get(i))) {
+                games++;
+                for (Map.Entry<String, String[]> player : findPlayers(block).entrySet()) {
+                    String id = player.getKey();
+                    GameCodec.Encoder out = entries.get(id);
+                    if (out == null) {
+                        out = new GameCodec.Encoder();
+                        entries.put(id, out);
+                        entryCounts.put(id, 0);
+                        lastEntry.put(id, new long[] {0, 0});
+                    }
+
+                    /* Entries are in file order, so files and offsets are delta-coded. */
+                    long[] last = lastEntry.get(id);
+                    if (last[0] != i) {
+                        last[1] = 0;
+                    }
+                    out.writeInt((int) (i - last[0]));
+                    out.writeLong(block.getOffset() - last[1]);
+                    out.writeInt(block.getFirstLine());
+                    out.writeString(block.getGameId());
+                    out.writeString(player.getValue()[0]);
+                    out.writeInt(Integer.parseInt(player.getValue()[1]));
+                    last[0] = i;
+                    last[1] = block.getOffset();
+                    entryCounts.put(id, entryCounts.get(id) + 1);
+                }
+            }
+        }
+
+        List<byte[]> blobs = new ArrayList<>(entries.size());
+        header.writeInt(entries.size());
+        for (Map.Entry<String, GameCodec.Encoder> player : entries.entrySet()) {
+            GameCodec.Encoder blob = new GameCodec.Encoder();
+            blob.writeInt(entryCounts.get(player.getKey()));
+            byte[] bytes = concat(blob.toByteArray(), player.getValue().toByteArray());
+            header.writeString(player.getKey());
+            header.writeInt(bytes.length);
+            blobs.add(bytes);
+        }
+
+        byte[] headerBytes = header.toByteArray();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new FileOutputStream(indexFile)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(headerBytes.length);
+            out.write(headerBytes);
+            for (byte[] blob : blobs) {
+                out.write(blob);
+            }
+        }
+        return games;
+    }
+
+    private static byte[] concat(byte[] first, byte[] second) {
+        byte[] bytes = new byte[first.length + second.length];
+        System.arraycopy(first, 0, bytes, 0, first.length);
+        System.arraycopy(second, 0, bytes, first.length, second.length);
+        return bytes;
+    }
+
+    /**
+     * Find the players named by a game's <code>start</code> and
+     * <code>sub</code> lines.
+     *
+     * @return For each player ID, in order of appearance, the player's team
+     *         ID and roles.
+     */
+    static Map<String, String[]> findPlayers(GameBlock block) {
+        Map<String, String[]> players = new LinkedHashMap<>();
+        String[] teams = {"", ""};
+        for (String line : block.getLines()) {
+            if (line.startsWith("info,visteam,")) {
+                teams[0] = line.substring(13).trim();
+            } else if (line.startsWith("info,hometeam,")) {
+                teams[1] = line.substring(14).trim();
+            } else if (line.startsWith("start,") || line.startsWith("sub,")) {
+                String[] fields = splitFields(line);
+                if (fields.length < 6) {
+                    continue;
+                }
+                int side = "1".equals(fields[3].trim()) ? 1 : 0;
+                int roles = 0;
+                if (!"0".equals(fields[4].trim())) {
+                    roles |= ROLE_BATTING;
+                }
+                if ("1".equals(fields[5].trim())) {
+                    roles |= ROLE_PITCHING;
+                }
+                String[] player = players.get(fields[1]);
+                if (player == null) {
+                    players.put(fields[1], new String[] {teams[side],
+                        Integer.toString(roles)});
+                } else {
+                    player[1] = Integer.toString(Integer.parseInt(player[1]) | roles);
+                }
+            }
+        }
+        return players;
+    }
+
+    /* Split on commas outside quotes, which may surround player names. */
+    private static String[] splitFields(String line) {
+        List<String> fields = new ArrayList<>(6);
+        boolean quoted = false;
+        int start = 0;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                quoted = !quoted;
+            } else if (c == ',' && !quoted) {
+                fields.add(line.substring(start, i));
+                start = i + 1;
+            }
+        }
+        fields.add(line.substring(start));
+        return fields.toArray(new String[fields.size()]);
+    }
+
+    /**
+     * Open an index written by <code>build()</code>, reading its header.
+     *
+     * @param indexFile The index file.
+     * @return The index.
+     * @throws IOException if the file cannot be read, or is not a player
+     *         index of this version.
+     */
+    public static PlayerIndex open(File indexFile) throws IOException {
+        PlayerIndex index = new PlayerIndex(indexFile);
+        File directory = indexFile.getAbsoluteFile().getParentFile();
+        byte[] headerBytes;
+        try (DataInputStream in = new DataInputStream(new FileInputStream(indexFile))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("File " + indexFile.getPath() + " is not a player " +
+                    "index of version " + VERSION + ".");
+            }
+            int length = in.readInt();
+            if (length < 0 || length > indexFile.length()) {
+                throw new IOException("Player index " + indexFile.getPath() +
+                    " is corrupt.");
+            }
+            headerBytes = new byte[length];
+            in.readFully(headerBytes);
+        }
+
+        try {
+            GameCodec.Decoder header = new GameCodec.Decoder(headerBytes);
+            index.files = IndexedFiles.read(header, directory);
+            int count = header.readInt();
+            long offset = 12 + headerBytes.length;
+            for (int i = 0; i < count; i++) {
+                String id = header.readString();
+                int length = header.readInt();
+                index.players.put(id, new long[] {offset, length});
+                offset += length;
+            }
+        } catch (IndexOutOfBoundsException | IllegalArgumentException exc) {
+            throw new IOException("Player index " + indexFile.getPath() + " is corrupt.", exc);
+        }
+        return index;
+    }
+
+    /**
+     * Check that no indexed event file has changed since the index was built.
+     *
+     * @throws IOException naming the first file that has changed.
+     */
+    public void checkCurrent() throws IOException {
+        files.checkCurrent();
+    }
+
+    /** @return the indexed event files, in order. */
+    public List<File> getFiles() {
+        return files.getFiles();
+    }
+
+    /** @return the number of players indexed. */
+    public int getPlayerCount() {
+        return players.size();
+    }
+
+    /**
+     * Find the games in which a player appeared, reading only that player's
+     * entries.
+     *
+     * @param playerId A Retrosheet player ID, such as <code>troum001</code>.
+     * @return The player's games, in the order of the indexed files and of
+     *         the games within them; empty if the player is not indexed.
+     * @throws IOException if the index cannot be read.
+     */
+    public List<Appearance> find(String playerId) throws IOException {
+        long[] location = players.get(playerId);
+        if (location == null) {
+            return Collections.emptyList();
+        }
+        byte[] bytes = new byte[(int) location[1]];
+        try (RandomAccessFile in = new RandomAccessFile(indexFile, "r")) {
+            in.seek(location[0]);
+            in.readFully(bytes);
+        }
+
+        try {
+            GameCodec.Decoder in = new GameCodec.Decoder(bytes);
+            int count = in.readInt();
+            List<Appearance> found = new ArrayList<>(Math.min(count, bytes.length));
+            int file = 0;
+            long offset = 0;
+            for (int i = 0; i < count; i++) {
+                int fileDelta = in.readInt();
+                if (fileDelta != 0) {
+                    file += fileDelta;
+                    offset = 0;
+                }
+                offset += in.readLong();
+                found.add(new Appearance(files.get(file), offset, in.readInt(),
+                    in.readString(), in.readString(), in.readInt()));
+            }
+            return found;
+        } catch (IndexOutOfBoundsException | IllegalArgumentException exc) {
+            throw new IOException("Player index " + indexFile.getPath() + " is corrupt.", exc);
+        }
+    }
+}
@@ -0,0 +1,320 @@
+package com.github.alexthesuperb.jopenboxscore;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * <p>
+ * Process-wide counters of how far a run has come and where its time goes,
+ * kept by <code>RetrosheetEveReader</code> and by the outputs that render
+ * boxscores and summaries. Each event file also gets its own
+ * <code>EventFileMetrics</code>, kept while it is read and for the last
+ * <code>MAX_COMPLETED_FILES</code> files completed; older files are dropped,
+ * and unregistered, leaving only their part of the totals, so that a run over
+ * thousands of files does not leave thousands of MBeans behind.
+ * </p><p>
+ * The counters are always kept, since updating them costs a few nanoseconds
+ * per game. Publishing them to JMX, so that they can be watched with JConsole,
+ * VisualVM or any other JMX client while a job runs, requires a call to
+ * <code>register()</code>, because starting the platform MBean server takes a
+ * noticeable part of a short run. The totals are registered as
+ * <code>com.github.alexthesuperb.jopenboxscore:type=Processing</code> and each
+ * file as <code>...:type=EventFile,name="file"</code>.
+ * </p>
+ */
+public final class ProcessingMetrics implements ProcessingMetricsMBean {
+
+    /** The JMX domain of every MBean registered by this library. */
+    public static final String DOMAIN = "com.github.alexthesuperb.jopenboxscore";
+
+    /** The number of completed files whose own metrics are kept. */
+    public static final int MAX_COMPLETED_FILES = 100;
+
+    private final LongAdder filesRead = new LongAdder();
+    private final LongAdder gamesParsed = new LongAdder();
+    private final LongAdder gamesFailed = new LongAdder();
+    private final LongAdder linesRead = new LongAdder();
+    private final LongAdder bytesRead = new LongAdder();
+    private final LongAdder parseNanos = new LongAdder();
+    private final LongAdder finalizeNanos = new LongAdder();
+    private final LongAdder outputNanos = new LongAdder();
+    private final LongAdder gamesRendered = new LongAdder();
+    private final LongAdder renderNanos = new LongAdder();
+    private final LongAdder summaryNanos = new LongAdder();
+    private final AtomicInteger queueDepth = new AtomicInteger();
+    private volatile long startNanos = System.nanoTime();
+
+    /** Metrics of the files being read and the last files completed, by file name. */
+    private final ConcurrentHashMap<String, EventFileMetrics> files =
+        new ConcurrentHashMap<>();
+
+    /** The files completed, oldest first. Guarded by this object. */
+    private final ArrayDeque<EventFileMetrics> completed = new ArrayDeque<>();
+
+    /** The server the MBeans are registered with, or null. */
+    private volatile MBeanServer server;
+
+    private ProcessingMetrics() {
+    }
+
+    /* Initialized on first use. */
+    private static class InstanceHolder {
+        private static final ProcessingMetrics INSTANCE = new ProcessingMetrics();
+    }
+
+    public static ProcessingMetrics getInstance() {
+        return InstanceHolder.INSTANCE;
+    }
+
+    /**
+     * Register these counters, and those of every file read from now on, with
+     * the platform MBean server. Calling this more than once has no effect.
+     *
+     * @throws JMException if the MBeans cannot be registered.
+     */
+    public synchronized void register() throws JMException {
+        if (server != null) {
+            return;
+        }
+        MBeanServer platform = ManagementFactory.getPlatformMBeanServer();
+        platform.registerMBean(this, new ObjectName(DOMAIN + ":type=Processing"));
+        server = platform;
+        for (EventFileMetrics file : files.values()) {
+            registerFile(file);
+        }
+    }
+
+    /** @return <code>true</code> if these counters are published to JMX. */
+    public boolean isRegistered() {
+        return server != null;
+    }
+
+    /** Start counting the reading of a file, replacing its earlier metrics. */
+    EventFileMetrics startFile(String fileName, long fileLength) {
+        EventFileMetrics file = new EventFileMetrics(this, fileName, fileLength);
+        EventFileMetrics previous = files.put(fileName, file);
+        if (server != null) {
+            synchronized (this) {
+                if (previous != null) {
+                    unregisterFile(previous);
+                }
+                registerFile(file);
+            }
+        }
+        filesRead.increment();
+        return file;
+    }
+
+    /** Keep a completed file's metrics, dropping the oldest beyond the bound. */
+    synchronized void fileCompleted(EventFileMetrics file) {
+        completed.add(file);
+        while (completed.size() > MAX_COMPLETED_FILES) {
+            EventFileMetrics eldest = completed.poll();
+            /* A file read again has replaced its metrics, and its MBean, already. */
+            if (files.remove(eldest.getFileName(), eldest) && server != null) {
+                unregisterFile(eldest);
+            }
+        }
+    }
+
+    /** @return the metrics kept for a file, or <code>null</code> if none are. */
+    EventFileMetrics getFile(String fileName) {
+        return files.get(fileName);
+    }
+
+    private void registerFile(EventFileMetrics file) {
+        try {
+            server.registerMBean(file, file.getObjectName());
+        } catch (JMException e) {
+            /* A file that cannot be published is still counted in the totals. */
+        }
+    }
+
+    private void unregisterFile(EventFileMetrics file) {
+        try {
+            if (server.isRegistered(file.getObjectName())) {
+                server.unregisterMBean(file.getObjectName());
+            }
+        } catch (JMException e) {
+            /* Already gone. */
+        }
+    }
+
+    void addProgress(long lines, long bytes, long failed) {
+        linesRead.add(lines);
+        bytesRead.add(bytes);
+        gamesFailed.add(failed);
+    }
+
+    void addGameParsed() {
+        gamesParsed.increment();
+    }
+
+    void addParseNanos(long nanos) {
+        parseNanos.add(nanos);
+    }
+
+    void addFinalizeNanos(long nanos) {
+        finalizeNanos.add(nanos);
+    }
+
+    void addOutputNanos(long nanos) {
+        outputNanos.add(nanos);
+    }
+
+    /** Count a boxscore rendered in <code>nanos</code> nanoseconds. */
+    void addGameRendered(long nanos) {
+        gamesRendered.increment();
+        renderNanos.add(nanos);
+    }
+
+    void addSummaryNanos(long nanos) {
+        summaryNanos.add(nanos);
+    }
+
+    /** Count a boxscore queued for a writer thread. */
+    void queued() {
+        queueDepth.incrementAndGet();
+    }
+
+    /** Count a queued boxscore taken up by its writer thread. */
+    void dequeued() {
+        queueDepth.decrementAndGet();
+    }
+
+    @Override
+    public long getFilesRead() {
+        return filesRead.sum();
+    }
+
+    @Override
+    public String getCurrentFile() {
+        for (EventFileMetrics file : files.values()) {
+            if (!file.isComplete()) {
+                return file.getFileName();
+            }
+        }
+        return "";
+    }
+
+    @Override
+    public long getGamesParsed() {
+        return gamesParsed.sum();
+    }
+
+    @Override
+    public long getGamesFailed() {
+        return gamesFailed.sum();
+    }
+
+    @Override
+    public long getLinesRead() {
+        return linesRead.sum();
+    }
+
+    @Override
+    public long getBytesRead() {
+        return bytesRead.sum();
+    }
+
+    @Override
+    public double getLinesPerSecond() {
+        return perSecond(getLinesRead(), getParseNanos());
+    }
+
+    /* Finished files, plus the files still being read. */
+    private long getParseNanos() {
+        long nanos = parseNanos.sum();
+        for (EventFileMetrics file : files.values()) {
+            if (!file.isComplete()) {
+                nanos += file.getParseNanos();
+            }
+        }
+        return nanos;
+    }
+
+    @Override
+    public long getParseMillis() {
+        return getParseNanos() / 1000000;
+    }
+
+    @Override
+    public long getFinalizeMillis() {
+        return finalizeNanos.sum() / 1000000;
+    }
+
+    @Override
+    public long getOutputMillis() {
+        return outputNanos.sum() / 1000000;
+    }
+
+    @Override
+    public long getGamesRendered() {
+        return gamesRendered.sum();
+    }
+
+    @Override
+    public long getRenderMillis() {
+        return renderNanos.sum() / 1000000;
+    }
+
+    @Override
+    public double getRenderedGamesPerSecond() {
+        return perSecond(getGamesRendered(), renderNanos.sum());
+    }
+
+    @Override
+    public long getSummaryMillis() {
+        return summaryNanos.sum() / 1000000;
+    }
+
+    @Override
+    public int getQueueDepth() {
+        return queueDepth.get();
+    }
+
+    @Override
+    public long getElapsedMillis() {
+        return (System.nanoTime() - startNanos) / 1000000;
+    }
+
+    @Override
+    public synchronized void reset() {
+        filesRead.reset();
+        gamesParsed.reset();
+        gamesFailed.reset();
+        linesRead.reset();
+        bytesRead.reset();
+        parseNanos.reset();
+        finalizeNanos.reset();
+        outputNanos.reset();
+        gamesRendered.reset();
+        renderNanos.reset();
+        summaryNanos.reset();
+        startNanos = System.nanoTime();
+
+        /* Files still being read keep their metrics; the queue is still real. */
+        completed.clear();
+        Iterator<EventFileMetrics> it = files.values().iterator();
+        while (it.hasNext()) {
+            EventFileMetrics file = it.next();
+            if (file.isComplete()) {
+                it.remove();
+                if (server != null) {
+                    unregisterFile(file);
+                }
+            }
+        }
+    }
+
+    static double perSecond(long count, long nanos) {
+        return (nanos <= 0) ? 0 : count * 1e9 / nanos;
+    }
+}
@@ -0,0 +1,60 @@
+package com.github.alexthesuperb.jopenboxscore;
+
+/**
+ * The attributes and operations of <code>ProcessingMetrics</code>, as seen
+ * by JMX clients such as JConsole or VisualVM. Times are cumulative, in
+ * milliseconds, and rates are per second of the corresponding phase.
+ */
+public interface ProcessingMetricsMBean {
+
+    /** @return the number of event files whose reading has started. */
+    long getFilesRead();
+
+    /** @return the name of the event file being read, or an empty string. */
+    String getCurrentFile();
+
+    /** @return the number of games read successfully. */
+    long getGamesParsed();
+
+    /** @return the number of games excluded because of errors. */
+    long getGamesFailed();
+
+    /** @return the number of event file lines read. */
+    long getLinesRead();
+
+    /** @return the number of event file bytes read. */
+    long getBytesRead();
+
+    /** @return lines read per second spent reading and parsing. */
+    double getLinesPerSecond();
+
+    /** @return time spent reading and parsing event files, outputs excluded. */
+    long getParseMillis();
+
+    /** @return time spent finalizing games, which is part of parsing. */
+    long getFinalizeMillis();
+
+    /** @return time readers spent handing finished games to their outputs. */
+    long getOutputMillis();
+
+    /** @return the number of boxscores rendered. */
+    long getGamesRendered();
+
+    /** @return time spent rendering boxscores, on any thread. */
+    long getRenderMillis();
+
+    /** @return boxscores rendered per second spent rendering. */
+    double getRenderedGamesPerSecond();
+
+    /** @return time spent writing statistical summaries. */
+    long getSummaryMillis();
+
+    /** @return the number of boxscores queued for a writer thread but not yet written. */
+    int getQueueDepth();
+
+    /** @return time since the counters were created or last reset. */
+    long getElapsedMillis();
+
+    /** Set every counter back to zero and forget finished files. */
+    void reset();
+}
@@ -0,0 +1,183 @@
+package com.github.alexthesuperb.jopenboxscore;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>
+ * Answers questions about the games of a <code>SeasonIndex</code>, typed
+ * one per line, for as long as the user likes. Every game was parsed and
+ * finalized once, when the index was built; answers are rendered from the
+ * index, and kept so that a question asked again is answered at once.
+ * Commands, whose names are not case-sensitive, are:
+ * </p>
+ * <ul>
+ * <li><code>BOX &lt;game IDs...&gt;</code> - boxscores of the given games.</li>
+ * <li><code>MONTH &lt;team&gt; &lt;YYYYMM | MM&gt;</code> - a team's record
+ * and statistics for a month of one season, or of every season.</li>
+ * <li><code>VS &lt;team&gt; &lt;team&gt;</code> - the results of every game
+ * between two teams, and each team's record and statistics in them.</li>
+ * <li><code>TEAMS</code>, <code>HELP</code> and <code>QUIT</code>.</li>
+ * </ul>
+ */
+public class QueryConsole {
+
+    /** The most answers kept; the least recently asked are dropped first. */
+    static final int MAX_ANSWERS = 256;
+
+    private static final String HELP =
+        "BOX <game IDs...>          Boxscores of the given games.\n" +
+        "MONTH <team> <YYYYMM|MM>   A team's record and statistics for a month.\n" +
+        "VS <team> <team>           Every game between two teams, and their totals.\n" +
+        "TEAMS                      The teams and dates loaded.\n" +
+        "QUIT                       Leave.\n";
+
+    private final SeasonIndex index;
+
+    private final Map<String, String> answers =
+        new LinkedHashMap<String, String>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > MAX_ANSWERS;
+            }
+        };
+
+    /** @param index The games to answer questions about. */
+    public QueryConsole(SeasonIndex index) {
+        this.index = index;
+    }
+
+    /**
+     * Read commands from <code>in</code> and write their answers to
+     * <code>out</code>, each followed by the time taken, until the input
+     * ends or the user types <code>QUIT</code>.
+     *
+     * @throws IOException if <code>in</code> cannot be read.
+     */
+    public void run(BufferedReader in, PrintStream out) throws IOException {
+        out.println("[" + index.getGameCount() + " games loaded. Type HELP for " +
+            "commands.]");
+        String line;
+        out.print("> ");
+        out.flush();
+        while ((line = in.readLine()) != null) {
+            if (line.trim().equalsIgnoreCase("QUIT")) {
+                break;
+            }
+            if (!line.trim().isEmpty()) {
+                long start = System.nanoTime();
+                try {
+                    out.print(execute(line));
+                    out.println("[" + (System.nanoTime() - start) / 1000000 + " ms]");
+                } catch (IllegalArgumentException e) {
+                    out.println("[" + e.getMessage() + "]");
+                }
+            }
+            out.print("> ");
+            out.flush();
+        }
+        out.println();
+    }
+
+    /**
+     * Answer one command.
+     *
+     * @param line The command and its arguments, separated by white space.
+     * @return The answer.
+     * @throws IllegalArgumentException if the command is not understood, or
+     *         names a game that is not loaded.
+     */
+    public String execute(String line) throws IllegalArgumentException {
+        String[] args = line.trim().toUpperCase().split("\\s+");
+        String key = String.join(" ", args);
+        String answer = answers.get(key);
+        if (answer == null) {
+            answer = answer(args);
+            answers.put(key, answer);
+        }
+        return answer;
+    }
+
+    private String answer(String[] args) throws IllegalArgumentException {
+        String command = args[0];
+        if (command.equals("HELP")) {
+            return HELP;
+        } else if (command.equals("TEAMS")) {
+            String[] dates = index.getDateRange();
+            return index.getTeamIds() + "\n" + ((dates == null) ? "No games" :
+                "Games from " + dates[0] + " to " + dates[1]) + "\n";
+        } else if (command.equals("BOX")) {
+            CommandSupport.requireArgs(args, 2, "BOX <game IDs...>");
+            List<BoxscoreGameAccount> games = new ArrayList<>();
+            for (int i = 1; i < args.length; i++) {
+                BoxscoreGameAccount game = index.getGame(args[i]);
+                if (game == null) {
+                    throw new IllegalArgumentException("Game " + args[i] +
+                        " is not loaded.");
+                }
+                games.add(game);
+            }
+            return CommandSupport.renderBoxscores(games);
+        } else if (command.equals("MONTH")) {
+            CommandSupport.requireArgs(args, 3, "MONTH <team> <YYYYMM|MM>");
+            return renderSummary(getMonth(args[1], args[2]), args[1]);
+        } else if (command.equals("VS")) {
+            CommandSupport.requireArgs(args, 3, "VS <team> <team>");
+            List<BoxscoreGameAccount> games = index.getHeadToHead(args[1], args[2]);
+            StringBuilder sb = new StringBuilder();
+            for (BoxscoreGameAccount game : games) {
+                sb.append(String.format("%s  %s %2d at %s %2d%s\n", game.getUsaDateString(),
+                    game.getVisitingTeamId(), game.getVisitorScore(), game.getHomeTeamId(),
+                    game.getHomeScore(), (game.getGameNumber() > 0) ?
+                        "  (game " + game.getGameNumber() + ")" : ""));
+            }
+            return sb.append('\n').append(renderSummary(games, args[1], args[2])).toString();
+        }
+        throw new IllegalArgumentException("Unknown command " + command +
+            ". Type HELP for commands.");
+    }
+
+    private List<BoxscoreGameAccount> getMonth(String teamId, String month)
+            throws IllegalArgumentException {
+        if (month.matches("\\d{6}")) {
+            return index.getGames(teamId, month + "01", month + "31");
+        } else if (!month.matches("\\d{2}")) {
+            throw new IllegalArgumentException("Months must be of the form YYYYMM or MM.");
+        }
+        List<BoxscoreGameAccount> games = new ArrayList<>();
+        for (BoxscoreGameAccount game : index.getGames(teamId, "00000000", "99999999")) {
+            if (SeasonIndex.getDate(game).substring(4, 6).equals(month)) {
+                games.add(game);
+            }
+        }
+        return games;
+    }
+
+    /* Only the teams asked about are summarized, not their opponents. */
+    private static String renderSummary(List<BoxscoreGameAccount> games, String... teamIds) {
+        if (games.isEmpty()) {
+            return "No games found.\n";
+        }
+        StringWriter text = new StringWriter();
+        NewspaperSummary summary = new NewspaperSummary(new BufferedWriter(text));
+        summary.rebuildTeams(new HashSet<>(Arrays.asList(teamIds)), games);
+        try {
+            summary.write();
+        } catch (IOException e) {
+            /* A StringWriter does not throw. */
+            throw new IllegalStateException(e);
+        }
+        return text.toString();
+    }
+}
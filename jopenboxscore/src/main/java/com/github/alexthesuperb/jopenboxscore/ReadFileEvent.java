@@ -0,0 +1,33 @@
+package com.github.alexthesuperb.jopenboxscore;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** A flight recorder event spanning one read of an event file. */
+@Name(FlightEvents.PREFIX + "ReadFile")
+@Label("Read Event File")
+@Category(FlightEvents.CATEGORY)
+@Description("One call to readAll(), readGamesByID() or readGamesWithinRange()")
+@StackTrace(false)
+final class ReadFileEvent extends jdk.jfr.Event {
+
+    @Label("File")
+    String file;
+
+    @Label("Games Parsed")
+    long gamesParsed;
+
+    @Label("Games Failed")
+    long gamesFailed;
+
+    @Label("Lines Read")
+    long linesRead;
+
+    @Label("Bytes Read")
+    @DataAmount
+    long bytesRead;
+}
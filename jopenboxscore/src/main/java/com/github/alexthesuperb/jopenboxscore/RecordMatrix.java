@@ -236,6 +236,29 @@ public class RecordMatrix {
         return returnArr;
     }
 
+    /**
+     * Add the games of a record, as returned by <code>getRecord()</code>, to
+     * this team's record against <code>opponentId</code>. This restores
+     * records saved by <code>SummaryCodec</code>.
+     */
+    void addRecord(String opponentId, int[] record) {
+        RecordRow row = recordRows.get(opponentId);
+        if (row == null) {
+            row = new RecordRow();
+            recordRows.put(opponentId, row);
+        }
+        row.homeWins += record[INDEX_HOME_WINS];
+        row.homeLosses += record[INDEX_HOME_LOSSES];
+        row.homeTies += record[INDEX_HOME_TIES];
+        row.homeRunsScored += record[INDEX_HOME_RS];
+        row.homeRunsAllowed += record[INDEX_HOME_RA];
+        row.roadWins += record[INDEX_ROAD_WINS];
+        row.roadLosses += record[INDEX_ROAD_LOSSES];
+        row.roadTies += record[INDEX_ROAD_TIES];
+        row.roadRunsScored += record[INDEX_ROAD_RS];
+        row.roadRunsAllowed += record[INDEX_ROAD_RA];
+    }
+
     public int[] getTotals() {
         int returnArr[] = new int[18];
 
@@ -0,0 +1,23 @@
+package com.github.alexthesuperb.jopenboxscore;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** A flight recorder event spanning <code>BaseballBoxscore.write()</code>. */
+@Name(FlightEvents.PREFIX + "RenderBoxscore")
+@Label("Render Boxscore")
+@Category(FlightEvents.CATEGORY)
+@StackTrace(false)
+final class RenderBoxscoreEvent extends jdk.jfr.Event {
+
+    @Label("File")
+    String file;
+
+    @Label("Game ID")
+    String gameId;
+
+    @Label("Boxscore Type")
+    String type;
+}
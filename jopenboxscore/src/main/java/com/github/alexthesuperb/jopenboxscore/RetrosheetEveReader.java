@@ -1,15 +1,27 @@
 package com.github.alexthesuperb.jopenboxscore;
 
+import java.io.BufferedInputStream;
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileNotFoundException;
-import java.io.FileReader;
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
- * Read Retrosheet Event (.EVE, .EVA, and .EVN) files.
+ * Read Retrosheet Event (.EVE, .EVA, and .EVN) files, or files compiled from
+ * them by <code>CompiledEventFile</code>, either of which may be in a zip
+ * archive or gzipped, as <code>SeasonArchive</code> names them.
  */
 public class RetrosheetEveReader {
 
@@ -30,12 +42,55 @@ public class RetrosheetEveReader {
 
     private List<String> errorMessages;
 
+    /** If non-null, finalized games are passed here instead of being kept. */
+    private GameSink sink;
+
+    /** If non-null, unchanged games are loaded from here instead of being parsed. */
+    private GameCache cache;
+
+    /** The TEAM and roster files behind the cache keys of this file's games, by name. */
+    private final Map<String, RosterCache.RosterFile> cacheKeyFiles = new HashMap<>();
+
+    /** If non-null, only the games of these teams are read. */
+    private Set<String> teamFilter;
+
+    /** The IDs of the games found by readGamesByID(). */
+    private final List<String> foundGameIDs = new ArrayList<>();
+
+    /** If non-null, readGamesByID() skips the file unless a game requested may be in it. */
+    private GameIdFilter idFilter;
+
     /** 
      * A directory containing TEAM and roster files. This object is
      * passed into each <code>BoxscoreGameAccount</code> instance.
      */
     private File teamRosDir;
 
+    /** Counts the bytes read from the file. */
+    private CountingInputStream byteCounter;
+
+    /** Progress through the file, as published to <code>ProcessingMetrics</code>. */
+    private EventFileMetrics fileMetrics;
+
+    /** The blocks of a compiled event file, or <code>null</code> if the file is text. */
+    private List<GameBlock> compiledBlocks;
+
+    /** The number of games passed to the sink or kept. */
+    private int gameCount;
+
+    /** The flight recorder event of the game being read, its first line and start time. */
+    private Object gameEvent;
+    private int gameFirstLine;
+    private long gameStartNanos;
+
+    /**
+     * @param eveFileName The event file to read, which may be an entry of a
+     *        zip archive or gzipped.
+     * @param year Look for team and roster files containing this year, or
+     *        <code>null</code> to use the year in each game's ID.
+     * @param teamRosDir A directory or zip archive containing TEAM and roster files.
+     * @throws IOException if the event file does not exist, or cannot be opened.
+     */
     public RetrosheetEveReader(String eveFileName, String year, File teamRosDir)
             throws IOException {
         gameAccounts = new LinkedList<BoxscoreGameAccount>();
@@ -49,14 +104,142 @@ public class RetrosheetEveReader {
          * Check if file with name fileName exists. If it does not, throw
          * a new FileNotFoundException. 
          */
-        File tempFile = new File(eveFileName);
-        if (tempFile.exists()) {
-            pbpReader = new BufferedReader(new FileReader(eveFileName));
+        if (SeasonArchive.exists(eveFileName)) {
+            /* 
+             * Decoded with the default charset, as FileReader does. A file in
+             * an archive is decompressed on another thread as it is read.
+             */
+            InputStream in = new BufferedInputStream(SeasonArchive.open(eveFileName));
+            boolean compiled = CompiledEventFile.isCompiled(in);
+            byteCounter = new CountingInputStream(in);
+            pbpReader = new BufferedReader(new InputStreamReader(byteCounter));
+            fileMetrics = ProcessingMetrics.getInstance().startFile(eveFileName,
+                SeasonArchive.getLength(eveFileName));
+
+            /* Games read from a compiled file name the event file it was compiled from. */
+            if (compiled) {
+                CompiledEventFile file = CompiledEventFile.read(byteCounter, eveFileName);
+                compiledBlocks = file.getBlocks();
+                this.fileName = file.getSourceName();
+            }
         } else {
             throw new FileNotFoundException("Event file " + eveFileName + " not found.");
         }
     }
 
+    /**
+     * Stream finalized games to <code>sink</code> as soon as they have been
+     * read, instead of keeping them in the list returned by
+     * <code>getGameAccounts()</code>. The sink is not closed by this reader.
+     *
+     * @param sink The destination of every game read, or <code>null</code>
+     *        to keep games in memory.
+     */
+    public void setGameSink(GameSink sink) {
+        this.sink = sink;
+    }
+
+    /**
+     * Load games from <code>cache</code> when their lines, and the TEAM and
+     * roster files they are read with, have not changed since they were
+     * stored, and store every other game read successfully.
+     *
+     * @param cache A game cache, or <code>null</code> to parse every game.
+     */
+    public void setGameCache(GameCache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * Read only the games in which one of the given teams plays. Every other
+     * game is skipped once its info header has been read, without parsing
+     * its plays or looking up its rosters.
+     *
+     * @param teamIds The IDs of the teams, such as <code>NYA</code>, or
+     *        <code>null</code> to read the games of every team.
+     */
+    public void setTeamFilter(Collection<String> teamIds) {
+        this.teamFilter = (teamIds == null) ? null : new HashSet<>(teamIds);
+    }
+
+    /**
+     * Skip the file in <code>readGamesByID()</code> when the filter of its
+     * game IDs shows that it cannot hold any of the games requested.
+     *
+     * @param idFilter The filter of this file's game IDs, or <code>null</code>
+     *        to read the file whatever the IDs requested.
+     */
+    public void setGameIdFilter(GameIdFilter idFilter) {
+        this.idFilter = idFilter;
+    }
+
+    /** Pass a finalized game to the sink, or keep it if there is none. */
+    private void addGameAccount(BoxscoreGameAccount game) throws IOException {
+        gameCount++;
+        fileMetrics.gameParsed();
+        if (sink != null) {
+            long start = System.nanoTime();
+            sink.accept(game);
+            fileMetrics.addOutputNanos(System.nanoTime() - start);
+        } else {
+            gameAccounts.add(game);
+        }
+    }
+
+    /** Finalize a game, counting the time spent doing so. */
+    private static void finalizeGame(BoxscoreGameAccount game) {
+        Object event = FlightEvents.beginFinalizeGame();
+        long start = System.nanoTime();
+        game.finalize();
+        ProcessingMetrics.getInstance().addFinalizeNanos(System.nanoTime() - start);
+        FlightEvents.endFinalizeGame(event, game.getEveFileName(), game.getGameID());
+    }
+
+    /* Without a year, each game is read with the rosters of its own season. */
+    private String yearOf(String gameID) {
+        return (year != null || gameID.length() < 7) ? year : gameID.substring(3, 7);
+    }
+
+    /** Start reading the game whose <code>id</code> line was just read. */
+    private BoxscoreGameAccount startGame(String gameID) throws FileNotFoundException,
+            IOException {
+        gameEvent = FlightEvents.beginParseGame();
+        gameFirstLine = lineNum;
+        gameStartNanos = System.nanoTime();
+        return new BoxscoreGameAccount(gameID, yearOf(gameID), fileName, teamRosDir);
+    }
+
+    /** Finalize and keep a game whose last line is <code>lastLine</code>. */
+    private void completeGame(BoxscoreGameAccount game, int lastLine) throws IOException {
+        FlightEvents.endParseGame(gameEvent, fileName, game.getGameID(), gameFirstLine,
+            lastLine, false);
+        finalizeGame(game);
+        game.setLineRange(gameFirstLine, lastLine);
+        GameLatencies.getInstance().recordParse(game, System.nanoTime() - gameStartNanos);
+        addGameAccount(game);
+    }
+
+    /** Exclude a game because the current line could not be read. */
+    private void failGame(BoxscoreGameAccount game, RuntimeException exc) {
+        FlightEvents.endParseGame(gameEvent, fileName, game.getGameID(), gameFirstLine,
+            lineNum, true);
+        errorMessages.add(exc.getMessage());
+    }
+
+    /** Publish the lines and bytes read, and games failed, so far. */
+    private void publishProgress() {
+        fileMetrics.progress(lineNum, byteCounter.getCount(), errorMessages.size());
+    }
+
+    /** Publish the final counts of a read. */
+    private void finishRead(Object fileEvent) {
+        publishProgress();
+        fileMetrics.finish();
+        FlightEvents.endReadFile(fileEvent, fileName, fileMetrics.getGamesParsed(),
+            fileMetrics.getGamesFailed(), fileMetrics.getLinesRead(),
+            fileMetrics.getBytesRead());
+    }
+
     /**
      * @throws FileNotFoundException thrown from <code>BxScrGameAccount</code>
      *         object if a required TEAM roster file cannot be found.
@@ -67,6 +250,26 @@ public class RetrosheetEveReader {
      */
     public void readAll() throws FileNotFoundException, IOException, 
             IllegalArgumentException {
+        Object fileEvent = FlightEvents.beginReadFile();
+        fileMetrics.start();
+        try {
+            readAllGames();
+        } finally {
+            finishRead(fileEvent);
+        }
+    }
+
+    private void readAllGames() throws FileNotFoundException, IOException {
+        if (cache != null || teamFilter != null || compiledBlocks != null) {
+            readBlocks(new GameFilter() {
+                @Override
+                public boolean accept(String gameID, String line) {
+                    return true;
+                }
+
+            }, true);
+            return;
+        }
         String line;
         BoxscoreGameAccount currGame = null;
 
@@ -80,12 +283,11 @@ public class RetrosheetEveReader {
         while ((line = pbpReader.readLine()) != null) {
             lineNum++;
             if (line.startsWith("id,")) {
+                publishProgress();
                 if (currGame != null) {
-                    currGame.finalize();
-                    gameAccounts.add(currGame);
+                    completeGame(currGame, lineNum - 1);
                 }
-                currGame = new BoxscoreGameAccount(line.substring(3), year, fileName, 
-                    teamRosDir);
+                currGame = startGame(line.substring(3));
             }
             if (currGame != null) {
                 /*
@@ -96,11 +298,11 @@ public class RetrosheetEveReader {
                 try {
                     currGame.addLine(line, lineNum);
                 } catch (IndexOutOfBoundsException exc) {
-                    errorMessages.add(exc.getMessage());
+                    failGame(currGame, exc);
                     currGame = null;
                 } catch (NullPointerException exc) {
                     //TEMPORARY FIX BECAUSE 2018SLN.EVN CANNOT BE PROCESSED.
-                    errorMessages.add(exc.getMessage());
+                    failGame(currGame, exc);
                     currGame = null;
                 }
             }
@@ -111,12 +313,246 @@ public class RetrosheetEveReader {
          * add final game account to list.
          */
         if (currGame != null) {
-            currGame.finalize();
-            gameAccounts.add(currGame);
+            completeGame(currGame, lineNum);
+        }
+    }
+
+    /**
+     * Read a single game block, as <code>readAll()</code> would have read it
+     * from its file.
+     * 
+     * @param block The game's lines.
+     * @param year Look for team and roster files containing this year.
+     * @param eveFileName The name of the file containing <code>block</code>.
+     * @param teamRosDir A directory containing TEAM and roster files.
+     * @param errorMessages If the game cannot be read, the reason is added here.
+     * @return The finalized game, or <code>null</code> if it could not be read.
+     * @throws FileNotFoundException thrown from <code>BxScrGameAccount</code>
+     *         object if a required TEAM roster file cannot be found.
+     * @throws IOException thrown from <code>BxScrGameAccount</code> object if
+     *         required data cannot be found in TEAM file or roster file.
+     * @throws IllegalArgumentException if a line read to <code>BxScrGameAccount</code>
+     *         object does not conform to expected structure.
+     */
+    public static BoxscoreGameAccount readGame(GameBlock block, String year, 
+            String eveFileName, File teamRosDir, List<String> errorMessages) 
+            throws FileNotFoundException, IOException, IllegalArgumentException {
+        return readGame(block, year, eveFileName, teamRosDir, errorMessages, true);
+    }
+
+    /*
+     * readAll() has always skipped games that throw a NullPointerException,
+     * while readGamesByID() and readGamesWithinRange() let it propagate.
+     */
+    private static BoxscoreGameAccount readGame(GameBlock block, String year, 
+            String eveFileName, File teamRosDir, List<String> errorMessages,
+            boolean skipNullPointers) 
+            throws FileNotFoundException, IOException, IllegalArgumentException {
+        Object event = FlightEvents.beginParseGame();
+        long start = System.nanoTime();
+        BoxscoreGameAccount game = new BoxscoreGameAccount(block.getGameId(), year, 
+            eveFileName, teamRosDir);
+        int lineNum = block.getFirstLine();
+
+        /* The lines of a compiled file are already split into fields. */
+        String[][] fields = block.getFields();
+        int lineCount = block.getLineCount();
+        for (int i = 0; i < lineCount; i++) {
+            try {
+                if (fields != null) {
+                    game.addFields(fields[i], lineNum++);
+                } else {
+                    game.addLine(block.getLines().get(i), lineNum++);
+                }
+            } catch (IndexOutOfBoundsException exc) {
+                FlightEvents.endParseGame(event, eveFileName, block.getGameId(),
+                    block.getFirstLine(), lineNum - 1, true);
+                errorMessages.add(exc.getMessage());
+                return null;
+            } catch (NullPointerException exc) {
+                FlightEvents.endParseGame(event, eveFileName, block.getGameId(),
+                    block.getFirstLine(), lineNum - 1, true);
+                if (!skipNullPointers) {
+                    throw exc;
+                }
+                errorMessages.add(exc.getMessage());
+                return null;
+            }
+        }
+        FlightEvents.endParseGame(event, eveFileName, block.getGameId(),
+            block.getFirstLine(), lineNum - 1, false);
+        finalizeGame(game);
+        game.setLineRange(block.getFirstLine(), lineNum - 1);
+        GameLatencies.getInstance().recordParse(game, System.nanoTime() - start);
+        return game;
+    }
+
+    /** 
+     * Decides whether a game is read, at each stage of reading it: from its
+     * <code>id</code> line, from its info header, and from all of its lines
+     * before they are parsed. Each stage is only reached by the games that
+     * passed the stages before it.
+     */
+    interface GameFilter {
+
+        boolean accept(String gameID, String line) throws IllegalArgumentException;
+
+        /**
+         * @param info The fields of the game's info lines, by name, such as
+         *        <code>visteam</code> or <code>daynight</code>.
+         */
+        default boolean acceptHeader(Map<String, String> info) {
+            return true;
+        }
+
+        default boolean acceptLines(GameBlock block) {
+            return true;
+        }
+
+        /** @return <code>true</code> if no later game can be accepted. */
+        default boolean isDone() {
+            return false;
+        }
+    }
+
+    /**
+     * Read the games accepted by <code>filter</code> one block at a time,
+     * loading those found in <code>cache</code> and storing the rest. Games
+     * rejected by their info header, or which name neither of the teams of
+     * <code>teamFilter</code>, are skipped as soon as the header ends, at the
+     * first start or play line: the rest of their lines are neither kept nor
+     * parsed.
+     */
+    private void readBlocks(GameFilter filter, boolean skipNullPointers)
+            throws FileNotFoundException, IOException, IllegalArgumentException {
+        if (compiledBlocks != null) {
+            readCompiledBlocks(filter, skipNullPointers);
+            return;
+        }
+        String line;
+        String gameID = null;
+        int firstLine = 0;
+        List<String> lines = null;
+        Map<String, String> info = null;
+
+        while ((line = pbpReader.readLine()) != null) {
+            lineNum++;
+            if (line.startsWith("id,")) {
+                publishProgress();
+                if (lines != null) {
+                    finishBlock(filter, new GameBlock(gameID, firstLine, lines), info,
+                        skipNullPointers);
+                }
+                if (filter.isDone()) {
+                    return;
+                }
+                gameID = line.substring(3);
+                firstLine = lineNum;
+                lines = filter.accept(gameID, line) ? new ArrayList<String>() : null;
+                info = (lines != null) ? new HashMap<String, String>() : null;
+            } else if (info != null) {
+                if (line.startsWith("info,")) {
+                    int comma = line.indexOf(',', 5);
+                    if (comma > 0) {
+                        info.put(line.substring(5, comma), line.substring(comma + 1).trim());
+                    }
+                } else if (line.startsWith("start,") || line.startsWith("play,")) {
+                    if (!acceptHeader(filter, info)) {
+                        lines = null;
+                    }
+                    info = null;
+                }
+            }
+            if (lines != null) {
+                lines.add(line);
+            }
+        }
+        if (lines != null) {
+            finishBlock(filter, new GameBlock(gameID, firstLine, lines), info,
+                skipNullPointers);
+        }
+    }
+
+    /* As readBlocks(), with each block's header already read. */
+    private void readCompiledBlocks(GameFilter filter, boolean skipNullPointers)
+            throws FileNotFoundException, IOException, IllegalArgumentException {
+        for (GameBlock block : compiledBlocks) {
+            lineNum = block.getFirstLine();
+            publishProgress();
+            if (filter.isDone()) {
+                return;
+            }
+            if (filter.accept(block.getGameId(), "id," + block.getGameId())) {
+                finishBlock(filter, block, block.getInfo(), skipNullPointers);
+            }
+            lineNum = block.getFirstLine() + block.getLineCount() - 1;
+        }
+    }
+
+    private boolean acceptHeader(GameFilter filter, Map<String, String> info) {
+        if (teamFilter != null && !teamFilter.contains(info.get("visteam")) &&
+                !teamFilter.contains(info.get("hometeam"))) {
+            return false;
+        }
+        return filter.acceptHeader(info);
+    }
+
+    /* A game without start or play lines is judged by its header at its end. */
+    private void finishBlock(GameFilter filter, GameBlock block, Map<String, String> info,
+            boolean skipNullPointers) throws FileNotFoundException, IOException, 
+            IllegalArgumentException {
+        if ((info == null || acceptHeader(filter, info)) && 
+                filter.acceptLines(block)) {
+            readBlock(block, skipNullPointers);
         }
     }
 
     /**
+     * Read the games accepted by <code>filter</code>, as a
+     * <code>GameQuery</code> plans them.
+     */
+    void readGames(GameFilter filter) throws FileNotFoundException, IOException,
+            IllegalArgumentException {
+        Object fileEvent = FlightEvents.beginReadFile();
+        fileMetrics.start();
+        try {
+            readBlocks(filter, true);
+        } finally {
+            finishRead(fileEvent);
+        }
+    }
+
+    private void readBlock(GameBlock block, boolean skipNullPointers)
+            throws FileNotFoundException, IOException, IllegalArgumentException {
+        String key = null;
+        BoxscoreGameAccount game = null;
+        if (cache != null) {
+            key = cache.key(block, yearOf(block.getGameId()), teamRosDir, cacheKeyFiles);
+            game = cache.get(key, yearOf(block.getGameId()), fileName, teamRosDir);
+        }
+        if (game != null) {
+            game.setLineRange(block.getFirstLine(),
+                block.getFirstLine() + block.getLineCount() - 1);
+        } else {
+            game = readGame(block, yearOf(block.getGameId()), fileName, teamRosDir,
+                errorMessages, skipNullPointers);
+            if (game != null && cache != null) {
+                cache.put(key, game);
+            }
+        }
+        if (game != null) {
+            addGameAccount(game);
+        }
+    }
+
+    /**
+     * Read the games with the given IDs. <code>gameIDs</code> is not
+     * changed; the IDs found in this file are reported by
+     * <code>getFoundGameIDs()</code>. Each ID is read at most once, and
+     * reading stops as soon as every ID that may be in this file has been
+     * found.
+     *
+     * @param gameIDs The IDs of the games to read.
      * @throws FileNotFoundException thrown from <code>BxScrGameAccount</code>
      *         object if a required TEAM roster file cannot be found.
      * @throws IOException thrown from <code>BxScrGameAccount</code> object if
@@ -124,8 +560,46 @@ public class RetrosheetEveReader {
      * @throws IllegalArgumentException if a line read to <code>BxScrGameAccount</code>
      *         object does not conform to expected structure.
      */
-    public void readGamesByID(List<String> gameIDs) throws FileNotFoundException, 
+    public void readGamesByID(Collection<String> gameIDs) throws FileNotFoundException, 
             IOException, IllegalArgumentException {
+        Object fileEvent = FlightEvents.beginReadFile();
+        fileMetrics.start();
+        try {
+            /* Without a filter, any ID may be in this file. */
+            Set<String> pending = new HashSet<>();
+            for (String gameID : gameIDs) {
+                if (idFilter == null || idFilter.mightContain(gameID)) {
+                    pending.add(gameID);
+                }
+            }
+            if (!pending.isEmpty()) {
+                readGamesWithIDs(pending);
+            }
+        } finally {
+            finishRead(fileEvent);
+        }
+    }
+
+    private void readGamesWithIDs(final Set<String> pending) throws FileNotFoundException,
+            IOException {
+        if (cache != null || teamFilter != null || compiledBlocks != null) {
+            readBlocks(new GameFilter() {
+                @Override
+                public boolean accept(String gameID, String line) {
+                    if (pending.remove(gameID)) {
+                        foundGameIDs.add(gameID);
+                        return true;
+                    }
+                    return false;
+                }
+
+                @Override
+                public boolean isDone() {
+                    return pending.isEmpty();
+                }
+            }, false);
+            return;
+        }
         String line;
         BoxscoreGameAccount currGame = null;
         boolean readThisGame = false;
@@ -133,7 +607,7 @@ public class RetrosheetEveReader {
         /* 
          * Each time a line beginning with 'id' flag is encountered, 
          * add previous game to gameAccounts and set readThisGame
-         * flag to false. If gameIDs contains the current id, set
+         * flag to false. If pending contains the current id, set
          * readThisGame to true and initialize a new BxScrGameAccount
          * object. Only read in lines to this object while readThisGame
          * is true.
@@ -156,18 +630,21 @@ public class RetrosheetEveReader {
              * currGame being added to gameAccounts multiple times.
             */
             if (line.startsWith("id,")) {
+                publishProgress();
                 if ((currGame != null) && readThisGame) {
-                    currGame.finalize();
-                    gameAccounts.add(currGame);
+                    completeGame(currGame, lineNum - 1);
                 }
                 readThisGame = false;
                 currGame = null;
 
-                if (gameIDs.contains(line.substring(3))) {
+                /* Every game requested from this file has been read. */
+                if (pending.isEmpty()) {
+                    break;
+                }
+                if (pending.remove(line.substring(3))) {
                     readThisGame = true;
-                    currGame = new BoxscoreGameAccount(line.substring(3), year, fileName, 
-                        teamRosDir);
-                    gameIDs.remove(currGame.getGameID());
+                    currGame = startGame(line.substring(3));
+                    foundGameIDs.add(currGame.getGameID());
                 }
             }
             if (readThisGame && currGame != null) {
@@ -179,7 +656,7 @@ public class RetrosheetEveReader {
                 try {
                     currGame.addLine(line, lineNum);
                 } catch (IndexOutOfBoundsException exc) {
-                    errorMessages.add(exc.getMessage());
+                    failGame(currGame, exc);
                     currGame = null;
                 }
             }
@@ -190,8 +667,7 @@ public class RetrosheetEveReader {
          * add final game account to list.
          */
         if (currGame != null) {
-            currGame.finalize();
-            gameAccounts.add(currGame);
+            completeGame(currGame, lineNum);
         }
     }
     
@@ -206,6 +682,17 @@ public class RetrosheetEveReader {
      */
     public void readGamesWithinRange(String start, String end) 
             throws FileNotFoundException, IOException, IllegalArgumentException {
+        Object fileEvent = FlightEvents.beginReadFile();
+        fileMetrics.start();
+        try {
+            readGamesWithDates(start, end);
+        } finally {
+            finishRead(fileEvent);
+        }
+    }
+
+    private void readGamesWithDates(String start, String end) 
+            throws FileNotFoundException, IOException, IllegalArgumentException {
         String line;
         int startInt;
         int endInt;
@@ -224,32 +711,38 @@ public class RetrosheetEveReader {
             "the 4-digit integer code MMDD, where MM is a month and DD is a date.");
         }
 
+        if (cache != null || teamFilter != null || compiledBlocks != null) {
+            final int first = startInt;
+            final int last = endInt;
+            readBlocks(new GameFilter() {
+                @Override
+                public boolean accept(String gameID, String line) {
+                    int gameDateInt = parseGameDate(gameID, line);
+                    return gameDateInt >= first && gameDateInt <= last;
+                }
+
+            }, false);
+            return;
+        }
+
         /* Read the file. */
         while ((line = pbpReader.readLine()) != null) {
             lineNum++;
             if (line.startsWith("id,")) {
+                publishProgress();
                 if (currGame != null && readThisGame) {
-                    currGame.finalize();
-                    gameAccounts.add(currGame);
+                    completeGame(currGame, lineNum - 1);
                 }
                 readThisGame = false;
                 currGame = null;   
 
                 gameID = line.substring(3);
-                try {
-                    gameDateInt = Integer.parseInt(gameID.substring(7,11));
-                } catch (NumberFormatException nfe) {
-                    throw new IllegalArgumentException("Game IDs must conform to " +
-                        "the format TTTYYYYMMDDN, where TTT is the home team's ID, " +
-                        "YYYY is the year, MM is the month, DD is the day, and game " +
-                        "number. Line: " + line);
-                }
+                gameDateInt = parseGameDate(gameID, line);
                 
                 /* Check if game falls into range. If it does, read. */
                 if (gameDateInt >= startInt && gameDateInt <= endInt) {
                     readThisGame = true;
-                    currGame = new BoxscoreGameAccount(gameID, year, fileName, 
-                        teamRosDir);
+                    currGame = startGame(gameID);
                 }   
             }
             if (readThisGame && currGame != null) {
@@ -261,7 +754,7 @@ public class RetrosheetEveReader {
                 try {
                     currGame.addLine(line, lineNum);
                 } catch (IndexOutOfBoundsException exc) {
-                    errorMessages.add(exc.getMessage());
+                    failGame(currGame, exc);
                     currGame = null;
                 }
             }
@@ -272,11 +765,23 @@ public class RetrosheetEveReader {
          * add final game account to list.
          */
         if (currGame != null) {
-            currGame.finalize();
-            gameAccounts.add(currGame);
+            completeGame(currGame, lineNum);
         }
     }
     
+    /** @return the MMDD part of <code>gameID</code>, as an integer. */
+    private static int parseGameDate(String gameID, String line) 
+            throws IllegalArgumentException {
+        try {
+            return Integer.parseInt(gameID.substring(7,11));
+        } catch (NumberFormatException nfe) {
+            throw new IllegalArgumentException("Game IDs must conform to " +
+                "the format TTTYYYYMMDDN, where TTT is the home team's ID, " +
+                "YYYY is the year, MM is the month, DD is the day, and game " +
+                "number. Line: " + line);
+        }
+    }
+
     // public void readNexGame() throws IOException {
     //     /* Implement here... */
         
@@ -314,10 +819,61 @@ public class RetrosheetEveReader {
         return gameAccounts;
     }
 
+    /** @return the number of games read successfully so far. */
+    public int getGameCount() {
+        return gameCount;
+    }
+
+    /**
+     * @return the IDs found by <code>readGamesByID()</code> in this file, in
+     *         the order found, including those of games that could not be read.
+     */
+    public List<String> getFoundGameIDs() {
+        return Collections.unmodifiableList(foundGameIDs);
+    }
+
     public List<String> getErrorMessages() {
         //TODO: Return a list of error messages corresponding to games that 
         //could not be read due to IndexOutOfBoundsExceptions.    
         return errorMessages;
     }
     
-}
\ No newline at end of file
+    /** Counts the bytes read through it. */
+    private static class CountingInputStream extends FilterInputStream {
+
+        private long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        long getCount() {
+            return count;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+}
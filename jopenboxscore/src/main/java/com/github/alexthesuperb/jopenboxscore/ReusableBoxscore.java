@@ -0,0 +1,21 @@
+package com.github.alexthesuperb.jopenboxscore;
+
+import java.io.BufferedWriter;
+
+/**
+ * A <code>BaseballBoxscore</code> that can be pointed at a new game and writer
+ * instead of being constructed again for every game. <code>BoxscoreFactory</code>
+ * keeps one instance per format per thread and resets it before each use.
+ */
+public interface ReusableBoxscore extends BaseballBoxscore {
+
+    /**
+     * Discard all state from the previous game and prepare to write
+     * <code>game</code> to <code>writer</code>.
+     *
+     * @param game A finalized game account.
+     * @param writer The destination of the next call to <code>write()</code>.
+     */
+    public void reset(BoxscoreGameAccount game, BufferedWriter writer);
+
+}
@@ -0,0 +1,179 @@
+package com.github.alexthesuperb.jopenboxscore;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>
+ * A process-wide cache of TEAM and roster (ROS) files. Each file is read once
+ * and kept in memory, together with the results of every lookup made against
+ * it, instead of being reopened and scanned for every game.
+ * </p><p>
+ * A cached file is reloaded when its length or modification time changes, so
+ * a long-running process picks up edited rosters. Lookups keep the semantics
+ * of the original sequential scan: the first line beginning with the requested
+ * ID is returned. Files are decoded as ISO-8859-1, as
+ * <code>RandomAccessFile.readLine()</code> did.
+ * </p><p>
+ * The directory may instead be a zip archive, from which files are read
+ * without being extracted, and a file missing from a directory is read
+ * gzipped if it is there with <code>.gz</code> appended. Either is reloaded
+ * when the archive, or the gzipped file, changes.
+ * </p>
+ */
+public final class RosterCache {
+
+    private final ConcurrentHashMap<String, RosterFile> files;
+
+    private RosterCache() {
+        files = new ConcurrentHashMap<>();
+    }
+
+    /* Initialized on first use. */
+    private static class InstanceHolder {
+        private static final RosterCache INSTANCE = new RosterCache();
+    }
+
+    public static RosterCache getInstance() {
+        return InstanceHolder.INSTANCE;
+    }
+
+    /**
+     * Return the contents of <code>name</code> in <code>dir</code>, reading
+     * the file if it has not been cached or has changed since it was read.
+     *
+     * @param dir The directory or zip archive containing the file.
+     * @param name The file's name, e.g. <code>TEAM2018</code>.
+     * @return The cached file.
+     * @throws FileNotFoundException if the file does not exist.
+     * @throws IOException if the file cannot be read.
+     */
+    public RosterFile getFile(File dir, String name) throws FileNotFoundException,
+            IOException {
+        /* The file on disk, which is the archive if the file is in one. */
+        File file;
+        String source;
+        if (SeasonArchive.isZip(dir.getName()) && dir.isFile()) {
+            file = dir;
+            source = dir.getPath() + SeasonArchive.ENTRY_SEPARATOR + name;
+        } else {
+            file = new File(dir.getPath(), name);
+            if (!file.isFile() && new File(dir.getPath(), name + ".gz").isFile()) {
+                file = new File(dir.getPath(), name + ".gz");
+            }
+            source = file.getPath();
+        }
+        if (!file.isFile()) {
+            throw new FileNotFoundException("Could not find file " + name +
+                " in directory " + dir.getPath());
+        }
+
+        String key = (file == dir) ?
+            dir.getAbsolutePath() + SeasonArchive.ENTRY_SEPARATOR + name :
+            file.getAbsolutePath();
+        long lastModified = file.lastModified();
+        long length = file.length();
+        RosterFile cached = files.get(key);
+        if (cached != null && cached.lastModified == lastModified &&
+                cached.length == length) {
+            return cached;
+        }
+
+        RosterFile loaded = new RosterFile(name, readLines(source), lastModified, length);
+        files.put(key, loaded);
+        return loaded;
+    }
+
+    private static String[] readLines(String source) throws IOException {
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                SeasonArchive.open(source), StandardCharsets.ISO_8859_1))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines.add(line);
+            }
+        }
+        return lines.toArray(new String[lines.size()]);
+    }
+
+    /** @return the number of files currently cached. */
+    public int size() {
+        return files.size();
+    }
+
+    /** Forget every cached file. */
+    public void clear() {
+        files.clear();
+    }
+
+    /** The lines of one TEAM or roster file. */
+    public static final class RosterFile {
+
+        /** Stands in for "no matching line" in <code>matches</code>. */
+        private static final String[] NO_MATCH = new String[0];
+
+        private final String name;
+        private final String[] lines;
+        private final long lastModified;
+        private final long length;
+
+        /** Comma-separated fields of the first line matching each ID looked up. */
+        private final ConcurrentHashMap<String, String[]> matches;
+
+        private RosterFile(String name, String[] lines, long lastModified, long length) {
+            this.name = name;
+            this.lines = lines;
+            this.lastModified = lastModified;
+            this.length = length;
+            this.matches = new ConcurrentHashMap<>();
+        }
+
+        /** @return the file's name. */
+        public String getName() {
+            return name;
+        }
+
+        /** @return the modification time of the file when it was read. */
+        long getLastModified() {
+            return lastModified;
+        }
+
+        /** @return the length of the file when it was read. */
+        long getLength() {
+            return length;
+        }
+
+        /**
+         * Find the first line beginning with <code>id</code>.
+         *
+         * @param id A player or team ID.
+         * @return The line's comma-separated fields, or <code>null</code> if no
+         *         line begins with <code>id</code>.
+         */
+        public String[] find(String id) {
+            String[] fields = matches.get(id);
+            if (fields == null) {
+                Object event = FlightEvents.beginRosterLookup();
+                fields = NO_MATCH;
+                int scanned = 0;
+                for (String line : lines) {
+                    scanned++;
+                    if (line.startsWith(id)) {
+                        fields = line.split(",");
+                        break;
+                    }
+                }
+                matches.put(id, fields);
+                FlightEvents.endRosterLookup(event, name, id, scanned, fields != NO_MATCH);
+            }
+            return (fields == NO_MATCH) ? null : fields;
+        }
+    }
+}
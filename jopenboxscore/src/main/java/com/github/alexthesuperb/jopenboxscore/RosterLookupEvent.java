@@ -0,0 +1,28 @@
+package com.github.alexthesuperb.jopenboxscore;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** A flight recorder event spanning one scan of a cached TEAM or roster file. */
+@Name(FlightEvents.PREFIX + "RosterLookup")
+@Label("Roster Lookup")
+@Category(FlightEvents.CATEGORY)
+@Description("A search of a TEAM or roster file for an ID not looked up before")
+@StackTrace(false)
+final class RosterLookupEvent extends jdk.jfr.Event {
+
+    @Label("File")
+    String file;
+
+    @Label("ID")
+    String id;
+
+    @Label("Lines Scanned")
+    int linesScanned;
+
+    @Label("Found")
+    boolean found;
+}
@@ -0,0 +1,352 @@
+package com.github.alexthesuperb.jopenboxscore;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * <p>
+ * Event, roster and TEAM files read straight out of the archives seasons
+ * are distributed and kept in: zip files, such as Retrosheet's
+ * <code>2018eve.zip</code>, and files gzipped one at a time, such as
+ * <code>2018NYA.EVA.gz</code>.
+ * </p><p>
+ * A file in a zip archive is named by the archive's path, <code>!/</code>
+ * and the name of its entry, as in <code>2018eve.zip!/2018NYA.EVA</code>.
+ * Such names, and the names of gzipped files, can be given to
+ * <code>RetrosheetEveReader</code> wherever the name of an event file can,
+ * and a zip archive can be given in place of the directory of TEAM and
+ * roster files. In a directory, a TEAM or roster file that is missing is
+ * looked for gzipped, as <code>NYA2018.ROS.gz</code>.
+ * </p><p>
+ * Nothing is extracted to disk. Each file opened is decompressed on a
+ * thread of its own, a few chunks ahead of the parser reading it, so that
+ * inflating one file and parsing it take place at the same time.
+ * </p>
+ */
+public final class SeasonArchive {
+
+    /** Separates the path of a zip archive from the name of an entry in it. */
+    public static final String ENTRY_SEPARATOR = "!/";
+
+    /* Decompressed bytes are handed to the reader in chunks, at most this many ahead. */
+    private static final int CHUNK_BYTES = 64 * 1024;
+    private static final int CHUNKS_AHEAD = 8;
+
+    private SeasonArchive() {
+    }
+
+    /** @return <code>true</code> if <code>name</code> is that of a zip file. */
+    static boolean isZip(String name) {
+        return name.toLowerCase().endsWith(".zip");
+    }
+
+    /** @return <code>true</code> if <code>name</code> is that of a gzipped file. */
+    static boolean isGzip(String name) {
+        return name.toLowerCase().endsWith(".gz");
+    }
+
+    /**
+     * @return the zip archive holding the file named, or <code>null</code>
+     *         if it is not named as an entry of one.
+     */
+    static File getArchive(String name) {
+        int separator = name.indexOf(ENTRY_SEPARATOR);
+        return (separator > 0 && isZip(name.substring(0, separator))) ?
+            new File(name.substring(0, separator)) : null;
+    }
+
+    /**
+     * @return the file on disk holding the file named, whose length and
+     *         modification time change when it does: its zip archive, or the
+     *         file itself.
+     */
+    static File getFileOnDisk(String name) {
+        File archive = getArchive(name);
+        return (archive != null) ? archive : new File(name);
+    }
+
+    /**
+     * @return <code>true</code> if the file named must be decompressed to be
+     *         read.
+     */
+    public static boolean isArchived(String name) {
+        return getArchive(name) != null || isGzip(name);
+    }
+
+    /**
+     * List the event files (<code>.EVA</code>, <code>.EVN</code> and
+     * <code>.EVE</code>) of a zip archive.
+     *
+     * @param zip A zip archive.
+     * @return The names of its event files, as entries of the archive, in
+     *         order of name.
+     * @throws IOException if the archive cannot be read.
+     */
+    public static List<String> listEventFiles(File zip) throws IOException {
+        TreeSet<String> entries = new TreeSet<>();
+        try (ZipFile zipFile = new ZipFile(zip)) {
+            Enumeration<? extends ZipEntry> all = zipFile.entries();
+            while (all.hasMoreElements()) {
+                ZipEntry entry = all.nextElement();
+                if (!entry.isDirectory() && entry.getName().matches("(?i).*\\.EV[ANE]")) {
+                    entries.add(entry.getName());
+                }
+            }
+        }
+        List<String> names = new ArrayList<>(entries.size());
+        for (String entry : entries) {
+            names.add(zip.getPath() + ENTRY_SEPARATOR + entry);
+        }
+        return names;
+    }
+
+    /**
+     * @return <code>true</code> if the file named, or the archive it would
+     *         be found in, exists.
+     */
+    public static boolean exists(String name) {
+        File archive = getArchive(name);
+        return (archive != null) ? archive.isFile() : new File(name).isFile();
+    }
+
+    /**
+     * @return the length of the file named, decompressed. That of a gzipped
+     *         file is the length recorded at its end, which is only correct
+     *         below 4 GB.
+     * @throws IOException if the file or its archive cannot be read.
+     */
+    public static long getLength(String name) throws IOException {
+        File archive = getArchive(name);
+        if (archive != null) {
+            try (ZipFile zipFile = new ZipFile(archive)) {
+                return findEntry(zipFile, archive, getEntryName(name)).getSize();
+            }
+        } else if (isGzip(name)) {
+            try (RandomAccessFile file = new RandomAccessFile(name, "r")) {
+                if (file.length() < 4) {
+                    return 0;
+                }
+                file.seek(file.length() - 4);
+                return Integer.reverseBytes(file.readInt()) & 0xFFFFFFFFL;
+            }
+        }
+        return new File(name).length();
+    }
+
+    /**
+     * Open a file, which is decompressed on another thread if it is in an
+     * archive or gzipped. Closing the stream stops that thread.
+     *
+     * @param name The name of a file, an entry of a zip archive, or a
+     *        gzipped file.
+     * @return The file's decompressed contents.
+     * @throws FileNotFoundException if the file, or its archive or entry,
+     *         does not exist.
+     * @throws IOException if the file cannot be opened.
+     */
+    public static InputStream open(String name) throws FileNotFoundException, IOException {
+        File archive = getArchive(name);
+        if (archive != null) {
+            if (!archive.isFile()) {
+                throw new FileNotFoundException("Archive " + archive.getPath() + " not found.");
+            }
+            ZipFile zipFile = new ZipFile(archive);
+            try {
+                ZipEntry entry = findEntry(zipFile, archive, getEntryName(name));
+                return new DecompressingStream(zipFile.getInputStream(entry), zipFile, name);
+            } catch (IOException | RuntimeException e) {
+                zipFile.close();
+                throw e;
+            }
+        }
+        InputStream file = new FileInputStream(name);
+        if (!isGzip(name)) {
+            return file;
+        }
+        try {
+            return new DecompressingStream(new GZIPInputStream(file, CHUNK_BYTES), file, name);
+        } catch (IOException | RuntimeException e) {
+            file.close();
+            throw e;
+        }
+    }
+
+    private static String getEntryName(String name) {
+        return name.substring(name.indexOf(ENTRY_SEPARATOR) + ENTRY_SEPARATOR.length());
+    }
+
+    /* Archives may keep their files in a folder; a file is found by its name alone. */
+    private static ZipEntry findEntry(ZipFile zipFile, File archive, String entryName)
+            throws FileNotFoundException {
+        ZipEntry entry = zipFile.getEntry(entryName);
+        if (entry == null) {
+            Enumeration<? extends ZipEntry> all = zipFile.entries();
+            while (all.hasMoreElements() && entry == null) {
+                ZipEntry candidate = all.nextElement();
+                if (candidate.getName().endsWith("/" + entryName)) {
+                    entry = candidate;
+                }
+            }
+        }
+        if (entry == null) {
+            throw new FileNotFoundException("Could not find file " + entryName +
+                " in archive " + archive.getPath());
+        }
+        return entry;
+    }
+
+    /**
+     * The decompressed bytes of a file, read on a thread of its own into a
+     * bounded queue of chunks. A failure to read is reported by the reader's
+     * next read, once the chunks read before it have been consumed.
+     */
+    private static final class DecompressingStream extends InputStream {
+
+        /* Marks the end of the file, or of the bytes read before a failure. */
+        private static final byte[] END = new byte[0];
+
+        private final BlockingQueue<byte[]> chunks =
+            new ArrayBlockingQueue<>(CHUNKS_AHEAD);
+        private final String name;
+        private final Thread thread;
+        private volatile IOException failure;
+        private volatile boolean closed;
+        private byte[] chunk;
+        private int pos;
+
+        DecompressingStream(final InputStream source, final Closeable archive,
+                String name) {
+            this.name = name;
+            thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        fill(source);
+                    } finally {
+                        try {
+                            source.close();
+                            archive.close();
+                        } catch (IOException e) {
+                            /* Everything wanted has been read. */
+                        }
+                    }
+                }
+            }, "decompress " + name);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        private void fill(InputStream source) {
+            try {
+                while (true) {
+                    byte[] buffer = new byte[CHUNK_BYTES];
+                    int length = 0;
+                    int n;
+                    while (length < buffer.length &&
+                            (n = source.read(buffer, length, buffer.length - length)) > 0) {
+                        length += n;
+                    }
+                    if (length == 0) {
+                        break;
+                    }
+                    chunks.put((length == buffer.length) ? buffer :
+                        Arrays.copyOf(buffer, length));
+                }
+            } catch (IOException e) {
+                failure = e;
+            } catch (InterruptedException e) {
+                /* The stream was closed; nobody is waiting for the rest. */
+                return;
+            }
+            try {
+                chunks.put(END);
+            } catch (InterruptedException e) {
+                /* Closed while waiting to report the end. */
+            }
+        }
+
+        /* @return false at the end of the file. */
+        private boolean nextChunk() throws IOException {
+            checkOpen();
+            if (chunk == END) {
+                return false;
+            }
+            try {
+                chunk = chunks.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while decompressing.");
+            }
+            checkOpen();
+            pos = 0;
+            if (chunk == END && failure != null) {
+                throw new IOException("Could not decompress " + name + ".", failure);
+            }
+            return chunk != END;
+        }
+
+        private void checkOpen() throws IOException {
+            if (closed) {
+                throw new IOException("Stream of " + name + " is closed.");
+            }
+        }
+
+        @Override
+        public int read() throws IOException {
+            checkOpen();
+            if ((chunk == null || pos == chunk.length) && !nextChunk()) {
+                return -1;
+            }
+            return chunk[pos++] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            checkOpen();
+            if (len == 0) {
+                return 0;
+            }
+            if ((chunk == null || pos == chunk.length) && !nextChunk()) {
+                return -1;
+            }
+            int n = Math.min(len, chunk.length - pos);
+            System.arraycopy(chunk, pos, b, off, n);
+            pos += n;
+            return n;
+        }
+
+        @Override
+        public int available() throws IOException {
+            checkOpen();
+            return (chunk == null) ? 0 : chunk.length - pos;
+        }
+
+        /*
+         * A read blocked on another thread is woken by END, and then fails
+         * on the closed flag, as does every read after closing.
+         */
+        @Override
+        public void close() {
+            closed = true;
+            thread.interrupt();
+            chunks.clear();
+            chunks.offer(END);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.github.alexthesuperb.jopenboxscore;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * <p>
+ * The finalized games of one or more seasons, held in memory and indexed by
+ * game ID, by date and by team, so that any of them can be found without
+ * reading or parsing an event file again.
+ * </p><p>
+ * Games are returned in order of date, and within a date as
+ * <code>BoxscoreGameAccount.compareTo()</code> orders them. Dates are
+ * <code>YYYYMMDD</code> strings, and ranges of them include both ends.
+ * </p>
+ */
+public final class SeasonIndex {
+
+    private final Map<String, BoxscoreGameAccount> byId = new HashMap<>();
+    private final TreeMap<String, List<BoxscoreGameAccount>> byDate = new TreeMap<>();
+    private final Map<String, TreeMap<String, List<BoxscoreGameAccount>>> byTeam =
+        new HashMap<>();
+
+    /**
+     * @param games Finalized games. Of games with the same ID, only the last
+     *        is kept.
+     */
+    public SeasonIndex(Collection<? extends BoxscoreGameAccount> games) {
+        List<BoxscoreGameAccount> sorted = new ArrayList<>(games);
+        Collections.sort(sorted);
+        for (BoxscoreGameAccount game : sorted) {
+            BoxscoreGameAccount replaced = byId.put(game.getGameID(), game);
+            if (replaced != null) {
+                remove(byDate, replaced);
+                remove(byTeam.get(replaced.getVisitingTeamId()), replaced);
+                remove(byTeam.get(replaced.getHomeTeamId()), replaced);
+            }
+            add(byDate, game);
+            add(getTeamDates(game.getVisitingTeamId()), game);
+            add(getTeamDates(game.getHomeTeamId()), game);
+        }
+    }
+
+    private TreeMap<String, List<BoxscoreGameAccount>> getTeamDates(String teamId) {
+        TreeMap<String, List<BoxscoreGameAccount>> dates = byTeam.get(teamId);
+        if (dates == null) {
+            dates = new TreeMap<>();
+            byTeam.put(teamId, dates);
+        }
+        return dates;
+    }
+
+    private static void add(Map<String, List<BoxscoreGameAccount>> dates,
+            BoxscoreGameAccount game) {
+        List<BoxscoreGameAccount> games = dates.get(getDate(game));
+        if (games == null) {
+            games = new ArrayList<>(1);
+            dates.put(getDate(game), games);
+        }
+        games.add(game);
+    }
+
+    private static void remove(Map<String, List<BoxscoreGameAccount>> dates,
+            BoxscoreGameAccount game) {
+        List<BoxscoreGameAccount> games = dates.get(getDate(game));
+        games.remove(game);
+        if (games.isEmpty()) {
+            dates.remove(getDate(game));
+        }
+    }
+
+    /* The date in a game's ID, YYYYMMDD; the date info line is YYYY/MM/DD. */
+    static String getDate(BoxscoreGameAccount game) {
+        return game.getGameID().substring(3, 11);
+    }
+
+    private static List<BoxscoreGameAccount> flatten(
+            NavigableMap<String, List<BoxscoreGameAccount>> dates) {
+        List<BoxscoreGameAccount> games = new ArrayList<>();
+        for (List<BoxscoreGameAccount> day : dates.values()) {
+            games.addAll(day);
+        }
+        return games;
+    }
+
+    /** @return The number of games indexed. */
+    public int getGameCount() {
+        return byId.size();
+    }
+
+    /** @return The IDs of every team that played, in order. */
+    public Set<String> getTeamIds() {
+        return new TreeSet<>(byTeam.keySet());
+    }
+
+    /** @return The first and last dates on which games were played, or
+     *          <code>null</code> if there were none. */
+    public String[] getDateRange() {
+        return byDate.isEmpty() ? null :
+            new String[] {byDate.firstKey(), byDate.lastKey()};
+    }
+
+    /** @return The game, or <code>null</code> if it is not indexed. */
+    public BoxscoreGameAccount getGame(String gameId) {
+        return byId.get(gameId);
+    }
+
+    /** @return Every game played from <code>first</code> through <code>last</code>. */
+    public List<BoxscoreGameAccount> getGames(String first, String last) {
+        if (first.compareTo(last) > 0) {
+            return new ArrayList<>();
+        }
+        return flatten(byDate.subMap(first, true, last, true));
+    }
+
+    /** @return The games a team played from <code>first</code> through <code>last</code>. */
+    public List<BoxscoreGameAccount> getGames(String teamId, String first, String last) {
+        TreeMap<String, List<BoxscoreGameAccount>> dates = byTeam.get(teamId);
+        if (dates == null || first.compareTo(last) > 0) {
+            return new ArrayList<>();
+        }
+        return flatten(dates.subMap(first, true, last, true));
+    }
+
+    /** @return Every game played between two teams, at either team's park. */
+    public List<BoxscoreGameAccount> getHeadToHead(String teamId, String opponentId) {
+        List<BoxscoreGameAccount> games = new ArrayList<>();
+        TreeMap<String, List<BoxscoreGameAccount>> dates = byTeam.get(teamId);
+        if (dates == null) {
+            return games;
+        }
+        for (List<BoxscoreGameAccount> day : dates.values()) {
+            for (BoxscoreGameAccount game : day) {
+                if (game.getVisitingTeamId().equals(opponentId) ||
+                        game.getHomeTeamId().equals(opponentId)) {
+                    games.add(game);
+                }
+            }
+        }
+        return games;
+    }
+}
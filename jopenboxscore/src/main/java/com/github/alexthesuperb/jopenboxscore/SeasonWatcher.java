@@ -0,0 +1,584 @@
+package com.github.alexthesuperb.jopenboxscore;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * Keep boxscore and summary files up to date as event, roster and TEAM files
+ * change, doing only as much work as the change requires.
+ * </p><p>
+ * Every event file is split into <code>GameBlock</code>s. A game is parsed
+ * again only if its block was added or changed, or if one of the TEAM and
+ * roster files it was read with has changed; every other game, along with its
+ * rendered boxscore, is kept from the previous update. The summary is updated
+ * by adding new games to it, or, when games were changed or removed, by
+ * rebuilding only the teams that played in them. Only the outputs holding an
+ * affected game are rewritten; each is written to a temporary file which then
+ * replaces the original, so readers never see a partly written file.
+ * </p><p>
+ * If an event file cannot be read, or one of its games fails in a way that
+ * would halt <code>TerminalDriver</code>, the error is reported and the
+ * file's previous games are kept until it is fixed.
+ * </p>
+ */
+public class SeasonWatcher {
+
+    /** How long the watched directories must be quiet before an update starts. */
+    public static final long QUIET_MILLIS = 500;
+
+    private final List<File> eventFiles;
+    private final String year;
+    private final File rosDir;
+    private final boolean writeInOrder;
+
+    private File boxscoreFile;
+    private File shardDir;
+    private int shardType;
+    private File summaryFile;
+
+    /** The state of each event file, at the same index as <code>eventFiles</code>. */
+    private final EventFileState[] states;
+
+    /** Modification times and lengths of TEAM and roster files, by name. */
+    private Map<String, List<Long>> rosterStamps;
+
+    private NewspaperSummary summary;
+
+    /** Error messages reported by the most recent update. */
+    private final List<String> errorMessages;
+
+    /**
+     * @param eventFiles The event files to watch, in the order in which their
+     *        games should be written.
+     * @param year Look for team and roster files containing this year.
+     * @param rosDir A directory containing TEAM and roster files.
+     * @param writeInOrder If <code>true</code>, write boxscores in ascending
+     *        order by date, as with <code>TerminalDriver</code>'s <code>-o</code>.
+     */
+    public SeasonWatcher(List<File> eventFiles, String year, File rosDir,
+            boolean writeInOrder) {
+        this.eventFiles = new ArrayList<>(eventFiles);
+        this.year = year;
+        this.rosDir = rosDir;
+        this.writeInOrder = writeInOrder;
+        this.states = new EventFileState[eventFiles.size()];
+        this.rosterStamps = new HashMap<>();
+        this.errorMessages = new LinkedList<>();
+    }
+
+    /**
+     * Write all boxscores to a single file.
+     *
+     * @param file The destination.
+     */
+    public void setBoxscoreFile(File file) {
+        boxscoreFile = file;
+        shardDir = null;
+    }
+
+    /**
+     * Write boxscores to one file per shard, as <code>ShardedBoxscoreWriter</code>
+     * would.
+     *
+     * @param directory The directory to which shard files are written.
+     * @param shardType <code>SHARD_BY_TEAM</code> or <code>SHARD_BY_MONTH</code>.
+     * @throws IOException if <code>directory</code> cannot be created.
+     */
+    public void setShardDirectory(File directory, int shardType) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Directory " + directory.getPath() + " could not " +
+                "be created.");
+        }
+        shardDir = directory;
+        this.shardType = shardType;
+        boxscoreFile = null;
+    }
+
+    /**
+     * Write a <code>NewspaperSummary</code> of all games.
+     *
+     * @param file The destination.
+     */
+    public void setSummaryFile(File file) {
+        summaryFile = file;
+    }
+
+    /** @return the error messages reported by the most recent update. */
+    public List<String> getErrorMessages() {
+        return errorMessages;
+    }
+
+    /**
+     * Bring every output up to date. The first call reads and writes
+     * everything.
+     *
+     * @return A one-line description of the work done.
+     * @throws IOException if an output cannot be written.
+     */
+    public String update() throws IOException {
+        long start = System.nanoTime();
+        errorMessages.clear();
+
+        Set<String> changedRosters = scanRosters();
+        List<WatchedGame> added = new ArrayList<>();
+        List<WatchedGame> removed = new ArrayList<>();
+        int reused = 0;
+
+        for (int i = 0; i < eventFiles.size(); i++) {
+            File file = eventFiles.get(i);
+            EventFileState old = states[i];
+            boolean fileChanged = (old == null) || !old.isCurrent(file);
+            if (!fileChanged && changedRosters.isEmpty()) {
+                reused += old.games.size();
+                continue;
+            }
+
+            try {
+                EventFileState updated = updateFile(file, old, fileChanged,
+                    changedRosters, added, removed);
+                reused += updated.games.size() - updated.parsed;
+                states[i] = updated;
+            } catch (IOException | RuntimeException e) {
+                errorMessages.add("File " + file.getPath() + " could not be " +
+                    "processed; its previous games are kept. Cause: " + e.getMessage());
+            }
+        }
+
+        int rewritten = 0;
+        if (!added.isEmpty() || !removed.isEmpty()) {
+            List<WatchedGame> allGames = getAllGames();
+            rewritten += writeBoxscores(allGames, added, removed);
+            rewritten += writeSummary(allGames, added, removed);
+        }
+
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        return "Parsed " + added.size() + " games, kept " + reused + ", removed " +
+            removed.size() + "; rewrote " + rewritten + " files in " + millis + " ms.";
+    }
+
+    /**
+     * Compare an event file's blocks with those read last time, parsing only
+     * new or changed games and games whose rosters have changed. Games are
+     * only added to <code>added</code> and <code>removed</code> if the whole
+     * file was processed.
+     */
+    private EventFileState updateFile(File file, EventFileState old, boolean fileChanged,
+            Set<String> changedRosters, List<WatchedGame> added,
+            List<WatchedGame> removed) throws IOException {
+        long lastModified = file.lastModified();
+        long length = file.length();
+        List<GameBlock> blocks;
+        if (fileChanged) {
+            blocks = GameBlock.readBlocks(file);
+        } else {
+            blocks = new ArrayList<>();
+            for (WatchedGame g : old.games) {
+                blocks.add(g.block);
+            }
+        }
+
+        /* Previous games by ID and contents, in case blocks have moved. */
+        Map<String, LinkedList<WatchedGame>> previous = new HashMap<>();
+        if (old != null) {
+            for (WatchedGame g : old.games) {
+                String key = g.block.getGameId() + "#" + g.block.getChecksum();
+                if (!previous.containsKey(key)) {
+                    previous.put(key, new LinkedList<WatchedGame>());
+                }
+                previous.get(key).add(g);
+            }
+        }
+
+        List<WatchedGame> games = new ArrayList<>(blocks.size());
+        List<WatchedGame> parsed = new ArrayList<>();
+        for (GameBlock block : blocks) {
+            LinkedList<WatchedGame> candidates = previous.get(
+                block.getGameId() + "#" + block.getChecksum());
+            WatchedGame reuse = (candidates == null) ? null : candidates.peekFirst();
+            if (reuse != null && reuse.canReuse(block, changedRosters)) {
+                candidates.removeFirst();
+                games.add(reuse);
+                continue;
+            }
+
+            List<String> errors = new LinkedList<>();
+            BoxscoreGameAccount game = RetrosheetEveReader.readGame(block, year,
+                file.getPath(), rosDir, errors);
+            WatchedGame g = new WatchedGame(block, game, errors.isEmpty() ? null :
+                errors.get(0));
+            games.add(g);
+            parsed.add(g);
+        }
+
+        /* The file was read successfully; commit its changes. */
+        for (WatchedGame g : games) {
+            if (g.error != null) {
+                errorMessages.add(g.error);
+            }
+        }
+        for (LinkedList<WatchedGame> left : previous.values()) {
+            for (WatchedGame g : left) {
+                if (g.game != null) {
+                    removed.add(g);
+                }
+            }
+        }
+        for (WatchedGame g : parsed) {
+            if (g.game != null) {
+                added.add(g);
+            }
+        }
+        return new EventFileState(games, parsed.size(), lastModified, length);
+    }
+
+    /**
+     * Record the current modification times and lengths of every TEAM and
+     * roster file.
+     *
+     * @return The names of files that were added, changed or removed since
+     *         the previous call.
+     */
+    private Set<String> scanRosters() {
+        Map<String, List<Long>> stamps = new HashMap<>();
+        File[] files = rosDir.listFiles();
+        if (files != null) {
+            for (File f : files) {
+                if (isRosterFile(f.getName())) {
+                    List<Long> stamp = new ArrayList<>(2);
+                    stamp.add(f.lastModified());
+                    stamp.add(f.length());
+                    stamps.put(f.getName(), stamp);
+                }
+            }
+        }
+
+        Set<String> changed = new HashSet<>();
+        for (Map.Entry<String, List<Long>> e : stamps.entrySet()) {
+            if (!e.getValue().equals(rosterStamps.get(e.getKey()))) {
+                changed.add(e.getKey());
+            }
+        }
+        for (String name : rosterStamps.keySet()) {
+            if (!stamps.containsKey(name)) {
+                changed.add(name);
+            }
+        }
+        rosterStamps = stamps;
+        return changed;
+    }
+
+    private static boolean isRosterFile(String name) {
+        return name.toUpperCase().endsWith(".ROS") || name.startsWith("TEAM");
+    }
+
+    /** @return every game that was read successfully, in output order. */
+    private List<WatchedGame> getAllGames() {
+        List<WatchedGame> allGames = new ArrayList<>();
+        for (EventFileState state : states) {
+            if (state == null) {
+                continue;
+            }
+            for (WatchedGame g : state.games) {
+                if (g.game != null) {
+                    allGames.add(g);
+                }
+            }
+        }
+        if (writeInOrder) {
+            /* A stable sort, like the one applied by TerminalDriver. */
+            Collections.sort(allGames);
+        }
+        return allGames;
+    }
+
+    /** @return the number of files written. */
+    private int writeBoxscores(List<WatchedGame> allGames, List<WatchedGame> added,
+            List<WatchedGame> removed) throws IOException {
+        if (boxscoreFile != null) {
+            BufferedWriter writer = openTemporary(boxscoreFile);
+            try {
+                for (WatchedGame g : allGames) {
+                    writer.write(g.getBoxscore());
+                }
+            } finally {
+                writer.close();
+            }
+            replace(boxscoreFile);
+            return 1;
+        } else if (shardDir == null) {
+            return 0;
+        }
+
+        /* Rewrite only the shards holding a changed game. */
+        Set<String> keys = new HashSet<>();
+        for (WatchedGame g : added) {
+            keys.add(ShardedBoxscoreWriter.getShardKey(shardType, g.game));
+        }
+        for (WatchedGame g : removed) {
+            keys.add(ShardedBoxscoreWriter.getShardKey(shardType, g.game));
+        }
+
+        Map<String, List<WatchedGame>> shards = new LinkedHashMap<>();
+        for (WatchedGame g : allGames) {
+            String key = ShardedBoxscoreWriter.getShardKey(shardType, g.game);
+            if (keys.contains(key)) {
+                if (!shards.containsKey(key)) {
+                    shards.put(key, new ArrayList<WatchedGame>());
+                }
+                shards.get(key).add(g);
+            }
+        }
+
+        int written = 0;
+        for (String key : keys) {
+            File shard = new File(shardDir, key + ShardedBoxscoreWriter.SHARD_EXTENSION);
+            List<WatchedGame> games = shards.get(key);
+            if (games == null) {
+                /* Every game of this shard was removed. */
+                Files.deleteIfExists(shard.toPath());
+                continue;
+            }
+            BufferedWriter writer = openTemporary(shard);
+            try {
+                for (WatchedGame g : games) {
+                    writer.write(g.getBoxscore());
+                }
+            } finally {
+                writer.close();
+            }
+            replace(shard);
+            written++;
+        }
+        return written;
+    }
+
+    /** @return the number of files written. */
+    private int writeSummary(List<WatchedGame> allGames, List<WatchedGame> added,
+            List<WatchedGame> removed) throws IOException {
+        if (summaryFile == null) {
+            return 0;
+        }
+
+        if (summary == null) {
+            summary = new NewspaperSummary(null);
+            for (WatchedGame g : allGames) {
+                summary.addGame(g.game);
+            }
+        } else if (removed.isEmpty()) {
+            for (WatchedGame g : added) {
+                summary.addGame(g.game);
+            }
+        } else {
+            Set<String> teams = new HashSet<>();
+            for (WatchedGame g : added) {
+                teams.add(g.game.getVisitingTeamId());
+                teams.add(g.game.getHomeTeamId());
+            }
+            for (WatchedGame g : removed) {
+                teams.add(g.game.getVisitingTeamId());
+                teams.add(g.game.getHomeTeamId());
+            }
+            List<BoxscoreGameAccount> games = new ArrayList<>(allGames.size());
+            for (WatchedGame g : allGames) {
+                games.add(g.game);
+            }
+            summary.rebuildTeams(teams, games);
+        }
+
+        BufferedWriter writer = openTemporary(summaryFile);
+        try {
+            summary.setWriter(writer);
+            summary.write();
+        } finally {
+            writer.close();
+        }
+        replace(summaryFile);
+        return 1;
+    }
+
+    private static File temporaryFile(File file) {
+        return new File(file.getPath() + ".tmp");
+    }
+
+    private static BufferedWriter openTemporary(File file) throws IOException {
+        return new BufferedWriter(new FileWriter(temporaryFile(file)));
+    }
+
+    /** Replace <code>file</code> with its freshly written temporary file. */
+    private static void replace(File file) throws IOException {
+        Path source = temporaryFile(file).toPath();
+        try {
+            Files.move(source, file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Update outputs whenever a watched event file, or any TEAM or roster
+     * file, is created, modified or deleted. Changes are collected until the
+     * directories have been quiet for <code>QUIET_MILLIS</code>, so that a
+     * file being written is not read halfway through. This method returns
+     * only when interrupted.
+     *
+     * @param listener Receives the result of every update, or <code>null</code>.
+     * @throws IOException if the directories cannot be watched or an output
+     *         cannot be written.
+     * @throws InterruptedException when the watching thread is interrupted.
+     */
+    public void watch(UpdateListener listener) throws IOException, InterruptedException {
+        Set<Path> eventPaths = new HashSet<>();
+        Set<Path> directories = new HashSet<>();
+        for (File f : eventFiles) {
+            Path p = f.getAbsoluteFile().toPath().normalize();
+            eventPaths.add(p);
+            directories.add(p.getParent());
+        }
+        Path rosPath = rosDir.getAbsoluteFile().toPath().normalize();
+        directories.add(rosPath);
+
+        try (WatchService watcher = FileSystems.getDefault().newWatchService()) {
+            for (Path dir : directories) {
+                dir.register(watcher, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY,
+                    StandardWatchEventKinds.ENTRY_DELETE);
+            }
+
+            while (true) {
+                boolean relevant = drain(watcher.take(), eventPaths, rosPath);
+                WatchKey key;
+                while ((key = watcher.poll(QUIET_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    relevant |= drain(key, eventPaths, rosPath);
+                }
+                if (relevant) {
+                    String result = update();
+                    if (listener != null) {
+                        listener.updated(result, getErrorMessages());
+                    }
+                }
+            }
+        }
+    }
+
+    /** @return <code>true</code> if any of the key's events concern a watched file. */
+    private static boolean drain(WatchKey key, Set<Path> eventPaths, Path rosPath) {
+        boolean relevant = false;
+        Path dir = (Path) key.watchable();
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                relevant = true;
+                continue;
+            }
+            Path path = dir.resolve((Path) event.context());
+            if (eventPaths.contains(path) || (dir.equals(rosPath) &&
+                    isRosterFile(path.getFileName().toString()))) {
+                relevant = true;
+            }
+        }
+        key.reset();
+        return relevant;
+    }
+
+    /** Receives the outcome of each update made by <code>watch()</code>. */
+    public interface UpdateListener {
+
+        /**
+         * @param result A one-line description of the work done.
+         * @param errorMessages Games and files that could not be read.
+         */
+        public void updated(String result, List<String> errorMessages);
+    }
+
+    /** The games read from one event file. */
+    private static final class EventFileState {
+        final List<WatchedGame> games;
+        final int parsed;
+        final long lastModified;
+        final long length;
+
+        EventFileState(List<WatchedGame> games, int parsed, long lastModified,
+                long length) {
+            this.games = games;
+            this.parsed = parsed;
+            this.lastModified = lastModified;
+            this.length = length;
+        }
+
+        boolean isCurrent(File file) {
+            return file.lastModified() == lastModified && file.length() == length;
+        }
+    }
+
+    /** A game block and the result of reading it. */
+    private final class WatchedGame implements Comparable<WatchedGame> {
+        final GameBlock block;
+
+        /** The finalized game, or <code>null</code> if it could not be read. */
+        final BoxscoreGameAccount game;
+        final String error;
+
+        /** The game's boxscore, rendered when first needed. */
+        private String boxscore;
+
+        WatchedGame(GameBlock block, BoxscoreGameAccount game, String error) {
+            this.block = block;
+            this.game = game;
+            this.error = error;
+        }
+
+        /**
+         * A game may be kept if its block is unchanged and it was not read with
+         * a changed TEAM or roster file. Games that could not be read are read
+         * again whenever a roster changes or they move within their file, since
+         * their error messages include line numbers.
+         */
+        boolean canReuse(GameBlock newBlock, Set<String> changedRosters) {
+            if (game == null) {
+                return changedRosters.isEmpty() && block.sameAs(newBlock);
+            }
+            return !changedRosters.contains("TEAM" + year) &&
+                !changedRosters.contains(game.getVisitingTeamId() + year + ".ROS") &&
+                !changedRosters.contains(game.getHomeTeamId() + year + ".ROS");
+        }
+
+        String getBoxscore() throws IOException {
+            if (boxscore == null) {
+                StringWriter text = new StringWriter();
+                BufferedWriter writer = new BufferedWriter(text);
+                game.printBoxscore(writer, BoxscoreFactory.NEWSPAPER_BOXSCORE_KEY);
+                writer.flush();
+                boxscore = text.toString();
+            }
+            return boxscore;
+        }
+
+        @Override
+        public int compareTo(WatchedGame other) {
+            return game.compareTo(other.game);
+        }
+    }
+}
@@ -0,0 +1,417 @@
+package com.github.alexthesuperb.jopenboxscore;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * Route each game's boxscore to one of many output files (<i>shards</i>),
+ * chosen either by the game's home team or by the month in which it was
+ * played. Shards are written concurrently, so that a long historical run is
+ * not limited by a single writer and readers may open only the shard they need.
+ * </p><p>
+ * Every shard has its own <i>lane</i>, which runs the shard's writes one at a
+ * time, in the order in which its games were added, on a shared executor.
+ * Different shards therefore proceed in parallel, up to the executor's
+ * number of threads; with <code>IoExecutors</code> on Java 21 or later, each
+ * busy shard gets a virtual thread of its own. Each shard keeps its own
+ * <code>BufferedWriter</code>, which is only ever touched by its lane.
+ * </p>
+ */
+public class ShardedBoxscoreWriter implements GameSink {
+
+    /** Write one file per home team, named after the team's ID. */
+    public static final int SHARD_BY_TEAM = 1;
+
+    /** Write one file per month, named <code>YYYY-MM</code>. */
+    public static final int SHARD_BY_MONTH = 2;
+
+    /** Extension of each shard file. */
+    public static final String SHARD_EXTENSION = ".txt";
+
+    private final File directory;
+    private final int shardType;
+    private final String boxscoreType;
+    private final ExecutorService executor;
+    private final boolean ownsExecutor;
+
+    /** Lanes by shard key. Only accessed by the thread adding games. */
+    private final HashMap<String, Lane> lanes;
+
+    /** Writers by shard key. Each value is accessed only by its lane. */
+    private final HashMap<String, BufferedWriter> writers;
+
+    /** The first exception thrown by a lane, reported by <code>close()</code>. */
+    private volatile IOException failure;
+
+    /** Shards to be appended to rather than overwritten, by key; see <code>resume()</code>. */
+    private final HashMap<String, Long> resumedLengths;
+
+    /**
+     * @param directory The directory to which shard files are written. It is
+     *        created if it does not exist.
+     * @param shardType <code>SHARD_BY_TEAM</code> or <code>SHARD_BY_MONTH</code>.
+     * @param boxscoreType The <code>BoxscoreFactory</code> key of the format to write.
+     * @param threads The number of shards written concurrently.
+     * @throws IOException if <code>directory</code> cannot be created.
+     * @throws IllegalArgumentException if <code>shardType</code> is unknown or
+     *         <code>threads</code> is not positive.
+     */
+    public ShardedBoxscoreWriter(File directory, int shardType, String boxscoreType,
+            int threads) throws IOException, IllegalArgumentException {
+        this(directory, shardType, boxscoreType, newPool(threads), true);
+    }
+
+    /**
+     * @param directory The directory to which shard files are written. It is
+     *        created if it does not exist.
+     * @param shardType <code>SHARD_BY_TEAM</code> or <code>SHARD_BY_MONTH</code>.
+     * @param boxscoreType The <code>BoxscoreFactory</code> key of the format to write.
+     * @param executor The executor on which shards are written, such as one
+     *        returned by <code>IoExecutors.newPerTaskExecutor()</code>. It is
+     *        not shut down by <code>close()</code>.
+     * @throws IOException if <code>directory</code> cannot be created.
+     * @throws IllegalArgumentException if <code>shardType</code> is unknown.
+     */
+    public ShardedBoxscoreWriter(File directory, int shardType, String boxscoreType,
+            ExecutorService executor) throws IOException, IllegalArgumentException {
+        this(directory, shardType, boxscoreType, executor, false);
+    }
+
+    private ShardedBoxscoreWriter(File directory, int shardType, String boxscoreType,
+            ExecutorService executor, boolean ownsExecutor) 
+            throws IOException, IllegalArgumentException {
+        if (shardType != SHARD_BY_TEAM && shardType != SHARD_BY_MONTH) {
+            if (ownsExecutor) {
+                executor.shutdown();
+            }
+            throw new IllegalArgumentException("Unknown shard type " + shardType + ".");
+        }
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            if (ownsExecutor) {
+                executor.shutdown();
+            }
+            throw new IOException("Directory " + directory.getPath() + " could not " +
+                "be created.");
+        }
+        this.directory = directory;
+        this.shardType = shardType;
+        this.boxscoreType = boxscoreType;
+        this.writers = new HashMap<>();
+        this.resumedLengths = new HashMap<>();
+        this.executor = executor;
+        this.ownsExecutor = ownsExecutor;
+        this.lanes = new HashMap<>();
+    }
+
+    private static ExecutorService newPool(int threads) throws IllegalArgumentException {
+        if (threads < 1) {
+            throw new IllegalArgumentException("The number of writer threads must be " +
+                "a positive integer.");
+        }
+        return Executors.newFixedThreadPool(threads);
+    }
+
+    /**
+     * Runs one shard's tasks in order, never more than one at a time. The
+     * lane's lock orders each task's writes before the next task's reads.
+     */
+    private final class Lane implements Runnable {
+
+        private final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+        private boolean scheduled;
+
+        void execute(Runnable task) {
+            synchronized (this) {
+                tasks.add(task);
+                if (scheduled) {
+                    return;
+                }
+                scheduled = true;
+            }
+            executor.execute(this);
+        }
+
+        @Override
+        public void run() {
+            boolean idle = false;
+            try {
+                while (true) {
+                    Runnable task;
+                    synchronized (this) {
+                        task = tasks.poll();
+                        if (task == null) {
+                            scheduled = false;
+                            idle = true;
+                            return;
+                        }
+                    }
+                    task.run();
+                }
+            } finally {
+                /*
+                 * If a task threw, the lane's later tasks, such as drain()'s
+                 * markers, still run, on a fresh run of the lane.
+                 */
+                if (!idle) {
+                    boolean more;
+                    synchronized (this) {
+                        more = !tasks.isEmpty();
+                        scheduled = more;
+                    }
+                    if (more) {
+                        executor.execute(this);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Parse a shard type as entered on the command line.
+     *
+     * @param name <code>"team"</code> or <code>"month"</code>, ignoring case.
+     * @return <code>SHARD_BY_TEAM</code> or <code>SHARD_BY_MONTH</code>.
+     * @throws IllegalArgumentException if <code>name</code> is neither.
+     */
+    public static int parseShardType(String name) throws IllegalArgumentException {
+        if (name.equalsIgnoreCase("team")) {
+            return SHARD_BY_TEAM;
+        } else if (name.equalsIgnoreCase("month")) {
+            return SHARD_BY_MONTH;
+        }
+        throw new IllegalArgumentException("Shard type must be 'team' or 'month', " +
+            "was '" + name + "'.");
+    }
+
+    /**
+     * Return the key of the shard to which a game belongs.
+     *
+     * @param game A finalized game account.
+     * @return The home team's ID, or the game's month as <code>YYYY-MM</code>.
+     */
+    public String getShardKey(BoxscoreGameAccount game) {
+        return getShardKey(shardType, game);
+    }
+
+    /**
+     * Return the key of the shard to which a game belongs.
+     *
+     * @param shardType <code>SHARD_BY_TEAM</code> or <code>SHARD_BY_MONTH</code>.
+     * @param game A finalized game account.
+     * @return The home team's ID, or the game's month as <code>YYYY-MM</code>.
+     */
+    public static String getShardKey(int shardType, BoxscoreGameAccount game) {
+        if (shardType == SHARD_BY_TEAM) {
+            return game.getHomeTeamId();
+        }
+
+        /* Dates are stored as YYYY/MM/DD. */
+        String date = game.getStdDateString();
+        if (date == null || date.length() < 7) {
+            return "unknown";
+        }
+        return date.substring(0, 4) + "-" + date.substring(5, 7);
+    }
+
+    /**
+     * Queue a game's boxscore to be written to its shard.
+     *
+     * @param game A finalized game account.
+     * @throws IOException if a previously queued game could not be written.
+     */
+    public void addGame(final BoxscoreGameAccount game) throws IOException {
+        if (failure != null) {
+            throw failure;
+        }
+        final String key = getShardKey(game);
+        final ProcessingMetrics metrics = ProcessingMetrics.getInstance();
+        metrics.queued();
+        Lane lane = lanes.get(key);
+        if (lane == null) {
+            lane = new Lane();
+            lanes.put(key, lane);
+        }
+        lane.execute(new Runnable() {
+            @Override
+            public void run() {
+                metrics.dequeued();
+                if (failure != null) {
+                    return;
+                }
+                try {
+                    game.printBoxscore(getWriter(key), boxscoreType);
+                } catch (IOException e) {
+                    failure = e;
+                } catch (RuntimeException e) {
+                    failure = new IOException("The boxscore of game " + game.getGameID() +
+                        " could not be written.", e);
+                }
+            }
+        });
+    }
+
+    @Override
+    public void accept(BoxscoreGameAccount game) throws IOException {
+        addGame(game);
+    }
+
+    /** Open a shard's writer. This is only called from the shard's lane. */
+    private BufferedWriter getWriter(String key) throws IOException {
+        BufferedWriter writer;
+        boolean append;
+        synchronized (writers) {
+            writer = writers.get(key);
+            append = resumedLengths.containsKey(key);
+        }
+        if (writer == null) {
+            writer = new BufferedWriter(new FileWriter(
+                new File(directory, key + SHARD_EXTENSION), append));
+            synchronized (writers) {
+                writers.put(key, writer);
+            }
+        }
+        return writer;
+    }
+
+    /**
+     * Wait for every game queued so far to be written, and flush every shard.
+     *
+     * @throws IOException if any game could not be written or a shard could
+     *         not be flushed.
+     */
+    @Override
+    public void flush() throws IOException {
+        drain();
+        if (failure != null) {
+            throw failure;
+        }
+
+        /* Every lane is idle until the next game is added from this thread. */
+        synchronized (writers) {
+            for (BufferedWriter writer : writers.values()) {
+                writer.flush();
+            }
+        }
+    }
+
+    /** Wait until every lane has run the tasks queued so far. */
+    private void drain() throws IOException {
+        Runnable nothing = new Runnable() {
+            @Override
+            public void run() {
+            }
+        };
+        List<FutureTask<Void>> drained = new ArrayList<>(lanes.size());
+        for (Lane lane : lanes.values()) {
+            FutureTask<Void> marker = new FutureTask<>(nothing, null);
+            lane.execute(marker);
+            drained.add(marker);
+        }
+        try {
+            for (FutureTask<Void> marker : drained) {
+                marker.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while writing shards.", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Shards could not be flushed.", e.getCause());
+        }
+    }
+
+    /**
+     * Return the length of every shard written so far. After
+     * <code>flush()</code>, these are the lengths to pass to
+     * <code>resume()</code> to continue from this point.
+     *
+     * @return The length of each shard file, in bytes, by shard key.
+     */
+    public Map<String, Long> getShardLengths() {
+        Map<String, Long> lengths = new HashMap<>();
+        synchronized (writers) {
+            for (String key : resumedLengths.keySet()) {
+                lengths.put(key, new File(directory, key + SHARD_EXTENSION).length());
+            }
+            for (String key : writers.keySet()) {
+                lengths.put(key, new File(directory, key + SHARD_EXTENSION).length());
+            }
+        }
+        return lengths;
+    }
+
+    /**
+     * Continue shards written by an earlier, interrupted run. Each shard in
+     * <code>lengths</code> is cut back to its recorded length, dropping
+     * anything written after the lengths were recorded, and is appended to
+     * instead of being overwritten. Must be called before any game is added.
+     *
+     * @param lengths The shard lengths returned by <code>getShardLengths()</code>
+     *        in the earlier run.
+     * @throws IOException if a shard is missing, shorter than its recorded
+     *         length, or cannot be truncated.
+     */
+    public void resume(Map<String, Long> lengths) throws IOException {
+        for (Map.Entry<String, Long> shard : lengths.entrySet()) {
+            File file = new File(directory, shard.getKey() + SHARD_EXTENSION);
+            Checkpoint.truncate(file, shard.getValue());
+            synchronized (writers) {
+                resumedLengths.put(shard.getKey(), shard.getValue());
+            }
+        }
+    }
+
+    /**
+     * Wait for every queued game to be written, then close all shards.
+     *
+     * @throws IOException if any game could not be written or a shard could
+     *         not be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            drain();
+        } finally {
+            if (ownsExecutor) {
+                executor.shutdown();
+            }
+        }
+        if (ownsExecutor) {
+            try {
+                while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                    /* Keep waiting; the lanes are already idle. */
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while writing shards.", e);
+            }
+        }
+
+        synchronized (writers) {
+            for (BufferedWriter writer : writers.values()) {
+                try {
+                    writer.close();
+                } catch (IOException e) {
+                    if (failure == null) {
+                        failure = e;
+                    }
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
@@ -131,6 +131,23 @@ public class SingleGamePitcher extends BaseballPlayer {
         return battersHBP;
     }
 
+    /** @return the number of outs recorded in the pitcher's final inning. */
+    int getInningOutsRecorded() {
+        return inningOutsRecorded;
+    }
+
+    /**
+     * Restore the counters of the pitcher's final inning, as decoded by
+     * <code>GameCodec</code>.
+     *
+     * @param outsRecorded Outs recorded in the inning.
+     * @param battersFaced Batters faced in the inning.
+     */
+    void restoreInning(int outsRecorded, int battersFaced) {
+        inningOutsRecorded = outsRecorded;
+        inningBF = battersFaced;
+    }
+
     /** Reset inning-specific counters. */
     public void startNewInning() {
         inningOutsRecorded = 0;
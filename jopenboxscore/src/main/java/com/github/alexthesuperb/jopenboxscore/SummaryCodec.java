@@ -0,0 +1,163 @@
+package com.github.alexthesuperb.jopenboxscore;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>
+ * A compact binary encoding of the totals held by a
+ * <code>NewspaperSummary</code>, so that a partial summary can be saved and
+ * restored without the games it was aggregated from.
+ * </p><p>
+ * Each team is written with its record against every opponent and the
+ * totals of each of its pitchers and position players, using the variable-length
+ * integers and string table of <code>GameCodec</code>. Teams are written in
+ * ascending order by ID, so that equal summaries have equal encodings.
+ * </p><p>
+ * A partial summary file holds nothing else, after a magic number and the
+ * format version.
+ * </p>
+ */
+final class SummaryCodec {
+
+    /* The record fields stored per opponent; the rest are sums of these. */
+    private static final int[] RECORD_FIELDS = {
+        RecordMatrix.INDEX_HOME_WINS, RecordMatrix.INDEX_HOME_LOSSES,
+        RecordMatrix.INDEX_HOME_TIES, RecordMatrix.INDEX_HOME_RS,
+        RecordMatrix.INDEX_HOME_RA, RecordMatrix.INDEX_ROAD_WINS,
+        RecordMatrix.INDEX_ROAD_LOSSES, RecordMatrix.INDEX_ROAD_TIES,
+        RecordMatrix.INDEX_ROAD_RS, RecordMatrix.INDEX_ROAD_RA};
+
+    /** "JOBP", followed by the format version. */
+    private static final int PARTIAL_MAGIC = 0x4A4F4250;
+
+    /** Incremented whenever the format changes. */
+    static final int PARTIAL_VERSION = 1;
+
+    private SummaryCodec() {
+    }
+
+    /**
+     * @param file The partial summary file to write.
+     * @param teams A summary's teams, by ID.
+     * @throws IOException if the file cannot be written.
+     */
+    static void writePartial(File file, Map<String, AggregatedTeam<SingleGameTeam>> teams)
+            throws IOException {
+        GameCodec.Encoder out = new GameCodec.Encoder();
+        out.writeInt(PARTIAL_MAGIC);
+        out.writeInt(PARTIAL_VERSION);
+        encodeTeams(out, teams);
+        Files.write(file.toPath(), out.toByteArray());
+    }
+
+    /**
+     * @param file A file written by <code>writePartial</code>.
+     * @return The teams, by ID.
+     * @throws IOException if the file cannot be read, or is not a partial
+     *         summary of this version.
+     */
+    static HashMap<String, AggregatedTeam<SingleGameTeam>> readPartial(File file)
+            throws IOException {
+        GameCodec.Decoder in = new GameCodec.Decoder(Files.readAllBytes(file.toPath()));
+        try {
+            if (in.readInt() != PARTIAL_MAGIC || in.readInt() != PARTIAL_VERSION) {
+                throw new IOException("File " + file.getPath() + " is not a partial " +
+                    "summary of version " + PARTIAL_VERSION + ".");
+            }
+            HashMap<String, AggregatedTeam<SingleGameTeam>> teams = decodeTeams(in);
+            if (!in.atEnd()) {
+                throw new IOException("Unexpected data after partial summary.");
+            }
+            return teams;
+        } catch (IndexOutOfBoundsException | IllegalArgumentException exc) {
+            throw new IOException("Partial summary " + file.getPath() + " is corrupt.", exc);
+        }
+    }
+
+    /**
+     * @param out The destination.
+     * @param teams A summary's teams, by ID.
+     */
+    static void encodeTeams(GameCodec.Encoder out,
+            Map<String, AggregatedTeam<SingleGameTeam>> teams) {
+        List<String> ids = new ArrayList<>(teams.keySet());
+        Collections.sort(ids);
+        out.writeInt(ids.size());
+        for (String id : ids) {
+            AggregatedTeam<SingleGameTeam> team = teams.get(id);
+            out.writeString(id);
+            out.writeString(team.getCity());
+            out.writeString(team.getName());
+
+            List<String> opponents = team.getOpponentIds();
+            out.writeInt(opponents.size());
+            for (String opponent : opponents) {
+                int[] record = team.getRecordVersusTeam(opponent);
+                out.writeString(opponent);
+                for (int field : RECORD_FIELDS) {
+                    out.writeInt(record[field]);
+                }
+            }
+            encodePlayers(out, team.getAllPitchers());
+            encodePlayers(out, team.getAllPositionPlayers());
+        }
+    }
+
+    private static void encodePlayers(GameCodec.Encoder out, List<AggregatedPlayer> players) {
+        out.writeInt(players.size());
+        for (AggregatedPlayer player : players) {
+            GameCodec.encodePlayer(out, player);
+        }
+    }
+
+    /**
+     * @param in A source positioned at teams written by <code>encodeTeams</code>.
+     * @return The teams, by ID.
+     * @throws IOException if the encoding is truncated or corrupt.
+     */
+    static HashMap<String, AggregatedTeam<SingleGameTeam>> decodeTeams(GameCodec.Decoder in)
+            throws IOException {
+        HashMap<String, AggregatedTeam<SingleGameTeam>> teams = new HashMap<>();
+        int count = in.readInt();
+        if (count < 0 || count > in.remaining()) {
+            throw new IOException("Truncated encoding.");
+        }
+        for (int i = 0; i < count; i++) {
+            AggregatedTeam<SingleGameTeam> team = new AggregatedTeam<>(in.readString(),
+                in.readString(), in.readString());
+
+            int opponents = in.readInt();
+            for (int j = 0; j < opponents; j++) {
+                String opponent = in.readString();
+                int[] record = new int[18];
+                for (int field : RECORD_FIELDS) {
+                    record[field] = in.readInt();
+                }
+                team.addRecord(opponent, record);
+            }
+            decodePlayers(in, team, true);
+            decodePlayers(in, team, false);
+            teams.put(team.getTeamId(), team);
+        }
+        return teams;
+    }
+
+    private static void decodePlayers(GameCodec.Decoder in, AggregatedTeam<SingleGameTeam> team,
+            boolean isPitcher) throws IOException {
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            AggregatedPlayer player = new AggregatedPlayer(in.readString(), in.readString(),
+                in.readString());
+            String[] keys = GameCodec.decodeStatKeys(in);
+            player.restoreStats(keys, GameCodec.decodeStatValues(in, keys));
+            team.addPlayer(player, isPitcher);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.github.alexthesuperb.jopenboxscore;
+
+import java.io.IOException;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * <p>
+ * Forward every game to any number of registered sinks, in the order in
+ * which they were added, so that the cost of parsing is paid once no matter
+ * how many outputs are produced.
+ * </p><p>
+ * Closing a <code>TeeGameSink</code> closes every registered sink, even if
+ * one of them fails; the first exception is then rethrown.
+ * </p>
+ */
+public class TeeGameSink implements GameSink {
+
+    private final List<GameSink> sinks;
+
+    public TeeGameSink() {
+        sinks = new LinkedList<GameSink>();
+    }
+
+    /**
+     * Register a sink. Games accepted before it was added are not replayed.
+     *
+     * @param sink The sink.
+     * @return This <code>TeeGameSink</code>.
+     */
+    public TeeGameSink add(GameSink sink) {
+        if (sink == null) {
+            throw new IllegalArgumentException("Sink must not be null.");
+        }
+        sinks.add(sink);
+        return this;
+    }
+
+    /** @return <code>true</code> if no sink has been registered. */
+    public boolean isEmpty() {
+        return sinks.isEmpty();
+    }
+
+    @Override
+    public void accept(BoxscoreGameAccount game) throws IOException {
+        for (GameSink sink : sinks) {
+            sink.accept(game);
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        for (GameSink sink : sinks) {
+            sink.flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        IOException failure = null;
+        for (GameSink sink : sinks) {
+            try {
+                sink.close();
+            } catch (IOException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
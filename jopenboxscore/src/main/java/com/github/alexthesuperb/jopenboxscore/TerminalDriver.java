@@ -1,13 +1,24 @@
 package com.github.alexthesuperb.jopenboxscore;
 
+import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
+import java.net.InetAddress;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import javax.management.JMException;
 
 /**
  * Main Class for console-based program.
@@ -23,6 +34,44 @@ public class TerminalDriver {
     static boolean readGameID;
     static boolean readInRosDir;
     static boolean readSummaryFile;
+    static boolean readArrowPrefix;
+    static boolean readArrowBatchSize;
+    static boolean readShardType;
+    static boolean readDaemonPort;
+    static boolean readCacheDir;
+    static boolean readCacheSize;
+    static boolean readSlowestCount;
+    static boolean readCheckpointFile;
+    static boolean readCheckpointInterval;
+    static boolean readPartialFile;
+    static boolean readBuildIndexFile;
+    static boolean readIndexFile;
+    static boolean readPlayerId;
+    static boolean readSeasons;
+    static boolean readBuildCalendarFile;
+    static boolean readCalendarFile;
+    static boolean readFromDate;
+    static boolean readToDate;
+    static boolean readIdManifestFile;
+    static boolean readTeamIds;
+    static boolean readStoreDir;
+    static boolean readSaveStoreDir;
+    static boolean readCompileDir;
+
+    /** If <code>true</code>, keep outputs up to date as files change. */
+    static boolean watchMode;
+
+    /* If true, the files named are partial summaries to be merged. */
+    static boolean reduceMode;
+
+    /** If <code>true</code>, publish progress counters to JMX clients. */
+    static boolean jmxEnabled;
+
+    /** If <code>true</code>, read files and write shards on I/O threads. */
+    static boolean concurrentIo;
+
+    /** If <code>true</code>, write a class-data archive while running. */
+    static boolean cdsTrain;
 
     /** If <code>true</code>, print boxscores in ascending order by date.*/
     static boolean writeInOrder;
@@ -33,12 +82,38 @@ public class TerminalDriver {
     /** If <code>true</code>, write summary. */
     static boolean hasSummaryFile;
 
+    /** If <code>true</code>, export games as Arrow IPC streams. */
+    static boolean hasArrowPrefix;
+
+    /** 
+     * If non-zero, <code>outFileName</code> is a directory to which boxscores
+     * are written in shards of this <code>ShardedBoxscoreWriter</code> type.
+     */
+    static int shardType;
+
+    /** If non-negative, serve requests on this loopback port instead. */
+    static int daemonPort = -1;
+
     /* From String[] args */
     static String year;
     static String startDate;
     static String endDate;
     static String outFileName;
     static String summaryFileName;
+    static String arrowPrefix;
+    static int arrowBatchSize = 4096;
+    static String cacheDirName;
+    static long cacheMegabytes = GameCache.DEFAULT_MAX_BYTES / (1024 * 1024);
+
+    /** If positive, report per-game latencies and this many slowest games. */
+    static int slowestCount;
+
+    /** If non-null, save progress to this file, and resume from it if it exists. */
+    static String checkpointFileName;
+    static int checkpointSeconds = 60;
+
+    /* The partial summary file written by -map, if any. */
+    static String partialFileName;
     static LinkedList<String> inFileNames;
     static LinkedList<String> gameIDs;
 
@@ -59,6 +134,39 @@ public class TerminalDriver {
     /** Directory containing TEAM and roster files. */
     static File rosDir;
 
+    /** If <code>false</code>, indexed games use the rosters beside their files. */
+    static boolean hasRosDir;
+
+    /* The player index written by -buildindex, or read by -index. */
+    static String buildIndexFileName;
+    static String indexFileName;
+
+    /* The player whose games are read from the index, and in which seasons. */
+    static String playerId;
+    static String firstSeason = "0000";
+    static String lastSeason = "9999";
+
+    /* The calendar index written by -buildcalendar, or read by -calendar. */
+    static String buildCalendarFileName;
+    static String calendarFileName;
+
+    /* The first and last dates, YYYYMMDD, of indexed games to read. */
+    static int fromDate = 0;
+    static int toDate = 99999999;
+
+    /** If non-null, only the games of these teams are read. */
+    static Set<String> teamIds;
+
+    /** If non-null, -i skips the files this manifest shows cannot hold the games. */
+    static GameIdManifest idManifest;
+
+    /* The game store read by -store, and the one parsed games are saved to by -savestore. */
+    static String storeDirName;
+    static String saveStoreDirName;
+
+    /* The directory that -compile writes compiled event files to. */
+    static String compileDirName;
+
     /** Reset flags. */
     static void resetFlags() {
         readInFile = false;
@@ -69,6 +177,29 @@ public class TerminalDriver {
         readGameID = false;
         readInRosDir = false;
         readSummaryFile = false;
+        readArrowPrefix = false;
+        readArrowBatchSize = false;
+        readShardType = false;
+        readDaemonPort = false;
+        readCacheDir = false;
+        readCacheSize = false;
+        readSlowestCount = false;
+        readCheckpointFile = false;
+        readCheckpointInterval = false;
+        readPartialFile = false;
+        readBuildIndexFile = false;
+        readIndexFile = false;
+        readPlayerId = false;
+        readSeasons = false;
+        readBuildCalendarFile = false;
+        readCalendarFile = false;
+        readFromDate = false;
+        readToDate = false;
+        readIdManifestFile = false;
+        readTeamIds = false;
+        readStoreDir = false;
+        readSaveStoreDir = false;
+        readCompileDir = false;
     }
 
     /**
@@ -151,6 +282,91 @@ public class TerminalDriver {
                     hasSummaryFile = true;
                     resetFlags();
                     readSummaryFile = true;
+                } else if (args[i].equalsIgnoreCase("-arrow")) {
+                    hasArrowPrefix = true;
+                    resetFlags();
+                    readArrowPrefix = true;
+                } else if (args[i].equalsIgnoreCase("-arrowbatch")) {
+                    resetFlags();
+                    readArrowBatchSize = true;
+                } else if (args[i].equalsIgnoreCase("-shard")) {
+                    resetFlags();
+                    readShardType = true;
+                } else if (args[i].equalsIgnoreCase("-watch")) {
+                    resetFlags();
+                    watchMode = true;
+                } else if (args[i].equalsIgnoreCase("-jmx")) {
+                    resetFlags();
+                    jmxEnabled = true;
+                } else if (args[i].equalsIgnoreCase("-cdstrain")) {
+                    resetFlags();
+                    cdsTrain = true;
+                } else if (args[i].equalsIgnoreCase("-vthreads")) {
+                    resetFlags();
+                    concurrentIo = true;
+                } else if (args[i].equalsIgnoreCase("-cache")) {
+                    resetFlags();
+                    readCacheDir = true;
+                } else if (args[i].equalsIgnoreCase("-cachesize")) {
+                    resetFlags();
+                    readCacheSize = true;
+                } else if (args[i].equalsIgnoreCase("-checkpoint")) {
+                    resetFlags();
+                    readCheckpointFile = true;
+                } else if (args[i].equalsIgnoreCase("-checkpointevery")) {
+                    resetFlags();
+                    readCheckpointInterval = true;
+                } else if (args[i].equalsIgnoreCase("-map")) {
+                    resetFlags();
+                    readPartialFile = true;
+                } else if (args[i].equalsIgnoreCase("-reduce")) {
+                    resetFlags();
+                    reduceMode = true;
+                } else if (args[i].equalsIgnoreCase("-buildindex")) {
+                    resetFlags();
+                    readBuildIndexFile = true;
+                } else if (args[i].equalsIgnoreCase("-index")) {
+                    resetFlags();
+                    readIndexFile = true;
+                } else if (args[i].equalsIgnoreCase("-player")) {
+                    resetFlags();
+                    readPlayerId = true;
+                } else if (args[i].equalsIgnoreCase("-seasons")) {
+                    resetFlags();
+                    readSeasons = true;
+                } else if (args[i].equalsIgnoreCase("-buildcalendar")) {
+                    resetFlags();
+                    readBuildCalendarFile = true;
+                } else if (args[i].equalsIgnoreCase("-calendar")) {
+                    resetFlags();
+                    readCalendarFile = true;
+                } else if (args[i].equalsIgnoreCase("-store")) {
+                    resetFlags();
+                    readStoreDir = true;
+                } else if (args[i].equalsIgnoreCase("-savestore")) {
+                    resetFlags();
+                    readSaveStoreDir = true;
+                } else if (args[i].equalsIgnoreCase("-compile")) {
+                    resetFlags();
+                    readCompileDir = true;
+                } else if (args[i].equalsIgnoreCase("-from")) {
+                    resetFlags();
+                    readFromDate = true;
+                } else if (args[i].equalsIgnoreCase("-to")) {
+                    resetFlags();
+                    readToDate = true;
+                } else if (args[i].equalsIgnoreCase("-idmanifest")) {
+                    resetFlags();
+                    readIdManifestFile = true;
+                } else if (args[i].equalsIgnoreCase("-team")) {
+                    resetFlags();
+                    readTeamIds = true;
+                } else if (args[i].equalsIgnoreCase("-slowest")) {
+                    resetFlags();
+                    readSlowestCount = true;
+                } else if (args[i].equalsIgnoreCase("-daemon")) {
+                    resetFlags();
+                    readDaemonPort = true;
                 } else if (args[i].equalsIgnoreCase("-q")) {
 
                     /* Conflicting flags, throw exception. */
@@ -165,6 +381,7 @@ public class TerminalDriver {
                         readYear = false;
                     } else if (readInRosDir) {
                         rosDir = new File(args[i]);
+                        hasRosDir = true;
                         readInRosDir = false;
                     } else if (readStartDate) {
                         startDate = args[i];
@@ -178,6 +395,115 @@ public class TerminalDriver {
                     } else if (readSummaryFile) {
                         summaryFileName = args[i];
                         readSummaryFile = false;
+                    } else if (readArrowPrefix) {
+                        arrowPrefix = args[i];
+                        readArrowPrefix = false;
+                    } else if (readShardType) {
+                        shardType = ShardedBoxscoreWriter.parseShardType(args[i]);
+                        readShardType = false;
+                    } else if (readDaemonPort) {
+                        /* NumberFormatException is an IllegalArgumentException. */
+                        daemonPort = Integer.parseInt(args[i]);
+                        if (daemonPort < 0 || daemonPort > 65535) {
+                            throw new IllegalArgumentException();
+                        }
+                        readDaemonPort = false;
+                    } else if (readCacheDir) {
+                        cacheDirName = args[i];
+                        readCacheDir = false;
+                    } else if (readCacheSize) {
+                        /* NumberFormatException is an IllegalArgumentException. */
+                        cacheMegabytes = Long.parseLong(args[i]);
+                        if (cacheMegabytes < 1) {
+                            throw new IllegalArgumentException();
+                        }
+                        readCacheSize = false;
+                    } else if (readCheckpointFile) {
+                        checkpointFileName = args[i];
+                        readCheckpointFile = false;
+                    } else if (readPartialFile) {
+                        partialFileName = args[i];
+                        readPartialFile = false;
+                    } else if (readBuildIndexFile) {
+                        buildIndexFileName = args[i];
+                        readBuildIndexFile = false;
+                    } else if (readIndexFile) {
+                        indexFileName = args[i];
+                        readIndexFile = false;
+                    } else if (readPlayerId) {
+                        playerId = args[i];
+                        readPlayerId = false;
+                    } else if (readSeasons) {
+                        /* A season, YYYY, or a range of them, YYYY-YYYY. */
+                        String[] seasons = args[i].split("-", -1);
+                        if (seasons.length > 2) {
+                            throw new IllegalArgumentException();
+                        }
+                        for (String season : seasons) {
+                            if (!season.matches("\\d{4}")) {
+                                throw new IllegalArgumentException();
+                            }
+                        }
+                        firstSeason = seasons[0];
+                        lastSeason = seasons[seasons.length - 1];
+                        readSeasons = false;
+                    } else if (readBuildCalendarFile) {
+                        buildCalendarFileName = args[i];
+                        readBuildCalendarFile = false;
+                    } else if (readCalendarFile) {
+                        calendarFileName = args[i];
+                        readCalendarFile = false;
+                    } else if (readStoreDir) {
+                        storeDirName = args[i];
+                        readStoreDir = false;
+                    } else if (readSaveStoreDir) {
+                        saveStoreDirName = args[i];
+                        readSaveStoreDir = false;
+                    } else if (readCompileDir) {
+                        compileDirName = args[i];
+                        readCompileDir = false;
+                    } else if (readTeamIds) {
+                        /* One team ID, or several separated by commas. */
+                        teamIds = new HashSet<>();
+                        for (String teamId : args[i].split(",")) {
+                            if (!teamId.trim().isEmpty()) {
+                                teamIds.add(teamId.trim().toUpperCase());
+                            }
+                        }
+                        if (teamIds.isEmpty()) {
+                            throw new IllegalArgumentException();
+                        }
+                        readTeamIds = false;
+                    } else if (readIdManifestFile) {
+                        idManifest = new GameIdManifest(new File(args[i]));
+                        readIdManifestFile = false;
+                    } else if (readFromDate) {
+                        fromDate = GameQuery.parseDate(args[i]);
+                        readFromDate = false;
+                    } else if (readToDate) {
+                        toDate = GameQuery.parseDate(args[i]);
+                        readToDate = false;
+                    } else if (readCheckpointInterval) {
+                        /* NumberFormatException is an IllegalArgumentException. */
+                        checkpointSeconds = Integer.parseInt(args[i]);
+                        if (checkpointSeconds < 0) {
+                            throw new IllegalArgumentException();
+                        }
+                        readCheckpointInterval = false;
+                    } else if (readSlowestCount) {
+                        /* NumberFormatException is an IllegalArgumentException. */
+                        slowestCount = Integer.parseInt(args[i]);
+                        if (slowestCount < 1 || slowestCount > GameLatencies.MAX_SLOWEST) {
+                            throw new IllegalArgumentException();
+                        }
+                        readSlowestCount = false;
+                    } else if (readArrowBatchSize) {
+                        /* NumberFormatException is an IllegalArgumentException. */
+                        arrowBatchSize = Integer.parseInt(args[i]);
+                        if (arrowBatchSize < 1) {
+                            throw new IllegalArgumentException();
+                        }
+                        readArrowBatchSize = false;
                     } else {
                         if (readGameID) {
                             /* 
@@ -206,6 +532,68 @@ public class TerminalDriver {
             System.exit(1);
         }
 
+        /* A zip archive named stands for every event file in it. */
+        try {
+            inFileNames = expandArchives(inFileNames);
+        } catch (IOException e) {
+            System.out.println("\n[An archive could not be read: " + e.getMessage() + "]\n");
+            System.exit(1);
+        }
+
+        /* The training run is this run, minus -cdstrain, in another JVM. */
+        if (cdsTrain) {
+            List<String> trainingArgs = new LinkedList<>();
+            for (String arg : args) {
+                if (!arg.equalsIgnoreCase("-cdstrain")) {
+                    trainingArgs.add(arg);
+                }
+            }
+            System.exit(runCdsTraining(trainingArgs));
+        }
+
+        if (jmxEnabled) {
+            try {
+                ProcessingMetrics.getInstance().register();
+            } catch (JMException e) {
+                System.out.println("\n[Metrics could not be published to JMX: " + 
+                    e.getMessage() + "]\n");
+            }
+        }
+
+        /* In daemon mode, event files are named by each request. */
+        if (daemonPort >= 0) {
+            runDaemon();
+            return;
+        }
+
+        /* A player's games are found by the index, not in files named. */
+        if (playerId != null) {
+            if (indexFileName == null || queryType == QUERY_BY_ID) {
+                System.out.println("\n[-player requires an -index file, and cannot be " +
+                    "combined with -i. Type -h or -help for help.]\n");
+                System.exit(1);
+            }
+            runPlayerQuery();
+            return;
+        }
+
+        /* So are the games of a -calendar window. */
+        if (calendarFileName != null) {
+            if (queryType == QUERY_BY_ID) {
+                System.out.println("\n[-calendar cannot be combined with -i. Type -h or " +
+                    "-help for help.]\n");
+                System.exit(1);
+            }
+            runCalendarQuery();
+            return;
+        }
+
+        /* And the games of a -store, which are never parsed again. */
+        if (storeDirName != null) {
+            runStoreQuery();
+            return;
+        }
+
         /* Check that user has entered at least one file name. */
         if (inFileNames.isEmpty()) {
             System.out.println("\n[You must enter the names of 1 or more files. " + 
@@ -213,6 +601,44 @@ public class TerminalDriver {
             System.exit(1);
         }
 
+        /* In reduce mode, the files named are partial summaries. */
+        if (reduceMode) {
+            runReduce();
+            return;
+        }
+
+        if (compileDirName != null) {
+            runCompile();
+            return;
+        }
+
+        if (buildIndexFileName != null || buildCalendarFileName != null) {
+            if (buildIndexFileName != null) {
+                runBuildIndex();
+            }
+            if (buildCalendarFileName != null) {
+                runBuildCalendar();
+            }
+            return;
+        }
+
+        /* Shards are written to the directory given by -dest. */
+        if (shardType != 0 && !hasOutFile) {
+            System.out.println("\n[Sharded output requires a destination directory. " +
+                "Type -h or -help for help.]\n");
+            System.exit(1);
+        }
+
+        if (watchMode) {
+            runWatcher();
+            return;
+        }
+
+        if (queryType == QUERY_ASK_USER) {
+            runConsole();
+            return;
+        }
+
         /* Check for missing date. */
         if (queryType == QUERY_BY_DATES) {
             if (startDate == null) {
@@ -223,10 +649,44 @@ public class TerminalDriver {
             }
         }
 
-        /* Initialize BufferedWriter for output. */
+        /* 
+         * Resume from the checkpoint, if there is one. Its outputs must be 
+         * files that can be cut back to where the checkpoint was written.
+         */
+        String run = describeRun();
+        Checkpoint resumed = null;
+        if (checkpointFileName != null) {
+            if ((!hasOutFile && partialFileName == null) || writeInOrder || hasArrowPrefix) {
+                System.out.println("\n[Checkpoints require a -dest file or directory or a " +
+                    "-map file, and cannot be combined with -o or -arrow. Type -h or -help " +
+                    "for help.]\n");
+                System.exit(1);
+            }
+            File checkpointFile = new File(checkpointFileName);
+            try {
+                if (checkpointFile.exists()) {
+                    resumed = Checkpoint.read(checkpointFile);
+                    resumed.checkResumable(run);
+                    if (hasOutFile && shardType == 0) {
+                        Checkpoint.truncate(new File(outFileName), 
+                            resumed.getBoxscoreLength());
+                    }
+                }
+            } catch (IOException e) {
+                System.out.println("\n[Could not resume from checkpoint " + 
+                    checkpointFileName + ": " + e.getMessage() + " Delete it to start " +
+                    "over.]\n");
+                System.exit(1);
+            }
+        }
+
+        /* 
+         * Initialize BufferedWriter for output. Sharded output opens its 
+         * own writers inside the destination directory.
+         */
         try {
-            if (hasOutFile) {
-                outWriter = new BufferedWriter(new FileWriter(outFileName));
+            if (hasOutFile && shardType == 0) {
+                outWriter = new BufferedWriter(new FileWriter(outFileName, resumed != null));
             } else {
                 throw new IOException();
             }
@@ -249,31 +709,160 @@ public class TerminalDriver {
             summaryWriter = new BufferedWriter(new OutputStreamWriter(System.out));
         }
 
+        /* 
+         * Every requested output is a sink of one TeeGameSink, so that each
+         * game is parsed once, however many outputs are written.
+         */
+        TeeGameSink sinks = new TeeGameSink();
+        int processors = Runtime.getRuntime().availableProcessors();
+        ExecutorService shardExecutor = null;
+        ShardedBoxscoreWriter shardWriter = null;
+        NewspaperSummary summary = null;
+        PartialSummaryWriter partialWriter = null;
+        try {
+            if (shardType != 0 && concurrentIo) {
+                shardExecutor = IoExecutors.newPerTaskExecutor(processors);
+                shardWriter = new ShardedBoxscoreWriter(new File(outFileName), shardType, 
+                    BoxscoreFactory.NEWSPAPER_BOXSCORE_KEY, shardExecutor);
+            } else if (shardType != 0) {
+                shardWriter = new ShardedBoxscoreWriter(new File(outFileName), shardType, 
+                    BoxscoreFactory.NEWSPAPER_BOXSCORE_KEY, processors);
+            }
+            if (shardWriter != null) {
+                if (resumed != null) {
+                    shardWriter.resume(resumed.getShardLengths());
+                }
+                sinks.add(shardWriter);
+            } else if (hasOutFile || partialFileName == null) {
+                sinks.add(new BoxscoreGameSink(outWriter, 
+                    BoxscoreFactory.NEWSPAPER_BOXSCORE_KEY, hasOutFile));
+            }
+            if (hasSummaryFile) {
+                summary = new NewspaperSummary(summaryWriter);
+                if (resumed != null) {
+                    resumed.restoreSummary(summary);
+                }
+                sinks.add(summary);
+            }
+            if (partialFileName != null) {
+                partialWriter = new PartialSummaryWriter(new File(partialFileName));
+                if (resumed != null) {
+                    resumed.restoreSummary(partialWriter.getSummary());
+                }
+                sinks.add(partialWriter);
+            }
+            if (hasArrowPrefix) {
+                sinks.add(new ArrowStatsExporter(arrowPrefix, arrowBatchSize));
+            }
+            if (saveStoreDirName != null) {
+                sinks.add(new GameStore(new File(saveStoreDirName)));
+            }
+        } catch (IOException e) {
+            System.out.println("\nAn error occured while opening output files.\n");
+            e.printStackTrace();
+            System.exit(0);
+        }
+
+        /* Unchanged games are decoded from the cache instead of parsed. */
+        GameCache cache = openGameCache();
+
         /* Read files */
         String currFile = inFileNames.getFirst();
         List<BoxscoreGameAccount> games = new LinkedList<>();
         List<String> centralizedErrorMessages = new LinkedList<String>();
+        List<File> completedFiles = new LinkedList<>();
+        List<Integer> completedGameCounts = new LinkedList<>();
+        if (resumed != null) {
+            for (String s : inFileNames.subList(0, resumed.getCompletedFileCount())) {
+                completedFiles.add(new File(s));
+            }
+            completedGameCounts.addAll(resumed.getFileGameCounts());
+            centralizedErrorMessages.addAll(resumed.getErrorMessages());
+            if (queryType == QUERY_BY_ID) {
+                gameIDs.clear();
+                gameIDs.addAll(resumed.getRemainingGameIDs());
+            }
+            System.out.println("[Resuming from checkpoint after " + 
+                resumed.getCompletedFileCount() + " files and " + resumed.getGameCount() +
+                " games.]");
+        }
+        boolean checkpointWritten = false;
+        long lastCheckpoint = System.nanoTime();
+
+        /* 
+         * With -vthreads, files are read ahead on I/O threads, and their games
+         * handed to the sinks in file order. Each game ID is looked for only
+         * in the files after those that did not hold it, so ID queries are
+         * read in order.
+         */
+        List<String> remainingFiles = inFileNames.subList(completedFiles.size(), 
+            inFileNames.size());
+        ExecutorService readExecutor = (concurrentIo && queryType != QUERY_BY_ID) ?
+            IoExecutors.newPerTaskExecutor(processors) : null;
+        Iterator<String> unread = remainingFiles.iterator();
+        LinkedList<Future<FileRead>> readAhead = new LinkedList<>();
         try {
-            for (String s : inFileNames) {
+            for (String s : remainingFiles) {
                 currFile = s;
-                RetrosheetEveReader boxReader = new RetrosheetEveReader(s, year, rosDir);
-
-                if (queryType == QUERY_ALL_GAMES) {
-                    boxReader.readAll();
-                } else if (queryType == QUERY_BY_DATES) { 
-                    boxReader.readGamesWithinRange(startDate, endDate);
-                } else if (queryType == QUERY_BY_ID) {
-                    boxReader.readGamesByID(gameIDs);
-                } else if (queryType == QUERY_ASK_USER) {
-                    
-                    //TODO: Implement here.
-                    System.out.println("\n[Whoops! Not yet supported.]\n");
-                    System.exit(0);
+                RetrosheetEveReader boxReader;
+                List<BoxscoreGameAccount> read;
+                if (readExecutor == null) {
+
+                    /* 
+                     * Unless games must first be sorted, stream each game to the
+                     * sinks as soon as it has been read.
+                     */
+                    boxReader = readFile(s, writeInOrder ? null : sinks, cache);
+                    read = boxReader.close();
+                } else {
+                    while (readAhead.size() < 2 * processors && unread.hasNext()) {
+                        final String next = unread.next();
+                        final GameCache nextCache = cache;
+                        readAhead.add(readExecutor.submit(new Callable<FileRead>() {
+                            @Override
+                            public FileRead call() throws IOException {
+                                return new FileRead(readFile(next, null, nextCache));
+                            }
+                        }));
+                    }
+                    FileRead fileRead = readAhead.removeFirst().get();
+                    boxReader = fileRead.reader;
+                    read = fileRead.games;
+                    if (!writeInOrder) {
+                        for (BoxscoreGameAccount g : read) {
+                            sinks.accept(g);
+                        }
+                        read = Collections.emptyList();
+                    }
                 }
 
                 /* Add game accounts produced by file to master list. */
-                games.addAll(boxReader.getGameAccounts());
+                games.addAll(read);
                 centralizedErrorMessages.addAll(boxReader.getErrorMessages());
+                completedFiles.add(new File(s));
+                completedGameCounts.add(boxReader.getGameCount());
+
+                /* A game found in one file is not looked for in the next. */
+                if (queryType == QUERY_BY_ID) {
+                    gameIDs.removeAll(new HashSet<>(boxReader.getFoundGameIDs()));
+                }
+
+                /* 
+                 * Once the outputs hold exactly the games of the completed
+                 * files, they can be resumed from.
+                 */
+                if (checkpointFileName != null && 
+                        System.nanoTime() - lastCheckpoint >= checkpointSeconds * 1000000000L) {
+                    sinks.flush();
+                    new Checkpoint(run, completedFiles, completedGameCounts, 
+                        (queryType == QUERY_BY_ID) ? gameIDs : null, centralizedErrorMessages,
+                        (hasOutFile && shardWriter == null) ? new File(outFileName) : null,
+                        (shardWriter == null) ? null : shardWriter.getShardLengths(),
+                        (summary != null || partialWriter == null) ? summary :
+                            partialWriter.getSummary()).write(new File(checkpointFileName));
+                    checkpointWritten = true;
+                    lastCheckpoint = System.nanoTime();
+                }
             }
         } catch (Exception e) {
 
@@ -281,52 +870,531 @@ public class TerminalDriver {
             System.out.println("\nAn error has occured in file while processing " +
                 "file " + currFile + ". Cause: \n");
             e.printStackTrace();
+            if (checkpointWritten || resumed != null) {
+                System.out.println("\n[Progress has been saved to " + checkpointFileName + 
+                    ". Run the same command again to resume.]\n");
+            }
             System.exit(0);
         }
+        if (readExecutor != null) {
+            readExecutor.shutdown();
+        }
+        if (idManifest != null) {
+            try {
+                idManifest.save();
+            } catch (IOException e) {
+                System.out.println("\n[The game ID manifest could not be saved: " + 
+                    e.getMessage() + "]\n");
+            }
+        }
 
         /* 
          * Sort games so that they can be printed in ascending order, regardless 
          * of the file from which they originated. 
          */
-        if (writeInOrder) {
-            Collections.sort(games);
-        }
         try {
-            for (BoxscoreGameAccount g : games) {
-                g.printBoxscore(outWriter, BoxscoreFactory.NEWSPAPER_BOXSCORE_KEY);
+            if (writeInOrder) {
+                Collections.sort(games);
+                for (BoxscoreGameAccount g : games) {
+                    sinks.accept(g);
+                }
             }
+            sinks.close();
         } catch (IOException e) {
-            System.out.println("\nAn error occured while printing boxscores.\n");
+            System.out.println("\nAn error occured while writing output.\n");
             e.printStackTrace();
             System.exit(0);
+        } finally {
+            if (shardExecutor != null) {
+                shardExecutor.shutdown();
+            }
         }
 
-        if (hasSummaryFile) {
-            NewspaperSummary summary = new NewspaperSummary(summaryWriter);
-            summary.addGames(games);
-            try {
-                summary.write();
-            } catch (IOException e) {
-                e.printStackTrace();
+        /* The run is complete; there is nothing left to resume. */
+        if (checkpointFileName != null) {
+            new File(checkpointFileName).delete();
+        }
+
+        printErrorMessages(centralizedErrorMessages);
+
+        if (cache != null) {
+            System.out.println("[" + cache.getHits() + " of " + 
+                (cache.getHits() + cache.getMisses()) + " games read from the cache.]");
+            cache.close();
+        }
+
+        if (slowestCount > 0) {
+            System.out.println("[Per-game latencies:]\n");
+            GameLatencies.getInstance().printReport(System.out, slowestCount);
+            System.out.println();
+        }
+
+        /* Finish program. */
+        System.out.println("[Program terminated successfully.]");
+    }
+
+    /** 
+     * @return <code>names</code>, with each zip archive replaced by the
+     *         names of the event files in it, in order.
+     */
+    static LinkedList<String> expandArchives(List<String> names) throws IOException {
+        LinkedList<String> expanded = new LinkedList<>();
+        for (String name : names) {
+            if (SeasonArchive.isZip(name)) {
+                expanded.addAll(SeasonArchive.listEventFiles(new File(name)));
+            } else {
+                expanded.add(name);
+            }
+        }
+        return expanded;
+    }
+
+    /**
+     * Open an event file and read the games selected by the query.
+     *
+     * @param fileName The event file.
+     * @param sink The sink to which each game is passed as it is read, or
+     *        <code>null</code> to keep the games in the reader.
+     * @param cache The cache of parsed games, or <code>null</code>.
+     * @return The reader, which the caller must close.
+     */
+    static RetrosheetEveReader readFile(String fileName, GameSink sink, GameCache cache)
+            throws IOException {
+        /* Without -p, a file in a zip archive uses the TEAM and roster files in it. */
+        File archive = SeasonArchive.getArchive(fileName);
+        RetrosheetEveReader boxReader = new RetrosheetEveReader(fileName, year,
+            (archive != null && !hasRosDir) ? archive : rosDir);
+        if (sink != null) {
+            boxReader.setGameSink(sink);
+        }
+        boxReader.setGameCache(cache);
+        boxReader.setTeamFilter(teamIds);
+
+        if (queryType == QUERY_ALL_GAMES) {
+            boxReader.readAll();
+        } else if (queryType == QUERY_BY_DATES) { 
+            boxReader.readGamesWithinRange(startDate, endDate);
+        } else if (queryType == QUERY_BY_ID) {
+            if (idManifest != null) {
+                boxReader.setGameIdFilter(idManifest.getFilter(new File(fileName)));
+            }
+            boxReader.readGamesByID(gameIDs);
+        }
+        return boxReader;
+    }
+
+    /**
+     * Describe everything that determines a run's output, so that a
+     * checkpoint is only resumed by the run that wrote it.
+     */
+    static String describeRun() {
+        return "year " + year + "\npath " + rosDir.getAbsolutePath() + 
+            "\nquery " + queryType + " " + startDate + " " + endDate + " " + gameIDs +
+            "\ndest " + (hasOutFile ? new File(outFileName).getAbsolutePath() : "") + " " +
+                shardType +
+            "\nsummary " + (hasSummaryFile ? summaryFileName : "") +
+            "\nmap " + ((partialFileName != null) ? 
+                new File(partialFileName).getAbsolutePath() : "") +
+            "\nteams " + ((teamIds != null) ? new TreeSet<>(teamIds) : "") +
+            "\nfiles " + inFileNames;
+    }
+
+    /**
+     * Load the games of the files named, optionally limited as by
+     * <code>newQuery()</code>, then answer questions about them until the
+     * user quits.
+     */
+    static void runConsole() {
+        List<String> errorMessages = new LinkedList<>();
+        SeasonIndex index;
+        GameCache cache = openGameCache();
+        try {
+            GameQuery query = newQuery().usingCache(cache);
+            index = new SeasonIndex(query.list(errorMessages));
+        } catch (IOException e) {
+            System.out.println("\nAn error occured while loading games: " + 
+                e.getMessage() + "\n");
+            System.exit(1);
+            return;
+        } finally {
+            if (cache != null) {
+                cache.close();
             }
         }
+        printErrorMessages(errorMessages);
+
+        try {
+            new QueryConsole(index).run(new BufferedReader(new InputStreamReader(System.in)),
+                System.out);
+        } catch (IOException e) {
+            System.out.println("\nAn error occured while reading commands.\n");
+            e.printStackTrace();
+            System.exit(1);
+        }
+        System.out.println("[Program terminated successfully.]");
+    }
+
+    /** 
+     * A file read ahead of the outputs: its reader, already closed, and the
+     * games <code>close()</code> returned.
+     */
+    static final class FileRead {
+        final RetrosheetEveReader reader;
+        final List<BoxscoreGameAccount> games;
+
+        FileRead(RetrosheetEveReader reader) throws IOException {
+            this.reader = reader;
+            this.games = reader.close();
+        }
+    }
 
-        if (!centralizedErrorMessages.isEmpty()) {
+    /** Print the messages of game accounts excluded from the output, if any. */
+    static void printErrorMessages(List<String> errorMessages) {
+        if (!errorMessages.isEmpty()) {
             System.out.println(
                 "One or more game accounts were excluded from the program's output\n" +
                 "due to runtime errors that occured while those games were being processed.\n" +
                 "Rather than terminating the entire program, those game accounts have been\n" +
                 "catalogued here:\n");
             
-            i = 1;
-            for (String s : centralizedErrorMessages) {
+            int i = 1;
+            for (String s : errorMessages) {
                 System.out.println(String.format("%-5s", i + ". ") + s);
                 i++;
             }
             System.out.println("\n");
         }
+    }
 
-        /* Finish program. */
+    /** 
+     * Write every game once, then keep the outputs up to date as files change,
+     * until the program is stopped.
+     */
+    static void runWatcher() {
+        /* Watch mode maintains complete files; it cannot filter or stream games. */
+        if (queryType != QUERY_ALL_GAMES || hasArrowPrefix || teamIds != null ||
+                (!hasOutFile && !hasSummaryFile) ||
+                (hasSummaryFile && summaryFileName.equalsIgnoreCase("CONSOLE"))) {
+            System.out.println("\n[Watch mode requires -dest or -summary files, and " +
+                "cannot be combined with -i, -s, -e, -team or -arrow. Type -h or -help " +
+                "for help.]\n");
+            System.exit(1);
+        }
+
+        List<File> files = new LinkedList<>();
+        for (String s : inFileNames) {
+            files.add(new File(s));
+        }
+        SeasonWatcher watcher = new SeasonWatcher(files, year, rosDir, writeInOrder);
+        try {
+            if (hasOutFile && shardType != 0) {
+                watcher.setShardDirectory(new File(outFileName), shardType);
+            } else if (hasOutFile) {
+                watcher.setBoxscoreFile(new File(outFileName));
+            }
+            if (hasSummaryFile) {
+                watcher.setSummaryFile(new File(summaryFileName));
+            }
+
+            System.out.println("[" + watcher.update() + "]");
+            printErrorMessages(watcher.getErrorMessages());
+            System.out.println("[Watching for changes. Press Ctrl-C to stop.]");
+
+            watcher.watch(new SeasonWatcher.UpdateListener() {
+                @Override
+                public void updated(String result, List<String> errorMessages) {
+                    System.out.println("[" + result + "]");
+                    printErrorMessages(errorMessages);
+                }
+            });
+        } catch (IOException e) {
+            System.out.println("\nAn error occured while writing output.\n");
+            e.printStackTrace();
+            System.exit(0);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** @return the cache named by -cache, or <code>null</code> if there is none. */
+    static GameCache openGameCache() {
+        if (cacheDirName == null) {
+            return null;
+        }
+        try {
+            return new GameCache(new File(cacheDirName), cacheMegabytes * 1024 * 1024);
+        } catch (IOException e) {
+            System.out.println("\n[" + e.getMessage() + ". Reading without a cache.]\n");
+            return null;
+        }
+    }
+
+    /** Merge the partial summaries named and write their summary. */
+    static void runReduce() {
+        BufferedWriter writer;
+        try {
+            if (!hasSummaryFile || summaryFileName.equalsIgnoreCase("CONSOLE")) {
+                writer = new BufferedWriter(new OutputStreamWriter(System.out));
+            } else {
+                writer = new BufferedWriter(new FileWriter(summaryFileName));
+            }
+            NewspaperSummary summary = new NewspaperSummary(writer);
+            for (String s : inFileNames) {
+                summary.mergePartial(new File(s));
+            }
+            summary.write();
+            if (hasSummaryFile && !summaryFileName.equalsIgnoreCase("CONSOLE")) {
+                writer.close();
+            }
+        } catch (IOException e) {
+            System.out.println("\nAn error occured while merging partial summaries.\n");
+            e.printStackTrace();
+            System.exit(1);
+        }
+        System.out.println("[Merged " + inFileNames.size() + " partial summaries.]");
+    }
+
+    /** Index the players of the files named. */
+    static void runBuildIndex() {
+        List<File> files = new LinkedList<>();
+        for (String s : inFileNames) {
+            files.add(new File(s));
+        }
+        try {
+            File indexFile = new File(buildIndexFileName);
+            int games = PlayerIndex.build(indexFile, files);
+            System.out.println("[Indexed " + PlayerIndex.open(indexFile).getPlayerCount() + 
+                " players in " + games + " games of " + files.size() + " files.]");
+        } catch (IOException e) {
+            System.out.println("\nAn error occured while building the index.\n");
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+
+    /** Compile each of the files named into the -compile directory. */
+    static void runCompile() {
+        File directory = new File(compileDirName);
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            System.out.println("\n[Cannot create directory " + compileDirName + ".]\n");
+            System.exit(1);
+        }
+        int games = 0;
+        try {
+            for (String s : inFileNames) {
+                File eveFile = new File(s);
+                games += CompiledEventFile.compile(eveFile, new File(directory,
+                    eveFile.getName() + CompiledEventFile.EXTENSION));
+            }
+        } catch (IOException e) {
+            System.out.println("\nAn error occured while compiling the files.\n");
+            e.printStackTrace();
+            System.exit(1);
+        }
+        System.out.println("[Compiled " + games + " games of " + inFileNames.size() +
+            " files.]");
+    }
+
+    /** Index the dates of the games of the files named. */
+    static void runBuildCalendar() {
+        List<File> files = new LinkedList<>();
+        for (String s : inFileNames) {
+            files.add(new File(s));
+        }
+        try {
+            File indexFile = new File(buildCalendarFileName);
+            int games = CalendarIndex.build(indexFile, files);
+            System.out.println("[Indexed " + games + " games on " + 
+                CalendarIndex.open(indexFile).getDateCount() + " dates of " + files.size() + 
+                " files.]");
+        } catch (IOException e) {
+            System.out.println("\nAn error occured while building the calendar.\n");
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+
+    /** 
+     * Write the games of the -player, in the -seasons and dates requested,
+     * reading only those games from the files indexed by -index.
+     */
+    static void runPlayerQuery() {
+        try {
+            GameQuery query = newQuery().player(playerId)
+                .usingPlayerIndex(PlayerIndex.open(new File(indexFileName)));
+            int count = writeQueriedGames(query);
+            System.out.println("[" + count + " games of " + playerId + 
+                " read from the index.]");
+        } catch (IOException e) {
+            System.out.println("\nAn error occured while reading indexed games: " + 
+                e.getMessage() + "\n");
+            System.exit(1);
+        }
+    }
+
+    /** 
+     * Write the games played from the -from date through the -to date,
+     * reading only those games from the files indexed by -calendar.
+     */
+    static void runCalendarQuery() {
+        try {
+            GameQuery query = newQuery()
+                .usingCalendar(CalendarIndex.open(new File(calendarFileName)));
+            int count = writeQueriedGames(query);
+            System.out.println("[" + count + " games read from the calendar.]");
+        } catch (IOException e) {
+            System.out.println("\nAn error occured while reading indexed games: " + 
+                e.getMessage() + "\n");
+            System.exit(1);
+        }
+    }
+
+    /**
+     * @return A query of the files named, limited to the -seasons, -from and
+     *         -to, and -s and -e dates requested, and to the games of a
+     *         -team. Without -r, each game is read with the rosters beside
+     *         its file, for its own season.
+     */
+    static GameQuery newQuery() {
+        List<File> files = new LinkedList<>();
+        for (String s : inFileNames) {
+            files.add(new File(s));
+        }
+        GameQuery query = GameQuery.over(files)
+            .seasons(Integer.parseInt(firstSeason), Integer.parseInt(lastSeason))
+            .dates(String.format("%08d", fromDate), String.format("%08d", toDate));
+        if (queryType == QUERY_BY_DATES) {
+            query.monthDays((startDate == null) ? "0000" : startDate,
+                (endDate == null) ? "9999" : endDate);
+        }
+        if (teamIds != null) {
+            query.teams(teamIds.toArray(new String[teamIds.size()]));
+        }
+        if (hasRosDir) {
+            query.rosters(rosDir);
+        }
+        return query;
+    }
+
+    /**
+     * Run a query, writing the games it selects to the -dest (by default,
+     * this terminal) and -summary outputs.
+     *
+     * @return The number of games written.
+     */
+    static int writeQueriedGames(GameQuery query) throws IOException {
+        List<String> errorMessages = new LinkedList<>();
+        TeeGameSink sinks = openQuerySinks();
+        int count = query.run(sinks, errorMessages);
+        closeQuerySinks(sinks);
+        printErrorMessages(errorMessages);
+        return count;
+    }
+
+    /** 
+     * Write the games saved in -store that are within the -seasons, -from and
+     * -to, and -s and -e dates requested, and named by -i, if given, and are
+     * of a -team, to the -dest and -summary outputs, without parsing any of
+     * them.
+     */
+    static void runStoreQuery() {
+        try {
+            GameStore store = new GameStore(new File(storeDirName));
+            int count;
+            try {
+                GameQuery query = newQuery().usingStore(store);
+                if (queryType == QUERY_BY_ID) {
+                    query.gameIds(gameIDs);
+                }
+                count = writeQueriedGames(query);
+            } finally {
+                store.close();
+            }
+            System.out.println("[" + count + " games read from the store.]");
+        } catch (IOException e) {
+            System.out.println("\nAn error occured while reading stored games: " + 
+                e.getMessage() + "\n");
+            System.exit(1);
+        }
+    }
+
+    /** @return The -dest (by default, this terminal) and -summary outputs of a query. */
+    static TeeGameSink openQuerySinks() throws IOException {
+        BufferedWriter writer = hasOutFile ? 
+            new BufferedWriter(new FileWriter(outFileName)) :
+            new BufferedWriter(new OutputStreamWriter(System.out));
+        TeeGameSink sinks = new TeeGameSink();
+        sinks.add(new BoxscoreGameSink(writer, BoxscoreFactory.NEWSPAPER_BOXSCORE_KEY,
+            hasOutFile));
+        if (hasSummaryFile) {
+            summaryWriter = summaryFileName.equalsIgnoreCase("CONSOLE") ? 
+                new BufferedWriter(new OutputStreamWriter(System.out)) :
+                new BufferedWriter(new FileWriter(summaryFileName));
+            sinks.add(new NewspaperSummary(summaryWriter));
+        }
+        return sinks;
+    }
+
+    /** Close the outputs of <code>openQuerySinks()</code>, leaving the console open. */
+    static void closeQuerySinks(TeeGameSink sinks) throws IOException {
+        sinks.close();
+        if (hasSummaryFile && !summaryFileName.equalsIgnoreCase("CONSOLE")) {
+            summaryWriter.close();
+        }
+    }
+
+    /** 
+     * Run a representative workload that writes a class-data archive.
+     *
+     * @return The exit status of the workload.
+     */
+    static int runCdsTraining(List<String> trainingArgs) {
+        if (!ClassDataArchive.isSupported()) {
+            System.out.println("\n[Class-data archives can only be written on Java 13 " +
+                "or later.]\n");
+            return 1;
+        }
+        File archive = ClassDataArchive.getDefaultFile();
+        try {
+            int status = ClassDataArchive.train(archive, trainingArgs);
+            if (status == 0 && archive.isFile()) {
+                System.out.println("[Class-data archive written to " + archive.getPath() + 
+                    ". The jopenboxscore launcher will use it from now on.]");
+            } else {
+                System.out.println("\n[No class-data archive was written.]\n");
+            }
+            return status;
+        } catch (IOException e) {
+            System.out.println("\n[The training run could not be started: " + 
+                e.getMessage() + "]\n");
+            return 1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 1;
+        }
+    }
+
+    /** Serve requests until a client sends SHUTDOWN. */
+    static void runDaemon() {
+        BoxscoreDaemon daemon = new BoxscoreDaemon(daemonPort, year, rosDir,
+            Runtime.getRuntime().availableProcessors());
+        GameCache cache = openGameCache();
+        daemon.setGameCache(cache);
+        try {
+            int port = daemon.bind();
+            System.out.println("[Listening on " + 
+                InetAddress.getLoopbackAddress().getHostAddress() + ":" + 
+                port + ". Send SHUTDOWN to stop.]");
+            daemon.serve();
+        } catch (IOException e) {
+            System.out.println("\nThe daemon could not be started.\n");
+            e.printStackTrace();
+            System.exit(1);
+        } finally {
+            if (cache != null) {
+                cache.close();
+            }
+        }
         System.out.println("[Program terminated successfully.]");
     }
 
@@ -342,7 +1410,9 @@ public class TerminalDriver {
         );
 
         System.out.println(
-            "Usage: jopenboxscore [options] [files...]\n"
+            "Usage: jopenboxscore [options] [files...]\n\n" +
+            " where files may be gzipped (.gz), and a zip archive (.zip) stands for\n" +
+            " every event file in it. Nothing is extracted to disk.\n"
         );
 
         System.out.println(
@@ -366,19 +1436,137 @@ public class TerminalDriver {
             "                  The end date (MMDD) of a range through which games should\n" +
             "                  be processed. If no start date is specified, games will be\n" +
             "                  processed from the start of each file through this end date.\n" +
+            "    -q            Load the games of the requested files, then answer\n" +
+            "                  questions about them (boxscores, a team's month, or\n" +
+            "                  head-to-head results) typed one per line.\n" +
             "    -d <file name>\n" +
             "    -dest <file name>\n" +
             "                  Specify a file to which results will be printed. By default,\n" +
             "                  results are printed to this terminal.\n" +
+            "    -shard <team|month>\n" +
+            "                  Write boxscores to one file per home team or per month\n" +
+            "                  instead of a single file. The files are written concurrently\n" +
+            "                  to the directory given by -dest.\n" +
             "    -summary <file name>\n" +
             "                  Specify a file location to which an overall statistical summary of\n" +
             "                  the processed files will be written. If 'CONSOLE' is entered as the\n" +
             "                  argument, this summary will be printed to the terminal.\n" +
+            "    -arrow <prefix>\n" +
+            "                  Export team, batting and pitching lines of the processed\n" +
+            "                  games as Apache Arrow IPC streams, written to the files\n" +
+            "                  <prefix>-teams.arrows, <prefix>-batting.arrows and\n" +
+            "                  <prefix>-pitching.arrows.\n" +
+            "    -arrowbatch <rows>\n" +
+            "                  The number of rows per Arrow record batch (default 4096).\n" +
+            "    -cache <directory>\n" +
+            "                  Keep every game read in this directory, and on later runs\n" +
+            "                  load the games whose lines, and whose TEAM and roster\n" +
+            "                  files' modification times and lengths, are unchanged\n" +
+            "                  instead of reading them again.\n" +
+            "    -cachesize <MB>\n" +
+            "                  The most space the -cache directory may use (default 256).\n" +
+            "                  The least recently used games are removed first.\n" +
+            "    -checkpoint <file>\n" +
+            "                  Save the run's progress to this file after each event file,\n" +
+            "                  at most once every -checkpointevery seconds. If the file\n" +
+            "                  exists, resume from it: completed files are skipped and the\n" +
+            "                  output is the same as that of an uninterrupted run. The\n" +
+            "                  file is deleted when the run completes. Requires -dest, and\n" +
+            "                  cannot be combined with -o or -arrow.\n" +
+            "    -checkpointevery <seconds>\n" +
+            "                  The least time between checkpoints (default 60; 0 saves\n" +
+            "                  after every event file).\n" +
+            "    -map <file>   Save the totals of the summary of the games processed to\n" +
+            "                  this partial summary file, in a compact binary form, instead\n" +
+            "                  of printing boxscores (unless -dest is also given).\n" +
+            "    -reduce       Merge the partial summary files named, written by -map,\n" +
+            "                  and write their summary to the -summary file (by default,\n" +
+            "                  this terminal).\n" +
+            "    -cdstrain     Run the rest of the command as a training run, writing the\n" +
+            "                  classes it loads to a class-data archive, jopenboxscore.jsa,\n" +
+            "                  next to the jar. The jopenboxscore launcher script uses the\n" +
+            "                  archive to start faster. Requires Java 13 or later.\n" +
+            "    -vthreads     Read event files ahead, several at a time, and write each\n" +
+            "                  -shard file on a thread of its own: a virtual thread on\n" +
+            "                  Java 21 or later, or one of a pool of platform threads\n" +
+            "                  (one per processor) otherwise. The output is unchanged.\n" +
+            "    -buildindex <index file>\n" +
+            "                  Index the players of the files named: for each player, the\n" +
+            "                  games played, with the team and whether the player batted\n" +
+            "                  or pitched. Keep the index beside the files; rebuild it\n" +
+            "                  whenever they change.\n" +
+            "    -index <index file>\n" +
+            "                  The index to read with -player.\n" +
+            "    -player <player ID>\n" +
+            "                  Process every game of this player found by the -index, in\n" +
+            "                  the -seasons given and between the -s and -e dates, if any,\n" +
+            "                  parsing no other game. No files need be named, and each\n" +
+            "                  season uses its own year's roster files.\n" +
+            "    -seasons <first>[-<last>]\n" +
+            "                  The season (YYYY), or range of seasons, of the -player's\n" +
+            "                  games to process. By default, every season indexed.\n" +
+            "    -buildcalendar <calendar file>\n" +
+            "                  Index the games of the files named by date, across seasons.\n" +
+            "                  Keep the calendar beside the files; rebuild it whenever\n" +
+            "                  they change.\n" +
+            "    -calendar <calendar file>\n" +
+            "                  Process every game found by the calendar from the -from\n" +
+            "                  date through the -to date, parsing no other game. No files\n" +
+            "                  need be named, and each season uses its own year's roster\n" +
+            "                  files. -from and -to also limit -player's games.\n" +
+            "    -from <date>\n" +
+            "    -to <date>    The first and last dates (YYYYMMDD or YYYY-MM-DD), which may\n" +
+            "                  be seasons apart, of the games to process. By default, the\n" +
+            "                  first and last dates indexed.\n" +
+            "    -team <team IDs>\n" +
+            "                  Process only the games of these teams: one team ID, such as\n" +
+            "                  NYA, or several separated by commas. Other games are skipped\n" +
+            "                  as soon as their info lines name their teams, without\n" +
+            "                  reading their plays or rosters.\n" +
+            "    -savestore <directory>\n" +
+            "                  Also save every game processed to the game store in this\n" +
+            "                  directory, creating it if necessary.\n" +
+            "    -store <directory>\n" +
+            "                  Process the games saved in this game store, without\n" +
+            "                  reading any event file. -seasons, -from, -to, -s, -e, -i\n" +
+            "                  and -team choose among them.\n" +
+            "    -compile <directory>\n" +
+            "                  Compile the files named into this directory, each as the\n" +
+            "                  file's name followed by .evb, to be named in place of the\n" +
+            "                  event file by later runs, which then read its games\n" +
+            "                  without scanning text. Compile a file again whenever it\n" +
+            "                  changes.\n" +
+            "    -idmanifest <file>\n" +
+            "                  With -i, keep a small filter of the game IDs of each file\n" +
+            "                  in this manifest, and skip the files that cannot hold any\n" +
+            "                  of the games requested. A file's filter is rebuilt when the\n" +
+            "                  file changes.\n" +
+            "    -slowest <n>  After the run, print the 50th, 99th and 99.9th percentile\n" +
+            "                  and maximum time taken to parse and to render a game, and\n" +
+            "                  the n slowest games of each (at most 100), with the file\n" +
+            "                  and lines each was read from.\n" +
+            "    -jmx          Publish the run's progress (games, lines and bytes read,\n" +
+            "                  failures, queue depth and time spent per phase, in total and\n" +
+            "                  per file) as MBeans, to be watched with JConsole or any\n" +
+            "                  other JMX client while the run goes on.\n" +
+            "    -watch        After writing the -dest and -summary files, keep them up to\n" +
+            "                  date as the event, roster and TEAM files change, re-reading\n" +
+            "                  only the games that were added or changed.\n" +
+            "    -daemon <port>\n" +
+            "                  Stay resident and serve boxscore and summary requests on\n" +
+            "                  this port of the loopback interface (0 picks a free port),\n" +
+            "                  keeping TEAM, roster and parsed event files in memory.\n" +
+            "                  Send one-line commands such as 'BOX <file> [IDs...]',\n" +
+            "                  'RANGE <file> <MMDD> <MMDD>', 'SUMMARY <files...>' or\n" +
+            "                  'SHUTDOWN'; each response ends with a line holding '.'.\n" +
             "    -p <directory>\n" +
             "    -path <directory>\n" +
             "                  Specify a directory containing the necessary .ROS and TEAM\n" +
             "                  files. By default, this is assumed to be the directory from\n" +
-            "                  which this program is executed.\n" +
+            "                  which this program is executed, or for event files in a zip\n" +
+            "                  archive, the archive. A zip archive may be given instead of a\n" +
+            "                  directory, and a file missing from a directory is read from\n" +
+            "                  the same name ending with .gz.\n" +
             "    -o -order     Print boxscores ordered by date. By default, results are\n" +
             "                  printed in the order in which they were read.\n" + 
             "    -h -help      Print this message.\n"
@@ -0,0 +1,379 @@
+package com.github.alexthesuperb.jopenboxscore;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+
+/**
+ * Check the bytes written by <code>FlatBufferEncoder</code>, and read back
+ * the schema, dictionary, delta dictionary and record batch messages and
+ * end-of-stream marker written by <code>ArrowStreamWriter</code> and
+ * <code>ArrowStatsExporter</code>, following the Arrow IPC streaming format.
+ */
+public class ArrowStreamWriterTest {
+
+    private static final short HEADER_SCHEMA = 1;
+    private static final short HEADER_DICTIONARY_BATCH = 2;
+    private static final short HEADER_RECORD_BATCH = 3;
+
+    /** Reads tables, vectors and strings out of a FlatBuffer. */
+    private static final class FlatBuffer {
+        private final ByteBuffer buf;
+
+        FlatBuffer(byte[] bytes) {
+            buf = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        int root() {
+            return buf.getInt(0);
+        }
+
+        /* @return the position of a field of a table, or 0 if it is absent. */
+        int field(int table, int field) {
+            int vtable = table - buf.getInt(table);
+            if (4 + 2 * field >= buf.getShort(vtable)) {
+                return 0;
+            }
+            int offset = buf.getShort(vtable + 4 + 2 * field);
+            return (offset == 0) ? 0 : table + offset;
+        }
+
+        int reference(int table, int field) {
+            int position = field(table, field);
+            return position + buf.getInt(position);
+        }
+
+        byte getByte(int table, int field) {
+            int position = field(table, field);
+            return (position == 0) ? 0 : buf.get(position);
+        }
+
+        short getShort(int table, int field) {
+            int position = field(table, field);
+            return (position == 0) ? 0 : buf.getShort(position);
+        }
+
+        int getInt(int table, int field) {
+            int position = field(table, field);
+            return (position == 0) ? 0 : buf.getInt(position);
+        }
+
+        long getLong(int table, int field) {
+            int position = field(table, field);
+            return (position == 0) ? 0 : buf.getLong(position);
+        }
+
+        String getString(int table, int field) {
+            int string = reference(table, field);
+            byte[] utf8 = new byte[buf.getInt(string)];
+            for (int i = 0; i < utf8.length; i++) {
+                utf8[i] = buf.get(string + 4 + i);
+            }
+            return new String(utf8, StandardCharsets.UTF_8);
+        }
+
+        /* @return the tables referenced by a vector. */
+        int[] getTables(int table, int field) {
+            int vector = reference(table, field);
+            int[] tables = new int[buf.getInt(vector)];
+            for (int i = 0; i < tables.length; i++) {
+                int element = vector + 4 + 4 * i;
+                tables[i] = element + buf.getInt(element);
+            }
+            return tables;
+        }
+
+        /* @return a vector of structs of two longs, flattened. */
+        long[] getLongPairs(int table, int field) {
+            int vector = reference(table, field);
+            long[] pairs = new long[2 * buf.getInt(vector)];
+            assertEquals("Structs of longs must be 8-byte aligned.", 0, (vector + 4) % 8);
+            for (int i = 0; i < pairs.length; i++) {
+                pairs[i] = buf.getLong(vector + 4 + 8 * i);
+            }
+            return pairs;
+        }
+    }
+
+    /** One encapsulated IPC message: its metadata and body. */
+    private static final class Message {
+        final FlatBuffer metadata;
+        final int message;
+        final ByteBuffer body;
+
+        Message(byte[] metadata, byte[] body) {
+            this.metadata = new FlatBuffer(metadata);
+            this.message = this.metadata.root();
+            this.body = ByteBuffer.wrap(body).order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        byte getHeaderType() {
+            return metadata.getByte(message, 1);
+        }
+
+        int getHeader() {
+            return metadata.reference(message, 2);
+        }
+
+        /* The header of a record batch, or the data of a dictionary batch. */
+        int getRecordBatch() {
+            return (getHeaderType() == HEADER_DICTIONARY_BATCH) ?
+                metadata.reference(getHeader(), 1) : getHeader();
+        }
+
+        byte[] getBuffer(int index) {
+            long[] buffers = metadata.getLongPairs(getRecordBatch(), 2);
+            byte[] bytes = new byte[(int) buffers[2 * index + 1]];
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = body.get((int) buffers[2 * index] + i);
+            }
+            return bytes;
+        }
+
+        int[] getInts(int buffer, int count) {
+            ByteBuffer data = ByteBuffer.wrap(getBuffer(buffer)).order(ByteOrder.LITTLE_ENDIAN);
+            int[] ints = new int[count];
+            for (int i = 0; i < count; i++) {
+                ints[i] = data.getInt();
+            }
+            return ints;
+        }
+
+        boolean[] getBooleans(int buffer, int count) {
+            byte[] bits = getBuffer(buffer);
+            boolean[] values = new boolean[count];
+            for (int i = 0; i < count; i++) {
+                values[i] = (bits[i / 8] & (1 << (i % 8))) != 0;
+            }
+            return values;
+        }
+
+        /* @return the strings of a column whose offsets are in buffer, and data in buffer + 1. */
+        List<String> getStrings(int buffer, int count) {
+            int[] offsets = getInts(buffer, count + 1);
+            byte[] data = getBuffer(buffer + 1);
+            List<String> strings = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                strings.add(new String(data, offsets[i], offsets[i + 1] - offsets[i],
+                    StandardCharsets.UTF_8));
+            }
+            return strings;
+        }
+    }
+
+    /** Split a stream into its messages, checking framing, alignment and the EOS marker. */
+    private static List<Message> readStream(byte[] stream) {
+        ByteBuffer in = ByteBuffer.wrap(stream).order(ByteOrder.LITTLE_ENDIAN);
+        List<Message> messages = new ArrayList<>();
+        while (true) {
+            assertEquals("Continuation marker", 0xFFFFFFFF, in.getInt());
+            int length = in.getInt();
+            if (length == 0) {
+                break;
+            }
+            assertEquals("Metadata must be padded to 8 bytes.", 0, length % 8);
+            byte[] metadata = new byte[length];
+            in.get(metadata);
+            FlatBuffer fb = new FlatBuffer(metadata);
+            assertEquals("Metadata version V5", 4, fb.getShort(fb.root(), 0));
+            long bodyLength = fb.getLong(fb.root(), 3);
+            assertEquals("Bodies are made of 8-byte aligned buffers.", 0, bodyLength % 8);
+            byte[] body = new byte[(int) bodyLength];
+            in.get(body);
+            messages.add(new Message(metadata, body));
+        }
+        assertFalse("Bytes after the end-of-stream marker", in.hasRemaining());
+        return messages;
+    }
+
+    private static byte[] bytes(int... values) {
+        byte[] bytes = new byte[values.length];
+        for (int i = 0; i < values.length; i++) {
+            bytes[i] = (byte) values[i];
+        }
+        return bytes;
+    }
+
+    @Test
+    public void flatBufferTableBytes() {
+        FlatBufferEncoder fb = new FlatBufferEncoder(64);
+        int name = fb.createString("ab");
+        fb.startTable(3);
+        fb.addIntField(0, 7);
+        fb.addOffsetField(2, name);
+        byte[] encoded = fb.finish(fb.endTable());
+
+        /*
+         * Root offset; padding; vtable of three fields, the second absent;
+         * table: vtable offset, reference to the string, the int; string.
+         */
+        assertArrayEquals(bytes(
+            0x10, 0, 0, 0,
+            0, 0,
+            0x0a, 0, 0x0c, 0, 0x08, 0, 0, 0, 0x04, 0,
+            0x0a, 0, 0, 0, 0x08, 0, 0, 0, 0x07, 0, 0, 0,
+            0x02, 0, 0, 0, 'a', 'b', 0, 0), encoded);
+    }
+
+    @Test
+    public void writesSchemaDictionariesAndBatches() throws IOException {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        ArrowStreamWriter writer = new ArrowStreamWriter(stream, 2);
+        int n = writer.addIntColumn("n");
+        int b = writer.addBooleanColumn("b");
+        int s = writer.addStringColumn("s");
+        int d = writer.addDictionaryColumn("d");
+        Object[][] rows = {{1, true, "a", "x"}, {2, false, "", "y"},
+                           {3, true, "ccc", "x"}, {-4, false, "é", "z"},
+                           {5, true, null, "y"}};
+        for (Object[] row : rows) {
+            writer.setInt(n, (Integer) row[0]);
+            writer.setBoolean(b, (Boolean) row[1]);
+            writer.setString(s, (String) row[2]);
+            writer.setString(d, (String) row[3]);
+            writer.endRow();
+        }
+        writer.close();
+
+        List<Message> messages = readStream(stream.toByteArray());
+        List<Byte> types = new ArrayList<>();
+        for (Message message : messages) {
+            types.add(message.getHeaderType());
+        }
+        /* The last batch adds no dictionary entry, so no delta precedes it. */
+        assertEquals(Arrays.asList((byte) HEADER_SCHEMA, (byte) HEADER_DICTIONARY_BATCH,
+            (byte) HEADER_RECORD_BATCH, (byte) HEADER_DICTIONARY_BATCH,
+            (byte) HEADER_RECORD_BATCH, (byte) HEADER_RECORD_BATCH), types);
+
+        /* Schema: names, types, and the dictionary's ID and Int32 index type. */
+        Message schema = messages.get(0);
+        FlatBuffer fb = schema.metadata;
+        int[] fields = fb.getTables(schema.getHeader(), 1);
+        assertEquals(4, fields.length);
+        String[] names = {"n", "b", "s", "d"};
+        byte[] typeIds = {2, 6, 5, 5};
+        for (int i = 0; i < fields.length; i++) {
+            assertEquals(names[i], fb.getString(fields[i], 0));
+            assertEquals(0, fb.getByte(fields[i], 1));
+            assertEquals(typeIds[i], fb.getByte(fields[i], 2));
+            assertEquals(0, fb.getTables(fields[i], 5).length);
+            assertEquals(i == d, fb.field(fields[i], 4) != 0);
+        }
+        int intType = fb.reference(fields[n], 3);
+        assertEquals(32, fb.getInt(intType, 0));
+        assertEquals(1, fb.getByte(intType, 1));
+        int dictionary = fb.reference(fields[d], 4);
+        assertEquals(d, fb.getLong(dictionary, 0));
+        assertEquals(32, fb.getInt(fb.reference(dictionary, 1), 0));
+
+        /* The full dictionary, then a delta holding only the new entry. */
+        Message full = messages.get(1);
+        assertEquals(d, full.metadata.getLong(full.getHeader(), 0));
+        assertEquals(0, full.metadata.getByte(full.getHeader(), 2));
+        assertEquals(2, full.metadata.getLong(full.getRecordBatch(), 0));
+        assertEquals(Arrays.asList("x", "y"), full.getStrings(1, 2));
+        Message delta = messages.get(3);
+        assertEquals(1, delta.metadata.getByte(delta.getHeader(), 2));
+        assertEquals(Arrays.asList("z"), delta.getStrings(1, 1));
+
+        /* Record batches: validity buffers are empty; codes index the dictionary. */
+        int[][] ns = {{1, 2}, {3, -4}, {5}};
+        boolean[][] bs = {{true, false}, {true, false}, {true}};
+        String[][] ss = {{"a", ""}, {"ccc", "é"}, {""}};
+        int[][] ds = {{0, 1}, {0, 2}, {1}};
+        int batch = 0;
+        for (Message message : messages) {
+            if (message.getHeaderType() != HEADER_RECORD_BATCH) {
+                continue;
+            }
+            int count = ns[batch].length;
+            FlatBuffer meta = message.metadata;
+            assertEquals(count, meta.getLong(message.getHeader(), 0));
+            long[] nodes = meta.getLongPairs(message.getHeader(), 1);
+            assertArrayEquals(new long[] {count, 0, count, 0, count, 0, count, 0}, nodes);
+            long[] buffers = meta.getLongPairs(message.getHeader(), 2);
+            assertEquals(9, buffers.length / 2);
+            for (int i = 0; i < buffers.length; i += 2) {
+                assertEquals(0, buffers[i] % 8);
+            }
+            assertEquals(0, message.getBuffer(0).length);
+            assertArrayEquals(ns[batch], message.getInts(1, count));
+            assertTrue(Arrays.equals(bs[batch], message.getBooleans(3, count)));
+            assertEquals(Arrays.asList(ss[batch]), message.getStrings(5, count));
+            assertArrayEquals(ds[batch], message.getInts(8, count));
+            batch++;
+        }
+    }
+
+    @Test
+    public void emptyStreamHasSchemaAndEndMarker() throws IOException {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        ArrowStreamWriter writer = new ArrowStreamWriter(stream);
+        writer.addDictionaryColumn("d");
+        writer.close();
+        List<Message> messages = readStream(stream.toByteArray());
+        assertEquals(1, messages.size());
+        assertEquals(HEADER_SCHEMA, messages.get(0).getHeaderType());
+        byte[] bytes = stream.toByteArray();
+        assertArrayEquals(bytes(0xff, 0xff, 0xff, 0xff, 0, 0, 0, 0),
+            Arrays.copyOfRange(bytes, bytes.length - 8, bytes.length));
+    }
+
+    @Test
+    public void exportedTeamsMatchGames() throws IOException {
+        List<BoxscoreGameAccount> games = TestGames.readGames("2018NYA.EVA");
+        ByteArrayOutputStream teams = new ByteArrayOutputStream();
+        ByteArrayOutputStream batting = new ByteArrayOutputStream();
+        ByteArrayOutputStream pitching = new ByteArrayOutputStream();
+        ArrowStatsExporter exporter = new ArrowStatsExporter(teams, batting, pitching, 16);
+        exporter.addGames(games);
+        exporter.write();
+
+        /* Rebuild game_id and team_id, the first and third columns, one batch at a time. */
+        List<String> dictionary = new ArrayList<>();
+        List<String> gameIds = new ArrayList<>();
+        List<String> teamIds = new ArrayList<>();
+        List<Message> messages = readStream(teams.toByteArray());
+        int[] fields = messages.get(0).metadata.getTables(messages.get(0).getHeader(), 1);
+        assertEquals("game_id", messages.get(0).metadata.getString(fields[0], 0));
+        assertEquals("team_id", messages.get(0).metadata.getString(fields[2], 0));
+        for (Message message : messages) {
+            if (message.getHeaderType() == HEADER_DICTIONARY_BATCH &&
+                    message.metadata.getLong(message.getHeader(), 0) == 2) {
+                int count = (int) message.metadata.getLong(message.getRecordBatch(), 0);
+                dictionary.addAll(message.getStrings(1, count));
+            } else if (message.getHeaderType() == HEADER_RECORD_BATCH) {
+                int count = (int) message.metadata.getLong(message.getHeader(), 0);
+                gameIds.addAll(message.getStrings(1, count));
+                /* game_id and date take three buffers each. */
+                for (int code : message.getInts(7, count)) {
+                    teamIds.add(dictionary.get(code));
+                }
+            }
+        }
+
+        List<String> expectedGameIds = new ArrayList<>();
+        List<String> expectedTeamIds = new ArrayList<>();
+        for (BoxscoreGameAccount game : games) {
+            expectedGameIds.add(game.getGameID());
+            expectedGameIds.add(game.getGameID());
+            expectedTeamIds.add(game.getVisitingTeamId());
+            expectedTeamIds.add(game.getHomeTeamId());
+        }
+        assertEquals(expectedGameIds, gameIds);
+        assertEquals(expectedTeamIds, teamIds);
+        assertTrue(readStream(batting.toByteArray()).size() > 2);
+        assertTrue(readStream(pitching.toByteArray()).size() > 2);
+    }
+}
@@ -0,0 +1,180 @@
+package com.github.alexthesuperb.jopenboxscore;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Drive a daemon over a loopback connection: check that responses are
+ * framed and dot-stuffed, that failed commands get <code>ERR</code>, that a
+ * changed event file is parsed again, and that <code>SHUTDOWN</code> stops
+ * the daemon.
+ */
+public class BoxscoreDaemonTest {
+
+    private BoxscoreDaemon daemon;
+    private Thread server;
+    private int port;
+    private Socket socket;
+    private BufferedReader in;
+    private BufferedWriter out;
+
+    @Before
+    public void start() throws IOException {
+        daemon = new BoxscoreDaemon(0, "2018", TestGames.ROS_DIR, 2);
+        port = daemon.bind();
+        server = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    daemon.serve();
+                } catch (IOException e) {
+                    /* bind() has already succeeded. */
+                }
+            }
+        }, "daemon under test");
+        server.start();
+        socket = new Socket(InetAddress.getLoopbackAddress(), port);
+        in = new BufferedReader(new InputStreamReader(socket.getInputStream(),
+            StandardCharsets.UTF_8));
+        out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(),
+            StandardCharsets.UTF_8));
+    }
+
+    @After
+    public void stop() throws IOException, InterruptedException {
+        socket.close();
+        daemon.shutdown();
+        server.join(10000);
+    }
+
+    /**
+     * Send a command and read its response.
+     *
+     * @return The status line, then the body's lines with their dot-stuffing
+     *         undone.
+     */
+    private List<String> send(String command) throws IOException {
+        out.write(command);
+        out.write("\n");
+        out.flush();
+        List<String> response = new ArrayList<>();
+        response.add(in.readLine());
+        String line;
+        while (!(line = in.readLine()).equals(".")) {
+            response.add(line.startsWith(".") ? line.substring(1) : line);
+        }
+        return response;
+    }
+
+    /* The first line LOAD answers for a file, as the daemon should parse it. */
+    private static String loaded(String fileName) throws IOException {
+        RetrosheetEveReader reader = TestGames.read(fileName, TestGames.ROS_DIR, null);
+        return fileName + " " + reader.getGameAccounts().size() + " games, " +
+            reader.getErrorMessages().size() + " excluded";
+    }
+
+    /* The response's body, as it was rendered. */
+    private static String body(List<String> response) {
+        StringBuilder sb = new StringBuilder();
+        for (String line : response.subList(1, response.size())) {
+            sb.append(line).append('\n');
+        }
+        return sb.toString();
+    }
+
+    @Test(timeout = 60000)
+    public void responsesAreFramedAndDotStuffed() throws IOException {
+        assertEquals("OK", send("PING").get(0));
+
+        List<BoxscoreGameAccount> games = TestGames.readGames("2018NYA.EVA");
+        List<String> box = send("box " + TestGames.EVE_DIR + "2018NYA.EVA " +
+            games.get(0).getGameID() + " " + games.get(1).getGameID());
+        assertEquals("OK", box.get(0));
+        assertEquals(TestGames.render(games.subList(0, 2)), body(box));
+
+        /* LOAD begins its line with the file's name, here "./src/...". */
+        String name = "./" + TestGames.EVE_DIR + "2018NYA.EVA";
+        out.write("LOAD " + name + "\n");
+        out.flush();
+        assertEquals("OK", in.readLine());
+        assertEquals("." + loaded(name), in.readLine());
+        String line;
+        while (!(line = in.readLine()).equals(".")) {
+            assertFalse(line.startsWith("."));
+        }
+    }
+
+    @Test(timeout = 60000)
+    public void failedCommandsGetErr() throws IOException {
+        assertEquals("ERR Unknown command FROB.", send("FROB").get(0));
+        assertEquals("ERR Usage: BOX <file> [game IDs...]", send("BOX").get(0));
+        assertEquals("ERR Event file none.EVA not found.", send("BOX none.EVA").get(0));
+        List<String> missing = send("BOX " + TestGames.EVE_DIR + "2018NYA.EVA NYA201800000");
+        assertEquals(1, missing.size());
+        assertTrue(missing.get(0).startsWith("ERR Game NYA201800000 was not found"));
+
+        /* The connection is still usable after an error. */
+        assertEquals("OK", send("PING").get(0));
+    }
+
+    @Test(timeout = 60000)
+    public void changedFileIsParsedAgain() throws IOException {
+        File directory = Files.createTempDirectory("daemon").toFile();
+        try {
+            File file = new File(directory, "2018SEA.EVA");
+            List<String> lines = Files.readAllLines(
+                new File(TestGames.EVE_DIR + "2018SEA.EVA").toPath(), StandardCharsets.UTF_8);
+            Files.write(file.toPath(), lines, StandardCharsets.UTF_8);
+            assertEquals(loaded(file.getPath()), send("LOAD " + file.getPath()).get(1));
+
+            /* Keep only the first game, and make sure the change is seen. */
+            int second = 0;
+            for (int i = 0, ids = 0; i < lines.size() && ids < 2; i++) {
+                if (lines.get(i).startsWith("id,") && ++ids == 2) {
+                    second = i;
+                }
+            }
+            long modified = file.lastModified();
+            Files.write(file.toPath(), lines.subList(0, second), StandardCharsets.UTF_8);
+            file.setLastModified(modified - 10000);
+            assertTrue(loaded(file.getPath()).endsWith(" 1 games, 0 excluded"));
+            assertEquals(loaded(file.getPath()), send("LOAD " + file.getPath()).get(1));
+            assertEquals("games 1", send("STATS").get(2));
+        } finally {
+            TestGames.delete(directory);
+        }
+    }
+
+    @Test(timeout = 60000)
+    public void shutdownStopsTheDaemon() throws IOException, InterruptedException {
+        assertEquals("OK", send("SHUTDOWN").get(0));
+        assertEquals(null, in.readLine());
+        server.join(10000);
+        assertFalse(server.isAlive());
+        try {
+            new Socket(InetAddress.getLoopbackAddress(), port).close();
+            fail("The daemon accepted a connection after SHUTDOWN.");
+        } catch (ConnectException e) {
+            /* Expected. */
+        }
+    }
+}
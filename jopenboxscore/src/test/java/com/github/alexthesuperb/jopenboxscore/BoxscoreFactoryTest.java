@@ -0,0 +1,60 @@
+package com.github.alexthesuperb.jopenboxscore;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.Test;
+
+/**
+ * Check that the factory refuses unknown formats, and that a thread's
+ * renderer, reused from game to game, writes what a new renderer would.
+ */
+public class BoxscoreFactoryTest {
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownKeyThrows() throws IOException {
+        BoxscoreGameAccount game = TestGames.readGames("2018NYA.EVA").get(0);
+        BoxscoreFactory.getInstance().getBoxscore(game,
+            new BufferedWriter(new StringWriter()), "NoSuchBoxscore");
+    }
+
+    @Test
+    public void reusedRendererWritesLikeNewOne() throws IOException {
+        List<BoxscoreGameAccount> games = TestGames.readGames("2018NYA.EVA");
+        BoxscoreFactory factory = BoxscoreFactory.getInstance();
+        BaseballBoxscore first = null;
+        for (BoxscoreGameAccount game : games) {
+            StringWriter reused = new StringWriter();
+            BufferedWriter writer = new BufferedWriter(reused);
+            BaseballBoxscore boxscore = factory.getBoxscore(game, writer,
+                BoxscoreFactory.NEWSPAPER_BOXSCORE_KEY);
+            if (first == null) {
+                first = boxscore;
+            }
+            assertSame(first, boxscore);
+            boxscore.write();
+
+            StringWriter fresh = new StringWriter();
+            new NewspaperBoxscore(game, new BufferedWriter(fresh)).write();
+            assertEquals(game.getGameID(), fresh.toString(), reused.toString());
+        }
+    }
+
+    @Test
+    public void footnoteSymbolsAreNeverShared() {
+        Set<String> symbols = new HashSet<>();
+        for (int i = 0; i < 20; i++) {
+            assertTrue(symbols.add(NewspaperBoxscore.getFootnoteSymbol(i)));
+        }
+        assertEquals("*", NewspaperBoxscore.getFootnoteSymbol(0));
+        assertEquals("**", NewspaperBoxscore.getFootnoteSymbol(6));
+        assertEquals("##", NewspaperBoxscore.getFootnoteSymbol(7));
+    }
+}
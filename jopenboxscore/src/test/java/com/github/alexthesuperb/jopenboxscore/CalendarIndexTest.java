@@ -0,0 +1,63 @@
+package com.github.alexthesuperb.jopenboxscore;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import org.junit.Test;
+
+/**
+ * Check that a calendar index finds exactly the games of a date window, in
+ * order of date, and nothing outside the dates indexed.
+ */
+public class CalendarIndexTest {
+
+    @Test
+    public void findsGamesOfWindowByDate() throws IOException {
+        List<File> files = Arrays.asList(TestGames.file("2018NYA.EVA"),
+            TestGames.file("2018BOS.EVA"));
+        List<GameBlock> expected = new ArrayList<>();
+        for (File file : files) {
+            for (GameBlock block : GameBlock.readBlocks(file)) {
+                String date = block.getGameId().substring(3, 11);
+                if (date.compareTo("20180425") >= 0 && date.compareTo("20180510") <= 0) {
+                    expected.add(block);
+                }
+            }
+        }
+
+        /* A stable sort keeps games of the same date in file order. */
+        Collections.sort(expected, new Comparator<GameBlock>() {
+            @Override
+            public int compare(GameBlock a, GameBlock b) {
+                return a.getGameId().substring(3, 11).compareTo(b.getGameId().substring(3, 11));
+            }
+        });
+
+        File indexFile = File.createTempFile("calendar", ".idx");
+        try {
+            CalendarIndex.build(indexFile, files);
+            CalendarIndex index = CalendarIndex.open(indexFile);
+            index.checkCurrent();
+            List<GameLocation> found = index.find(20180425, 20180510);
+
+            assertTrue(expected.size() > 0);
+            assertEquals(expected.size(), found.size());
+            for (int i = 0; i < found.size(); i++) {
+                assertEquals(expected.get(i).getLines(), found.get(i).readBlock().getLines());
+            }
+            assertTrue(index.find(20170101, 20171231).isEmpty());
+            assertTrue(index.find(20190101, 20191231).isEmpty());
+            assertTrue(index.find(20180510, 20180425).isEmpty());
+        } finally {
+            Files.deleteIfExists(indexFile.toPath());
+        }
+    }
+}
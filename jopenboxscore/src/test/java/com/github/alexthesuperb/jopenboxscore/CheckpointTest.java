@@ -0,0 +1,65 @@
+package com.github.alexthesuperb.jopenboxscore;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+
+/**
+ * Check that a summary restored from a <code>Checkpoint</code> and completed
+ * with the remaining games is the same as one aggregated without stopping.
+ */
+public class CheckpointTest {
+
+    private static String summarize(NewspaperSummary summary, StringWriter text,
+            List<BoxscoreGameAccount> games) throws IOException {
+        summary.addGames(games);
+        summary.write();
+        return text.toString();
+    }
+
+    @Test
+    public void resumedSummaryMatchesUninterruptedSummary() throws IOException {
+        List<BoxscoreGameAccount> games = TestGames.readGames("2018NYA.EVA");
+        int half = games.size() / 2;
+
+        StringWriter expected = new StringWriter();
+        summarize(new NewspaperSummary(new BufferedWriter(expected)), expected, games);
+
+        NewspaperSummary first = new NewspaperSummary(new BufferedWriter(new StringWriter()));
+        first.addGames(games.subList(0, half));
+        File file = File.createTempFile("checkpoint", ".bin");
+        try {
+            new Checkpoint("run", Arrays.asList(TestGames.file("2018NYA.EVA")),
+                Arrays.asList(half), null, Collections.<String>emptyList(), null, null,
+                first).write(file);
+            Checkpoint checkpoint = Checkpoint.read(file);
+            checkpoint.checkResumable("run");
+            assertEquals(1, checkpoint.getCompletedFileCount());
+            assertEquals(half, checkpoint.getGameCount());
+
+            StringWriter actual = new StringWriter();
+            NewspaperSummary resumed = new NewspaperSummary(new BufferedWriter(actual));
+            checkpoint.restoreSummary(resumed);
+            assertEquals(expected.toString(),
+                summarize(resumed, actual, games.subList(half, games.size())));
+
+            try {
+                checkpoint.checkResumable("another run");
+                fail("A checkpoint was resumed by a different run.");
+            } catch (IOException expectedException) {
+                /* Refused, as it should be. */
+            }
+        } finally {
+            Files.deleteIfExists(file.toPath());
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.github.alexthesuperb.jopenboxscore;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.List;
+import org.junit.Test;
+
+/**
+ * Check that a compiled event file gives back the lines of its event file,
+ * and that its games are read as the event file's are.
+ */
+public class CompiledEventFileTest {
+
+    private static RetrosheetEveReader read(File file) throws IOException {
+        return TestGames.read(file.getPath(), TestGames.ROS_DIR, null);
+    }
+
+    @Test
+    public void compiledFileReadsAsEventFile() throws IOException {
+        File eveFile = TestGames.file("2018NYA.EVA");
+        File compiled = File.createTempFile("2018NYA", CompiledEventFile.EXTENSION);
+        try {
+            assertEquals(GameBlock.readBlocks(eveFile).size(),
+                CompiledEventFile.compile(eveFile, compiled));
+
+            RetrosheetEveReader text = read(eveFile);
+            RetrosheetEveReader binary = read(compiled);
+            assertEquals(TestGames.render(text.getGameAccounts()),
+                TestGames.render(binary.getGameAccounts()));
+            for (int i = 0; i < text.getGameAccounts().size(); i++) {
+                assertEquals(text.getGameAccounts().get(i).getLastLine(),
+                    binary.getGameAccounts().get(i).getLastLine());
+            }
+            /* A compiled file names its event file without the directory it was in. */
+            assertEquals(text.getErrorMessages().toString().replace(TestGames.EVE_DIR, ""),
+                binary.getErrorMessages().toString());
+            assertEquals("2018NYA.EVA", binary.getGameAccounts().get(0).getEveFileName());
+        } finally {
+            Files.delete(compiled.toPath());
+        }
+    }
+
+    @Test
+    public void compiledBlocksKeepTheirLines() throws IOException {
+        File eveFile = TestGames.file("2018SEA.EVA");
+        File compiled = File.createTempFile("2018SEA", CompiledEventFile.EXTENSION);
+        try {
+            CompiledEventFile.compile(eveFile, compiled);
+            List<GameBlock> expected = GameBlock.readBlocks(eveFile);
+            List<GameBlock> blocks;
+            try (InputStream in = new BufferedInputStream(
+                    Files.newInputStream(compiled.toPath()))) {
+                blocks = CompiledEventFile.read(in, compiled.getName()).getBlocks();
+            }
+            assertEquals(expected.size(), blocks.size());
+            for (int i = 0; i < blocks.size(); i++) {
+                assertEquals(expected.get(i).getLines(), blocks.get(i).getLines());
+                assertEquals(expected.get(i).getInfo(), blocks.get(i).getInfo());
+                assertEquals(expected.get(i).getChecksum(), blocks.get(i).getChecksum());
+            }
+        } finally {
+            Files.delete(compiled.toPath());
+        }
+    }
+}
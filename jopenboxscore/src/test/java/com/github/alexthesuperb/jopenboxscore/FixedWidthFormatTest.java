@@ -0,0 +1,59 @@
+package com.github.alexthesuperb.jopenboxscore;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * Check that <code>FixedWidthFormat</code> produces the same text as the
+ * <code>String.format</code> patterns it replaces.
+ */
+public class FixedWidthFormatTest {
+
+    @Test
+    public void battingRatesMatchStringFormat() {
+        /* Every AVG/OBP/SLG-like ratio a season line can produce. */
+        for (int den = 1; den <= 750; den++) {
+            for (int num = 0; num <= 4 * den && num <= 2000; num++) {
+                float rate = (float) num / den;
+                assertEquals(num + "/" + den, String.format("%.3f", rate),
+                    FixedWidthFormat.formatFixed(rate, 3));
+            }
+        }
+    }
+
+    @Test
+    public void earnedRunAveragesMatchStringFormat() {
+        /* Earned runs over outs recorded, scaled to nine innings. */
+        for (int outs = 1; outs <= 900; outs++) {
+            for (int er = 0; er <= 150; er++) {
+                float era = BaseballPlayer.getEarnedRunAverage(er, outs);
+                assertEquals(er + "/" + outs, String.format("%.2f", era),
+                    FixedWidthFormat.formatFixed(era, 2));
+            }
+        }
+    }
+
+    @Test
+    public void specialValues() {
+        assertEquals("", FixedWidthFormat.formatRateStat(Float.NaN, 3, false));
+        assertEquals("inf", FixedWidthFormat.formatRateStat(Float.POSITIVE_INFINITY, 2, true));
+        assertEquals(".300", FixedWidthFormat.formatRateStat(0.3f, 3, false));
+        assertEquals("1.000", FixedWidthFormat.formatRateStat(1f, 3, false));
+        assertEquals("0.00", FixedWidthFormat.formatRateStat(0f, 2, true));
+        assertEquals(String.format("%.2f", -0.0f), FixedWidthFormat.formatFixed(-0.0f, 2));
+        assertEquals(String.format("%.3f", 0.0005f), FixedWidthFormat.formatFixed(0.0005f, 3));
+        assertEquals(String.format("%.2f", 0.125f), FixedWidthFormat.formatFixed(0.125f, 2));
+    }
+
+    @Test
+    public void paddingMatchesStringFormat() {
+        StringBuilder sb = new StringBuilder();
+        FixedWidthFormat.appendLeft(sb, "Judge", 15);
+        FixedWidthFormat.appendRight(sb, 52, 5);
+        FixedWidthFormat.appendRight(sb, ".278", 7);
+        FixedWidthFormat.appendRight(sb, "longer than width", 5);
+        assertEquals(String.format("%-15s%5d%7s%5s", "Judge", 52, ".278",
+            "longer than width"), sb.toString());
+    }
+}
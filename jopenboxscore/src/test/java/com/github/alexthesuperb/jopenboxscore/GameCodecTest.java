@@ -0,0 +1,179 @@
+package com.github.alexthesuperb.jopenboxscore;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import org.junit.Test;
+
+/**
+ * Check that games decoded by <code>GameCodec</code>, directly or through
+ * <code>GameCache</code>, print the same boxscores and summary as the games
+ * they were encoded from.
+ */
+public class GameCodecTest {
+
+    private static final String EVE_FILE = TestGames.EVE_DIR + "2018NYA.EVA";
+
+    private static List<BoxscoreGameAccount> readFile(GameCache cache) throws IOException {
+        return TestGames.read(EVE_FILE, TestGames.ROS_DIR, cache).getGameAccounts();
+    }
+
+    private static String print(List<BoxscoreGameAccount> games) throws IOException {
+        StringWriter text = new StringWriter();
+        BufferedWriter writer = new BufferedWriter(text);
+        NewspaperSummary summary = new NewspaperSummary(writer);
+        for (BoxscoreGameAccount game : games) {
+            game.printBoxscore(writer, BoxscoreFactory.NEWSPAPER_BOXSCORE_KEY);
+            summary.addGame(game);
+        }
+        summary.write();
+        writer.flush();
+        return text.toString();
+    }
+
+    @Test
+    public void decodedGamesPrintLikeParsedGames() throws IOException {
+        List<BoxscoreGameAccount> parsed = readFile(null);
+        List<BoxscoreGameAccount> decoded = new LinkedList<>();
+        for (BoxscoreGameAccount game : parsed) {
+            decoded.add(GameCodec.decode(GameCodec.encode(game), "2018", EVE_FILE,
+                TestGames.ROS_DIR));
+        }
+        assertEquals(print(parsed), print(decoded));
+    }
+
+    @Test
+    public void cachedGamesPrintLikeParsedGames() throws IOException {
+        File dir = Files.createTempDirectory("jopenboxscore-cache").toFile();
+        try {
+            String expected = print(readFile(null));
+
+            GameCache cold = new GameCache(dir, GameCache.DEFAULT_MAX_BYTES);
+            assertEquals(expected, print(readFile(cold)));
+            assertEquals(0, cold.getHits());
+
+            GameCache warm = new GameCache(dir, GameCache.DEFAULT_MAX_BYTES);
+            assertEquals(cold.size(), warm.size());
+            assertEquals(expected, print(readFile(warm)));
+            assertEquals(cold.size(), warm.getHits());
+        } finally {
+            TestGames.delete(dir);
+        }
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedGames() throws IOException {
+        File dir = Files.createTempDirectory("jopenboxscore-cache").toFile();
+        try {
+            List<BoxscoreGameAccount> games = readFile(null);
+            GameBlock first = GameBlock.readBlocks(new File(EVE_FILE)).get(0);
+            File rosDir = TestGames.ROS_DIR;
+
+            /* Room for a few games only. */
+            long bound = 3 * GameCodec.encode(games.get(0)).length;
+            GameCache cache = new GameCache(dir, bound);
+            String firstKey = cache.key(first, "2018", rosDir);
+            cache.put(firstKey, games.get(0));
+            assertNotNull(cache.get(firstKey, "2018", EVE_FILE, rosDir));
+
+            for (GameBlock block : GameBlock.readBlocks(new File(EVE_FILE)).subList(1, 20)) {
+                BoxscoreGameAccount game = RetrosheetEveReader.readGame(block, "2018",
+                    EVE_FILE, rosDir, new LinkedList<String>());
+                if (game != null) {
+                    cache.put(cache.key(block, "2018", rosDir), game);
+                }
+            }
+            assertNull(cache.get(firstKey, "2018", EVE_FILE, rosDir));
+            assertTrue(cache.getTotalBytes() <= bound);
+        } finally {
+            TestGames.delete(dir);
+        }
+    }
+
+    @Test
+    public void recencySurvivesClosing() throws IOException {
+        File dir = Files.createTempDirectory("jopenboxscore-cache").toFile();
+        try {
+            File rosDir = TestGames.ROS_DIR;
+            List<GameBlock> blocks = new LinkedList<>();
+            List<BoxscoreGameAccount> games = new LinkedList<>();
+            long bound = -1;
+            for (GameBlock block : GameBlock.readBlocks(new File(EVE_FILE))) {
+                BoxscoreGameAccount game = RetrosheetEveReader.readGame(block, "2018",
+                    EVE_FILE, rosDir, new LinkedList<String>());
+                if (game != null && games.size() < 4) {
+                    blocks.add(block);
+                    games.add(game);
+                    bound += GameCodec.encode(game).length;
+                }
+            }
+
+            /* Room for all but one byte of four games: store three, then use the first again. */
+            GameCache cache = new GameCache(dir, bound);
+            List<String> keys = new LinkedList<>();
+            for (GameBlock block : blocks) {
+                keys.add(cache.key(block, "2018", rosDir));
+            }
+            for (int i = 0; i < 3; i++) {
+                cache.put(keys.get(i), games.get(i));
+            }
+            assertNotNull(cache.get(keys.get(0), "2018", EVE_FILE, rosDir));
+            cache.close();
+
+            /* The second game, not the first, is now the least recently used. */
+            cache = new GameCache(dir, bound);
+            assertEquals(3, cache.size());
+            cache.put(keys.get(3), games.get(3));
+            assertNull(cache.get(keys.get(1), "2018", EVE_FILE, rosDir));
+            assertNotNull(cache.get(keys.get(0), "2018", EVE_FILE, rosDir));
+            assertNotNull(cache.get(keys.get(3), "2018", EVE_FILE, rosDir));
+        } finally {
+            TestGames.delete(dir);
+        }
+    }
+
+    @Test
+    public void keysChangeWithTheirRosters() throws IOException {
+        File dir = Files.createTempDirectory("jopenboxscore-rosters").toFile();
+        try {
+            for (File file : TestGames.ROS_DIR.listFiles()) {
+                if (file.getName().endsWith(".ROS") || file.getName().equals("TEAM2018")) {
+                    Files.copy(file.toPath(), new File(dir, file.getName()).toPath());
+                }
+            }
+            List<GameBlock> blocks = GameBlock.readBlocks(new File(EVE_FILE));
+            GameCache cache = new GameCache(new File(dir, "cache"), GameCache.DEFAULT_MAX_BYTES);
+            String key = cache.key(blocks.get(0), "2018", dir);
+            assertEquals(key, cache.key(blocks.get(0), "2018", dir));
+            assertTrue(!key.equals(cache.key(blocks.get(1), "2018", dir)));
+            assertNull(cache.key(blocks.get(0), "2017", dir));
+
+            /* So does a correction of the same length. */
+            List<String> lines = new ArrayList<>(blocks.get(0).getLines());
+            String last = lines.get(lines.size() - 1);
+            char c = last.charAt(last.length() - 1);
+            lines.set(lines.size() - 1,
+                last.substring(0, last.length() - 1) + (c == '0' ? '1' : '0'));
+            GameBlock corrected = new GameBlock(blocks.get(0).getGameId(),
+                blocks.get(0).getFirstLine(), lines);
+            assertTrue(!key.equals(cache.key(corrected, "2018", dir)));
+
+            /* Touching either team's roster changes the key. */
+            File roster = new File(dir, blocks.get(0).getTeams()[0] + "2018.ROS");
+            roster.setLastModified(roster.lastModified() + 10000);
+            assertTrue(!key.equals(cache.key(blocks.get(0), "2018", dir)));
+        } finally {
+            TestGames.delete(dir);
+        }
+    }
+}
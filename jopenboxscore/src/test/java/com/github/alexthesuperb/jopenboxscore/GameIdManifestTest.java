@@ -0,0 +1,62 @@
+package com.github.alexthesuperb.jopenboxscore;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+/**
+ * Check that a game ID filter never rejects a game of its file, rarely
+ * accepts others, and survives being saved in a manifest.
+ */
+public class GameIdManifestTest {
+
+    private static List<String> readGameIds(String name) throws IOException {
+        List<String> gameIds = new ArrayList<>();
+        for (GameBlock block : GameBlock.readBlocks(TestGames.file(name))) {
+            gameIds.add(block.getGameId());
+        }
+        return gameIds;
+    }
+
+    @Test
+    public void filterAcceptsItsGamesAndFewOthers() throws IOException {
+        File eventFile = TestGames.file("2018NYA.EVA");
+        List<String> own = readGameIds("2018NYA.EVA");
+        List<String> others = readGameIds("2018BOS.EVA");
+        others.addAll(readGameIds("2018SEA.EVA"));
+        others.removeAll(own);
+
+        File manifestFile = File.createTempFile("ids", ".manifest");
+        Files.delete(manifestFile.toPath());
+        try {
+            GameIdManifest manifest = new GameIdManifest(manifestFile);
+            GameIdFilter filter = manifest.getFilter(eventFile);
+            assertEquals(1, manifest.getRebuiltCount());
+            manifest.save();
+
+            GameIdManifest loaded = new GameIdManifest(manifestFile);
+            GameIdFilter loadedFilter = loaded.getFilter(eventFile);
+            assertEquals(0, loaded.getRebuiltCount());
+
+            for (String gameId : own) {
+                assertTrue(filter.mightContain(gameId));
+                assertTrue(loadedFilter.mightContain(gameId));
+            }
+            int accepted = 0;
+            for (String gameId : others) {
+                if (loadedFilter.mightContain(gameId)) {
+                    accepted++;
+                }
+            }
+            assertTrue(accepted * 20 < others.size());
+        } finally {
+            Files.deleteIfExists(manifestFile.toPath());
+        }
+    }
+}
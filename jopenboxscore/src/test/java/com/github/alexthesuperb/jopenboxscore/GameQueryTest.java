@@ -0,0 +1,135 @@
+package com.github.alexthesuperb.jopenboxscore;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+import org.junit.Test;
+
+/**
+ * Check that a query selects the games its predicates describe, and the
+ * same games whether it scans the files or reads them through an index.
+ */
+public class GameQueryTest {
+
+    private static List<File> files() {
+        return Arrays.asList(TestGames.file("2018NYA.EVA"),
+            TestGames.file("2018BOS.EVA"));
+    }
+
+    private static List<String> gameIds(List<BoxscoreGameAccount> games) {
+        List<String> gameIds = new ArrayList<>();
+        for (BoxscoreGameAccount game : games) {
+            gameIds.add(game.getGameID());
+        }
+        return gameIds;
+    }
+
+    @Test
+    public void scanSelectsTeamNightGamesOfWindow() throws IOException {
+        List<String> expected = new ArrayList<>();
+        for (File file : files()) {
+            for (GameBlock block : GameBlock.readBlocks(file)) {
+                String date = block.getGameId().substring(3, 11);
+                if (Arrays.asList(block.getTeams()).contains("BOS") &&
+                        "night".equals(block.getInfo().get("daynight")) &&
+                        date.compareTo("20180501") >= 0 && date.compareTo("20180615") <= 0) {
+                    expected.add(block.getGameId());
+                }
+            }
+        }
+
+        List<String> errorMessages = new ArrayList<>();
+        List<BoxscoreGameAccount> games = GameQuery.over(files())
+            .dates("2018-05-01", "20180615")
+            .teams("bos")
+            .dayNight("night")
+            .list(errorMessages);
+
+        assertTrue(expected.size() > 0);
+        assertEquals(expected, gameIds(games));
+        assertTrue(errorMessages.isEmpty());
+    }
+
+    @Test
+    public void playerIndexSelectsSameGamesAsScan() throws IOException {
+        List<String> scanErrors = new ArrayList<>();
+        List<String> scanned = gameIds(GameQuery.over(files())
+            .player("judga001")
+            .doubleheader(0)
+            .list(scanErrors));
+
+        File indexFile = File.createTempFile("players", ".idx");
+        try {
+            PlayerIndex.build(indexFile, files());
+            GameQuery query = GameQuery.over(files())
+                .player("judga001")
+                .doubleheader(0)
+                .usingPlayerIndex(PlayerIndex.open(indexFile));
+            List<String> indexErrors = new ArrayList<>();
+            List<String> indexed = gameIds(query.list(indexErrors));
+
+            assertTrue(query.explain().startsWith("index: player index"));
+            assertTrue(scanned.size() > 0);
+            assertEquals(scanned, indexed);
+            assertEquals(scanErrors.size(), indexErrors.size());
+        } finally {
+            Files.deleteIfExists(indexFile.toPath());
+        }
+    }
+
+    @Test
+    public void gameIdsStopScanOnceFound() throws IOException {
+        String gameId = GameBlock.readBlocks(files().get(0)).get(0).getGameId();
+        GameQuery query = GameQuery.over(files()).gameIds(gameId, "BOS201804030");
+
+        assertEquals(Arrays.asList(gameId), gameIds(query.list(new ArrayList<String>())));
+        assertTrue(query.explain().startsWith("scan: 2 files"));
+    }
+
+    @Test
+    public void storeSelectsSameGamesAsScan() throws IOException {
+        List<String> scanned = gameIds(GameQuery.over(files())
+            .dates("20180501", "20180615")
+            .teams("BOS")
+            .dayNight("night")
+            .list(new ArrayList<String>()));
+
+        File directory = Files.createTempDirectory("store").toFile();
+        try {
+            GameStore store = new GameStore(directory);
+            try {
+                for (BoxscoreGameAccount game : GameQuery.over(files())
+                        .list(new ArrayList<String>())) {
+                    store.put(game);
+                }
+                GameQuery query = GameQuery.over()
+                    .dates("20180501", "20180615")
+                    .teams("BOS")
+                    .dayNight("night")
+                    .usingStore(store);
+                assertTrue(query.explain().startsWith("index: game store"));
+                /* The store lists games by date, not by file. */
+                assertEquals(new TreeSet<>(scanned),
+                    new TreeSet<>(gameIds(query.list(new ArrayList<String>()))));
+
+                /* Games named by ID are still limited to the seasons asked for. */
+                assertEquals(Arrays.asList(scanned.get(0)), gameIds(GameQuery.over()
+                    .gameIds(scanned.get(0)).usingStore(store)
+                    .list(new ArrayList<String>())));
+                assertTrue(GameQuery.over().gameIds(scanned.get(0)).season(2017)
+                    .usingStore(store).list(new ArrayList<String>()).isEmpty());
+            } finally {
+                store.close();
+            }
+        } finally {
+            TestGames.delete(directory);
+        }
+    }
+}
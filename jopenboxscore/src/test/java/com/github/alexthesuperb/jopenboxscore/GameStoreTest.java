@@ -0,0 +1,102 @@
+package com.github.alexthesuperb.jopenboxscore;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+/**
+ * Check that stored games render as they did when parsed, survive reopening,
+ * replacement, compaction and a torn write, and are found by ID and date.
+ */
+public class GameStoreTest {
+
+    @Test
+    public void storesReplacesAndCompactsGames() throws IOException {
+        List<BoxscoreGameAccount> games = TestGames.readGames("2018NYA.EVA");
+        File directory = Files.createTempDirectory("store").toFile();
+        try {
+            GameStore store = new GameStore(directory);
+            for (BoxscoreGameAccount game : games) {
+                store.put(game);
+            }
+            store.close();
+
+            store = new GameStore(directory);
+            assertEquals(games.size(), store.getGameCount());
+            BoxscoreGameAccount first = games.get(0);
+            assertEquals(TestGames.render(first), TestGames.render(store.get(first.getGameID())));
+            assertNull(store.get("BOS201804030"));
+
+            List<BoxscoreGameAccount> may = store.getGames(20180501, 20180531);
+            List<String> expected = new ArrayList<>();
+            for (BoxscoreGameAccount game : games) {
+                if (game.getGameID().substring(3, 9).equals("201805")) {
+                    expected.add(game.getGameID());
+                }
+            }
+            List<String> found = new ArrayList<>();
+            for (BoxscoreGameAccount game : may) {
+                found.add(game.getGameID());
+            }
+            assertEquals(expected, found);
+
+            /* Storing every game twice more leaves two thirds of the segment as garbage. */
+            for (int i = 0; i < 2; i++) {
+                for (BoxscoreGameAccount game : games) {
+                    store.put(game);
+                }
+            }
+            long length = new File(directory, GameStore.SEGMENT_NAME).length();
+            assertTrue(store.getGarbageBytes() > 0);
+            store.close();
+            assertTrue(new File(directory, GameStore.SEGMENT_NAME).length() < length);
+
+            store = new GameStore(directory);
+            assertEquals(0, store.getGarbageBytes());
+            assertEquals(games.size(), store.getGameCount());
+            assertEquals(TestGames.render(first), TestGames.render(store.get(first.getGameID())));
+            store.close();
+        } finally {
+            TestGames.delete(directory);
+        }
+    }
+
+    @Test
+    public void recoversFromTornWrite() throws IOException {
+        List<BoxscoreGameAccount> games = TestGames.readGames("2018NYA.EVA");
+        File directory = Files.createTempDirectory("store").toFile();
+        try {
+            GameStore store = new GameStore(directory);
+            store.put(games.get(0));
+            store.put(games.get(1));
+            store.close();
+
+            /* A third game was being written when the run stopped. */
+            File segment = new File(directory, GameStore.SEGMENT_NAME);
+            long length = segment.length();
+            try (RandomAccessFile file = new RandomAccessFile(segment, "rw")) {
+                file.seek(length);
+                file.writeInt(1000);
+                file.writeInt(0);
+                file.write(new byte[10]);
+            }
+
+            store = new GameStore(directory);
+            assertEquals(2, store.getGameCount());
+            assertEquals(length, segment.length());
+            store.put(games.get(2));
+            assertEquals(TestGames.render(games.get(2)), TestGames.render(store.get(games.get(2).getGameID())));
+            store.close();
+        } finally {
+            TestGames.delete(directory);
+        }
+    }
+}
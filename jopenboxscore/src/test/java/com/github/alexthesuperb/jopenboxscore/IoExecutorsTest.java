@@ -0,0 +1,93 @@
+package com.github.alexthesuperb.jopenboxscore;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import org.junit.Test;
+
+/**
+ * Check that the virtual-thread executor is used only when its factory
+ * exists and works, and that otherwise tasks run on a fixed pool of
+ * platform threads.
+ */
+public class IoExecutorsTest {
+
+    /* Stands in for a factory that works. */
+    public static ExecutorService newCachedExecutor() {
+        return Executors.newCachedThreadPool();
+    }
+
+    /* Stands in for a factory that needs previews enabled. */
+    public static ExecutorService newUnsupportedExecutor() {
+        throw new UnsupportedOperationException("Preview features are not enabled.");
+    }
+
+    private static String runTask(ExecutorService executor)
+            throws InterruptedException, ExecutionException {
+        try {
+            return executor.submit(new Callable<String>() {
+                @Override
+                public String call() {
+                    return "done";
+                }
+            }).get();
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void missingOrFailingFactoryIsNotUsed() {
+        assertNull(IoExecutors.findVirtualExecutorFactory(Executors.class, "noSuchFactory"));
+        assertNull(IoExecutors.findVirtualExecutorFactory(IoExecutorsTest.class,
+            "newUnsupportedExecutor"));
+        assertNotNull(IoExecutors.findVirtualExecutorFactory(IoExecutorsTest.class,
+            "newCachedExecutor"));
+    }
+
+    @Test
+    public void withoutFactoryTasksShareFixedPool() throws Exception {
+        ExecutorService executor = IoExecutors.newPerTaskExecutor(3, null);
+        assertTrue(executor instanceof ThreadPoolExecutor);
+        assertEquals(3, ((ThreadPoolExecutor) executor).getMaximumPoolSize());
+        assertEquals("done", runTask(executor));
+
+        /* A factory that fails when called falls back in the same way. */
+        Method failing = IoExecutorsTest.class.getMethod("newUnsupportedExecutor");
+        executor = IoExecutors.newPerTaskExecutor(3, failing);
+        assertEquals(3, ((ThreadPoolExecutor) executor).getMaximumPoolSize());
+        assertEquals("done", runTask(executor));
+    }
+
+    @Test
+    public void workingFactoryIsUsed() throws Exception {
+        Method factory = IoExecutors.findVirtualExecutorFactory(IoExecutorsTest.class,
+            "newCachedExecutor");
+        ExecutorService executor = IoExecutors.newPerTaskExecutor(3, factory);
+        assertEquals(Integer.MAX_VALUE, ((ThreadPoolExecutor) executor).getMaximumPoolSize());
+        assertEquals("done", runTask(executor));
+    }
+
+    @Test
+    public void thisJvmUsesVirtualThreadsIfItHasThem() throws Exception {
+        boolean hasFactory = IoExecutors.findVirtualExecutorFactory(Executors.class,
+            "newVirtualThreadPerTaskExecutor") != null;
+        assertEquals(hasFactory, IoExecutors.usesVirtualThreads());
+        ExecutorService executor = IoExecutors.newPerTaskExecutor(2);
+        assertEquals(!hasFactory, executor instanceof ThreadPoolExecutor);
+        assertEquals("done", runTask(executor));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void poolMustHaveThreads() {
+        IoExecutors.newPerTaskExecutor(0, null);
+    }
+}
@@ -0,0 +1,52 @@
+package com.github.alexthesuperb.jopenboxscore;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * Check that <code>LatencyHistogram</code>'s percentiles stay within a bucket
+ * width of the exact percentiles of the durations recorded.
+ */
+public class LatencyHistogramTest {
+
+    @Test
+    public void percentilesAreWithinBucketWidth() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Random random = new Random(2018);
+        long[] values = new long[100000];
+        for (int i = 0; i < values.length; i++) {
+            /* Log-normal-ish: mostly sub-millisecond, with a long tail. */
+            values[i] = (long) Math.exp(10 + 2 * random.nextGaussian());
+            histogram.record(values[i]);
+        }
+        Arrays.sort(values);
+
+        assertEquals(values.length, histogram.getCount());
+        assertEquals(values[values.length - 1], histogram.getMax());
+        for (double p : new double[] {0, 1, 50, 90, 99, 99.9, 99.99, 100}) {
+            long exact = values[Math.max(0, (int) Math.ceil(p / 100 * values.length) - 1)];
+            long estimate = histogram.getValueAtPercentile(p);
+            assertTrue(p + ": " + estimate + " < " + exact, estimate >= exact);
+            assertTrue(p + ": " + estimate + " >> " + exact,
+                estimate <= exact + Math.max(1, exact / 64));
+        }
+    }
+
+    @Test
+    public void smallDurationsAreExact() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long nanos = 0; nanos < 128; nanos++) {
+            histogram.record(nanos);
+        }
+        assertEquals(63, histogram.getValueAtPercentile(50));
+        assertEquals(127, histogram.getValueAtPercentile(100));
+
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getValueAtPercentile(99));
+    }
+}
@@ -0,0 +1,48 @@
+package com.github.alexthesuperb.jopenboxscore;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.util.List;
+import org.junit.Test;
+
+/**
+ * Check that merging the partial summaries of several event files gives the
+ * same summary as aggregating their games in one <code>NewspaperSummary</code>.
+ */
+public class PartialSummaryTest {
+
+    private static final String[] EVE_FILES = {"2018NYA.EVA", "2018BOS.EVA", "2018SEA.EVA"};
+
+    @Test
+    public void mergedPartialsMatchSingleSummary() throws IOException {
+        StringWriter expected = new StringWriter();
+        NewspaperSummary whole = new NewspaperSummary(new BufferedWriter(expected));
+        StringWriter actual = new StringWriter();
+        NewspaperSummary merged = new NewspaperSummary(new BufferedWriter(actual));
+
+        for (String name : EVE_FILES) {
+            List<BoxscoreGameAccount> games = TestGames.readGames(name);
+            whole.addGames(games);
+
+            File file = File.createTempFile("partial", ".bin");
+            try {
+                PartialSummaryWriter partial = new PartialSummaryWriter(file);
+                for (BoxscoreGameAccount game : games) {
+                    partial.accept(game);
+                }
+                partial.close();
+                merged.mergePartial(file);
+            } finally {
+                Files.deleteIfExists(file.toPath());
+            }
+        }
+        whole.write();
+        merged.write();
+        assertEquals(expected.toString(), actual.toString());
+    }
+}
@@ -0,0 +1,57 @@
+package com.github.alexthesuperb.jopenboxscore;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+
+/**
+ * Check that a player index finds exactly the games naming a player, and
+ * that the blocks it reads are those read from the whole file.
+ */
+public class PlayerIndexTest {
+
+    private static final String PLAYER_ID = "judga001";
+
+    @Test
+    public void findsEveryGameOfPlayer() throws IOException {
+        List<File> files = Arrays.asList(TestGames.file("2018NYA.EVA"),
+            TestGames.file("2018BOS.EVA"));
+        List<GameBlock> expected = new ArrayList<>();
+        for (File file : files) {
+            for (GameBlock block : GameBlock.readBlocks(file)) {
+                if (PlayerIndex.findPlayers(block).containsKey(PLAYER_ID)) {
+                    expected.add(block);
+                }
+            }
+        }
+
+        File indexFile = File.createTempFile("players", ".idx");
+        try {
+            PlayerIndex.build(indexFile, files);
+            PlayerIndex index = PlayerIndex.open(indexFile);
+            index.checkCurrent();
+            List<PlayerIndex.Appearance> found = index.find(PLAYER_ID);
+
+            assertTrue(expected.size() > 0);
+            assertEquals(expected.size(), found.size());
+            for (int i = 0; i < found.size(); i++) {
+                PlayerIndex.Appearance appearance = found.get(i);
+                GameBlock block = appearance.readBlock();
+                assertEquals(expected.get(i).getLines(), block.getLines());
+                assertEquals(expected.get(i).getFirstLine(), block.getFirstLine());
+                assertEquals("NYA", appearance.getTeamId());
+                assertTrue(appearance.isBatting());
+            }
+            assertTrue(index.find("nobody01").isEmpty());
+        } finally {
+            Files.deleteIfExists(indexFile.toPath());
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.github.alexthesuperb.jopenboxscore;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Check that reading a file counts its games, lines, bytes and failures,
+ * both in its own metrics and in the totals, and that only a bounded number
+ * of completed files keep metrics of their own.
+ */
+public class ProcessingMetricsTest {
+
+    private final ProcessingMetrics metrics = ProcessingMetrics.getInstance();
+
+    @Before
+    public void resetMetrics() {
+        metrics.reset();
+    }
+
+    @Test
+    public void readingAFileCountsItsProgress() throws IOException {
+        String fileName = TestGames.EVE_DIR + "2018NYA.EVA";
+        RetrosheetEveReader reader = TestGames.read(fileName, TestGames.ROS_DIR, null);
+        File file = new File(fileName);
+        long lines = Files.readAllLines(file.toPath(), StandardCharsets.ISO_8859_1).size();
+        int games = reader.getGameAccounts().size();
+        int failed = reader.getErrorMessages().size();
+        assertTrue(failed > 0);
+
+        EventFileMetrics fileMetrics = metrics.getFile(fileName);
+        assertNotNull(fileMetrics);
+        assertTrue(fileMetrics.isComplete());
+        assertEquals(games, fileMetrics.getGamesParsed());
+        assertEquals(failed, fileMetrics.getGamesFailed());
+        assertEquals(lines, fileMetrics.getLinesRead());
+        assertEquals(file.length(), fileMetrics.getBytesRead());
+        assertEquals(file.length(), fileMetrics.getFileLength());
+
+        assertEquals(1, metrics.getFilesRead());
+        assertEquals(games, metrics.getGamesParsed());
+        assertEquals(failed, metrics.getGamesFailed());
+        assertEquals(lines, metrics.getLinesRead());
+        assertEquals(file.length(), metrics.getBytesRead());
+        assertEquals("", metrics.getCurrentFile());
+    }
+
+    @Test
+    public void onlyTheLastCompletedFilesAreKept() throws JMException {
+        metrics.register();
+        int files = ProcessingMetrics.MAX_COMPLETED_FILES + 10;
+        for (int i = 0; i < files; i++) {
+            EventFileMetrics file = metrics.startFile("file" + i, 100);
+            file.start();
+            file.progress(10, 100, 1);
+            file.finish();
+        }
+        assertNull(metrics.getFile("file0"));
+        assertNull(metrics.getFile("file9"));
+        assertNotNull(metrics.getFile("file10"));
+        assertNotNull(metrics.getFile("file" + (files - 1)));
+        assertEquals(ProcessingMetrics.MAX_COMPLETED_FILES, ManagementFactory
+            .getPlatformMBeanServer().queryNames(new ObjectName(
+                ProcessingMetrics.DOMAIN + ":type=EventFile,*"), null).size());
+
+        /* The files dropped are still counted in the totals. */
+        assertEquals(files, metrics.getFilesRead());
+        assertEquals(files * 10, metrics.getLinesRead());
+        assertEquals(files * 100, metrics.getBytesRead());
+        assertEquals(files, metrics.getGamesFailed());
+    }
+}
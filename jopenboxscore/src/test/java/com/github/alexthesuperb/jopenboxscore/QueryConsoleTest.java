@@ -0,0 +1,61 @@
+package com.github.alexthesuperb.jopenboxscore;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+/**
+ * Check that a season index finds games by ID, team and date, and that the
+ * console answers from it, keeping answers for questions asked again.
+ */
+public class QueryConsoleTest {
+
+    private static SeasonIndex load() throws IOException {
+        return new SeasonIndex(GameQuery.over(TestGames.file("2018NYA.EVA"))
+            .list(new ArrayList<String>()));
+    }
+
+    @Test
+    public void indexFindsGamesByIdTeamAndDate() throws IOException {
+        SeasonIndex index = load();
+        BoxscoreGameAccount game = index.getGame("NYA201805040");
+
+        assertEquals("CLE", game.getVisitingTeamId());
+        assertTrue(index.getGames("20180504", "20180504").contains(game));
+        assertTrue(index.getGames("CLE", "20180501", "20180531").contains(game));
+        assertTrue(index.getGames("CLE", "20180601", "20180630").isEmpty());
+
+        List<BoxscoreGameAccount> headToHead = index.getHeadToHead("CLE", "NYA");
+        assertEquals(index.getGames("CLE", "00000000", "99999999"), headToHead);
+        String last = "";
+        for (BoxscoreGameAccount g : index.getGames("NYA", "20180401", "20180930")) {
+            assertTrue(SeasonIndex.getDate(g).compareTo(last) >= 0);
+            last = SeasonIndex.getDate(g);
+        }
+    }
+
+    @Test
+    public void consoleAnswersAndKeepsAnswers() throws IOException {
+        QueryConsole console = new QueryConsole(load());
+
+        String box = console.execute("box nya201805040");
+        assertTrue(box.contains("Game of 05/04/2018 -- Cleveland at New York"));
+        assertSame(box, console.execute("  BOX   NYA201805040 "));
+
+        String month = console.execute("month NYA 201805");
+        assertTrue(month.startsWith("New York Yankees Win/Loss Record"));
+        assertEquals(month, console.execute("month NYA 05"));
+        assertTrue(console.execute("vs nya cle").startsWith("05/04/2018  CLE"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void consoleRejectsGameNotLoaded() {
+        new QueryConsole(new SeasonIndex(new ArrayList<BoxscoreGameAccount>()))
+            .execute("box NYA201805040");
+    }
+}
@@ -0,0 +1,63 @@
+package com.github.alexthesuperb.jopenboxscore;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+
+/**
+ * Check that games read by ID are those requested, reported per file,
+ * without changing the caller's list, and that a team filter reads exactly
+ * the games of its teams.
+ */
+public class RetrosheetEveReaderTest {
+
+    private static RetrosheetEveReader readByID(String name, List<String> gameIDs)
+            throws IOException {
+        RetrosheetEveReader reader = TestGames.open(name);
+        reader.readGamesByID(gameIDs);
+        return reader;
+    }
+
+    @Test
+    public void readsRequestedGamesWithoutChangingList() throws IOException {
+        List<GameBlock> blocks = GameBlock.readBlocks(TestGames.file("2018NYA.EVA"));
+        String first = blocks.get(0).getGameId();
+        String last = blocks.get(blocks.size() - 1).getGameId();
+        List<String> gameIDs = Arrays.asList(last, "BOS201804030", first);
+
+        RetrosheetEveReader reader = readByID("2018NYA.EVA", gameIDs);
+        List<BoxscoreGameAccount> games = reader.close();
+
+        assertEquals(Arrays.asList(last, "BOS201804030", first), gameIDs);
+        assertEquals(Arrays.asList(first, last), reader.getFoundGameIDs());
+        assertEquals(2, games.size());
+        assertEquals(first, games.get(0).getGameID());
+        assertEquals(last, games.get(1).getGameID());
+    }
+
+    @Test
+    public void teamFilterReadsOnlyGamesOfTeam() throws IOException {
+        List<String> expected = new ArrayList<>();
+        for (GameBlock block : GameBlock.readBlocks(TestGames.file("2018BOS.EVA"))) {
+            if (Arrays.asList(block.getTeams()).contains("NYA")) {
+                expected.add(block.getGameId());
+            }
+        }
+
+        RetrosheetEveReader reader = TestGames.open("2018BOS.EVA");
+        reader.setTeamFilter(Collections.singleton("NYA"));
+        reader.readAll();
+        List<String> read = new ArrayList<>();
+        for (BoxscoreGameAccount game : reader.close()) {
+            read.add(game.getGameID());
+        }
+
+        assertEquals(10, expected.size());
+        assertEquals(expected, read);
+    }
+}
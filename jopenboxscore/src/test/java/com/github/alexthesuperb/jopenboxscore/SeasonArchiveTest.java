@@ -0,0 +1,130 @@
+package com.github.alexthesuperb.jopenboxscore;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import org.junit.Test;
+
+/**
+ * Check that event, roster and TEAM files are read out of zip archives and
+ * gzipped files as they are read from a directory, and that a damaged
+ * archive is reported when it is read.
+ */
+public class SeasonArchiveTest {
+
+    private static String render(String eveFileName, File rosDir) throws IOException {
+        return TestGames.render(TestGames.read(eveFileName, rosDir, null).getGameAccounts());
+    }
+
+    private static void gzip(File file, File gzipped) throws IOException {
+        try (OutputStream out = new GZIPOutputStream(new FileOutputStream(gzipped))) {
+            Files.copy(file.toPath(), out);
+        }
+    }
+
+    @Test
+    public void archivedFilesReadAsPlainFiles() throws IOException {
+        File directory = Files.createTempDirectory("archive").toFile();
+        File gzipped = new File(directory, "gz");
+        File zip = new File(directory, "2018eve.zip");
+        gzipped.mkdir();
+        try {
+            /* Rosters and events, in a folder of the zip, and gzipped one at a time. */
+            try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(zip))) {
+                for (File file : TestGames.ROS_DIR.listFiles()) {
+                    if (file.getName().matches("2018SEA.EVA|2018NYA.EVA|.*\\.ROS|TEAM2018")) {
+                        out.putNextEntry(new ZipEntry("2018eve/" + file.getName()));
+                        Files.copy(file.toPath(), out);
+                        out.closeEntry();
+                        gzip(file, new File(gzipped, file.getName() + ".gz"));
+                    }
+                }
+            }
+
+            List<String> events = SeasonArchive.listEventFiles(zip);
+            assertEquals(Arrays.asList(zip.getPath() + "!/2018eve/2018NYA.EVA",
+                zip.getPath() + "!/2018eve/2018SEA.EVA"), events);
+
+            String expected = render(TestGames.EVE_DIR + "2018SEA.EVA", TestGames.ROS_DIR);
+            assertEquals(expected, render(events.get(1), zip));
+            assertEquals(expected, render(zip.getPath() + "!/2018SEA.EVA", zip));
+            assertEquals(expected, render(new File(gzipped, "2018SEA.EVA.gz").getPath(),
+                gzipped));
+        } finally {
+            TestGames.delete(directory);
+        }
+    }
+
+    @Test
+    public void damagedArchivesAreReported() throws IOException {
+        File directory = Files.createTempDirectory("archive").toFile();
+        try {
+            File gzipped = new File(directory, "2018SEA.EVA.gz");
+            gzip(TestGames.file("2018SEA.EVA"), gzipped);
+            byte[] bytes = Files.readAllBytes(gzipped.toPath());
+            Files.write(gzipped.toPath(), Arrays.copyOf(bytes, bytes.length / 2));
+
+            /* The bytes inflated before the damage are read first. */
+            long read = 0;
+            try (InputStream in = SeasonArchive.open(gzipped.getPath())) {
+                byte[] buffer = new byte[4096];
+                int n;
+                while ((n = in.read(buffer)) >= 0) {
+                    read += n;
+                }
+                fail("A truncated file was read to its end.");
+            } catch (IOException e) {
+                assertTrue(read > 0);
+            }
+
+            try {
+                SeasonArchive.open(new File(directory, "none.zip").getPath() +
+                    "!/2018SEA.EVA").close();
+                fail("A missing archive was opened.");
+            } catch (FileNotFoundException e) {
+                /* Expected. */
+            }
+        } finally {
+            TestGames.delete(directory);
+        }
+    }
+
+    @Test(timeout = 30000)
+    public void readAfterCloseFails() throws IOException {
+        File directory = Files.createTempDirectory("archive").toFile();
+        try {
+            File gzipped = new File(directory, "2018SEA.EVA.gz");
+            gzip(TestGames.file("2018SEA.EVA"), gzipped);
+            InputStream in = SeasonArchive.open(gzipped.getPath());
+            assertTrue(in.read() >= 0);
+            in.close();
+            try {
+                in.read();
+                fail("A closed stream was read.");
+            } catch (IOException e) {
+                /* Expected, rather than blocking forever. */
+            }
+            try {
+                in.read(new byte[16], 0, 16);
+                fail("A closed stream was read.");
+            } catch (IOException e) {
+                /* Expected. */
+            }
+        } finally {
+            TestGames.delete(directory);
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package com.github.alexthesuperb.jopenboxscore;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Check that after each update, the boxscores, shards and summary kept by a
+ * <code>SeasonWatcher</code> are those a full run over the same files would
+ * write, and that only the games and shards a change affects are parsed and
+ * rewritten.
+ */
+public class SeasonWatcherTest {
+
+    private static final String[] EVE_FILES = {"2018NYA.EVA", "2018SEA.EVA"};
+
+    private static final Pattern RESULT = Pattern.compile(
+        "Parsed (\\d+) games, kept (\\d+), removed (\\d+); rewrote (\\d+) files in \\d+ ms\\.");
+
+    private File directory;
+    private File shardDir;
+    private File summaryFile;
+    private File boxscoreFile;
+    private List<File> eventFiles;
+    private SeasonWatcher watcher;
+    private SeasonWatcher shardWatcher;
+
+    /* Bumped on every edit, so that each change is seen whatever the clock's resolution. */
+    private long clock = 1500000000000L;
+
+    /* The modification time given to every shard by ageShards(). */
+    private long aged;
+
+    @Before
+    public void copySeason() throws IOException {
+        directory = Files.createTempDirectory("watcher").toFile();
+        for (File file : TestGames.ROS_DIR.listFiles()) {
+            String name = file.getName();
+            if (name.endsWith(".ROS") || name.equals("TEAM2018") ||
+                    Arrays.asList(EVE_FILES).contains(name)) {
+                File copy = new File(directory, name);
+                Files.copy(file.toPath(), copy.toPath());
+                copy.setLastModified(clock);
+            }
+        }
+        eventFiles = new ArrayList<>();
+        for (String name : EVE_FILES) {
+            eventFiles.add(new File(directory, name));
+        }
+        boxscoreFile = new File(directory, "boxscores.txt");
+        summaryFile = new File(directory, "summary.txt");
+        shardDir = new File(directory, "shards");
+
+        watcher = new SeasonWatcher(eventFiles, "2018", directory, false);
+        watcher.setBoxscoreFile(boxscoreFile);
+        watcher.setSummaryFile(summaryFile);
+        shardWatcher = new SeasonWatcher(eventFiles, "2018", directory, false);
+        shardWatcher.setShardDirectory(shardDir, ShardedBoxscoreWriter.SHARD_BY_TEAM);
+    }
+
+    @After
+    public void deleteSeason() throws IOException {
+        TestGames.delete(directory);
+    }
+
+    /** @return parsed, kept, removed and rewritten, as reported by an update. */
+    private static int[] counts(String result) {
+        Matcher m = RESULT.matcher(result);
+        assertTrue(result, m.matches());
+        return new int[] {Integer.parseInt(m.group(1)), Integer.parseInt(m.group(2)),
+            Integer.parseInt(m.group(3)), Integer.parseInt(m.group(4))};
+    }
+
+    private static String read(File file) throws IOException {
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+
+    /** The games a full run would read, in order. */
+    private List<BoxscoreGameAccount> readAll() throws IOException {
+        List<BoxscoreGameAccount> games = new ArrayList<>();
+        for (File file : eventFiles) {
+            games.addAll(TestGames.read(file.getPath(), directory, null).getGameAccounts());
+        }
+        return games;
+    }
+
+    /* Games that cannot be read are kept too, as blocks to try again. */
+    private int countBlocks() throws IOException {
+        int blocks = 0;
+        for (File file : eventFiles) {
+            blocks += GameBlock.readBlocks(file).size();
+        }
+        return blocks;
+    }
+
+    /** Check every output against a full run, and return the games it read. */
+    private List<BoxscoreGameAccount> checkAgainstFullRun() throws IOException {
+        List<BoxscoreGameAccount> games = readAll();
+        assertEquals(TestGames.render(games), read(boxscoreFile));
+
+        StringWriter text = new StringWriter();
+        NewspaperSummary summary = new NewspaperSummary(new BufferedWriter(text));
+        summary.addGames(games);
+        summary.write();
+        assertEquals(text.toString(), read(summaryFile));
+
+        Map<String, List<BoxscoreGameAccount>> shards = new LinkedHashMap<>();
+        for (BoxscoreGameAccount game : games) {
+            String key = ShardedBoxscoreWriter.getShardKey(
+                ShardedBoxscoreWriter.SHARD_BY_TEAM, game);
+            if (!shards.containsKey(key)) {
+                shards.put(key, new ArrayList<BoxscoreGameAccount>());
+            }
+            shards.get(key).add(game);
+        }
+        Set<String> names = new TreeSet<>();
+        for (Map.Entry<String, List<BoxscoreGameAccount>> shard : shards.entrySet()) {
+            String name = shard.getKey() + ShardedBoxscoreWriter.SHARD_EXTENSION;
+            names.add(name);
+            assertEquals(TestGames.render(shard.getValue()), read(new File(shardDir, name)));
+        }
+        assertEquals(names, new TreeSet<>(Arrays.asList(shardDir.list())));
+        return games;
+    }
+
+    /** Age every shard, so that those an update rewrites can be told apart. */
+    private void ageShards() {
+        aged = clock - 100000;
+        for (File shard : shardDir.listFiles()) {
+            shard.setLastModified(aged);
+        }
+    }
+
+    /** @return the shards written since <code>ageShards()</code>. */
+    private Set<String> rewrittenShards() {
+        Set<String> keys = new HashSet<>();
+        for (File shard : shardDir.listFiles()) {
+            if (shard.lastModified() != aged) {
+                keys.add(shard.getName().replace(ShardedBoxscoreWriter.SHARD_EXTENSION, ""));
+            }
+        }
+        return keys;
+    }
+
+    private void edit(File file, String find, String replace) throws IOException {
+        String text = read(file);
+        assertTrue(text.contains(find));
+        Files.write(file.toPath(), text.replaceFirst(Pattern.quote(find), replace)
+            .getBytes(StandardCharsets.UTF_8));
+        file.setLastModified(clock += 10000);
+    }
+
+    private void update(int parsed, int kept, int removed) throws IOException {
+        int[] counts = counts(watcher.update());
+        assertEquals(Arrays.asList(parsed, kept, removed),
+            Arrays.asList(counts[0], counts[1], counts[2]));
+        counts = counts(shardWatcher.update());
+        assertEquals(Arrays.asList(parsed, kept, removed),
+            Arrays.asList(counts[0], counts[1], counts[2]));
+    }
+
+    @Test
+    public void unchangedBlocksAreKept() throws IOException {
+        update(readAll().size(), 0, 0);
+        List<BoxscoreGameAccount> games = checkAgainstFullRun();
+
+        /* Nothing changed: nothing is parsed or written. */
+        int[] counts = counts(watcher.update());
+        assertEquals(Arrays.asList(0, countBlocks(), 0, 0),
+            Arrays.asList(counts[0], counts[1], counts[2], counts[3]));
+
+        /* One game's attendance changes: only it is parsed, and only its shard written. */
+        ageShards();
+        edit(eventFiles.get(0), "info,attendance,46776", "info,attendance,46777");
+        update(1, countBlocks() - 1, 1);
+        checkAgainstFullRun();
+        assertEquals(new HashSet<>(Arrays.asList("NYA")), rewrittenShards());
+    }
+
+    @Test
+    public void rosterChangeReparsesItsGames() throws IOException {
+        update(readAll().size(), 0, 0);
+        List<BoxscoreGameAccount> games = checkAgainstFullRun();
+
+        /* Every game BOS played in was read with BOS2018.ROS. */
+        int withBos = 0;
+        Set<String> shards = new HashSet<>();
+        for (BoxscoreGameAccount game : games) {
+            if (game.getVisitingTeamId().equals("BOS") || game.getHomeTeamId().equals("BOS")) {
+                withBos++;
+                shards.add(game.getHomeTeamId());
+            }
+        }
+        assertTrue(withBos > 0);
+
+        ageShards();
+        File roster = new File(directory, "BOS2018.ROS");
+        roster.setLastModified(clock += 10000);
+        /* Games that could not be read are read again too, so are not kept. */
+        update(withBos, games.size() - withBos, withBos);
+        checkAgainstFullRun();
+        assertEquals(shards, rewrittenShards());
+    }
+
+    @Test
+    public void removedGamesRebuildTheirTeams() throws IOException {
+        update(readAll().size(), 0, 0);
+        List<BoxscoreGameAccount> games = checkAgainstFullRun();
+
+        /* Drop SEA's last game: its teams' summary lines must lose it. */
+        File sea = eventFiles.get(1);
+        String text = read(sea);
+        int last = text.lastIndexOf("id,SEA");
+        Files.write(sea.toPath(), text.substring(0, last).getBytes(StandardCharsets.UTF_8));
+        sea.setLastModified(clock += 10000);
+        ageShards();
+        update(0, countBlocks(), 1);
+        assertEquals(games.size() - 1, checkAgainstFullRun().size());
+        assertEquals(new HashSet<>(Arrays.asList("SEA")), rewrittenShards());
+
+        /* Emptying a file removes all of its games, and its shard. */
+        int seaGames = TestGames.read(sea.getPath(), directory, null).getGameAccounts().size();
+        Files.write(sea.toPath(), new byte[0]);
+        sea.setLastModified(clock += 10000);
+        update(0, countBlocks(), seaGames);
+        checkAgainstFullRun();
+        assertTrue(!new File(shardDir, "SEA" + ShardedBoxscoreWriter.SHARD_EXTENSION).exists());
+    }
+}
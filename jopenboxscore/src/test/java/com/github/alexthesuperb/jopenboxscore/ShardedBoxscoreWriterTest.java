@@ -0,0 +1,115 @@
+package com.github.alexthesuperb.jopenboxscore;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+
+/**
+ * Check that each shard holds the boxscores of its games in the order they
+ * were added, and that a game whose boxscore cannot be rendered is reported
+ * by <code>flush()</code> and <code>close()</code> rather than hanging them.
+ */
+public class ShardedBoxscoreWriterTest {
+
+    /* Games by shard key, in the order they are added. */
+    private static Map<String, List<BoxscoreGameAccount>> byShard(int shardType,
+            List<BoxscoreGameAccount> games) {
+        Map<String, List<BoxscoreGameAccount>> shards = new LinkedHashMap<>();
+        for (BoxscoreGameAccount game : games) {
+            String key = ShardedBoxscoreWriter.getShardKey(shardType, game);
+            if (!shards.containsKey(key)) {
+                shards.put(key, new ArrayList<BoxscoreGameAccount>());
+            }
+            shards.get(key).add(game);
+        }
+        return shards;
+    }
+
+    private static void checkShards(int shardType) throws IOException {
+        List<BoxscoreGameAccount> games = new ArrayList<>();
+        games.addAll(TestGames.readGames("2018NYA.EVA"));
+        games.addAll(TestGames.readGames("2018SEA.EVA"));
+        File directory = Files.createTempDirectory("shards").toFile();
+        try {
+            ShardedBoxscoreWriter writer = new ShardedBoxscoreWriter(directory, shardType,
+                BoxscoreFactory.NEWSPAPER_BOXSCORE_KEY, 4);
+            for (BoxscoreGameAccount game : games) {
+                writer.addGame(game);
+            }
+            writer.close();
+
+            Map<String, List<BoxscoreGameAccount>> shards = byShard(shardType, games);
+            assertEquals(shards.size(), directory.listFiles().length);
+            for (Map.Entry<String, List<BoxscoreGameAccount>> shard : shards.entrySet()) {
+                File file = new File(directory,
+                    shard.getKey() + ShardedBoxscoreWriter.SHARD_EXTENSION);
+                assertEquals(TestGames.render(shard.getValue()),
+                    new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+            }
+        } finally {
+            TestGames.delete(directory);
+        }
+    }
+
+    @Test
+    public void shardsByTeamHoldTheirGamesInOrder() throws IOException {
+        checkShards(ShardedBoxscoreWriter.SHARD_BY_TEAM);
+    }
+
+    @Test
+    public void shardsByMonthHoldTheirGamesInOrder() throws IOException {
+        checkShards(ShardedBoxscoreWriter.SHARD_BY_MONTH);
+    }
+
+    @Test(timeout = 30000)
+    public void renderFailureIsReported() throws IOException {
+        BoxscoreGameAccount broken = new BoxscoreGameAccount("NYA201800000", "2018",
+                TestGames.EVE_DIR + "2018NYA.EVA", TestGames.ROS_DIR) {
+            @Override
+            public void printBoxscore(BufferedWriter outWriter, String type) {
+                throw new IllegalStateException("Unrenderable.");
+            }
+        };
+        File directory = Files.createTempDirectory("shards").toFile();
+        try {
+            /* The broken game has no date, so it goes to the shard "unknown". */
+            ShardedBoxscoreWriter writer = new ShardedBoxscoreWriter(directory,
+                ShardedBoxscoreWriter.SHARD_BY_MONTH, BoxscoreFactory.NEWSPAPER_BOXSCORE_KEY, 2);
+            writer.addGame(broken);
+            for (BoxscoreGameAccount game : TestGames.readGames("2018SEA.EVA")) {
+                try {
+                    writer.addGame(game);
+                } catch (IOException e) {
+                    /* Reported as soon as the broken game has been tried. */
+                    break;
+                }
+            }
+            try {
+                writer.flush();
+                fail("A game that could not be rendered was not reported by flush().");
+            } catch (IOException e) {
+                assertTrue(e.getMessage().contains("NYA201800000"));
+                assertTrue(e.getCause() instanceof IllegalStateException);
+            }
+            try {
+                writer.close();
+                fail("A game that could not be rendered was not reported by close().");
+            } catch (IOException e) {
+                assertTrue(e.getCause() instanceof IllegalStateException);
+            }
+        } finally {
+            TestGames.delete(directory);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.github.alexthesuperb.jopenboxscore;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Fixtures shared by the tests: the 2018 event, roster and TEAM files, and
+ * ways to read their games, render them and clean up after them.
+ */
+final class TestGames {
+
+    /** The directory of the 2018 event, roster and TEAM files. */
+    static final String EVE_DIR = "src/test/resources/2018eve/";
+
+    /** <code>EVE_DIR</code>, as the directory of TEAM and roster files. */
+    static final File ROS_DIR = new File(EVE_DIR);
+
+    private TestGames() {
+    }
+
+    /** @return an event file in <code>EVE_DIR</code>, such as "2018NYA.EVA". */
+    static File file(String name) {
+        return new File(EVE_DIR + name);
+    }
+
+    /** @return a reader of an event file in <code>EVE_DIR</code>, as a 2018 file. */
+    static RetrosheetEveReader open(String name) throws IOException {
+        return new RetrosheetEveReader(EVE_DIR + name, "2018", ROS_DIR);
+    }
+
+    /**
+     * Read every game of an event file, as a 2018 file.
+     *
+     * @param eveFileName The file's path, or the name of an entry of an archive.
+     * @param rosDir The directory or archive of TEAM and roster files.
+     * @param cache The cache of parsed games, or <code>null</code>.
+     * @return The closed reader, holding the games and error messages.
+     */
+    static RetrosheetEveReader read(String eveFileName, File rosDir, GameCache cache)
+            throws IOException {
+        RetrosheetEveReader reader = new RetrosheetEveReader(eveFileName, "2018", rosDir);
+        reader.setGameCache(cache);
+        reader.readAll();
+        reader.close();
+        return reader;
+    }
+
+    /** @return every game of an event file in <code>EVE_DIR</code>, such as "2018NYA.EVA". */
+    static List<BoxscoreGameAccount> readGames(String name) throws IOException {
+        return read(EVE_DIR + name, ROS_DIR, null).getGameAccounts();
+    }
+
+    /** @return a game's newspaper boxscore. */
+    static String render(BoxscoreGameAccount game) throws IOException {
+        return render(Collections.singletonList(game));
+    }
+
+    /** @return the newspaper boxscores of games, one after another. */
+    static String render(List<BoxscoreGameAccount> games) throws IOException {
+        StringWriter text = new StringWriter();
+        BufferedWriter writer = new BufferedWriter(text);
+        for (BoxscoreGameAccount game : games) {
+            game.printBoxscore(writer, BoxscoreFactory.NEWSPAPER_BOXSCORE_KEY);
+        }
+        writer.flush();
+        return text.toString();
+    }
+
+    /** Delete a file, or a directory and everything in it. */
+    static void delete(File file) throws IOException {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        Files.deleteIfExists(file.toPath());
+    }
+}